@@ -9,6 +9,12 @@ import java.time.format.DateTimeFormatter;
  */
 public abstract class Exportacion implements java.io.Serializable  {
 
+    // Se fija el identificador de versión para seguir leyendo los archivos .dat antiguos
+    private static final long serialVersionUID = -3030157459333254691L;
+
+    /** Formato de las fechas que se muestran ("dd/MM/yyyy"); es inmutable y se comparte. */
+    public static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
     protected String idCliente;
     protected String nombreCompleto;
     protected LocalDate fechaExportacion;
@@ -17,6 +23,9 @@ public abstract class Exportacion implements java.io.Serializable  {
     protected double kilogramosEmbalar;
     protected double costoTotal;
 
+    // Clave que le asigna el registro; no se guarda en los archivos (0 = sin asignar)
+    private transient long clave;
+
 
     // --- Constructor ---
 
@@ -84,14 +93,25 @@ public abstract class Exportacion implements java.io.Serializable  {
      * @return La fecha en formato de texto.
      */
     public String getFechaExportacionFormateada() {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-        return fechaExportacion.format(formatter);
+        return fechaExportacion.format(FORMATO_FECHA);
     }
     
     public LocalDate getFechaExportacion() {
         return fechaExportacion;
     }
 
+    /**
+     * Asigna la fecha de exportación.
+     * Se usa al restaurar una exportación guardada, para conservar su fecha original.
+     * @param fechaExportacion La fecha a asignar.
+     */
+    public final void setFechaExportacion(LocalDate fechaExportacion) {
+        if (fechaExportacion == null) {
+            throw new IllegalArgumentException("La fecha de exportación no puede estar vacía.");
+        }
+        this.fechaExportacion = fechaExportacion;
+    }
+
     public String getZonaEnvio() {
         return zonaEnvio;
     }
@@ -139,6 +159,25 @@ public abstract class Exportacion implements java.io.Serializable  {
         return costoTotal;
     }
 
+    /**
+     * Devuelve la clave de la exportación en el registro. No cambia mientras el
+     * programa está abierto, aunque la exportación se modifique o cambie de
+     * posición, así que sirve para ubicarla sin importar el filtro o el orden
+     * de la tabla.
+     * @return La clave, o 0 si la exportación todavía no está en el registro.
+     */
+    public long getClave() {
+        return clave;
+    }
+
+    /**
+     * Asigna la clave de la exportación. La usa el registro al agregarla.
+     * @param clave La clave asignada.
+     */
+    public void setClave(long clave) {
+        this.clave = clave;
+    }
+
     // --- Métodos de Lógica de Negocio ---
     
     /**
@@ -2,6 +2,12 @@ package Clases;
 // La palabra clave 'extends' establece la herencia
 public class ExportacionCargaPesada extends Exportacion implements java.io.Serializable  {
 
+    private static final long serialVersionUID = 5690918365290976397L;
+
+    // Tipos de carga con precio definido para envíos en barco
+    public static final java.util.List<String> TIPOS_CARGA = java.util.Collections.unmodifiableList(
+            java.util.Arrays.asList("Contenedor Refrigerado", "Contenedor no refrigerado", "Carga embalada"));
+
     // Atributo adicional específico de esta clase 
     private String tipoCarga; // "Contenedor Refrigerado", "Contenedor no refrigerado", etc.
 
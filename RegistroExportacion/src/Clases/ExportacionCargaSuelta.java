@@ -5,6 +5,8 @@ package Clases; // O el nombre de tu paquete
  * Hereda de Exportacion y añade una lógica de costo basada en los pies de la carga.
  */
 public class ExportacionCargaSuelta extends Exportacion  implements java.io.Serializable  {
+
+    private static final long serialVersionUID = 2148392959743109473L;
     private double piesCarga;
 
     public ExportacionCargaSuelta(String idCliente, String nombreCompleto, String zonaEnvio,
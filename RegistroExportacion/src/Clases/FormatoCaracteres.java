@@ -0,0 +1,113 @@
+package Clases;
+
+import java.time.LocalDate;
+
+/**
+ * Escribe enteros, fechas y montos carácter por carácter en un búfer, sin
+ * String.format ni Strings intermedios. Lo usan los renderizadores de la
+ * tabla y {@link reportes.EscritorReporte}, así que la ventana y los reportes
+ * muestran los valores exactamente igual.
+ *
+ * Cada método recibe el búfer y la posición donde empezar, y devuelve la
+ * posición siguiente; quien llama se asegura de que haya lugar para
+ * {@link #LARGO_MAXIMO} caracteres. Los valores que no se pueden escribir
+ * así devuelven -1 y se escriben con el texto de {@link #fechaComoTexto(LocalDate)}
+ * o {@link #montoComoTexto(double)}.
+ */
+public final class FormatoCaracteres {
+
+    /** Mayor cantidad de caracteres que escribe cualquiera de los métodos. */
+    public static final int LARGO_MAXIMO = 24;
+
+    // Mayor cantidad de centavos que se escribe directamente sin perder precisión
+    private static final double MAXIMO_DIRECTO = 1e15;
+
+    private FormatoCaracteres() {
+    }
+
+    /**
+     * Escribe un entero no negativo con al menos la cantidad de dígitos indicada (con ceros a la izquierda).
+     * @param destino El búfer.
+     * @param posicion Dónde empieza el número.
+     * @param valor Entero no negativo.
+     * @param digitos Cantidad mínima de dígitos.
+     * @return La posición siguiente al número.
+     */
+    public static int entero(char[] destino, int posicion, long valor, int digitos) {
+        int largo = posicion;
+        do {
+            destino[largo++] = (char) ('0' + valor % 10);
+            valor /= 10;
+            digitos--;
+        } while (valor > 0 || digitos > 0);
+        // Los dígitos quedaron al revés
+        for (int i = posicion, j = largo - 1; i < j; i++, j--) {
+            char c = destino[i];
+            destino[i] = destino[j];
+            destino[j] = c;
+        }
+        return largo;
+    }
+
+    /**
+     * Escribe una fecha como "dd/MM/yyyy".
+     * @param destino El búfer.
+     * @param posicion Dónde empieza la fecha.
+     * @param fecha La fecha.
+     * @return La posición siguiente, o -1 si el año no tiene cuatro dígitos.
+     */
+    public static int fecha(char[] destino, int posicion, LocalDate fecha) {
+        int anio = fecha.getYear();
+        if (anio < 0 || anio > 9999) {
+            return -1; // No ocurre con fechas reales
+        }
+        int largo = entero(destino, posicion, fecha.getDayOfMonth(), 2);
+        destino[largo++] = '/';
+        largo = entero(destino, largo, fecha.getMonthValue(), 2);
+        destino[largo++] = '/';
+        return entero(destino, largo, anio, 4);
+    }
+
+    /**
+     * @param fecha Una fecha que {@link #fecha(char[], int, LocalDate)} no escribe.
+     * @return La fecha como texto, en el mismo formato.
+     */
+    public static String fechaComoTexto(LocalDate fecha) {
+        return fecha.format(Exportacion.FORMATO_FECHA);
+    }
+
+    /**
+     * Escribe un monto como "$1234.50", igual que String.format("$%.2f").
+     * @param destino El búfer.
+     * @param posicion Dónde empieza el monto.
+     * @param monto El monto.
+     * @param separadorDecimal El separador decimal del idioma del sistema.
+     * @return La posición siguiente, o -1 si el monto no se puede escribir
+     * directamente (NaN, muy grande o a medio centavo).
+     */
+    public static int monto(char[] destino, int posicion, double monto, char separadorDecimal) {
+        double centesimos = Math.abs(monto) * 100;
+        // Cerca de medio centavo, String.format redondea según la representación decimal más corta
+        double fraccion = centesimos - Math.floor(centesimos);
+        if (Double.isNaN(monto) || centesimos >= MAXIMO_DIRECTO || Math.abs(fraccion - 0.5) < 1e-6) {
+            return -1;
+        }
+        long centavos = Math.round(centesimos);
+        int largo = posicion;
+        destino[largo++] = '$';
+        if (Double.doubleToRawLongBits(monto) < 0) {
+            destino[largo++] = '-'; // También "-0.00", como String.format
+        }
+        largo = entero(destino, largo, centavos / 100, 1);
+        destino[largo++] = separadorDecimal;
+        return entero(destino, largo, centavos % 100, 2);
+    }
+
+    /**
+     * @param monto Un monto que {@link #monto(char[], int, double, char)} no escribe.
+     * @return El monto como texto, en el mismo formato.
+     */
+    public static String montoComoTexto(double monto) {
+        return String.format("$%.2f", monto);
+    }
+}
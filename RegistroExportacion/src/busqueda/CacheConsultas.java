@@ -0,0 +1,206 @@
+package busqueda;
+
+import Clases.Exportacion;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Caché LRU de los resultados de las consultas, por su clave normalizada.
+ *
+ * Los cambios en el registro no vacían toda la caché: cada exportación
+ * agregada, modificada o eliminada se evalúa contra las consultas guardadas
+ * y solo se descartan aquellas cuyo resultado cambia (las que la exportación
+ * cumplía antes o cumple ahora).
+ *
+ * Se limita tanto la cantidad de consultas como el total de filas guardadas,
+ * descartando primero las usadas hace más tiempo.
+ * No es seguro para varios hilos; quien lo usa debe sincronizar el acceso.
+ */
+public class CacheConsultas {
+
+    /**
+     * Un resultado guardado y la consulta que lo produjo.
+     */
+    private static class Entrada {
+        final Consulta consulta;
+        final List<Exportacion> resultado;
+
+        Entrada(Consulta consulta, List<Exportacion> resultado) {
+            this.consulta = consulta;
+            this.resultado = resultado;
+        }
+    }
+
+    /**
+     * Contadores de uso de la caché en un momento dado.
+     */
+    public static final class Estadisticas {
+        private final long aciertos;
+        private final long fallos;
+        private final long invalidadas;
+        private final long desalojadas;
+        private final int entradas;
+        private final int filas;
+
+        Estadisticas(long aciertos, long fallos, long invalidadas, long desalojadas, int entradas, int filas) {
+            this.aciertos = aciertos;
+            this.fallos = fallos;
+            this.invalidadas = invalidadas;
+            this.desalojadas = desalojadas;
+            this.entradas = entradas;
+            this.filas = filas;
+        }
+
+        public long getAciertos() {
+            return aciertos;
+        }
+
+        public long getFallos() {
+            return fallos;
+        }
+
+        public long getInvalidadas() {
+            return invalidadas;
+        }
+
+        public long getDesalojadas() {
+            return desalojadas;
+        }
+
+        public int getEntradas() {
+            return entradas;
+        }
+
+        /**
+         * @return Porcentaje de consultas respondidas desde la caché.
+         */
+        public double getPorcentajeAciertos() {
+            long total = aciertos + fallos;
+            return total == 0 ? 0 : aciertos * 100.0 / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Caché de consultas: %d aciertos, %d fallos (%.1f%%), %d invalidadas, "
+                    + "%d desalojadas, %d consultas con %d filas",
+                    aciertos, fallos, getPorcentajeAciertos(), invalidadas, desalojadas, entradas, filas);
+        }
+    }
+
+    private final int maximoEntradas;
+    private final int maximoFilas;
+    // Con accessOrder = true, el orden de iteración va de la menos a la más usada
+    private final LinkedHashMap<String, Entrada> entradas = new LinkedHashMap<>(16, 0.75f, true);
+    private int filas = 0;
+
+    private long aciertos = 0;
+    private long fallos = 0;
+    private long invalidadas = 0;
+    private long desalojadas = 0;
+
+    /**
+     * @param maximoEntradas Cantidad máxima de consultas guardadas.
+     * @param maximoFilas Total máximo de filas entre todos los resultados.
+     */
+    public CacheConsultas(int maximoEntradas, int maximoFilas) {
+        this.maximoEntradas = maximoEntradas;
+        this.maximoFilas = maximoFilas;
+    }
+
+    /**
+     * Busca el resultado guardado de una consulta.
+     * @param consulta La consulta.
+     * @return El resultado (no se puede modificar), o null si no está guardado.
+     */
+    public List<Exportacion> obtener(Consulta consulta) {
+        Entrada entrada = entradas.get(consulta.getClave());
+        if (entrada == null) {
+            fallos++;
+            return null;
+        }
+        aciertos++;
+        return entrada.resultado;
+    }
+
+    /**
+     * Guarda el resultado de una consulta recién ejecutada.
+     * @param consulta La consulta.
+     * @param resultado Su resultado; la caché se queda con la lista.
+     * @return El resultado, sin posibilidad de modificarlo.
+     */
+    public List<Exportacion> guardar(Consulta consulta, List<Exportacion> resultado) {
+        List<Exportacion> guardado = Collections.unmodifiableList(resultado);
+        if (resultado.size() > maximoFilas) {
+            return guardado; // No entraría ni vaciando la caché
+        }
+        Entrada anterior = entradas.put(consulta.getClave(), new Entrada(consulta, guardado));
+        if (anterior != null) {
+            filas -= anterior.resultado.size();
+        }
+        filas += resultado.size();
+        Iterator<Entrada> menosUsadas = entradas.values().iterator();
+        while (entradas.size() > maximoEntradas || filas > maximoFilas) {
+            filas -= menosUsadas.next().resultado.size();
+            menosUsadas.remove();
+            desalojadas++;
+        }
+        return guardado;
+    }
+
+    // --- Invalidación ---
+
+    /**
+     * @param exp La exportación agregada al registro.
+     */
+    public void agregada(Exportacion exp) {
+        invalidarSi(exp, null);
+    }
+
+    /**
+     * @param anterior La exportación reemplazada.
+     * @param nueva La exportación que ocupa su lugar.
+     */
+    public void reemplazada(Exportacion anterior, Exportacion nueva) {
+        invalidarSi(anterior, nueva);
+    }
+
+    /**
+     * @param exp La exportación eliminada del registro.
+     */
+    public void eliminada(Exportacion exp) {
+        invalidarSi(exp, null);
+    }
+
+    private void invalidarSi(Exportacion exp, Exportacion otra) {
+        if (entradas.isEmpty()) {
+            return;
+        }
+        Iterator<Entrada> it = entradas.values().iterator();
+        while (it.hasNext()) {
+            Entrada entrada = it.next();
+            if (entrada.consulta.cumple(exp) || (otra != null && entrada.consulta.cumple(otra))) {
+                filas -= entrada.resultado.size();
+                it.remove();
+                invalidadas++;
+            }
+        }
+    }
+
+    /**
+     * Descarta todos los resultados guardados (las estadísticas se mantienen).
+     */
+    public void vaciar() {
+        entradas.clear();
+        filas = 0;
+    }
+
+    /**
+     * @return Los contadores actuales.
+     */
+    public Estadisticas getEstadisticas() {
+        return new Estadisticas(aciertos, fallos, invalidadas, desalojadas, entradas.size(), filas);
+    }
+}
@@ -0,0 +1,35 @@
+package busqueda;
+
+import Clases.Exportacion;
+import java.util.function.Function;
+
+/**
+ * Campos de texto en los que se puede buscar por subcadena.
+ */
+public enum CampoBusqueda {
+    ID_CLIENTE("idCliente", Exportacion::getIdCliente),
+    ZONA_ENVIO("zonaEnvio", Exportacion::getZonaEnvio);
+
+    private final String nombre;
+    private final Function<Exportacion, String> lector;
+
+    CampoBusqueda(String nombre, Function<Exportacion, String> lector) {
+        this.nombre = nombre;
+        this.lector = lector;
+    }
+
+    /**
+     * @return El nombre del campo en {@link Exportacion}.
+     */
+    public String getNombre() {
+        return nombre;
+    }
+
+    /**
+     * @param exp Una exportación.
+     * @return El valor de este campo en la exportación.
+     */
+    public String valor(Exportacion exp) {
+        return lector.apply(exp);
+    }
+}
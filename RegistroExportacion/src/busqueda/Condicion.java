@@ -0,0 +1,372 @@
+package busqueda;
+
+import Clases.Exportacion;
+import Clases.ExportacionCargaPesada;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Una condición sobre las exportaciones, para combinar en una {@link Consulta}.
+ *
+ * Las condiciones que tienen un índice ({@link Indexada}) saben estimar
+ * cuántas filas devuelven y buscarlas en él; el planificador usa esa
+ * estimación para elegir por dónde empezar. Las demás solo se evalúan fila
+ * por fila.
+ */
+public abstract class Condicion {
+
+    /** Costo relativo de evaluar la condición en una fila (para ordenar los filtros). */
+    static final int COSTO_NUMERO = 1;
+    static final int COSTO_TEXTO = 2;
+    static final int COSTO_SUBCADENA = 4;
+
+    // Valores distintos que recuerda cada condición de subcadena
+    private static final int MAXIMO_RESPUESTAS = 4096;
+
+    /**
+     * @param exp Una exportación.
+     * @return true si la exportación cumple la condición.
+     */
+    public abstract boolean cumple(Exportacion exp);
+
+    /**
+     * @return Costo relativo de {@link #cumple(Exportacion)}.
+     */
+    int costo() {
+        return COSTO_NUMERO;
+    }
+
+    /**
+     * Texto que identifica la condición sin importar cómo se escribió
+     * (mayúsculas, tildes, períodos relativos). Dos condiciones con la misma
+     * clave aceptan las mismas exportaciones.
+     * @return La clave normalizada.
+     */
+    String clave() {
+        return toString();
+    }
+
+    /**
+     * @return El nombre del índice que resuelve la condición, o null si no tiene.
+     */
+    public String getIndice() {
+        return null;
+    }
+
+    /**
+     * Una condición que se puede resolver con un índice del registro.
+     */
+    abstract static class Indexada extends Condicion {
+
+        @Override
+        public abstract String getIndice();
+
+        /**
+         * @param indices Los índices del registro.
+         * @return Cantidad de exportaciones que cumplen la condición según su índice.
+         */
+        abstract int estimar(IndicesExportaciones indices);
+
+        /**
+         * @param indices Los índices del registro.
+         * @return Las exportaciones que cumplen la condición, leídas del índice.
+         */
+        abstract List<Exportacion> buscar(IndicesExportaciones indices);
+    }
+
+    // --- Condiciones disponibles ---
+
+    /**
+     * @param idCliente Cédula exacta (formato X-XXXX-XXXX).
+     * @return Condición "el cliente es idCliente".
+     */
+    public static Condicion cliente(String idCliente) {
+        return new Cliente(idCliente);
+    }
+
+    /**
+     * @param campo Campo de texto.
+     * @param texto Texto buscado, sin distinguir mayúsculas ni tildes.
+     * @return Condición "el campo contiene el texto".
+     */
+    public static Condicion contiene(CampoBusqueda campo, String texto) {
+        return new Contiene(campo, texto);
+    }
+
+    /**
+     * @param rango Período, con ambas fechas incluidas.
+     * @return Condición "la fecha de exportación está en el período".
+     */
+    public static Condicion fecha(RangoFechas rango) {
+        return new Fecha(rango);
+    }
+
+    /**
+     * @param tipoServicio "Barco" o "Avion", sin distinguir mayúsculas.
+     * @return Condición "el tipo de servicio es tipoServicio".
+     */
+    public static Condicion servicio(String tipoServicio) {
+        return new Servicio(tipoServicio);
+    }
+
+    /**
+     * @param tipoCarga Tipo de carga de las exportaciones de carga pesada.
+     * @return Condición "es carga pesada con ese tipo de carga".
+     */
+    public static Condicion tipoCarga(String tipoCarga) {
+        return new TipoCarga(tipoCarga);
+    }
+
+    /**
+     * @param minimo Mínimo incluido (puede ser Double.NEGATIVE_INFINITY).
+     * @param maximo Máximo incluido (puede ser Double.POSITIVE_INFINITY).
+     * @return Condición sobre los kilogramos a embalar.
+     */
+    public static Condicion kilogramos(double minimo, double maximo) {
+        return new Rango("kilogramos", minimo, maximo) {
+            @Override
+            double valor(Exportacion exp) {
+                return exp.getKilogramosEmbalar();
+            }
+        };
+    }
+
+    /**
+     * @param minimo Mínimo incluido (puede ser Double.NEGATIVE_INFINITY).
+     * @param maximo Máximo incluido (puede ser Double.POSITIVE_INFINITY).
+     * @return Condición sobre el costo total.
+     */
+    public static Condicion costo(double minimo, double maximo) {
+        return new Rango("costo", minimo, maximo) {
+            @Override
+            double valor(Exportacion exp) {
+                return exp.getCostoTotal();
+            }
+        };
+    }
+
+    // --- Implementaciones ---
+
+    private static class Cliente extends Indexada {
+        private final String idCliente;
+
+        Cliente(String idCliente) {
+            this.idCliente = idCliente;
+        }
+
+        @Override
+        public boolean cumple(Exportacion exp) {
+            return idCliente.equals(exp.getIdCliente());
+        }
+
+        @Override
+        int costo() {
+            return COSTO_TEXTO;
+        }
+
+        @Override
+        public String getIndice() {
+            return "índice de clientes";
+        }
+
+        @Override
+        int estimar(IndicesExportaciones indices) {
+            return indices.getClientes().contar(idCliente);
+        }
+
+        @Override
+        List<Exportacion> buscar(IndicesExportaciones indices) {
+            return indices.getClientes().buscar(idCliente);
+        }
+
+        @Override
+        public String toString() {
+            return "idCliente = " + idCliente;
+        }
+    }
+
+    private static class Contiene extends Indexada {
+        private final CampoBusqueda campo;
+        private final String texto;
+        private final String buscado;
+        // Respuesta por valor: los valores se repiten mucho y normalizar los que tienen tildes es caro
+        private final ConcurrentHashMap<String, Boolean> respuestas = new ConcurrentHashMap<>();
+
+        Contiene(CampoBusqueda campo, String texto) {
+            this.campo = campo;
+            this.texto = texto;
+            this.buscado = IndiceTrigramas.normalizar(texto);
+        }
+
+        @Override
+        public boolean cumple(Exportacion exp) {
+            String valor = campo.valor(exp);
+            if (valor == null) {
+                return false;
+            }
+            Boolean respuesta = respuestas.get(valor);
+            if (respuesta == null) {
+                if (respuestas.size() >= MAXIMO_RESPUESTAS) {
+                    respuestas.clear();
+                }
+                respuesta = IndiceTrigramas.normalizar(valor).contains(buscado);
+                respuestas.put(valor, respuesta);
+            }
+            return respuesta;
+        }
+
+        @Override
+        int costo() {
+            return COSTO_SUBCADENA;
+        }
+
+        @Override
+        public String getIndice() {
+            return "trigramas de " + campo.getNombre();
+        }
+
+        @Override
+        int estimar(IndicesExportaciones indices) {
+            return indices.getTexto(campo).contar(texto);
+        }
+
+        @Override
+        List<Exportacion> buscar(IndicesExportaciones indices) {
+            return indices.getTexto(campo).buscar(texto);
+        }
+
+        @Override
+        String clave() {
+            return campo.getNombre() + " contiene \"" + buscado + "\"";
+        }
+
+        @Override
+        public String toString() {
+            return campo.getNombre() + " contiene \"" + texto + "\"";
+        }
+    }
+
+    private static class Fecha extends Indexada {
+        private final RangoFechas rango;
+
+        Fecha(RangoFechas rango) {
+            this.rango = rango;
+        }
+
+        @Override
+        public boolean cumple(Exportacion exp) {
+            return rango.contiene(exp.getFechaExportacion());
+        }
+
+        @Override
+        public String getIndice() {
+            return "índice de fechas";
+        }
+
+        @Override
+        int estimar(IndicesExportaciones indices) {
+            return indices.getFechas().contar(rango.getDesde(), rango.getHasta());
+        }
+
+        @Override
+        List<Exportacion> buscar(IndicesExportaciones indices) {
+            return indices.getFechas().buscar(rango.getDesde(), rango.getHasta());
+        }
+
+        @Override
+        public String toString() {
+            return "fechaExportacion entre " + rango;
+        }
+    }
+
+    private static class Servicio extends Condicion {
+        private final String tipoServicio;
+
+        Servicio(String tipoServicio) {
+            this.tipoServicio = tipoServicio;
+        }
+
+        @Override
+        public boolean cumple(Exportacion exp) {
+            return tipoServicio.equalsIgnoreCase(exp.getTipoServicio());
+        }
+
+        @Override
+        int costo() {
+            return COSTO_TEXTO;
+        }
+
+        @Override
+        String clave() {
+            return "tipoServicio = " + tipoServicio.toLowerCase();
+        }
+
+        @Override
+        public String toString() {
+            return "tipoServicio = " + tipoServicio;
+        }
+    }
+
+    private static class TipoCarga extends Condicion {
+        private final String tipoCarga;
+
+        TipoCarga(String tipoCarga) {
+            this.tipoCarga = tipoCarga;
+        }
+
+        @Override
+        public boolean cumple(Exportacion exp) {
+            return exp instanceof ExportacionCargaPesada
+                    && tipoCarga.equalsIgnoreCase(((ExportacionCargaPesada) exp).getTipoCarga());
+        }
+
+        @Override
+        int costo() {
+            return COSTO_TEXTO;
+        }
+
+        @Override
+        String clave() {
+            return "tipoCarga = " + tipoCarga.toLowerCase();
+        }
+
+        @Override
+        public String toString() {
+            return "tipoCarga = " + tipoCarga;
+        }
+    }
+
+    private abstract static class Rango extends Condicion {
+        private final String nombre;
+        private final double minimo;
+        private final double maximo;
+
+        Rango(String nombre, double minimo, double maximo) {
+            if (maximo < minimo) {
+                throw new IllegalArgumentException("El máximo de " + nombre + " no puede ser menor que el mínimo.");
+            }
+            this.nombre = nombre;
+            this.minimo = minimo;
+            this.maximo = maximo;
+        }
+
+        abstract double valor(Exportacion exp);
+
+        @Override
+        public boolean cumple(Exportacion exp) {
+            double valor = valor(exp);
+            return valor >= minimo && valor <= maximo;
+        }
+
+        @Override
+        public String toString() {
+            if (minimo == Double.NEGATIVE_INFINITY) {
+                return nombre + " <= " + maximo;
+            }
+            if (maximo == Double.POSITIVE_INFINITY) {
+                return nombre + " >= " + minimo;
+            }
+            return nombre + " entre " + minimo + " y " + maximo;
+        }
+    }
+}
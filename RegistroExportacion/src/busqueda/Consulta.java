@@ -0,0 +1,170 @@
+package busqueda;
+
+import Clases.Exportacion;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Una consulta sobre las exportaciones: la conjunción (Y) de varias condiciones.
+ * Se ejecuta con {@code RepositorioExportaciones.buscar}, que usa el
+ * {@link PlanificadorConsultas} para decidir cómo resolverla.
+ */
+public class Consulta {
+
+    private final ArrayList<Condicion> condiciones = new ArrayList<>();
+
+    /**
+     * Agrega una condición que las exportaciones también deben cumplir.
+     * @param condicion La condición.
+     * @return Esta misma consulta, para encadenar llamadas.
+     */
+    public Consulta y(Condicion condicion) {
+        condiciones.add(condicion);
+        return this;
+    }
+
+    /**
+     * @return Las condiciones de la consulta, en el orden en que se agregaron.
+     */
+    public List<Condicion> getCondiciones() {
+        return Collections.unmodifiableList(condiciones);
+    }
+
+    /**
+     * Clave normalizada de la consulta: no depende del orden de las
+     * condiciones ni de cómo se escribieron, así que sirve para reconocer una
+     * consulta repetida.
+     * @return La clave.
+     */
+    public String getClave() {
+        List<String> claves = new ArrayList<>(condiciones.size());
+        for (Condicion condicion : condiciones) {
+            claves.add(condicion.clave());
+        }
+        Collections.sort(claves);
+        return String.join(" Y ", claves);
+    }
+
+    /**
+     * @param exp Una exportación.
+     * @return true si la exportación cumple todas las condiciones.
+     */
+    public boolean cumple(Exportacion exp) {
+        for (Condicion condicion : condiciones) {
+            if (!condicion.cumple(exp)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Interpreta una consulta escrita como condiciones "campo=valor" separadas
+     * por punto y coma, por ejemplo
+     * "zona=chile; servicio=barco; kg=100..500; fecha=01/2024".
+     *
+     * Campos: cliente (cédula completa o parte), zona (parte del texto),
+     * servicio, carga (tipo de carga), fecha (como en {@link RangoFechas}),
+     * kg y costo (número exacto o rango "min..max", "min.." o "..max").
+     *
+     * @param texto El texto escrito.
+     * @param hoy La fecha actual, para los períodos relativos.
+     * @return La consulta.
+     * @throws IllegalArgumentException Si alguna condición no se entiende.
+     */
+    public static Consulta interpretar(String texto, LocalDate hoy) {
+        Consulta consulta = new Consulta();
+        for (String parte : texto.split(";")) {
+            if (parte.trim().isEmpty()) {
+                continue;
+            }
+            int igual = parte.indexOf('=');
+            if (igual < 0) {
+                throw new IllegalArgumentException("Falta '=' en la condición \"" + parte.trim() + "\".");
+            }
+            String campo = IndiceTrigramas.normalizar(parte.substring(0, igual)).trim();
+            String valor = parte.substring(igual + 1).trim();
+            if (valor.isEmpty()) {
+                throw new IllegalArgumentException("Falta el valor de \"" + campo + "\".");
+            }
+            switch (campo) {
+                case "cliente":
+                    consulta.y(IndiceClientes.clave(valor) >= 0
+                            ? Condicion.cliente(valor) : Condicion.contiene(CampoBusqueda.ID_CLIENTE, valor));
+                    break;
+                case "zona":
+                    consulta.y(Condicion.contiene(CampoBusqueda.ZONA_ENVIO, valor));
+                    break;
+                case "servicio":
+                    consulta.y(Condicion.servicio(valor));
+                    break;
+                case "carga":
+                    consulta.y(Condicion.tipoCarga(valor));
+                    break;
+                case "fecha":
+                    RangoFechas rango = RangoFechas.interpretar(valor, hoy);
+                    if (rango == null) {
+                        throw new IllegalArgumentException("Período no válido: \"" + valor + "\".");
+                    }
+                    consulta.y(Condicion.fecha(rango));
+                    break;
+                case "kg":
+                case "kilos":
+                    double[] kilos = leerRango(valor);
+                    consulta.y(Condicion.kilogramos(kilos[0], kilos[1]));
+                    break;
+                case "costo":
+                    double[] costo = leerRango(valor);
+                    consulta.y(Condicion.costo(costo[0], costo[1]));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Campo desconocido: \"" + campo + "\".");
+            }
+        }
+        return consulta;
+    }
+
+    /**
+     * @return {mínimo, máximo} de un número o un rango "min..max" con extremos opcionales.
+     */
+    private static double[] leerRango(String valor) {
+        try {
+            int puntos = valor.indexOf("..");
+            if (puntos < 0) {
+                double exacto = leerNumero(valor);
+                return new double[] { exacto, exacto };
+            }
+            String minimo = valor.substring(0, puntos).trim();
+            String maximo = valor.substring(puntos + 2).trim();
+            return new double[] {
+                minimo.isEmpty() ? Double.NEGATIVE_INFINITY : leerNumero(minimo),
+                maximo.isEmpty() ? Double.POSITIVE_INFINITY : leerNumero(maximo)
+            };
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Número o rango no válido: \"" + valor + "\".");
+        }
+    }
+
+    private static double leerNumero(String texto) {
+        double numero = Double.parseDouble(texto.trim().replace(',', '.'));
+        // parseDouble también acepta "NaN" e "Infinity", que darían rangos sin sentido
+        if (Double.isNaN(numero) || Double.isInfinite(numero)) {
+            throw new NumberFormatException(texto);
+        }
+        return numero;
+    }
+
+    @Override
+    public String toString() {
+        if (condiciones.isEmpty()) {
+            return "(todas)";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Condicion condicion : condiciones) {
+            sb.append(sb.length() == 0 ? "" : " Y ").append(condicion);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,139 @@
+package busqueda;
+
+import Clases.Exportacion;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Exportaciones de un grupo de un índice: un cliente, un día o un valor de
+ * texto, en el orden en que se agregaron.
+ *
+ * Quitar deja una lápida (null) en lugar de correr las siguientes, y la ranura
+ * de cada exportación se busca por su clave en una tabla que comparten todos
+ * los grupos del índice, así que quitar no recorre el grupo. Cuando las
+ * lápidas superan a las exportaciones, el grupo se compacta. Si la clave no
+ * lleva a la exportación (cambió mientras estaba en el índice), se la busca
+ * recorriendo el grupo.
+ *
+ * No es seguro para varios hilos; quien lo usa debe sincronizar el acceso.
+ */
+final class GrupoExportaciones {
+
+    // Debajo de esta cantidad de ranuras no vale la pena compactar
+    private static final int MINIMO_PARA_COMPACTAR = 8;
+
+    private final TablaHashLarga<Integer> ranuraDeClave;
+    private Exportacion[] ranuras = new Exportacion[2];
+    // Ranuras usadas (con las lápidas) y exportaciones vivas
+    private int usadas;
+    private int vivas;
+
+    /**
+     * @param ranuraDeClave Clave -> ranura, compartida por los grupos del índice.
+     */
+    GrupoExportaciones(TablaHashLarga<Integer> ranuraDeClave) {
+        this.ranuraDeClave = ranuraDeClave;
+    }
+
+    void agregar(Exportacion exp) {
+        if (usadas == ranuras.length) {
+            ranuras = Arrays.copyOf(ranuras, usadas * 2);
+        }
+        ranuras[usadas] = exp;
+        ranuraDeClave.poner(exp.getClave(), usadas);
+        usadas++;
+        vivas++;
+    }
+
+    /**
+     * @return true si la exportación estaba en el grupo.
+     */
+    boolean quitar(Exportacion exp) {
+        int ranura = liberarRanura(exp);
+        if (ranura < 0) {
+            return false;
+        }
+        ranuras[ranura] = null;
+        vivas--;
+        // Las lápidas del final se descartan enseguida
+        while (usadas > 0 && ranuras[usadas - 1] == null) {
+            usadas--;
+        }
+        if (usadas > MINIMO_PARA_COMPACTAR && usadas - vivas > vivas) {
+            compactar();
+        }
+        return true;
+    }
+
+    /**
+     * Pone la exportación nueva en el lugar de la anterior, que tiene la misma clave.
+     * @return true si la anterior estaba en el grupo.
+     */
+    boolean reemplazar(Exportacion anterior, Exportacion nueva) {
+        int ranura = liberarRanura(anterior);
+        if (ranura < 0) {
+            return false;
+        }
+        ranuras[ranura] = nueva;
+        ranuraDeClave.poner(nueva.getClave(), ranura);
+        return true;
+    }
+
+    /**
+     * @return La ranura de la exportación, que ya no figura en la tabla de claves, o -1 si no está.
+     */
+    private int liberarRanura(Exportacion exp) {
+        long clave = exp.getClave();
+        Integer ranura = ranuraDeClave.obtener(clave);
+        if (ranura != null && ranura < usadas && ranuras[ranura] == exp) {
+            ranuraDeClave.quitar(clave);
+            return ranura;
+        }
+        for (int i = usadas - 1; i >= 0; i--) {
+            if (ranuras[i] == exp) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void compactar() {
+        int escritas = 0;
+        for (int ranura = 0; ranura < usadas; ranura++) {
+            Exportacion exp = ranuras[ranura];
+            if (exp != null) {
+                ranuras[escritas] = exp;
+                ranuraDeClave.poner(exp.getClave(), escritas);
+                escritas++;
+            }
+        }
+        Arrays.fill(ranuras, escritas, usadas, null);
+        usadas = escritas;
+        if (ranuras.length > 2 * usadas + 2) {
+            ranuras = Arrays.copyOf(ranuras, Math.max(2, usadas * 2));
+        }
+    }
+
+    /**
+     * @return La cantidad de exportaciones del grupo.
+     */
+    int tamano() {
+        return vivas;
+    }
+
+    boolean estaVacio() {
+        return vivas == 0;
+    }
+
+    /**
+     * Agrega las exportaciones del grupo, en orden, al final de la lista.
+     * @param destino La lista que recibe las exportaciones.
+     */
+    void copiarEn(List<Exportacion> destino) {
+        for (int ranura = 0; ranura < usadas; ranura++) {
+            if (ranuras[ranura] != null) {
+                destino.add(ranuras[ranura]);
+            }
+        }
+    }
+}
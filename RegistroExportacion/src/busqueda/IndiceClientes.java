@@ -0,0 +1,154 @@
+package busqueda;
+
+import Clases.Exportacion;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Índice de las exportaciones por cédula del cliente.
+ *
+ * Como la cédula tiene el formato fijo X-XXXX-XXXX, sus nueve dígitos se
+ * convierten en una clave long y se buscan en una {@link TablaHashLarga}, así
+ * que encontrar las exportaciones de un cliente no depende del tamaño del
+ * registro. Las cédulas con otro formato (datos antiguos sin validar) se
+ * guardan aparte y se revisan una por una. Las exportaciones de cada cliente
+ * están en un {@link GrupoExportaciones}, así que quitar una no recorre las
+ * del cliente.
+ *
+ * El índice se actualiza con cada cambio; no es seguro para varios hilos, quien
+ * lo usa debe sincronizar el acceso.
+ */
+public class IndiceClientes {
+
+    private final TablaHashLarga<GrupoExportaciones> porClave = new TablaHashLarga<>();
+    // Clave de cada exportación -> su ranura en el grupo del cliente
+    private final TablaHashLarga<Integer> ranuras = new TablaHashLarga<>();
+    private GrupoExportaciones sinFormato = new GrupoExportaciones(ranuras);
+
+    /**
+     * Convierte una cédula X-XXXX-XXXX en un número.
+     * @param idCliente La cédula.
+     * @return Sus nueve dígitos como número, o -1 si no tiene el formato esperado.
+     */
+    public static long clave(String idCliente) {
+        if (idCliente == null || idCliente.length() != 11 || idCliente.charAt(1) != '-' || idCliente.charAt(6) != '-') {
+            return -1;
+        }
+        long clave = 0;
+        for (int i = 0; i < 11; i++) {
+            if (i == 1 || i == 6) {
+                continue;
+            }
+            char c = idCliente.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            clave = clave * 10 + (c - '0');
+        }
+        return clave;
+    }
+
+    /**
+     * Agrega una exportación al índice.
+     * @param exp La exportación agregada al registro.
+     */
+    public void agregar(Exportacion exp) {
+        long clave = clave(exp.getIdCliente());
+        if (clave < 0) {
+            sinFormato.agregar(exp);
+            return;
+        }
+        GrupoExportaciones delCliente = porClave.obtener(clave);
+        if (delCliente == null) {
+            delCliente = new GrupoExportaciones(ranuras);
+            porClave.poner(clave, delCliente);
+        }
+        delCliente.agregar(exp);
+    }
+
+    /**
+     * Quita una exportación del índice.
+     * @param exp La exportación eliminada del registro.
+     */
+    public void quitar(Exportacion exp) {
+        long clave = clave(exp.getIdCliente());
+        if (clave < 0) {
+            sinFormato.quitar(exp);
+            return;
+        }
+        GrupoExportaciones delCliente = porClave.obtener(clave);
+        if (delCliente != null && delCliente.quitar(exp) && delCliente.estaVacio()) {
+            porClave.quitar(clave);
+        }
+    }
+
+    /**
+     * Cambia una exportación por otra. Si el cliente es el mismo, conserva su lugar en la lista.
+     * @param anterior La exportación reemplazada.
+     * @param nueva La exportación que ocupa su lugar.
+     */
+    public void reemplazar(Exportacion anterior, Exportacion nueva) {
+        long clave = clave(anterior.getIdCliente());
+        if (clave >= 0 && clave == clave(nueva.getIdCliente())) {
+            GrupoExportaciones delCliente = porClave.obtener(clave);
+            if (delCliente != null && delCliente.reemplazar(anterior, nueva)) {
+                return;
+            }
+        }
+        quitar(anterior);
+        agregar(nueva);
+    }
+
+    /**
+     * Quita todas las exportaciones del índice.
+     */
+    public void vaciar() {
+        porClave.vaciar();
+        ranuras.vaciar();
+        sinFormato = new GrupoExportaciones(ranuras);
+    }
+
+    /**
+     * Busca las exportaciones de un cliente.
+     * @param idCliente La cédula exacta del cliente.
+     * @return Sus exportaciones (una copia), o una lista vacía si no tiene.
+     */
+    public List<Exportacion> buscar(String idCliente) {
+        long clave = clave(idCliente);
+        if (clave >= 0) {
+            GrupoExportaciones delCliente = porClave.obtener(clave);
+            if (delCliente == null) {
+                return Collections.emptyList();
+            }
+            ArrayList<Exportacion> resultado = new ArrayList<>(delCliente.tamano());
+            delCliente.copiarEn(resultado);
+            return resultado;
+        }
+        ArrayList<Exportacion> resultado = new ArrayList<>();
+        sinFormato.copiarEn(resultado);
+        resultado.removeIf(exp -> exp.getIdCliente() == null || !exp.getIdCliente().equals(idCliente));
+        return resultado;
+    }
+
+    /**
+     * Cuenta las exportaciones de un cliente sin copiarlas.
+     * @param idCliente La cédula exacta del cliente.
+     * @return La cantidad de exportaciones del cliente.
+     */
+    public int contar(String idCliente) {
+        long clave = clave(idCliente);
+        if (clave >= 0) {
+            GrupoExportaciones delCliente = porClave.obtener(clave);
+            return delCliente == null ? 0 : delCliente.tamano();
+        }
+        return buscar(idCliente).size();
+    }
+
+    /**
+     * @return La cantidad de clientes distintos con cédula válida.
+     */
+    public int cantidadClientes() {
+        return porClave.tamano();
+    }
+}
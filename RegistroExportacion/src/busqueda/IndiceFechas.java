@@ -0,0 +1,168 @@
+package busqueda;
+
+import Clases.Exportacion;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Índice ordenado de las exportaciones por fecha de exportación.
+ *
+ * Guarda los días distintos (como epoch-day) en un arreglo ordenado y, para
+ * cada día, sus exportaciones. Una consulta por período hace una búsqueda
+ * binaria del primer día y luego recorre solo los días del rango, así que
+ * cuesta O(log d + resultado), donde d es la cantidad de días distintos.
+ *
+ * Las exportaciones de cada día están en un {@link GrupoExportaciones}, así
+ * que quitar una no recorre las del día. Un día que se queda sin
+ * exportaciones sigue en el arreglo hasta que llega un día nuevo, que ya
+ * tiene que abrir un lugar y de paso descarta los vacíos.
+ *
+ * No es seguro para varios hilos; quien lo usa debe sincronizar el acceso.
+ */
+public class IndiceFechas {
+
+    private int[] dias = new int[16];
+    private GrupoExportaciones[] exportacionesDelDia = new GrupoExportaciones[16];
+    // Días en el arreglo (con los vacíos) y días con exportaciones
+    private int cantidadDias = 0;
+    private int diasConExportaciones = 0;
+    // Clave de cada exportación -> su ranura en el grupo del día
+    private final TablaHashLarga<Integer> ranuras = new TablaHashLarga<>();
+
+    /**
+     * @return La posición del día, o -(posición donde iría) - 1 si no está.
+     */
+    private int posicion(int dia) {
+        return Arrays.binarySearch(dias, 0, cantidadDias, dia);
+    }
+
+    // --- Actualización ---
+
+    /**
+     * Agrega una exportación al índice.
+     * @param exp La exportación agregada al registro.
+     */
+    public void agregar(Exportacion exp) {
+        int dia = (int) exp.getFechaExportacion().toEpochDay();
+        int i = posicion(dia);
+        if (i < 0 && cantidadDias > diasConExportaciones) {
+            descartarDiasVacios();
+            i = posicion(dia);
+        }
+        if (i < 0) {
+            // Día nuevo: se abre un lugar en el arreglo (los días distintos son pocos)
+            i = -i - 1;
+            if (cantidadDias == dias.length) {
+                dias = Arrays.copyOf(dias, cantidadDias * 2);
+                exportacionesDelDia = Arrays.copyOf(exportacionesDelDia, cantidadDias * 2);
+            }
+            System.arraycopy(dias, i, dias, i + 1, cantidadDias - i);
+            System.arraycopy(exportacionesDelDia, i, exportacionesDelDia, i + 1, cantidadDias - i);
+            dias[i] = dia;
+            exportacionesDelDia[i] = new GrupoExportaciones(ranuras);
+            cantidadDias++;
+        }
+        if (exportacionesDelDia[i].estaVacio()) {
+            diasConExportaciones++;
+        }
+        exportacionesDelDia[i].agregar(exp);
+    }
+
+    private void descartarDiasVacios() {
+        int quedan = 0;
+        for (int i = 0; i < cantidadDias; i++) {
+            if (!exportacionesDelDia[i].estaVacio()) {
+                dias[quedan] = dias[i];
+                exportacionesDelDia[quedan++] = exportacionesDelDia[i];
+            }
+        }
+        Arrays.fill(exportacionesDelDia, quedan, cantidadDias, null);
+        cantidadDias = quedan;
+    }
+
+    /**
+     * Quita una exportación del índice.
+     * @param exp La exportación eliminada del registro.
+     */
+    public void quitar(Exportacion exp) {
+        int i = posicion((int) exp.getFechaExportacion().toEpochDay());
+        if (i < 0) {
+            return;
+        }
+        GrupoExportaciones delDia = exportacionesDelDia[i];
+        if (delDia.quitar(exp) && delDia.estaVacio()) {
+            diasConExportaciones--;
+        }
+    }
+
+    /**
+     * Cambia una exportación por otra.
+     * @param anterior La exportación reemplazada.
+     * @param nueva La exportación que ocupa su lugar.
+     */
+    public void reemplazar(Exportacion anterior, Exportacion nueva) {
+        // En el mismo día, la nueva ocupa el lugar de la anterior
+        if (anterior.getFechaExportacion().equals(nueva.getFechaExportacion())) {
+            int i = posicion((int) anterior.getFechaExportacion().toEpochDay());
+            if (i >= 0 && exportacionesDelDia[i].reemplazar(anterior, nueva)) {
+                return;
+            }
+        }
+        quitar(anterior);
+        agregar(nueva);
+    }
+
+    /**
+     * Quita todas las exportaciones del índice.
+     */
+    public void vaciar() {
+        Arrays.fill(exportacionesDelDia, 0, cantidadDias, null);
+        cantidadDias = 0;
+        diasConExportaciones = 0;
+        ranuras.vaciar();
+    }
+
+    // --- Búsqueda ---
+
+    /**
+     * Busca las exportaciones de un período.
+     * @param desde Primer día del período (incluido).
+     * @param hasta Último día del período (incluido).
+     * @return Las exportaciones del período, ordenadas por fecha.
+     */
+    public List<Exportacion> buscar(LocalDate desde, LocalDate hasta) {
+        int primero = (int) desde.toEpochDay();
+        int ultimo = (int) hasta.toEpochDay();
+        ArrayList<Exportacion> resultado = new ArrayList<>();
+        int i = posicion(primero);
+        for (i = i < 0 ? -i - 1 : i; i < cantidadDias && dias[i] <= ultimo; i++) {
+            exportacionesDelDia[i].copiarEn(resultado);
+        }
+        return resultado;
+    }
+
+    /**
+     * Cuenta las exportaciones de un período sin armar la lista.
+     * @param desde Primer día del período (incluido).
+     * @param hasta Último día del período (incluido).
+     * @return La cantidad de exportaciones del período.
+     */
+    public int contar(LocalDate desde, LocalDate hasta) {
+        int ultimo = (int) hasta.toEpochDay();
+        int cantidad = 0;
+        int i = posicion((int) desde.toEpochDay());
+        for (i = i < 0 ? -i - 1 : i; i < cantidadDias && dias[i] <= ultimo; i++) {
+            cantidad += exportacionesDelDia[i].tamano();
+        }
+        return cantidad;
+    }
+
+    /**
+     * @return La cantidad de días distintos con exportaciones.
+     */
+    public int cantidadDias() {
+        return diasConExportaciones;
+    }
+}
@@ -0,0 +1,270 @@
+package busqueda;
+
+import Clases.Exportacion;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Índice invertido de trigramas para buscar por subcadena en un campo de texto.
+ *
+ * Se indexan los valores distintos del campo, ya normalizados (minúsculas y sin
+ * tildes), no las filas: cada valor recibe un número y cada trigrama (tres
+ * caracteres seguidos) guarda la lista ordenada de los valores que lo
+ * contienen. Para buscar se intersecan las listas de los trigramas del texto,
+ * se verifica con contains solo en los valores candidatos y se devuelven las
+ * exportaciones de los que coinciden.
+ *
+ * Como hay muchos menos valores distintos que filas (países, cédulas), el
+ * índice es pequeño y los cambios en el registro no mueven las listas. Las
+ * exportaciones de cada valor están en un {@link GrupoExportaciones}, así que
+ * quitar una no recorre las demás del mismo valor.
+ * No es seguro para varios hilos; quien lo usa debe sincronizar el acceso.
+ */
+public class IndiceTrigramas {
+
+    /**
+     * Lista creciente de enteros sin convertirlos a Integer.
+     */
+    private static class ListaEnteros {
+        int[] datos = new int[4];
+        int tamano;
+
+        void agregar(int valor) {
+            if (tamano == datos.length) {
+                datos = Arrays.copyOf(datos, tamano * 2);
+            }
+            datos[tamano++] = valor;
+        }
+    }
+
+    private final CampoBusqueda campo;
+
+    // Valores distintos: número de valor -> texto normalizado y sus exportaciones.
+    // El mapa tiene también los textos originales, para no normalizar cada fila ("Perú" y "peru" -> mismo número).
+    private final HashMap<String, Integer> numeroDeValor = new HashMap<>();
+    private final ArrayList<String> valores = new ArrayList<>();
+    private final ArrayList<GrupoExportaciones> exportacionesDeValor = new ArrayList<>();
+    // Clave de cada exportación -> su ranura en el grupo del valor
+    private final TablaHashLarga<Integer> ranuras = new TablaHashLarga<>();
+
+    // Trigrama (tres caracteres empacados en un long) -> números de valor, en orden creciente
+    private final TablaHashLarga<ListaEnteros> listasPorTrigrama = new TablaHashLarga<>();
+
+    /**
+     * @param campo El campo que se indexa.
+     */
+    public IndiceTrigramas(CampoBusqueda campo) {
+        this.campo = campo;
+    }
+
+    /**
+     * Pasa un texto a minúsculas y le quita las tildes, para que "Perú" y "peru" coincidan.
+     * @param texto El texto original (puede ser null).
+     * @return El texto normalizado.
+     */
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String minusculas = texto.toLowerCase();
+        for (int i = 0; i < minusculas.length(); i++) {
+            if (minusculas.charAt(i) > 0x7F) {
+                // Solo los textos con caracteres especiales pasan por el Normalizer
+                return Normalizer.normalize(minusculas, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+            }
+        }
+        return minusculas;
+    }
+
+    private static long trigrama(String texto, int inicio) {
+        return ((long) texto.charAt(inicio) << 32) | ((long) texto.charAt(inicio + 1) << 16) | texto.charAt(inicio + 2);
+    }
+
+    // --- Actualización ---
+
+    /**
+     * Agrega una exportación al índice.
+     * @param exp La exportación agregada al registro.
+     */
+    public void agregar(Exportacion exp) {
+        String original = campo.valor(exp);
+        Integer numero = numeroDeValor.get(original == null ? "" : original);
+        if (numero == null) {
+            numero = numeroNuevo(original);
+        }
+        exportacionesDeValor.get(numero).agregar(exp);
+    }
+
+    /**
+     * Busca el número del valor normalizado, creándolo si no existe, y lo
+     * asocia también al texto original.
+     */
+    private int numeroNuevo(String original) {
+        String valor = normalizar(original);
+        Integer numero = numeroDeValor.get(valor);
+        if (numero == null) {
+            numero = valores.size();
+            numeroDeValor.put(valor, numero);
+            valores.add(valor);
+            exportacionesDeValor.add(new GrupoExportaciones(ranuras));
+            // Los números de valor crecen, así que cada lista queda ordenada
+            for (int i = 0; i + 3 <= valor.length(); i++) {
+                long t = trigrama(valor, i);
+                ListaEnteros lista = listasPorTrigrama.obtener(t);
+                if (lista == null) {
+                    lista = new ListaEnteros();
+                    listasPorTrigrama.poner(t, lista);
+                }
+                // Un trigrama repetido en el mismo valor (como en "aaaa") se anota una vez
+                if (lista.tamano == 0 || lista.datos[lista.tamano - 1] != numero) {
+                    lista.agregar(numero);
+                }
+            }
+        }
+        if (original != null && !original.equals(valor)) {
+            numeroDeValor.put(original, numero);
+        }
+        return numero;
+    }
+
+    /**
+     * Quita una exportación del índice. El valor queda en el índice aunque ya
+     * no tenga exportaciones, para volver a usarlo si reaparece.
+     * @param exp La exportación eliminada del registro.
+     */
+    public void quitar(Exportacion exp) {
+        Integer numero = numeroDe(exp);
+        if (numero != null) {
+            exportacionesDeValor.get(numero).quitar(exp);
+        }
+    }
+
+    private Integer numeroDe(Exportacion exp) {
+        String original = campo.valor(exp);
+        return numeroDeValor.get(original == null ? "" : original);
+    }
+
+    /**
+     * Cambia una exportación por otra.
+     * @param anterior La exportación reemplazada.
+     * @param nueva La exportación que ocupa su lugar.
+     */
+    public void reemplazar(Exportacion anterior, Exportacion nueva) {
+        // Con el mismo valor, la nueva ocupa el lugar de la anterior
+        Integer numero = numeroDe(anterior);
+        if (numero != null && numero.equals(numeroDe(nueva))
+                && exportacionesDeValor.get(numero).reemplazar(anterior, nueva)) {
+            return;
+        }
+        quitar(anterior);
+        agregar(nueva);
+    }
+
+    /**
+     * Quita todo el contenido del índice.
+     */
+    public void vaciar() {
+        numeroDeValor.clear();
+        valores.clear();
+        exportacionesDeValor.clear();
+        ranuras.vaciar();
+        listasPorTrigrama.vaciar();
+    }
+
+    // --- Búsqueda ---
+
+    /**
+     * Busca las exportaciones cuyo campo contiene el texto, sin distinguir
+     * mayúsculas ni tildes.
+     * @param texto El texto a buscar.
+     * @return Las exportaciones que coinciden, agrupadas por valor.
+     */
+    public List<Exportacion> buscar(String texto) {
+        ArrayList<Exportacion> resultado = new ArrayList<>();
+        for (int numero : valoresQueContienen(texto)) {
+            exportacionesDeValor.get(numero).copiarEn(resultado);
+        }
+        return resultado;
+    }
+
+    /**
+     * Cuenta las exportaciones cuyo campo contiene el texto, sin armar la lista.
+     * Solo revisa los valores distintos, así que sirve para estimar el costo
+     * de una búsqueda antes de hacerla.
+     * @param texto El texto a buscar.
+     * @return La cantidad de exportaciones que coinciden.
+     */
+    public int contar(String texto) {
+        int cantidad = 0;
+        for (int numero : valoresQueContienen(texto)) {
+            cantidad += exportacionesDeValor.get(numero).tamano();
+        }
+        return cantidad;
+    }
+
+    /**
+     * @return Los números de los valores que contienen el texto.
+     */
+    private int[] valoresQueContienen(String texto) {
+        String buscado = normalizar(texto);
+        if (buscado.length() < 3) {
+            // Sin trigramas: se revisan los valores distintos, que son pocos comparados con las filas
+            int[] coincidentes = new int[valores.size()];
+            int cantidad = 0;
+            for (int numero = 0; numero < valores.size(); numero++) {
+                if (valores.get(numero).contains(buscado)) {
+                    coincidentes[cantidad++] = numero;
+                }
+            }
+            return Arrays.copyOf(coincidentes, cantidad);
+        }
+
+        // Listas de los trigramas del texto; si alguno no está, no hay coincidencias
+        int cantidad = buscado.length() - 2;
+        ListaEnteros[] listas = new ListaEnteros[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            listas[i] = listasPorTrigrama.obtener(trigrama(buscado, i));
+            if (listas[i] == null) {
+                return new int[0];
+            }
+        }
+        // Se interseca empezando por la lista más corta
+        Arrays.sort(listas, (a, b) -> Integer.compare(a.tamano, b.tamano));
+        int[] candidatos = Arrays.copyOf(listas[0].datos, listas[0].tamano);
+        int cantidadCandidatos = candidatos.length;
+        for (int i = 1; i < listas.length && cantidadCandidatos > 0; i++) {
+            cantidadCandidatos = intersecar(candidatos, cantidadCandidatos, listas[i]);
+        }
+
+        // Los trigramas pueden coincidir en otro orden: se verifica el texto completo
+        int coincidentes = 0;
+        for (int i = 0; i < cantidadCandidatos; i++) {
+            if (valores.get(candidatos[i]).contains(buscado)) {
+                candidatos[coincidentes++] = candidatos[i];
+            }
+        }
+        return Arrays.copyOf(candidatos, coincidentes);
+    }
+
+    /**
+     * Deja en candidatos solo los números que también están en la lista.
+     * @return La nueva cantidad de candidatos.
+     */
+    private static int intersecar(int[] candidatos, int cantidad, ListaEnteros lista) {
+        int quedan = 0;
+        int j = 0;
+        for (int i = 0; i < cantidad && j < lista.tamano; i++) {
+            int numero = candidatos[i];
+            while (j < lista.tamano && lista.datos[j] < numero) {
+                j++;
+            }
+            if (j < lista.tamano && lista.datos[j] == numero) {
+                candidatos[quedan++] = numero;
+            }
+        }
+        return quedan;
+    }
+}
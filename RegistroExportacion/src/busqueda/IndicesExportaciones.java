@@ -0,0 +1,74 @@
+package busqueda;
+
+import Clases.Exportacion;
+
+/**
+ * Los índices en memoria de un registro de exportaciones, que se actualizan
+ * juntos con cada cambio.
+ *
+ * No es seguro para varios hilos; quien lo usa debe sincronizar el acceso.
+ */
+public class IndicesExportaciones {
+
+    private final IndiceClientes clientes = new IndiceClientes();
+    private final IndiceTrigramas idCliente = new IndiceTrigramas(CampoBusqueda.ID_CLIENTE);
+    private final IndiceTrigramas zonaEnvio = new IndiceTrigramas(CampoBusqueda.ZONA_ENVIO);
+    private final IndiceFechas fechas = new IndiceFechas();
+
+    /**
+     * @param exp La exportación agregada al registro.
+     */
+    public void agregar(Exportacion exp) {
+        clientes.agregar(exp);
+        idCliente.agregar(exp);
+        zonaEnvio.agregar(exp);
+        fechas.agregar(exp);
+    }
+
+    /**
+     * @param anterior La exportación reemplazada.
+     * @param nueva La exportación que ocupa su lugar.
+     */
+    public void reemplazar(Exportacion anterior, Exportacion nueva) {
+        clientes.reemplazar(anterior, nueva);
+        idCliente.reemplazar(anterior, nueva);
+        zonaEnvio.reemplazar(anterior, nueva);
+        fechas.reemplazar(anterior, nueva);
+    }
+
+    /**
+     * @param exp La exportación eliminada del registro.
+     */
+    public void quitar(Exportacion exp) {
+        clientes.quitar(exp);
+        idCliente.quitar(exp);
+        zonaEnvio.quitar(exp);
+        fechas.quitar(exp);
+    }
+
+    /**
+     * Quita todas las exportaciones de los índices.
+     */
+    public void vaciar() {
+        clientes.vaciar();
+        idCliente.vaciar();
+        zonaEnvio.vaciar();
+        fechas.vaciar();
+    }
+
+    public IndiceClientes getClientes() {
+        return clientes;
+    }
+
+    /**
+     * @param campo El campo de texto.
+     * @return El índice de trigramas de ese campo.
+     */
+    public IndiceTrigramas getTexto(CampoBusqueda campo) {
+        return campo == CampoBusqueda.ID_CLIENTE ? idCliente : zonaEnvio;
+    }
+
+    public IndiceFechas getFechas() {
+        return fechas;
+    }
+}
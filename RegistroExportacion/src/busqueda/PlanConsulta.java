@@ -0,0 +1,107 @@
+package busqueda;
+
+import Clases.Exportacion;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Cómo se resuelve una {@link Consulta}: el índice por el que se empieza (o
+ * un recorrido completo) y los filtros que se evalúan sobre esos candidatos.
+ * Lo arma el {@link PlanificadorConsultas}.
+ */
+public final class PlanConsulta {
+
+    private final Condicion.Indexada indexada;
+    private final int estimadas;
+    private final int totalFilas;
+    private final List<Condicion> filtros;
+    private final List<String> descartados;
+
+    PlanConsulta(Condicion.Indexada indexada, int estimadas, int totalFilas, List<Condicion> filtros, List<String> descartados) {
+        this.indexada = indexada;
+        this.estimadas = estimadas;
+        this.totalFilas = totalFilas;
+        this.filtros = Collections.unmodifiableList(filtros);
+        this.descartados = Collections.unmodifiableList(descartados);
+    }
+
+    /**
+     * @return true si el plan recorre todas las exportaciones en lugar de usar un índice.
+     */
+    public boolean esRecorridoCompleto() {
+        return indexada == null;
+    }
+
+    /**
+     * @return Cantidad de candidatos que el plan revisa.
+     */
+    public int getCandidatosEstimados() {
+        return estimadas;
+    }
+
+    /**
+     * @return Los filtros que se evalúan en cada candidato, en orden.
+     */
+    public List<Condicion> getFiltros() {
+        return filtros;
+    }
+
+    /**
+     * Ejecuta el plan. Quien lo llama debe impedir cambios en el registro
+     * mientras tanto.
+     *
+     * @param indices Los índices del registro (pueden ser null si el plan es un recorrido completo).
+     * @param todas Todas las exportaciones, para el recorrido completo.
+     * @return Las exportaciones que cumplen la consulta.
+     */
+    public List<Exportacion> ejecutar(IndicesExportaciones indices, List<Exportacion> todas) {
+        List<Exportacion> candidatos = indexada == null ? todas : indexada.buscar(indices);
+        ArrayList<Exportacion> resultado = new ArrayList<>();
+        for (Exportacion exp : candidatos) {
+            if (cumpleFiltros(exp)) {
+                resultado.add(exp);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * @param exp Un candidato.
+     * @return true si cumple todos los filtros del plan.
+     */
+    public boolean cumpleFiltros(Exportacion exp) {
+        for (Condicion filtro : filtros) {
+            if (!filtro.cumple(exp)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Describe el plan elegido, una línea por paso.
+     * @return El plan en texto.
+     */
+    public String explicar() {
+        StringBuilder sb = new StringBuilder("Plan: ");
+        if (indexada == null) {
+            sb.append("recorrido completo, ").append(totalFilas).append(" filas");
+        } else {
+            sb.append(indexada.getIndice()).append(" (").append(indexada).append("), ")
+                    .append(estimadas).append(" de ").append(totalFilas).append(" filas");
+        }
+        for (String descartado : descartados) {
+            sb.append("\n  descartado: ").append(descartado);
+        }
+        for (Condicion filtro : filtros) {
+            sb.append("\n  filtro: ").append(filtro);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return explicar();
+    }
+}
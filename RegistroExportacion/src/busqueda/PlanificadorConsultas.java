@@ -0,0 +1,67 @@
+package busqueda;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Elige cómo resolver una {@link Consulta}.
+ *
+ * Cada condición con índice cuenta cuántas filas devolvería (los índices lo
+ * saben sin armar la lista) y se empieza por la más selectiva; el resto de
+ * las condiciones se evalúa solo sobre esos candidatos, de la más barata a la
+ * más cara. Si ninguna condición tiene índice se recorre todo el registro, y
+ * las que según su índice cumplen todas las filas se descartan.
+ */
+public final class PlanificadorConsultas {
+
+    private PlanificadorConsultas() {
+    }
+
+    /**
+     * @param consulta La consulta a resolver.
+     * @param indices Los índices del registro, o null si el registro no tiene.
+     * @param totalFilas Cantidad de exportaciones del registro.
+     * @return El plan elegido.
+     */
+    public static PlanConsulta planificar(Consulta consulta, IndicesExportaciones indices, int totalFilas) {
+        List<Condicion> filtros = new ArrayList<>(consulta.getCondiciones());
+        List<String> descartados = new ArrayList<>();
+        Condicion.Indexada elegida = null;
+        int estimadaElegida = totalFilas;
+        List<Condicion.Indexada> alternativas = new ArrayList<>();
+        List<Integer> estimadas = new ArrayList<>();
+        if (indices != null) {
+            for (Condicion filtro : consulta.getCondiciones()) {
+                if (!(filtro instanceof Condicion.Indexada)) {
+                    continue;
+                }
+                Condicion.Indexada condicion = (Condicion.Indexada) filtro;
+                int estimada = condicion.estimar(indices);
+                if (estimada >= totalFilas) {
+                    // Todas las filas la cumplen: no sirve como índice ni hace falta filtrarla
+                    filtros.remove(condicion);
+                    descartados.add(condicion.getIndice() + " (" + condicion + "), la cumplen todas las filas");
+                    continue;
+                }
+                alternativas.add(condicion);
+                estimadas.add(estimada);
+                if (elegida == null || estimada < estimadaElegida) {
+                    elegida = condicion;
+                    estimadaElegida = estimada;
+                }
+            }
+        }
+
+        for (int i = 0; i < alternativas.size(); i++) {
+            if (alternativas.get(i) != elegida) {
+                descartados.add(alternativas.get(i).getIndice() + " (" + alternativas.get(i) + "), "
+                        + estimadas.get(i) + " filas");
+            }
+        }
+        // El índice elegido ya garantiza su condición; las demás se filtran de la más barata a la más cara
+        filtros.remove(elegida);
+        filtros.sort(Comparator.comparingInt(Condicion::costo));
+        return new PlanConsulta(elegida, estimadaElegida, totalFilas, filtros, descartados);
+    }
+}
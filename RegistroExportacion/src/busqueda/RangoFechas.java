@@ -0,0 +1,110 @@
+package busqueda;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+
+/**
+ * Un período entre dos fechas, ambas incluidas.
+ */
+public final class RangoFechas {
+
+    private static final DateTimeFormatter FORMATO_DIA = DateTimeFormatter.ofPattern("dd/MM/uuuu")
+            .withResolverStyle(ResolverStyle.STRICT);
+    private static final DateTimeFormatter FORMATO_MES = DateTimeFormatter.ofPattern("MM/uuuu")
+            .withResolverStyle(ResolverStyle.STRICT);
+
+    private final LocalDate desde;
+    private final LocalDate hasta;
+
+    private RangoFechas(LocalDate desde, LocalDate hasta) {
+        if (hasta.isBefore(desde)) {
+            throw new IllegalArgumentException("La fecha final no puede ser anterior a la inicial.");
+        }
+        this.desde = desde;
+        this.hasta = hasta;
+    }
+
+    /**
+     * @param desde Primer día (incluido).
+     * @param hasta Último día (incluido).
+     * @return El período entre las dos fechas.
+     */
+    public static RangoFechas entre(LocalDate desde, LocalDate hasta) {
+        return new RangoFechas(desde, hasta);
+    }
+
+    /**
+     * @param dias Cantidad de días, contando hoy.
+     * @param hoy La fecha actual.
+     * @return El período de los últimos días.
+     */
+    public static RangoFechas ultimosDias(int dias, LocalDate hoy) {
+        if (dias < 1) {
+            throw new IllegalArgumentException("La cantidad de días debe ser positiva.");
+        }
+        return new RangoFechas(hoy.minusDays(dias - 1), hoy);
+    }
+
+    /**
+     * @param mes El mes.
+     * @return El período del primer al último día del mes.
+     */
+    public static RangoFechas mes(YearMonth mes) {
+        return new RangoFechas(mes.atDay(1), mes.atEndOfMonth());
+    }
+
+    /**
+     * Interpreta un período escrito por el usuario:
+     * "dd/MM/yyyy" (un día), "dd/MM/yyyy - dd/MM/yyyy" (entre dos fechas),
+     * "MM/yyyy" (un mes) o "ultimos N" (los últimos N días).
+     *
+     * @param texto El texto escrito.
+     * @param hoy La fecha actual, para "ultimos N".
+     * @return El período, o null si el texto no tiene ninguno de esos formatos.
+     */
+    public static RangoFechas interpretar(String texto, LocalDate hoy) {
+        String limpio = IndiceTrigramas.normalizar(texto).trim();
+        try {
+            if (limpio.startsWith("ultimos")) {
+                String numero = limpio.substring("ultimos".length()).replace("dias", "").trim();
+                return ultimosDias(Integer.parseInt(numero), hoy);
+            }
+            int guion = limpio.indexOf(" - ");
+            if (guion >= 0) {
+                return entre(LocalDate.parse(limpio.substring(0, guion).trim(), FORMATO_DIA),
+                        LocalDate.parse(limpio.substring(guion + 3).trim(), FORMATO_DIA));
+            }
+            if (limpio.length() == 7) {
+                return mes(YearMonth.parse(limpio, FORMATO_MES));
+            }
+            LocalDate dia = LocalDate.parse(limpio, FORMATO_DIA);
+            return entre(dia, dia);
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return null; // NumberFormatException también es IllegalArgumentException
+        }
+    }
+
+    public LocalDate getDesde() {
+        return desde;
+    }
+
+    public LocalDate getHasta() {
+        return hasta;
+    }
+
+    /**
+     * @param fecha Una fecha.
+     * @return true si la fecha está dentro del período.
+     */
+    public boolean contiene(LocalDate fecha) {
+        return !fecha.isBefore(desde) && !fecha.isAfter(hasta);
+    }
+
+    @Override
+    public String toString() {
+        return desde.format(FORMATO_DIA) + " - " + hasta.format(FORMATO_DIA);
+    }
+}
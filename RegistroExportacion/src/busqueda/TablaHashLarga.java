@@ -0,0 +1,168 @@
+package busqueda;
+
+import java.util.Arrays;
+
+/**
+ * Tabla hash con claves primitivas long (sin convertirlas a Long), con
+ * direccionamiento abierto y sondeo lineal. Las claves deben ser positivas o
+ * cero: -1 marca las posiciones vacías.
+ *
+ * @param <V> Tipo de los valores.
+ */
+public class TablaHashLarga<V> {
+
+    /**
+     * Recibe cada par de la tabla al recorrerla, sin convertir la clave a Long.
+     * @param <V> Tipo de los valores.
+     */
+    public interface Visitante<V> {
+        void visitar(long clave, V valor);
+    }
+
+    private static final long VACIA = -1;
+
+    private long[] claves;
+    private Object[] valores;
+    private int tamano;
+    private int mascara;
+
+    public TablaHashLarga() {
+        this(16);
+    }
+
+    /**
+     * @param capacidadInicial Cantidad de claves esperada.
+     */
+    public TablaHashLarga(int capacidadInicial) {
+        int capacidad = Integer.highestOneBit(Math.max(4, capacidadInicial * 2 - 1)) << 1;
+        crear(capacidad);
+    }
+
+    private void crear(int capacidad) {
+        this.claves = new long[capacidad];
+        Arrays.fill(this.claves, VACIA);
+        this.valores = new Object[capacidad];
+        this.mascara = capacidad - 1;
+    }
+
+    private int posicionInicial(long clave) {
+        long h = clave * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & this.mascara;
+    }
+
+    /**
+     * @param clave La clave a buscar.
+     * @return El valor asociado, o null si la clave no está.
+     */
+    @SuppressWarnings("unchecked")
+    public V obtener(long clave) {
+        for (int i = posicionInicial(clave); claves[i] != VACIA; i = (i + 1) & mascara) {
+            if (claves[i] == clave) {
+                return (V) valores[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Asocia un valor a la clave, reemplazando el anterior si lo había.
+     * @param clave La clave (mayor o igual a cero).
+     * @param valor El valor a guardar.
+     */
+    public void poner(long clave, V valor) {
+        if (clave < 0) {
+            throw new IllegalArgumentException("La clave no puede ser negativa: " + clave);
+        }
+        int i = posicionInicial(clave);
+        while (claves[i] != VACIA) {
+            if (claves[i] == clave) {
+                valores[i] = valor;
+                return;
+            }
+            i = (i + 1) & mascara;
+        }
+        claves[i] = clave;
+        valores[i] = valor;
+        // Se mantiene la ocupación por debajo del 50 % para que las búsquedas sean cortas
+        if (++tamano * 2 > claves.length) {
+            redimensionar(claves.length * 2);
+        }
+    }
+
+    /**
+     * Quita la clave de la tabla.
+     * @param clave La clave a quitar.
+     * @return El valor que tenía, o null si la clave no estaba.
+     */
+    @SuppressWarnings("unchecked")
+    public V quitar(long clave) {
+        int i = posicionInicial(clave);
+        while (claves[i] != clave) {
+            if (claves[i] == VACIA) {
+                return null;
+            }
+            i = (i + 1) & mascara;
+        }
+        V anterior = (V) valores[i];
+        // Corre hacia atrás las claves siguientes del mismo grupo para no dejar huecos en el sondeo
+        int hueco = i;
+        for (int j = (i + 1) & mascara; claves[j] != VACIA; j = (j + 1) & mascara) {
+            int inicial = posicionInicial(claves[j]);
+            // La clave de j puede ocupar el hueco si su posición inicial no está entre el hueco y j
+            if (((j - inicial) & mascara) >= ((j - hueco) & mascara)) {
+                claves[hueco] = claves[j];
+                valores[hueco] = valores[j];
+                hueco = j;
+            }
+        }
+        claves[hueco] = VACIA;
+        valores[hueco] = null;
+        tamano--;
+        return anterior;
+    }
+
+    private void redimensionar(int capacidad) {
+        long[] clavesAnteriores = this.claves;
+        Object[] valoresAnteriores = this.valores;
+        crear(capacidad);
+        for (int i = 0; i < clavesAnteriores.length; i++) {
+            if (clavesAnteriores[i] != VACIA) {
+                int j = posicionInicial(clavesAnteriores[i]);
+                while (claves[j] != VACIA) {
+                    j = (j + 1) & mascara;
+                }
+                claves[j] = clavesAnteriores[i];
+                valores[j] = valoresAnteriores[i];
+            }
+        }
+    }
+
+    /**
+     * Quita todas las claves.
+     */
+    public void vaciar() {
+        Arrays.fill(this.claves, VACIA);
+        Arrays.fill(this.valores, null);
+        this.tamano = 0;
+    }
+
+    /**
+     * Recorre todos los pares de la tabla, sin un orden particular.
+     * @param visitante Recibe cada clave con su valor.
+     */
+    @SuppressWarnings("unchecked")
+    public void paraCada(Visitante<? super V> visitante) {
+        for (int i = 0; i < claves.length; i++) {
+            if (claves[i] != VACIA) {
+                visitante.visitar(claves[i], (V) valores[i]);
+            }
+        }
+    }
+
+    /**
+     * @return La cantidad de claves en la tabla.
+     */
+    public int tamano() {
+        return tamano;
+    }
+}
@@ -0,0 +1,188 @@
+package estadisticas;
+
+import Clases.Exportacion;
+import busqueda.IndiceClientes;
+import busqueda.IndiceTrigramas;
+import busqueda.TablaHashLarga;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sumas por grupo de una tarea de {@link MotorAgrupacion}.
+ * Cada grupo se busca por una clave long en una {@link TablaHashLarga}: el
+ * mes, los nueve dígitos de la cédula (como en {@link IndiceClientes}) o el
+ * número de la zona en un diccionario {@link Zonas} compartido. Solo las
+ * cédulas sin el formato X-XXXX-XXXX (datos antiguos) se buscan por su texto.
+ * Cada grupo suma en enteros, igual que {@link TotalesExportaciones}, así el
+ * resultado no depende de cómo se repartieron las filas entre los hilos.
+ */
+final class AcumuladorGrupos {
+
+    // Desplaza las claves de mes para que no sean negativas (años antes de Cristo)
+    private static final long DESPLAZAMIENTO_MES = 1L << 40;
+
+    /**
+     * Sumas de un grupo.
+     */
+    static final class Suma {
+        String etiqueta;
+        int cantidad;
+        long costo;
+        long kilos;
+
+        void sumar(Suma otra) {
+            cantidad += otra.cantidad;
+            costo += otra.costo;
+            kilos += otra.kilos;
+            if (etiqueta == null) {
+                etiqueta = otra.etiqueta;
+            }
+        }
+
+        TotalesExportaciones.Totales comoTotales() {
+            return new TotalesExportaciones.Totales(cantidad, costo / TotalesExportaciones.ESCALA, kilos / TotalesExportaciones.ESCALA);
+        }
+    }
+
+    /**
+     * Números de las zonas de una agrupación, compartidos por todas sus tareas.
+     * Cada texto original se normaliza una sola vez, para que "Perú" y "peru"
+     * tengan el mismo número; después se busca sin bloquear.
+     */
+    static final class Zonas {
+        private final ConcurrentHashMap<String, Integer> porTexto = new ConcurrentHashMap<>();
+        private final HashMap<String, Integer> porNormalizado = new HashMap<>();
+        private final ArrayList<String> normalizados = new ArrayList<>();
+        private final ArrayList<String> etiquetas = new ArrayList<>();
+
+        int numero(String texto) {
+            Integer numero = porTexto.get(texto);
+            return numero != null ? numero : agregar(texto);
+        }
+
+        private synchronized int agregar(String texto) {
+            String normalizado = IndiceTrigramas.normalizar(texto);
+            Integer numero = porNormalizado.get(normalizado);
+            if (numero == null) {
+                numero = normalizados.size();
+                normalizados.add(normalizado);
+                etiquetas.add(texto);
+                porNormalizado.put(normalizado, numero);
+            } else if (texto.compareTo(etiquetas.get(numero)) < 0) {
+                // Entre dos textos de la misma zona se muestra siempre el mismo
+                etiquetas.set(numero, texto);
+            }
+            porTexto.put(texto, numero);
+            return numero;
+        }
+
+        synchronized String normalizado(int numero) {
+            return normalizados.get(numero);
+        }
+
+        synchronized String etiqueta(int numero) {
+            return etiquetas.get(numero);
+        }
+    }
+
+    private final CriterioAgrupacion criterio;
+    private final Zonas zonas;
+    final TablaHashLarga<Suma> porClave = new TablaHashLarga<>();
+    // Cédulas sin formato, que no tienen clave numérica
+    final HashMap<String, Suma> porTexto = new HashMap<>();
+
+    /**
+     * @param criterio El campo por el que se agrupa.
+     * @param zonas El diccionario de zonas de la agrupación (solo para {@link CriterioAgrupacion#ZONA_ENVIO}).
+     */
+    AcumuladorGrupos(CriterioAgrupacion criterio, Zonas zonas) {
+        this.criterio = criterio;
+        this.zonas = zonas;
+    }
+
+    void agregar(Exportacion exp) {
+        Suma suma;
+        switch (criterio) {
+            case MES:
+                LocalDate fecha = exp.getFechaExportacion();
+                suma = sumaDeClave(claveMes(fecha));
+                if (suma.etiqueta == null) {
+                    suma.etiqueta = String.format("%02d/%04d", fecha.getMonthValue(), fecha.getYear());
+                }
+                break;
+            case CLIENTE:
+                String idCliente = exp.getIdCliente() == null ? "" : exp.getIdCliente();
+                long clave = IndiceClientes.clave(idCliente);
+                if (clave < 0) {
+                    suma = sumaDeTexto(idCliente);
+                } else {
+                    suma = sumaDeClave(clave);
+                    if (suma.etiqueta == null) {
+                        suma.etiqueta = idCliente;
+                    }
+                }
+                break;
+            default:
+                // La etiqueta de cada zona la guarda el diccionario
+                suma = sumaDeClave(zonas.numero(exp.getZonaEnvio() == null ? "" : exp.getZonaEnvio()));
+        }
+        suma.cantidad++;
+        suma.costo += Math.round(exp.getCostoTotal() * TotalesExportaciones.ESCALA);
+        suma.kilos += Math.round(exp.getKilogramosEmbalar() * TotalesExportaciones.ESCALA);
+    }
+
+    /**
+     * @return La cantidad de grupos.
+     */
+    int tamano() {
+        return porClave.tamano() + porTexto.size();
+    }
+
+    /**
+     * Suma a este acumulador los grupos de otro, que ya no se usa después.
+     * @param otro El acumulador de otra tarea.
+     */
+    void combinar(AcumuladorGrupos otro) {
+        otro.porClave.paraCada((clave, suma) -> {
+            Suma total = porClave.obtener(clave);
+            if (total == null) {
+                porClave.poner(clave, suma);
+            } else {
+                total.sumar(suma);
+            }
+        });
+        for (Suma suma : otro.porTexto.values()) {
+            Suma total = porTexto.get(suma.etiqueta);
+            if (total == null) {
+                porTexto.put(suma.etiqueta, suma);
+            } else {
+                total.sumar(suma);
+            }
+        }
+    }
+
+    static long claveMes(LocalDate fecha) {
+        return fecha.getYear() * 12L + fecha.getMonthValue() - 1 + DESPLAZAMIENTO_MES;
+    }
+
+    private Suma sumaDeClave(long clave) {
+        Suma suma = porClave.obtener(clave);
+        if (suma == null) {
+            suma = new Suma();
+            porClave.poner(clave, suma);
+        }
+        return suma;
+    }
+
+    private Suma sumaDeTexto(String texto) {
+        Suma suma = porTexto.get(texto);
+        if (suma == null) {
+            suma = new Suma();
+            suma.etiqueta = texto;
+            porTexto.put(texto, suma);
+        }
+        return suma;
+    }
+}
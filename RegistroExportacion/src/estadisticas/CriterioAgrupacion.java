@@ -0,0 +1,29 @@
+package estadisticas;
+
+/**
+ * Campos por los que {@link MotorAgrupacion} puede agrupar las exportaciones.
+ */
+public enum CriterioAgrupacion {
+
+    ZONA_ENVIO("Zona de envío"),
+    MES("Mes"),
+    CLIENTE("Cliente");
+
+    private final String nombre;
+
+    CriterioAgrupacion(String nombre) {
+        this.nombre = nombre;
+    }
+
+    /**
+     * @return El nombre del criterio para mostrar.
+     */
+    public String getNombre() {
+        return nombre;
+    }
+
+    @Override
+    public String toString() {
+        return nombre;
+    }
+}
@@ -0,0 +1,165 @@
+package estadisticas;
+
+import java.util.Arrays;
+
+/**
+ * Cuantiles aproximados de valores positivos (costos, kilogramos) en memoria
+ * fija, con error relativo del 1 % (al estilo de DDSketch).
+ *
+ * Cada valor cae en una cubeta logarítmica: la cubeta i cubre (γ^(i-1), γ^i],
+ * con γ = 1,01 / 0,99, y solo se guarda cuántos valores hay en cada una. El
+ * cuantil se responde con el centro de su cubeta, que está a menos del 1 % de
+ * cualquier valor de ella. Se guardan como mucho 1024 cubetas contiguas (4 KB);
+ * si los valores abarcan más, las cubetas más bajas se juntan en la primera,
+ * lo que solo afecta a los cuantiles más bajos.
+ *
+ * A diferencia de otros bocetos, admite quitar valores (se resta de la misma
+ * cubeta), así que se mantiene con cada modificación y eliminación del registro.
+ * Dos bocetos se combinan sumando sus cubetas. No es seguro para varios hilos.
+ */
+public class CuantilesAproximados {
+
+    private static final double ERROR_RELATIVO = 0.01;
+    private static final double GAMMA = (1 + ERROR_RELATIVO) / (1 - ERROR_RELATIVO);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final int MAXIMO_CUBETAS = 1024;
+    // Los valores menores a este (y los negativos) se cuentan como cero
+    private static final double MINIMO_POSITIVO = 1e-9;
+
+    // Cuenta de cada cubeta; cuentas[0] es la cubeta número "primera"
+    private int[] cuentas = new int[0];
+    private int primera;
+    private long ceros;
+    private long cantidad;
+
+    /**
+     * Agrega un valor.
+     * @param valor El valor.
+     */
+    public void agregar(double valor) {
+        sumar(valor, 1);
+    }
+
+    /**
+     * Quita un valor agregado antes.
+     * @param valor El valor, igual al que se agregó.
+     */
+    public void quitar(double valor) {
+        sumar(valor, -1);
+    }
+
+    private void sumar(double valor, int signo) {
+        cantidad += signo;
+        if (!(valor >= MINIMO_POSITIVO)) {
+            ceros += signo; // También NaN, que no tiene cubeta
+            return;
+        }
+        sumarEnCubeta(cubeta(valor), signo);
+    }
+
+    private void sumarEnCubeta(int cubeta, long cuenta) {
+        if (cuentas.length == 0) {
+            cuentas = new int[16];
+            primera = cubeta - 8;
+        }
+        if (cubeta >= primera + cuentas.length) {
+            crecerHacia(cubeta);
+        } else if (cubeta < primera) {
+            if (primera + cuentas.length - cubeta <= MAXIMO_CUBETAS) {
+                crecerHacia(cubeta);
+            } else {
+                cubeta = primera; // Ya se juntó con las cubetas más bajas
+            }
+        }
+        cuentas[cubeta - primera] += (int) cuenta;
+    }
+
+    /**
+     * Agranda el arreglo para incluir la cubeta, dejando lugar de sobra hacia
+     * ese lado. Al crecer hacia arriba más allá de MAXIMO_CUBETAS, el arreglo
+     * se corre y las cubetas que quedan debajo se suman a la nueva primera.
+     */
+    private void crecerHacia(int cubeta) {
+        int ultima = primera + cuentas.length - 1;
+        int largo;
+        int nuevaPrimera;
+        if (cubeta > ultima) {
+            largo = Math.min(MAXIMO_CUBETAS, Math.max(cubeta - primera + 1, cuentas.length * 2));
+            nuevaPrimera = Math.max(primera, cubeta - largo + 1);
+        } else {
+            largo = Math.min(MAXIMO_CUBETAS, Math.max(ultima - cubeta + 1, cuentas.length * 2));
+            nuevaPrimera = ultima - largo + 1;
+        }
+        int[] nuevas = new int[largo];
+        for (int i = 0; i < cuentas.length; i++) {
+            nuevas[Math.max(0, primera + i - nuevaPrimera)] += cuentas[i];
+        }
+        cuentas = nuevas;
+        primera = nuevaPrimera;
+    }
+
+    private static int cubeta(double valor) {
+        return (int) Math.ceil(Math.log(valor) / LOG_GAMMA);
+    }
+
+    /**
+     * Suma a este boceto los valores de otro.
+     * @param otro El otro boceto; no cambia.
+     */
+    public void combinar(CuantilesAproximados otro) {
+        for (int i = 0; i < otro.cuentas.length; i++) {
+            if (otro.cuentas[i] != 0) {
+                sumarEnCubeta(otro.primera + i, otro.cuentas[i]);
+            }
+        }
+        ceros += otro.ceros;
+        cantidad += otro.cantidad;
+    }
+
+    /**
+     * @return Una copia independiente del boceto.
+     */
+    public CuantilesAproximados copia() {
+        CuantilesAproximados copia = new CuantilesAproximados();
+        copia.cuentas = Arrays.copyOf(cuentas, cuentas.length);
+        copia.primera = primera;
+        copia.ceros = ceros;
+        copia.cantidad = cantidad;
+        return copia;
+    }
+
+    /**
+     * @return La cantidad de valores en el boceto.
+     */
+    public long getCantidad() {
+        return cantidad;
+    }
+
+    /**
+     * @param q La fracción buscada, entre 0 y 1 (0,95 para el percentil 95).
+     * @return Un valor a menos del 1 % del cuantil, o NaN si el boceto está vacío.
+     */
+    public double cuantil(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("El cuantil debe estar entre 0 y 1: " + q);
+        }
+        if (cantidad <= 0) {
+            return Double.NaN;
+        }
+        long posicion = (long) Math.floor(q * (cantidad - 1));
+        long acumulado = ceros;
+        if (posicion < acumulado) {
+            return 0;
+        }
+        int i = 0;
+        for (; i < cuentas.length; i++) {
+            acumulado += cuentas[i];
+            if (acumulado > posicion) {
+                break;
+            }
+        }
+        // El centro de la cubeta (γ^(i-1), γ^i], a igual distancia relativa de ambos extremos
+        int cubeta = primera + Math.min(i, cuentas.length - 1);
+        return 2 * Math.pow(GAMMA, cubeta) / (GAMMA + 1);
+    }
+}
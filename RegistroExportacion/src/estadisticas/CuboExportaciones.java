@@ -0,0 +1,347 @@
+package estadisticas;
+
+import Clases.Exportacion;
+import Clases.ExportacionCargaPesada;
+import busqueda.IndiceTrigramas;
+import busqueda.RangoFechas;
+import busqueda.TablaHashLarga;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Resumen materializado del registro: cantidad, costo y kilogramos por día,
+ * zona de envío, tipo de servicio y tipo de exportación (ECP o ECS).
+ *
+ * Cada combinación con exportaciones es una celda, que se actualiza con cada
+ * inserción, modificación y eliminación igual que {@link TotalesExportaciones}
+ * (sumas en enteros de diezmilésimas). Los reportes por día, mes o año suman
+ * solo las celdas del período pedido, sin leer ninguna exportación.
+ *
+ * Las zonas y los servicios se guardan como números en un diccionario, sin
+ * distinguir mayúsculas ni tildes. Cada par de zona y servicio usado recibe a
+ * su vez un número de combinación, y cada celda se ubica por una clave long:
+ * [día epoch (32 bits)] [combinación (31)] [tipo (1)]. Con el día adelante,
+ * las celdas de un período quedan contiguas en el mapa ordenado. Ninguno de
+ * los diccionarios tiene un límite propio: la combinación es la posición en un
+ * arreglo, que nunca pasa de 31 bits.
+ * No es seguro para varios hilos; quien lo usa debe sincronizar el acceso.
+ */
+public class CuboExportaciones {
+
+    private static final long BITS_SIN_DIA = 0xFFFFFFFFL;
+
+    private static final int TIPO_CARGA_PESADA = 0;
+    private static final int TIPO_CARGA_SUELTA = 1;
+    private static final String[] TIPOS = {"ECP", "ECS"};
+
+    /**
+     * Sumas de una celda.
+     */
+    private static final class Celda {
+        int cantidad;
+        long costo;
+        long kilos;
+
+        void sumar(Celda otra) {
+            cantidad += otra.cantidad;
+            costo += otra.costo;
+            kilos += otra.kilos;
+        }
+
+        TotalesExportaciones.Totales comoTotales() {
+            return new TotalesExportaciones.Totales(cantidad, costo / TotalesExportaciones.ESCALA,
+                    kilos / TotalesExportaciones.ESCALA);
+        }
+    }
+
+    /**
+     * Números de las zonas o los servicios. Guarda también los textos
+     * originales, para no normalizar cada exportación ("Perú" y "peru" -> mismo número).
+     */
+    private static final class Diccionario {
+        private final HashMap<String, Integer> numeroDeTexto = new HashMap<>();
+        private final ArrayList<String> etiquetas = new ArrayList<>();
+        private final ArrayList<String> normalizados = new ArrayList<>();
+
+        int numero(String texto) {
+            String original = texto == null ? "" : texto;
+            Integer numero = numeroDeTexto.get(original);
+            if (numero != null) {
+                return numero;
+            }
+            String normalizado = IndiceTrigramas.normalizar(original);
+            numero = numeroDeTexto.get(normalizado);
+            if (numero == null) {
+                numero = nuevo(original, normalizado);
+            } else if (original.compareTo(etiquetas.get(numero)) < 0) {
+                // Entre dos textos del mismo valor se muestra siempre el mismo, como en MotorAgrupacion
+                etiquetas.set(numero, original);
+            }
+            numeroDeTexto.put(original, numero);
+            return numero;
+        }
+
+        private int nuevo(String etiqueta, String normalizado) {
+            int numero = etiquetas.size();
+            etiquetas.add(etiqueta);
+            normalizados.add(normalizado);
+            numeroDeTexto.put(normalizado, numero);
+            numeroDeTexto.put(etiqueta, numero);
+            return numero;
+        }
+
+        void escribir(DataOutput salida) throws IOException {
+            salida.writeInt(etiquetas.size());
+            for (String etiqueta : etiquetas) {
+                salida.writeUTF(etiqueta);
+            }
+        }
+
+        void leer(DataInput entrada) throws IOException {
+            int cantidad = entrada.readInt();
+            if (cantidad < 0) {
+                throw new IOException("El cubo guardado está dañado.");
+            }
+            for (int i = 0; i < cantidad; i++) {
+                String etiqueta = entrada.readUTF();
+                String normalizado = IndiceTrigramas.normalizar(etiqueta);
+                if (numeroDeTexto.containsKey(normalizado)) {
+                    throw new IOException("El cubo guardado está dañado.");
+                }
+                nuevo(etiqueta, normalizado);
+            }
+        }
+    }
+
+    // Clave de la celda -> sumas; solo están las celdas con exportaciones
+    private final TreeMap<Long, Celda> celdas = new TreeMap<>();
+    private final Diccionario zonas = new Diccionario();
+    private final Diccionario servicios = new Diccionario();
+    // Par (zona << 32 | servicio) -> número de combinación, y al revés por posición
+    private final TablaHashLarga<Integer> numeroDeCombinacion = new TablaHashLarga<>();
+    private long[] combinaciones = new long[16];
+    private int cantidadCombinaciones = 0;
+
+    // --- Actualización ---
+
+    /**
+     * Suma una exportación agregada al registro.
+     * @param exp La exportación nueva.
+     */
+    public void agregar(Exportacion exp) {
+        sumar(exp, 1);
+    }
+
+    /**
+     * Resta una exportación eliminada del registro.
+     * @param exp La exportación eliminada.
+     */
+    public void quitar(Exportacion exp) {
+        sumar(exp, -1);
+    }
+
+    /**
+     * Cambia una exportación por otra.
+     * @param anterior La exportación reemplazada.
+     * @param nueva La exportación que ocupa su lugar.
+     */
+    public void reemplazar(Exportacion anterior, Exportacion nueva) {
+        quitar(anterior);
+        agregar(nueva);
+    }
+
+    private void sumar(Exportacion exp, int signo) {
+        long clave = clave(exp);
+        Celda celda = celdas.get(clave);
+        if (celda == null) {
+            celda = new Celda();
+            celdas.put(clave, celda);
+        }
+        celda.cantidad += signo;
+        celda.costo += signo * Math.round(exp.getCostoTotal() * TotalesExportaciones.ESCALA);
+        celda.kilos += signo * Math.round(exp.getKilogramosEmbalar() * TotalesExportaciones.ESCALA);
+        // Una celda sin exportaciones deja de ocupar lugar
+        if (celda.cantidad == 0) {
+            celdas.remove(clave);
+        }
+    }
+
+    private long clave(Exportacion exp) {
+        long dia = (int) exp.getFechaExportacion().toEpochDay();
+        int tipo = exp instanceof ExportacionCargaPesada ? TIPO_CARGA_PESADA : TIPO_CARGA_SUELTA;
+        long par = (long) zonas.numero(exp.getZonaEnvio()) << 32 | servicios.numero(exp.getTipoServicio());
+        Integer combinacion = numeroDeCombinacion.obtener(par);
+        if (combinacion == null) {
+            combinacion = nuevaCombinacion(par);
+        }
+        return dia << 32 | (long) combinacion << 1 | tipo;
+    }
+
+    private int nuevaCombinacion(long par) {
+        if (cantidadCombinaciones == combinaciones.length) {
+            combinaciones = Arrays.copyOf(combinaciones, cantidadCombinaciones * 2);
+        }
+        int numero = cantidadCombinaciones++;
+        combinaciones[numero] = par;
+        numeroDeCombinacion.poner(par, numero);
+        return numero;
+    }
+
+    // --- Consulta ---
+
+    /**
+     * Suma las celdas de un rango de fechas por período, zona, servicio y
+     * tipo de exportación. Solo se leen las celdas de los días del rango.
+     * @param rango Las fechas, ambas incluidas.
+     * @param periodo El tamaño de cada período.
+     * @return Una fila por combinación con exportaciones, ordenadas por
+     * período, zona, servicio y tipo.
+     */
+    public List<ResumenPeriodo> resumir(RangoFechas rango, Periodo periodo) {
+        long desde = (long) dia(rango.getDesde()) << 32;
+        long hasta = (long) dia(rango.getHasta()) << 32 | BITS_SIN_DIA;
+        // Misma clave que las celdas, con el primer día del período en lugar del día
+        TreeMap<Long, Celda> grupos = new TreeMap<>();
+        long diaAnterior = Long.MIN_VALUE;
+        long inicio = 0;
+        for (Map.Entry<Long, Celda> entrada : celdas.subMap(desde, true, hasta, true).entrySet()) {
+            long clave = entrada.getKey();
+            long dia = clave >> 32;
+            // Las celdas vienen ordenadas por día: el período se calcula una vez por día
+            if (dia != diaAnterior) {
+                inicio = periodo.inicio(LocalDate.ofEpochDay(dia)).toEpochDay();
+                diaAnterior = dia;
+            }
+            long grupo = inicio << 32 | (clave & BITS_SIN_DIA);
+            Celda suma = grupos.get(grupo);
+            if (suma == null) {
+                suma = new Celda();
+                grupos.put(grupo, suma);
+            }
+            suma.sumar(entrada.getValue());
+        }
+
+        ArrayList<ResumenPeriodo> resumen = new ArrayList<>(grupos.size());
+        ArrayList<Long> claves = new ArrayList<>(grupos.keySet());
+        // Dentro de cada período se ordena por el nombre de la zona y del servicio, no por su número
+        claves.sort((a, b) -> {
+            int comparacion = Long.compare(a >> 32, b >> 32);
+            if (comparacion == 0) {
+                comparacion = zonas.normalizados.get(zona(a)).compareTo(zonas.normalizados.get(zona(b)));
+            }
+            if (comparacion == 0) {
+                comparacion = servicios.normalizados.get(servicio(a)).compareTo(servicios.normalizados.get(servicio(b)));
+            }
+            return comparacion != 0 ? comparacion : Long.compare(a & 1, b & 1);
+        });
+        for (long clave : claves) {
+            resumen.add(new ResumenPeriodo(periodo, LocalDate.ofEpochDay(clave >> 32),
+                    zonas.etiquetas.get(zona(clave)), servicios.etiquetas.get(servicio(clave)),
+                    TIPOS[(int) (clave & 1)], grupos.get(clave).comoTotales()));
+        }
+        return resumen;
+    }
+
+    private static int combinacion(long clave) {
+        return (int) (clave & BITS_SIN_DIA) >>> 1;
+    }
+
+    private int zona(long clave) {
+        return (int) (combinaciones[combinacion(clave)] >>> 32);
+    }
+
+    private int servicio(long clave) {
+        return (int) combinaciones[combinacion(clave)];
+    }
+
+    private static int dia(LocalDate fecha) {
+        // Los extremos de un rango muy amplio se recortan a los días que puede tener una celda
+        long dia = fecha.toEpochDay();
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, dia));
+    }
+
+    /**
+     * @return La cantidad de celdas con exportaciones.
+     */
+    public int tamano() {
+        return celdas.size();
+    }
+
+    // --- Formato guardado ---
+
+    /**
+     * Escribe el diccionario y las celdas.
+     * Formato: [zonas] [servicios] [cantidad de combinaciones (int)] y por
+     * cada una [zona (int)] [servicio (int)], luego [cantidad de celdas (int)]
+     * y por cada celda [clave (long)] [cantidad (int)] [costo (long)] [kilos (long)].
+     * @param salida Destino.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    public void escribir(DataOutput salida) throws IOException {
+        zonas.escribir(salida);
+        servicios.escribir(salida);
+        salida.writeInt(cantidadCombinaciones);
+        for (int i = 0; i < cantidadCombinaciones; i++) {
+            salida.writeInt((int) (combinaciones[i] >>> 32));
+            salida.writeInt((int) combinaciones[i]);
+        }
+        salida.writeInt(celdas.size());
+        for (Map.Entry<Long, Celda> entrada : celdas.entrySet()) {
+            Celda celda = entrada.getValue();
+            salida.writeLong(entrada.getKey());
+            salida.writeInt(celda.cantidad);
+            salida.writeLong(celda.costo);
+            salida.writeLong(celda.kilos);
+        }
+    }
+
+    /**
+     * Lee un cubo escrito con {@link #escribir(DataOutput)}.
+     * @param entrada Origen.
+     * @return El cubo leído.
+     * @throws IOException Si no se puede leer o los datos no son válidos.
+     */
+    public static CuboExportaciones leer(DataInput entrada) throws IOException {
+        CuboExportaciones cubo = new CuboExportaciones();
+        cubo.zonas.leer(entrada);
+        cubo.servicios.leer(entrada);
+        int cantidad = entrada.readInt();
+        if (cantidad < 0) {
+            throw new IOException("El cubo guardado está dañado.");
+        }
+        for (int i = 0; i < cantidad; i++) {
+            int zona = entrada.readInt();
+            int servicio = entrada.readInt();
+            long par = (long) zona << 32 | servicio;
+            if (zona < 0 || zona >= cubo.zonas.etiquetas.size() || servicio < 0
+                    || servicio >= cubo.servicios.etiquetas.size() || cubo.numeroDeCombinacion.obtener(par) != null) {
+                throw new IOException("El cubo guardado está dañado.");
+            }
+            cubo.nuevaCombinacion(par);
+        }
+        cantidad = entrada.readInt();
+        if (cantidad < 0) {
+            throw new IOException("El cubo guardado está dañado.");
+        }
+        for (int i = 0; i < cantidad; i++) {
+            long clave = entrada.readLong();
+            Celda celda = new Celda();
+            celda.cantidad = entrada.readInt();
+            celda.costo = entrada.readLong();
+            celda.kilos = entrada.readLong();
+            if (celda.cantidad <= 0 || combinacion(clave) >= cubo.cantidadCombinaciones) {
+                throw new IOException("El cubo guardado está dañado.");
+            }
+            cubo.celdas.put(clave, celda);
+        }
+        return cubo;
+    }
+}
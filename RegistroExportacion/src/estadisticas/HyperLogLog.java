@@ -0,0 +1,104 @@
+package estadisticas;
+
+/**
+ * Cuenta aproximada de valores distintos (HyperLogLog) en memoria fija:
+ * 4096 registros de un byte, unos 4 KB, sin importar cuántos valores se agreguen.
+ * El error típico es de alrededor del 1,6 %; con pocos valores la cuenta es
+ * prácticamente exacta (se usa conteo lineal).
+ *
+ * Cada valor se convierte en un hash de 64 bits: los primeros 12 bits eligen
+ * un registro y este guarda la mayor cantidad de ceros iniciales vista en el
+ * resto. Dos bocetos se combinan tomando el máximo de cada registro, así que
+ * se pueden armar por partes (por ejemplo, por zona o por hilo) y unirlos.
+ * No admite quitar valores. No es seguro para varios hilos.
+ */
+public class HyperLogLog {
+
+    private static final int PRECISION = 12;
+    private static final int REGISTROS = 1 << PRECISION;
+    // Constante de corrección para m >= 128 (Flajolet et al.)
+    private static final double ALFA = 0.7213 / (1 + 1.079 / REGISTROS);
+
+    private final byte[] registros = new byte[REGISTROS];
+
+    /**
+     * Agrega un texto (por ejemplo, una cédula).
+     * @param texto El valor; null cuenta como el texto vacío.
+     */
+    public void agregar(String texto) {
+        agregarHash(hash(texto == null ? "" : texto));
+    }
+
+    /**
+     * Agrega un valor ya convertido en un hash de 64 bits bien distribuido.
+     * @param hash El hash del valor.
+     */
+    public void agregarHash(long hash) {
+        int registro = (int) (hash >>> (64 - PRECISION));
+        // El bit agregado al final limita la cuenta de ceros cuando el resto es todo cero
+        long resto = (hash << PRECISION) | (1L << (PRECISION - 1));
+        byte rango = (byte) (Long.numberOfLeadingZeros(resto) + 1);
+        if (rango > registros[registro]) {
+            registros[registro] = rango;
+        }
+    }
+
+    /**
+     * Suma a este boceto los valores de otro.
+     * @param otro El otro boceto; no cambia.
+     */
+    public void combinar(HyperLogLog otro) {
+        for (int i = 0; i < REGISTROS; i++) {
+            if (otro.registros[i] > registros[i]) {
+                registros[i] = otro.registros[i];
+            }
+        }
+    }
+
+    /**
+     * @return Una copia independiente del boceto.
+     */
+    public HyperLogLog copia() {
+        HyperLogLog copia = new HyperLogLog();
+        System.arraycopy(registros, 0, copia.registros, 0, REGISTROS);
+        return copia;
+    }
+
+    /**
+     * @return La cantidad aproximada de valores distintos agregados.
+     */
+    public long estimar() {
+        double suma = 0;
+        int vacios = 0;
+        for (byte rango : registros) {
+            suma += Double.longBitsToDouble((1023L - rango) << 52); // 2^-rango sin Math.pow
+            if (rango == 0) {
+                vacios++;
+            }
+        }
+        double estimacion = ALFA * REGISTROS * REGISTROS / suma;
+        if (estimacion <= 2.5 * REGISTROS && vacios > 0) {
+            // Con pocos valores es más preciso contar los registros que siguen vacíos
+            estimacion = REGISTROS * Math.log((double) REGISTROS / vacios);
+        }
+        return Math.round(estimacion);
+    }
+
+    /**
+     * Hash de 64 bits de un texto: FNV-1a sobre los caracteres y la mezcla
+     * final de MurmurHash3, para que todos los bits dependan de todo el texto.
+     */
+    static long hash(String texto) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < texto.length(); i++) {
+            h ^= texto.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,131 @@
+package estadisticas;
+
+import Clases.Exportacion;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Agrupa exportaciones por zona de envío, mes o cliente y suma la cantidad,
+ * el costo y los kilogramos de cada grupo, repartiendo las filas entre los
+ * núcleos con fork-join.
+ *
+ * Las tareas dividen el rango de filas a la mitad hasta llegar a
+ * {@link #FILAS_POR_TAREA}. Cada tarea suma en su propio acumulador y lo
+ * devuelve; al unir dos tareas, el acumulador más chico se suma al más
+ * grande. Los hilos no comparten nada mientras recorren (salvo el diccionario
+ * de zonas, que casi siempre se lee sin bloquear) y no queda nada guardado
+ * en ellos al terminar.
+ */
+public final class MotorAgrupacion {
+
+    // Filas que recorre una tarea sin volver a dividirse
+    private static final int FILAS_POR_TAREA = 1 << 14;
+
+    private MotorAgrupacion() {
+    }
+
+    /**
+     * Agrupa las exportaciones usando el pool común de fork-join.
+     * @param exportaciones Las exportaciones; la lista no debe cambiar mientras se agrupa.
+     * @param criterio El campo por el que se agrupa.
+     * @return Los totales de cada grupo, ordenados (los meses por fecha, los clientes por cédula, las zonas por nombre).
+     */
+    public static Map<String, TotalesExportaciones.Totales> agrupar(List<? extends Exportacion> exportaciones, CriterioAgrupacion criterio) {
+        return agrupar(exportaciones, criterio, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Agrupa las exportaciones con los hilos indicados.
+     * @param exportaciones Las exportaciones; la lista no debe cambiar mientras se agrupa.
+     * @param criterio El campo por el que se agrupa.
+     * @param hilos El pool que ejecuta las tareas.
+     * @return Los totales de cada grupo, ordenados.
+     */
+    public static Map<String, TotalesExportaciones.Totales> agrupar(List<? extends Exportacion> exportaciones, CriterioAgrupacion criterio,
+                                                                  ForkJoinPool hilos) {
+        List<? extends Exportacion> filas = exportaciones instanceof RandomAccess ? exportaciones : new ArrayList<>(exportaciones);
+        AcumuladorGrupos.Zonas zonas = criterio == CriterioAgrupacion.ZONA_ENVIO ? new AcumuladorGrupos.Zonas() : null;
+        AcumuladorGrupos total = hilos.invoke(new Tarea(filas, 0, filas.size(), criterio, zonas));
+        return ordenar(total, zonas);
+    }
+
+    private static final class Tarea extends RecursiveTask<AcumuladorGrupos> {
+
+        private final List<? extends Exportacion> filas;
+        private final int desde;
+        private final int hasta;
+        private final CriterioAgrupacion criterio;
+        private final AcumuladorGrupos.Zonas zonas;
+
+        Tarea(List<? extends Exportacion> filas, int desde, int hasta, CriterioAgrupacion criterio, AcumuladorGrupos.Zonas zonas) {
+            this.filas = filas;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.criterio = criterio;
+            this.zonas = zonas;
+        }
+
+        @Override
+        protected AcumuladorGrupos compute() {
+            if (hasta - desde <= FILAS_POR_TAREA) {
+                AcumuladorGrupos acumulador = new AcumuladorGrupos(criterio, zonas);
+                for (int i = desde; i < hasta; i++) {
+                    acumulador.agregar(filas.get(i));
+                }
+                return acumulador;
+            }
+            int medio = (desde + hasta) >>> 1;
+            Tarea primera = new Tarea(filas, desde, medio, criterio, zonas);
+            primera.fork();
+            AcumuladorGrupos segunda = new Tarea(filas, medio, hasta, criterio, zonas).compute();
+            AcumuladorGrupos unida = primera.join();
+            // Se recorre el acumulador con menos grupos
+            if (unida.tamano() < segunda.tamano()) {
+                segunda.combinar(unida);
+                return segunda;
+            }
+            unida.combinar(segunda);
+            return unida;
+        }
+    }
+
+    /**
+     * Ordena los grupos del acumulador final: los meses y las cédulas por su
+     * clave (las cédulas sin formato al final, por texto) y las zonas por su
+     * nombre normalizado.
+     */
+    private static Map<String, TotalesExportaciones.Totales> ordenar(AcumuladorGrupos total, AcumuladorGrupos.Zonas zonas) {
+        LinkedHashMap<String, TotalesExportaciones.Totales> resultado = new LinkedHashMap<>();
+        if (zonas != null) {
+            TreeMap<String, AcumuladorGrupos.Suma> porNombre = new TreeMap<>();
+            total.porClave.paraCada((numero, suma) -> {
+                suma.etiqueta = zonas.etiqueta((int) numero);
+                porNombre.put(zonas.normalizado((int) numero), suma);
+            });
+            for (AcumuladorGrupos.Suma suma : porNombre.values()) {
+                resultado.put(suma.etiqueta, suma.comoTotales());
+            }
+            return Collections.unmodifiableMap(resultado);
+        }
+        long[] claves = new long[total.porClave.tamano()];
+        int[] cantidad = {0};
+        total.porClave.paraCada((clave, suma) -> claves[cantidad[0]++] = clave);
+        Arrays.sort(claves);
+        for (long clave : claves) {
+            AcumuladorGrupos.Suma suma = total.porClave.obtener(clave);
+            resultado.put(suma.etiqueta, suma.comoTotales());
+        }
+        for (AcumuladorGrupos.Suma suma : new TreeMap<>(total.porTexto).values()) {
+            resultado.put(suma.etiqueta, suma.comoTotales());
+        }
+        return Collections.unmodifiableMap(resultado);
+    }
+}
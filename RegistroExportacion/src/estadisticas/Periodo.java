@@ -0,0 +1,57 @@
+package estadisticas;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Tamaño de los períodos en que {@link CuboExportaciones} resume las exportaciones.
+ */
+public enum Periodo {
+
+    DIA("Día", "dd/MM/uuuu"),
+    MES("Mes", "MM/uuuu"),
+    ANIO("Año", "uuuu");
+
+    private final String nombre;
+    private final DateTimeFormatter formato;
+
+    Periodo(String nombre, String patron) {
+        this.nombre = nombre;
+        this.formato = DateTimeFormatter.ofPattern(patron);
+    }
+
+    /**
+     * @return El nombre del período para mostrar.
+     */
+    public String getNombre() {
+        return nombre;
+    }
+
+    /**
+     * @param fecha Una fecha.
+     * @return El primer día del período que contiene la fecha.
+     */
+    public LocalDate inicio(LocalDate fecha) {
+        switch (this) {
+            case MES:
+                return fecha.withDayOfMonth(1);
+            case ANIO:
+                return fecha.withDayOfYear(1);
+            default:
+                return fecha;
+        }
+    }
+
+    /**
+     * @param inicio El primer día de un período.
+     * @return El período escrito como en los reportes ("MM/aaaa" para un mes).
+     */
+    public String etiqueta(LocalDate inicio) {
+        return inicio.format(formato);
+    }
+
+    @Override
+    public String toString() {
+        return nombre;
+    }
+}
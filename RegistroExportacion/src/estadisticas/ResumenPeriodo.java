@@ -0,0 +1,60 @@
+package estadisticas;
+
+import java.time.LocalDate;
+
+/**
+ * Una fila del resumen por período: los totales de las exportaciones de un
+ * período, una zona de envío, un tipo de servicio y un tipo de exportación.
+ */
+public final class ResumenPeriodo {
+
+    private final Periodo periodo;
+    private final LocalDate inicio;
+    private final String zonaEnvio;
+    private final String tipoServicio;
+    private final String tipoExportacion;
+    private final TotalesExportaciones.Totales totales;
+
+    ResumenPeriodo(Periodo periodo, LocalDate inicio, String zonaEnvio, String tipoServicio,
+                   String tipoExportacion, TotalesExportaciones.Totales totales) {
+        this.periodo = periodo;
+        this.inicio = inicio;
+        this.zonaEnvio = zonaEnvio;
+        this.tipoServicio = tipoServicio;
+        this.tipoExportacion = tipoExportacion;
+        this.totales = totales;
+    }
+
+    /**
+     * @return El primer día del período.
+     */
+    public LocalDate getInicio() {
+        return inicio;
+    }
+
+    /**
+     * @return El período escrito como en los reportes.
+     */
+    public String getEtiquetaPeriodo() {
+        return periodo.etiqueta(inicio);
+    }
+
+    public String getZonaEnvio() {
+        return zonaEnvio;
+    }
+
+    public String getTipoServicio() {
+        return tipoServicio;
+    }
+
+    /**
+     * @return "ECP" (carga pesada) o "ECS" (carga suelta).
+     */
+    public String getTipoExportacion() {
+        return tipoExportacion;
+    }
+
+    public TotalesExportaciones.Totales getTotales() {
+        return totales;
+    }
+}
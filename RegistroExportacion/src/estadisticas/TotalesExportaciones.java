@@ -0,0 +1,452 @@
+package estadisticas;
+
+import Clases.Exportacion;
+import Clases.ExportacionCargaPesada;
+import busqueda.IndiceTrigramas;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Totales del registro (cantidad, costo y kilogramos) en general, por tipo de
+ * exportación (ECP o ECS), por tipo de servicio y por tipo de carga de las ECP.
+ *
+ * Se actualizan con cada inserción, modificación y eliminación, así que el
+ * reporte agrupado no recorre el registro. Las sumas se llevan en enteros de
+ * diezmilésimas: quitar una exportación resta exactamente lo que sumó al
+ * agregarla, y los totales no acumulan errores de redondeo con los cambios.
+ *
+ * Los tipos de servicio, los tipos de carga y las zonas se agrupan por su
+ * texto normalizado, como en {@link CuboExportaciones} y {@link MotorAgrupacion}:
+ * "Barco" y "barco " son el mismo grupo, que se muestra con el menor de sus
+ * textos.
+ *
+ * Lleva además bocetos de pocos KB, que no crecen con el registro: los
+ * cuantiles aproximados del costo y los kilogramos por tipo de servicio
+ * ({@link CuantilesAproximados}) y los clientes distintos por zona de envío
+ * ({@link HyperLogLog}). El HyperLogLog no puede olvidar un cliente, así que
+ * los clientes de exportaciones eliminadas o modificadas se siguen contando
+ * mientras su zona tenga exportaciones; una zona que se queda sin ninguna se
+ * descarta junto con su boceto.
+ * No es seguro para varios hilos; quien lo usa debe sincronizar el acceso.
+ */
+public class TotalesExportaciones {
+
+    // Las sumas se guardan multiplicadas por este valor (también en AcumuladorGrupos)
+    static final double ESCALA = 10000;
+
+    /**
+     * Totales de un grupo de exportaciones, ya calculados.
+     */
+    public static final class Totales {
+
+        private final int cantidad;
+        private final double costoTotal;
+        private final double kilogramos;
+        // Solo en los totales por tipo de servicio; null en los demás grupos
+        private final CuantilesAproximados costos;
+        private final CuantilesAproximados kilos;
+
+        Totales(int cantidad, double costoTotal, double kilogramos) {
+            this(cantidad, costoTotal, kilogramos, null, null);
+        }
+
+        private Totales(int cantidad, double costoTotal, double kilogramos,
+                        CuantilesAproximados costos, CuantilesAproximados kilos) {
+            this.cantidad = cantidad;
+            this.costoTotal = costoTotal;
+            this.kilogramos = kilogramos;
+            this.costos = costos;
+            this.kilos = kilos;
+        }
+
+        public int getCantidad() {
+            return cantidad;
+        }
+
+        public double getCostoTotal() {
+            return costoTotal;
+        }
+
+        public double getKilogramos() {
+            return kilogramos;
+        }
+
+        /**
+         * @return Los kilogramos del grupo expresados en gramos.
+         */
+        public double getGramos() {
+            return kilogramos * 1000;
+        }
+
+        /**
+         * @return Los kilogramos del grupo expresados en libras.
+         */
+        public double getLibras() {
+            return kilogramos * 2.20462;
+        }
+
+        /**
+         * @return Los kilogramos del grupo expresados en toneladas.
+         */
+        public double getToneladas() {
+            return kilogramos / 1000;
+        }
+
+        /**
+         * @param q La fracción buscada, entre 0 y 1 (0,95 para el percentil 95).
+         * @return El cuantil aproximado (±1 %) del costo de las exportaciones
+         * del grupo, o NaN si el grupo no lleva cuantiles.
+         */
+        public double getCuantilCosto(double q) {
+            return costos == null ? Double.NaN : costos.cuantil(q);
+        }
+
+        /**
+         * @param q La fracción buscada, entre 0 y 1 (0,95 para el percentil 95).
+         * @return El cuantil aproximado (±1 %) de los kilogramos de las
+         * exportaciones del grupo, o NaN si el grupo no lleva cuantiles.
+         */
+        public double getCuantilKilogramos(double q) {
+            return kilos == null ? Double.NaN : kilos.cuantil(q);
+        }
+    }
+
+    /**
+     * Sumas de un grupo mientras se actualizan.
+     */
+    private static final class Acumulador {
+        int cantidad;
+        long costo;
+        long kilos;
+        // Texto que se muestra, solo en los grupos por servicio o tipo de carga
+        String etiqueta;
+        // Textos originales que llevan a este grupo, para quitarlos con él
+        final ArrayList<String> textos = new ArrayList<>(1);
+        // Cuantiles del grupo, si los lleva
+        CuantilesAproximados cuantilesCosto;
+        CuantilesAproximados cuantilesKilos;
+
+        void sumar(Exportacion exp, int signo) {
+            cantidad += signo;
+            costo += signo * Math.round(exp.getCostoTotal() * ESCALA);
+            kilos += signo * Math.round(exp.getKilogramosEmbalar() * ESCALA);
+            if (cuantilesCosto != null) {
+                if (signo > 0) {
+                    cuantilesCosto.agregar(exp.getCostoTotal());
+                    cuantilesKilos.agregar(exp.getKilogramosEmbalar());
+                } else {
+                    cuantilesCosto.quitar(exp.getCostoTotal());
+                    cuantilesKilos.quitar(exp.getKilogramosEmbalar());
+                }
+            }
+        }
+
+        Acumulador copia() {
+            Acumulador copia = new Acumulador();
+            copia.cantidad = cantidad;
+            copia.costo = costo;
+            copia.kilos = kilos;
+            copia.etiqueta = etiqueta;
+            if (cuantilesCosto != null) {
+                copia.cuantilesCosto = cuantilesCosto.copia();
+                copia.cuantilesKilos = cuantilesKilos.copia();
+            }
+            return copia;
+        }
+
+        Totales comoTotales() {
+            if (cuantilesCosto == null) {
+                return new Totales(cantidad, costo / ESCALA, kilos / ESCALA);
+            }
+            return new Totales(cantidad, costo / ESCALA, kilos / ESCALA,
+                    cuantilesCosto.copia(), cuantilesKilos.copia());
+        }
+    }
+
+    /**
+     * Exportaciones y clientes distintos de una zona de envío.
+     */
+    private static final class Zona {
+        final String clave;
+        String etiqueta;
+        int cantidad;
+        HyperLogLog clientes = new HyperLogLog();
+        // El boceto también lo usa una copia: se duplica antes de cambiarlo
+        boolean compartido;
+        // Textos originales que llevan a esta zona en zonaDeTexto, para quitarlos con ella
+        final ArrayList<String> textos = new ArrayList<>(1);
+
+        Zona(String clave) {
+            this.clave = clave;
+        }
+
+        void agregarCliente(String idCliente) {
+            if (compartido) {
+                clientes = clientes.copia();
+                compartido = false;
+            }
+            clientes.agregar(idCliente);
+        }
+
+        Zona copia() {
+            Zona copia = new Zona(clave);
+            copia.etiqueta = etiqueta;
+            copia.cantidad = cantidad;
+            copia.clientes = clientes;
+            copia.compartido = true;
+            compartido = true;
+            return copia;
+        }
+    }
+
+    /**
+     * Grupos de un campo de texto (tipo de servicio o de carga), por su texto
+     * normalizado, más los textos originales ya vistos.
+     */
+    private static final class Grupos {
+        final boolean conCuantiles;
+        // Ordenados por el texto normalizado para que el reporte salga siempre igual
+        final TreeMap<String, Acumulador> porClave = new TreeMap<>();
+        final HashMap<String, Acumulador> deTexto = new HashMap<>();
+
+        Grupos(boolean conCuantiles) {
+            this.conCuantiles = conCuantiles;
+        }
+
+        void sumar(String texto, Exportacion exp, int signo) {
+            String original = texto == null ? "" : texto;
+            Acumulador acumulador = deTexto.get(original);
+            String clave;
+            if (acumulador == null) {
+                clave = IndiceTrigramas.normalizar(original);
+                acumulador = porClave.get(clave);
+                if (acumulador == null) {
+                    acumulador = new Acumulador();
+                    acumulador.etiqueta = original;
+                    if (conCuantiles) {
+                        acumulador.cuantilesCosto = new CuantilesAproximados();
+                        acumulador.cuantilesKilos = new CuantilesAproximados();
+                    }
+                    porClave.put(clave, acumulador);
+                } else if (original.compareTo(acumulador.etiqueta) < 0) {
+                    acumulador.etiqueta = original;
+                }
+                deTexto.put(original, acumulador);
+                acumulador.textos.add(original);
+            }
+            acumulador.sumar(exp, signo);
+            // Un grupo sin exportaciones deja de aparecer en el reporte
+            if (acumulador.cantidad == 0) {
+                porClave.remove(IndiceTrigramas.normalizar(original));
+                for (String otro : acumulador.textos) {
+                    deTexto.remove(otro);
+                }
+            }
+        }
+
+        void vaciar() {
+            porClave.clear();
+            deTexto.clear();
+        }
+
+        void copiarEn(Grupos destino) {
+            for (Map.Entry<String, Acumulador> grupo : porClave.entrySet()) {
+                destino.porClave.put(grupo.getKey(), grupo.getValue().copia());
+            }
+        }
+
+        Map<String, Totales> comoTotales() {
+            LinkedHashMap<String, Totales> resultado = new LinkedHashMap<>();
+            for (Acumulador acumulador : porClave.values()) {
+                resultado.put(acumulador.etiqueta, acumulador.comoTotales());
+            }
+            return Collections.unmodifiableMap(resultado);
+        }
+    }
+
+    private final Acumulador general = new Acumulador();
+    private final Acumulador cargaPesada = new Acumulador();
+    private final Acumulador cargaSuelta = new Acumulador();
+    private final Grupos porServicio = new Grupos(true);
+    private final Grupos porTipoCarga = new Grupos(false);
+    // Zonas por su texto normalizado ("Perú" y "peru" son la misma), más los textos originales ya vistos
+    private final TreeMap<String, Zona> porZona = new TreeMap<>();
+    private final HashMap<String, Zona> zonaDeTexto = new HashMap<>();
+
+    // --- Actualización ---
+
+    /**
+     * Suma una exportación agregada al registro.
+     * @param exp La exportación nueva.
+     */
+    public void agregar(Exportacion exp) {
+        sumar(exp, 1);
+    }
+
+    /**
+     * Resta una exportación eliminada del registro.
+     * @param exp La exportación eliminada.
+     */
+    public void quitar(Exportacion exp) {
+        sumar(exp, -1);
+    }
+
+    /**
+     * Cambia una exportación por otra.
+     * @param anterior La exportación reemplazada.
+     * @param nueva La exportación que ocupa su lugar.
+     */
+    public void reemplazar(Exportacion anterior, Exportacion nueva) {
+        quitar(anterior);
+        agregar(nueva);
+    }
+
+    /**
+     * Deja todos los totales en cero.
+     */
+    public void vaciar() {
+        Acumulador vacio = new Acumulador();
+        copiarAcumulador(vacio, general);
+        copiarAcumulador(vacio, cargaPesada);
+        copiarAcumulador(vacio, cargaSuelta);
+        porServicio.vaciar();
+        porTipoCarga.vaciar();
+        porZona.clear();
+        zonaDeTexto.clear();
+    }
+
+    private void sumar(Exportacion exp, int signo) {
+        general.sumar(exp, signo);
+        if (exp instanceof ExportacionCargaPesada) {
+            cargaPesada.sumar(exp, signo);
+            porTipoCarga.sumar(((ExportacionCargaPesada) exp).getTipoCarga(), exp, signo);
+        } else {
+            cargaSuelta.sumar(exp, signo);
+        }
+        porServicio.sumar(exp.getTipoServicio(), exp, signo);
+        Zona zona = zona(exp.getZonaEnvio());
+        zona.cantidad += signo;
+        if (signo > 0) {
+            zona.agregarCliente(exp.getIdCliente());
+        } else if (zona.cantidad <= 0) {
+            // Sin exportaciones la zona no se muestra, y su boceto empieza de nuevo si vuelve
+            porZona.remove(zona.clave);
+            for (String texto : zona.textos) {
+                zonaDeTexto.remove(texto);
+            }
+        }
+    }
+
+    private Zona zona(String texto) {
+        String original = texto == null ? "" : texto;
+        Zona zona = zonaDeTexto.get(original);
+        if (zona != null) {
+            return zona;
+        }
+        String normalizado = IndiceTrigramas.normalizar(original);
+        zona = porZona.get(normalizado);
+        if (zona == null) {
+            zona = new Zona(normalizado);
+            zona.etiqueta = original;
+            porZona.put(normalizado, zona);
+        } else if (original.compareTo(zona.etiqueta) < 0) {
+            // Entre dos textos de la misma zona se muestra siempre el mismo, como en MotorAgrupacion
+            zona.etiqueta = original;
+        }
+        zonaDeTexto.put(original, zona);
+        zona.textos.add(original);
+        return zona;
+    }
+
+    /**
+     * Copia los totales actuales, para leerlos sin mantener la sincronización
+     * del registro. El tamaño de la copia no depende de cuántas exportaciones
+     * haya: copia los grupos con sus cuantiles (unos KB por tipo de servicio)
+     * y comparte los bocetos de clientes de cada zona, que se duplican recién
+     * cuando la zona recibe otra exportación.
+     * @return Una copia que no cambia con los cambios siguientes.
+     */
+    public TotalesExportaciones copia() {
+        TotalesExportaciones copia = new TotalesExportaciones();
+        copiarAcumulador(general, copia.general);
+        copiarAcumulador(cargaPesada, copia.cargaPesada);
+        copiarAcumulador(cargaSuelta, copia.cargaSuelta);
+        porServicio.copiarEn(copia.porServicio);
+        porTipoCarga.copiarEn(copia.porTipoCarga);
+        for (Map.Entry<String, Zona> zona : porZona.entrySet()) {
+            copia.porZona.put(zona.getKey(), zona.getValue().copia());
+        }
+        return copia;
+    }
+
+    private static void copiarAcumulador(Acumulador origen, Acumulador destino) {
+        destino.cantidad = origen.cantidad;
+        destino.costo = origen.costo;
+        destino.kilos = origen.kilos;
+    }
+
+    // --- Consulta ---
+
+    /**
+     * @return Los totales de todo el registro.
+     */
+    public Totales getGeneral() {
+        return general.comoTotales();
+    }
+
+    /**
+     * @return Los totales de las exportaciones de carga pesada (ECP).
+     */
+    public Totales getCargaPesada() {
+        return cargaPesada.comoTotales();
+    }
+
+    /**
+     * @return Los totales de las exportaciones de carga suelta (ECS).
+     */
+    public Totales getCargaSuelta() {
+        return cargaSuelta.comoTotales();
+    }
+
+    /**
+     * @return Los totales por tipo de servicio, ordenados por nombre.
+     */
+    public Map<String, Totales> getPorServicio() {
+        return porServicio.comoTotales();
+    }
+
+    /**
+     * @return Los totales de las ECP por tipo de carga, ordenados por nombre.
+     */
+    public Map<String, Totales> getPorTipoCarga() {
+        return porTipoCarga.comoTotales();
+    }
+
+    /**
+     * @return La cantidad aproximada (error típico de 1,6 %) de clientes distintos de cada zona
+     * de envío, ordenadas por nombre.
+     */
+    public Map<String, Long> getClientesPorZona() {
+        LinkedHashMap<String, Long> resultado = new LinkedHashMap<>();
+        for (Zona zona : porZona.values()) {
+            resultado.put(zona.etiqueta, zona.clientes.estimar());
+        }
+        return Collections.unmodifiableMap(resultado);
+    }
+
+    /**
+     * @return La cantidad aproximada (error típico de 1,6 %) de clientes distintos de todo el
+     * registro, combinando los bocetos de las zonas.
+     */
+    public long getClientesDistintos() {
+        HyperLogLog todos = new HyperLogLog();
+        for (Zona zona : porZona.values()) {
+            todos.combinar(zona.clientes);
+        }
+        return todos.estimar();
+    }
+}
@@ -0,0 +1,275 @@
+package intercambio;
+
+import Clases.Exportacion;
+import Clases.ExportacionCargaPesada;
+import Clases.ExportacionCargaSuelta;
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Predicate;
+import java.util.zip.GZIPOutputStream;
+import persistencia.RepositorioExportaciones;
+
+/**
+ * Exporta el registro a CSV o JSON Lines para otros sistemas (por ejemplo, contabilidad).
+ *
+ * Al empezar se toman las claves de todas las exportaciones (ocho bytes por
+ * fila); después cada exportación se lee del repositorio por su clave y se
+ * escribe enseguida, sin armar listas ni textos intermedios. La salida pasa
+ * por un búfer y puede comprimirse con gzip al vuelo. El repositorio solo
+ * queda bloqueado mientras se toman las claves y mientras se lee cada fila, no
+ * durante la escritura en el disco, así que se puede seguir trabajando: las
+ * filas eliminadas durante la exportación se omiten, las modificadas salen
+ * con sus datos nuevos y las agregadas no se exportan, pero ninguna se repite
+ * ni se pierde por los cambios de las demás.
+ *
+ * Los números se escriben en notación decimal simple (1234567.5, nunca
+ * 1.2345675E6), que leen tanto las hojas de cálculo como {@link ImportadorCsv}.
+ *
+ * El CSV usa las mismas columnas que lee {@link ImportadorCsv}, más el costo
+ * total, así que un archivo exportado se puede volver a importar.
+ */
+public class ExportadorRegistro {
+
+    /**
+     * Formatos de salida disponibles.
+     */
+    public enum Formato {
+        CSV, JSONL
+    }
+
+    private static final int TAMANO_BUFER = 1 << 16;
+
+    private final RepositorioExportaciones repositorio;
+
+    public ExportadorRegistro(RepositorioExportaciones repositorio) {
+        this.repositorio = repositorio;
+    }
+
+    /**
+     * Exporta a un archivo eligiendo el formato por su extensión: ".jsonl" para
+     * JSON Lines y cualquier otra para CSV. Si termina en ".gz" se comprime.
+     * @param archivo Archivo destino (por ejemplo "registro.csv.gz").
+     * @param filtro Exporta solo las que cumplen la condición; null para todas.
+     * @return La cantidad de exportaciones escritas.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    public int exportar(File archivo, Predicate<? super Exportacion> filtro) throws IOException {
+        String nombre = archivo.getName().toLowerCase();
+        boolean comprimir = nombre.endsWith(".gz");
+        if (comprimir) {
+            nombre = nombre.substring(0, nombre.length() - 3);
+        }
+        return exportar(archivo, nombre.endsWith(".jsonl") ? Formato.JSONL : Formato.CSV, comprimir, filtro);
+    }
+
+    /**
+     * Exporta a un archivo.
+     * @param archivo Archivo destino.
+     * @param formato Formato de salida.
+     * @param comprimir true para comprimir con gzip.
+     * @param filtro Exporta solo las que cumplen la condición; null para todas.
+     * @return La cantidad de exportaciones escritas.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    public int exportar(File archivo, Formato formato, boolean comprimir, Predicate<? super Exportacion> filtro) throws IOException {
+        try (OutputStream salida = new FileOutputStream(archivo)) {
+            return exportar(comprimir ? new GZIPOutputStream(salida, TAMANO_BUFER) : salida, formato, filtro);
+        }
+    }
+
+    /**
+     * Exporta a un flujo en UTF-8. El flujo se cierra al terminar.
+     * @param salida Destino de los datos.
+     * @param formato Formato de salida.
+     * @param filtro Exporta solo las que cumplen la condición; null para todas.
+     * @return La cantidad de exportaciones escritas.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    public int exportar(OutputStream salida, Formato formato, Predicate<? super Exportacion> filtro) throws IOException {
+        try (Writer escritor = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), TAMANO_BUFER)) {
+            if (formato == Formato.CSV) {
+                escribirEncabezadoCsv(escritor);
+            }
+            long[] claves = this.tomarClaves();
+            int escritas = 0;
+            for (long clave : claves) {
+                Exportacion exp = this.repositorio.obtenerPorClave(clave);
+                if (exp == null || (filtro != null && !filtro.test(exp))) {
+                    continue; // Se eliminó mientras se exportaba, o no cumple el filtro
+                }
+                if (formato == Formato.CSV) {
+                    escribirCsv(escritor, exp);
+                } else {
+                    escribirJson(escritor, exp);
+                }
+                escritas++;
+            }
+            return escritas;
+        }
+    }
+
+    /**
+     * @return Las claves de todas las exportaciones, en el orden del registro.
+     */
+    private long[] tomarClaves() {
+        long[][] claves = {new long[Math.max(16, this.repositorio.tamano())]};
+        int[] cantidad = {0};
+        this.repositorio.recorrer(exp -> {
+            if (cantidad[0] == claves[0].length) {
+                claves[0] = Arrays.copyOf(claves[0], cantidad[0] * 2);
+            }
+            claves[0][cantidad[0]++] = exp.getClave();
+        });
+        return Arrays.copyOf(claves[0], cantidad[0]);
+    }
+
+    // --- CSV ---
+
+    private static void escribirEncabezadoCsv(Writer escritor) throws IOException {
+        for (String columna : ImportadorCsv.COLUMNAS) {
+            escritor.write(columna);
+            escritor.write(',');
+        }
+        escritor.write("costoTotal\n");
+    }
+
+    private static void escribirCsv(Writer escritor, Exportacion exp) throws IOException {
+        // Mismo orden que ImportadorCsv.COLUMNAS
+        boolean pesada = exp instanceof ExportacionCargaPesada;
+        escritor.write(pesada ? "ECP" : "ECS");
+        escritor.write(',');
+        textoCsv(escritor, exp.getIdCliente());
+        escritor.write(',');
+        textoCsv(escritor, exp.getNombreCompleto());
+        escritor.write(',');
+        escritor.write(exp.getFechaExportacion().toString());
+        escritor.write(',');
+        textoCsv(escritor, exp.getZonaEnvio());
+        escritor.write(',');
+        textoCsv(escritor, exp.getTipoServicio());
+        escritor.write(',');
+        numeroCsv(escritor, exp.getKilogramosEmbalar());
+        escritor.write(',');
+        if (pesada) {
+            textoCsv(escritor, ((ExportacionCargaPesada) exp).getTipoCarga());
+            escritor.write(',');
+        } else {
+            escritor.write(',');
+            numeroCsv(escritor, ((ExportacionCargaSuelta) exp).getPiesCarga());
+        }
+        escritor.write(',');
+        numeroCsv(escritor, exp.getCostoTotal());
+        escritor.write('\n');
+    }
+
+    private static void numeroCsv(Writer escritor, double valor) throws IOException {
+        // Un valor no finito queda como celda vacía
+        if (!Double.isNaN(valor) && !Double.isInfinite(valor)) {
+            escritor.write(decimal(valor));
+        }
+    }
+
+    private static void textoCsv(Writer escritor, String texto) throws IOException {
+        if (texto == null) {
+            return;
+        }
+        boolean comillas = false;
+        for (int i = 0; i < texto.length() && !comillas; i++) {
+            char c = texto.charAt(i);
+            comillas = c == ',' || c == ';' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!comillas) {
+            escritor.write(texto);
+            return;
+        }
+        escritor.write('"');
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == '"') {
+                escritor.write('"'); // Las comillas se duplican
+            }
+            escritor.write(c);
+        }
+        escritor.write('"');
+    }
+
+    // --- JSON Lines ---
+
+    private static void escribirJson(Writer escritor, Exportacion exp) throws IOException {
+        boolean pesada = exp instanceof ExportacionCargaPesada;
+        escritor.write("{\"tipo\":\"");
+        escritor.write(pesada ? "ECP" : "ECS");
+        escritor.write("\",\"idCliente\":");
+        textoJson(escritor, exp.getIdCliente());
+        escritor.write(",\"nombreCompleto\":");
+        textoJson(escritor, exp.getNombreCompleto());
+        escritor.write(",\"fechaExportacion\":\"");
+        escritor.write(exp.getFechaExportacion().toString());
+        escritor.write("\",\"zonaEnvio\":");
+        textoJson(escritor, exp.getZonaEnvio());
+        escritor.write(",\"tipoServicio\":");
+        textoJson(escritor, exp.getTipoServicio());
+        escritor.write(",\"kilogramosEmbalar\":");
+        numeroJson(escritor, exp.getKilogramosEmbalar());
+        if (pesada) {
+            escritor.write(",\"tipoCarga\":");
+            textoJson(escritor, ((ExportacionCargaPesada) exp).getTipoCarga());
+        } else {
+            escritor.write(",\"piesCarga\":");
+            numeroJson(escritor, ((ExportacionCargaSuelta) exp).getPiesCarga());
+        }
+        escritor.write(",\"costoTotal\":");
+        numeroJson(escritor, exp.getCostoTotal());
+        escritor.write("}\n");
+    }
+
+    private static void textoJson(Writer escritor, String texto) throws IOException {
+        if (texto == null) {
+            escritor.write("null");
+            return;
+        }
+        escritor.write('"');
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '"':
+                    escritor.write("\\\"");
+                    break;
+                case '\\':
+                    escritor.write("\\\\");
+                    break;
+                case '\n':
+                    escritor.write("\\n");
+                    break;
+                case '\r':
+                    escritor.write("\\r");
+                    break;
+                case '\t':
+                    escritor.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        escritor.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        escritor.write(c);
+                    }
+            }
+        }
+        escritor.write('"');
+    }
+
+    private static void numeroJson(Writer escritor, double valor) throws IOException {
+        // JSON no admite NaN ni infinito
+        escritor.write(Double.isNaN(valor) || Double.isInfinite(valor) ? "null" : decimal(valor));
+    }
+
+    /**
+     * @return El valor en notación decimal simple, con los dígitos mínimos que lo
+     *         identifican (los mismos de {@link Double#toString(double)}).
+     */
+    private static String decimal(double valor) {
+        return BigDecimal.valueOf(valor).stripTrailingZeros().toPlainString();
+    }
+}
@@ -0,0 +1,42 @@
+package intercambio;
+
+import java.io.IOException;
+
+/**
+ * Error que corta una importación a mitad del archivo. Las filas anteriores a
+ * {@link #getLinea()} ya quedaron guardadas en el repositorio; el resultado
+ * parcial dice cuántas son y cuáles se rechazaron, para que quien importa
+ * pueda seguir desde esa línea en lugar de repetir todo el archivo.
+ */
+public class ImportacionInterrumpidaException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient ResultadoImportacion resultadoParcial;
+    private final int linea;
+
+    /**
+     * @param causa El error que detuvo la importación.
+     * @param resultadoParcial Lo importado y rechazado antes del error.
+     * @param linea Primera línea del archivo que no se guardó.
+     */
+    public ImportacionInterrumpidaException(IOException causa, ResultadoImportacion resultadoParcial, int linea) {
+        super("La importación se detuvo en la línea " + linea + " (" + resultadoParcial + "): " + causa.getMessage(), causa);
+        this.resultadoParcial = resultadoParcial;
+        this.linea = linea;
+    }
+
+    /**
+     * @return Lo que se importó y rechazó antes del error.
+     */
+    public ResultadoImportacion getResultadoParcial() {
+        return resultadoParcial;
+    }
+
+    /**
+     * @return Número de la primera línea del archivo que no se guardó (la primera es 1).
+     */
+    public int getLinea() {
+        return linea;
+    }
+}
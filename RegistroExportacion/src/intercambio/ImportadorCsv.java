@@ -0,0 +1,371 @@
+package intercambio;
+
+import Clases.Exportacion;
+import Clases.ExportacionCargaPesada;
+import Clases.ExportacionCargaSuelta;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import persistencia.RepositorioExportaciones;
+
+/**
+ * Importa exportaciones desde un archivo CSV (por ejemplo, la hoja de cálculo
+ * diaria de envíos).
+ *
+ * El archivo se procesa en etapas: un lector secuencial separa los registros
+ * y los agrupa en bloques, varios hilos convierten y validan los bloques en
+ * paralelo, y los bloques válidos se insertan en el repositorio en el mismo
+ * orden del archivo, cada uno en un solo grupo. Solo hay unos pocos bloques en
+ * memoria a la vez, así que el tamaño del archivo no importa.
+ *
+ * La primera línea debe ser el encabezado con los nombres de las columnas (ver
+ * {@link #COLUMNAS}); el orden es libre y las columnas desconocidas se ignoran.
+ * Las filas inválidas se rechazan con su motivo sin detener la importación.
+ * Si la lectura o el repositorio fallan a mitad del archivo, los bloques ya
+ * insertados quedan guardados y el error es una
+ * {@link ImportacionInterrumpidaException} con el resultado parcial y la línea
+ * donde se detuvo.
+ */
+public class ImportadorCsv {
+
+    /** Nombres de las columnas reconocidas en el encabezado. */
+    public static final String[] COLUMNAS = {"tipo", "idCliente", "nombreCompleto", "fechaExportacion",
+        "zonaEnvio", "tipoServicio", "kilogramosEmbalar", "tipoCarga", "piesCarga"};
+
+    private static final int COL_TIPO = 0;
+    private static final int COL_ID_CLIENTE = 1;
+    private static final int COL_NOMBRE = 2;
+    private static final int COL_FECHA = 3;
+    private static final int COL_ZONA = 4;
+    private static final int COL_SERVICIO = 5;
+    private static final int COL_KILOS = 6;
+    private static final int COL_TIPO_CARGA = 7;
+    private static final int COL_PIES = 8;
+
+    // La fecha y los datos propios de cada tipo pueden faltar en el encabezado
+    private static final int[] COLUMNAS_OBLIGATORIAS = {COL_TIPO, COL_ID_CLIENTE, COL_NOMBRE, COL_ZONA, COL_SERVICIO, COL_KILOS};
+
+    // Estricto para rechazar fechas como 31/02 en lugar de ajustarlas
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM/uuuu")
+            .withResolverStyle(ResolverStyle.STRICT);
+
+    private static final int FILAS_POR_BLOQUE = 2000;
+
+    /**
+     * Registros de un tramo del archivo y el resultado de convertirlos.
+     */
+    private static class Bloque {
+        final ArrayList<String> registros = new ArrayList<>();
+        final ArrayList<Integer> lineas = new ArrayList<>();
+        final ArrayList<Exportacion> validas = new ArrayList<>();
+        final ArrayList<ResultadoImportacion.FilaRechazada> rechazadas = new ArrayList<>();
+    }
+
+    private final RepositorioExportaciones repositorio;
+    private final int hilos;
+    private final int filasPorBloque;
+
+    /**
+     * Crea un importador que usa todos los núcleos disponibles.
+     * @param repositorio Donde se guardan las exportaciones importadas.
+     */
+    public ImportadorCsv(RepositorioExportaciones repositorio) {
+        this(repositorio, Runtime.getRuntime().availableProcessors(), FILAS_POR_BLOQUE);
+    }
+
+    /**
+     * @param repositorio Donde se guardan las exportaciones importadas.
+     * @param hilos Cantidad de hilos que convierten y validan las filas.
+     * @param filasPorBloque Filas que procesa cada tarea y que se insertan juntas.
+     */
+    public ImportadorCsv(RepositorioExportaciones repositorio, int hilos, int filasPorBloque) {
+        if (hilos < 1 || filasPorBloque < 1) {
+            throw new IllegalArgumentException("La cantidad de hilos y de filas por bloque debe ser positiva.");
+        }
+        this.repositorio = repositorio;
+        this.hilos = hilos;
+        this.filasPorBloque = filasPorBloque;
+    }
+
+    /**
+     * Importa un archivo CSV en UTF-8.
+     * @param archivo El archivo a importar.
+     * @return Cuántas filas se importaron y cuáles se rechazaron.
+     * @throws IOException Si el archivo no se puede leer o el repositorio no puede guardar.
+     */
+    public ResultadoImportacion importar(File archivo) throws IOException {
+        try (Reader entrada = new InputStreamReader(new FileInputStream(archivo), StandardCharsets.UTF_8)) {
+            return importar(entrada);
+        }
+    }
+
+    /**
+     * Importa exportaciones en formato CSV.
+     * @param entrada Origen del texto, empezando por el encabezado.
+     * @return Cuántas filas se importaron y cuáles se rechazaron.
+     * @throws ImportacionInterrumpidaException Si la entrada no se puede leer o el repositorio
+     * no puede guardar después del encabezado; lleva lo que alcanzó a importarse.
+     * @throws IOException Si el encabezado no se puede leer o no es válido.
+     */
+    public ResultadoImportacion importar(Reader entrada) throws IOException {
+        BufferedReader lector = new BufferedReader(entrada, 1 << 16);
+        String encabezado = lector.readLine();
+        if (encabezado == null) {
+            throw new IOException("El archivo está vacío.");
+        }
+        if (encabezado.startsWith("\uFEFF")) {
+            encabezado = encabezado.substring(1); // Marca de orden de bytes de Excel
+        }
+        // Las hojas de cálculo en español suelen separar con punto y coma
+        final char separador = encabezado.indexOf(';') >= 0 && encabezado.indexOf(',') < 0 ? ';' : ',';
+        final int[] posiciones = leerEncabezado(encabezado, separador);
+
+        ExecutorService ejecutor = Executors.newFixedThreadPool(this.hilos, tarea -> {
+            Thread hilo = new Thread(tarea, "importacion-csv");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        ResultadoImportacion resultado = new ResultadoImportacion();
+        // Bloques en proceso, en el orden del archivo; se limitan para no leer todo de una vez
+        ArrayDeque<Future<Bloque>> enCurso = new ArrayDeque<>();
+        // Primera línea de cada bloque en curso, en el mismo orden
+        ArrayDeque<Integer> inicios = new ArrayDeque<>();
+        int linea = 1;
+        Bloque bloque = new Bloque();
+        try {
+            String texto;
+            while ((texto = lector.readLine()) != null) {
+                linea++;
+                int primeraLinea = linea;
+                // Un campo entre comillas puede contener saltos de línea
+                if (comillasAbiertas(texto)) {
+                    StringBuilder registro = new StringBuilder(texto);
+                    String siguiente;
+                    while (comillasAbiertas(registro) && (siguiente = lector.readLine()) != null) {
+                        linea++;
+                        registro.append('\n').append(siguiente);
+                    }
+                    texto = registro.toString();
+                }
+                if (texto.trim().isEmpty()) {
+                    continue;
+                }
+                bloque.registros.add(texto);
+                bloque.lineas.add(primeraLinea);
+                if (bloque.registros.size() == this.filasPorBloque) {
+                    inicios.add(bloque.lineas.get(0));
+                    enCurso.add(enviar(ejecutor, bloque, separador, posiciones));
+                    bloque = new Bloque();
+                    if (enCurso.size() >= 2 * this.hilos) {
+                        guardar(enCurso.poll(), resultado);
+                        inicios.poll();
+                    }
+                }
+            }
+            if (!bloque.registros.isEmpty()) {
+                inicios.add(bloque.lineas.get(0));
+                enCurso.add(enviar(ejecutor, bloque, separador, posiciones));
+                bloque = new Bloque();
+            }
+            while (!enCurso.isEmpty()) {
+                guardar(enCurso.poll(), resultado);
+                inicios.poll();
+            }
+        } catch (IOException e) {
+            // Lo guardado llega hasta el primer bloque pendiente (o el que se estaba leyendo)
+            int detenida = !inicios.isEmpty() ? inicios.peek() : !bloque.lineas.isEmpty() ? bloque.lineas.get(0) : linea + 1;
+            throw new ImportacionInterrumpidaException(e, resultado, detenida);
+        } finally {
+            ejecutor.shutdownNow();
+        }
+        return resultado;
+    }
+
+    private static int[] leerEncabezado(String encabezado, char separador) throws IOException {
+        int[] posiciones = new int[COLUMNAS.length];
+        java.util.Arrays.fill(posiciones, -1);
+        List<String> nombres = dividir(encabezado, separador);
+        for (int i = 0; i < nombres.size(); i++) {
+            for (int c = 0; c < COLUMNAS.length; c++) {
+                if (COLUMNAS[c].equalsIgnoreCase(nombres.get(i).trim())) {
+                    posiciones[c] = i;
+                }
+            }
+        }
+        StringBuilder faltantes = new StringBuilder();
+        for (int c : COLUMNAS_OBLIGATORIAS) {
+            if (posiciones[c] < 0) {
+                faltantes.append(faltantes.length() == 0 ? "" : ", ").append(COLUMNAS[c]);
+            }
+        }
+        if (faltantes.length() > 0) {
+            throw new IOException("Faltan columnas en el encabezado: " + faltantes);
+        }
+        return posiciones;
+    }
+
+    private static Future<Bloque> enviar(ExecutorService ejecutor, Bloque bloque, char separador, int[] posiciones) {
+        return ejecutor.submit(() -> {
+            for (int i = 0; i < bloque.registros.size(); i++) {
+                try {
+                    bloque.validas.add(convertir(dividir(bloque.registros.get(i), separador), posiciones));
+                } catch (IllegalArgumentException e) {
+                    bloque.rechazadas.add(new ResultadoImportacion.FilaRechazada(bloque.lineas.get(i), e.getMessage()));
+                }
+            }
+            bloque.registros.clear();
+            return bloque;
+        });
+    }
+
+    /**
+     * Espera a que el bloque esté convertido e inserta sus filas válidas.
+     */
+    private void guardar(Future<Bloque> pendiente, ResultadoImportacion resultado) throws IOException {
+        Bloque bloque;
+        try {
+            bloque = pendiente.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Se interrumpió la importación.", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Error inesperado al procesar el archivo.", e.getCause());
+        }
+        if (!bloque.validas.isEmpty()) {
+            this.repositorio.insertarTodas(bloque.validas);
+        }
+        resultado.sumarImportadas(bloque.validas.size());
+        resultado.agregarRechazos(bloque.rechazadas);
+    }
+
+    // --- Conversión de cada fila (se ejecuta en los hilos de trabajo) ---
+
+    /**
+     * Crea la exportación de una fila, aplicando las mismas validaciones que los setters.
+     * @throws IllegalArgumentException Con el motivo, si la fila no es válida.
+     */
+    private static Exportacion convertir(List<String> campos, int[] posiciones) {
+        String tipo = campo(campos, posiciones, COL_TIPO).toUpperCase();
+        String idCliente = campo(campos, posiciones, COL_ID_CLIENTE);
+        String nombre = campo(campos, posiciones, COL_NOMBRE);
+        String zona = campo(campos, posiciones, COL_ZONA);
+        String servicio = campo(campos, posiciones, COL_SERVICIO);
+        double kilos = numero(campo(campos, posiciones, COL_KILOS), "kilogramos a embalar");
+
+        Exportacion exp;
+        if (tipo.equals("ECP")) {
+            String tipoCarga = campo(campos, posiciones, COL_TIPO_CARGA);
+            if (!ExportacionCargaPesada.TIPOS_CARGA.contains(tipoCarga)) {
+                throw new IllegalArgumentException("Tipo de carga no válido: '" + tipoCarga + "'.");
+            }
+            exp = new ExportacionCargaPesada(idCliente, nombre, zona, servicio, kilos, tipoCarga);
+        } else if (tipo.equals("ECS")) {
+            double pies = numero(campo(campos, posiciones, COL_PIES), "pies de carga");
+            if (pies <= 0) {
+                throw new IllegalArgumentException("Los pies de carga deben ser un valor positivo.");
+            }
+            exp = new ExportacionCargaSuelta(idCliente, nombre, zona, servicio, kilos, pies);
+        } else {
+            throw new IllegalArgumentException("Tipo de exportación desconocido: '" + tipo + "'. Debe ser ECP o ECS.");
+        }
+
+        // Los setters validan cada dato y lanzan el mensaje de error correspondiente
+        exp.setIdCliente(idCliente);
+        exp.setNombreCompleto(nombre);
+        exp.setZonaEnvio(zona);
+        exp.setTipoServicio(servicio);
+        exp.setKilogramosEmbalar(kilos);
+        String fecha = campo(campos, posiciones, COL_FECHA);
+        if (!fecha.isEmpty()) {
+            exp.setFechaExportacion(fecha(fecha));
+        }
+        return exp;
+    }
+
+    private static String campo(List<String> campos, int[] posiciones, int columna) {
+        int posicion = posiciones[columna];
+        return posicion >= 0 && posicion < campos.size() ? campos.get(posicion).trim() : "";
+    }
+
+    private static double numero(String texto, String nombre) {
+        if (texto.isEmpty()) {
+            throw new IllegalArgumentException("Falta el valor de " + nombre + ".");
+        }
+        double valor;
+        try {
+            // Acepta la coma decimal de las hojas de cálculo en español
+            valor = Double.parseDouble(texto.indexOf('.') < 0 ? texto.replace(',', '.') : texto);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("El valor de " + nombre + " no es un número: '" + texto + "'.");
+        }
+        // parseDouble también acepta "NaN" e "Infinity", que pasarían las validaciones de los setters
+        if (Double.isNaN(valor) || Double.isInfinite(valor)) {
+            throw new IllegalArgumentException("El valor de " + nombre + " no es un número: '" + texto + "'.");
+        }
+        return valor;
+    }
+
+    private static LocalDate fecha(String texto) {
+        try {
+            return texto.indexOf('/') >= 0 ? LocalDate.parse(texto, FORMATO_FECHA) : LocalDate.parse(texto);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Fecha no válida: '" + texto + "'. Use dd/MM/yyyy o yyyy-MM-dd.");
+        }
+    }
+
+    // --- Formato CSV ---
+
+    private static boolean comillasAbiertas(CharSequence texto) {
+        boolean abiertas = false;
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) == '"') {
+                abiertas = !abiertas;
+            }
+        }
+        return abiertas;
+    }
+
+    /**
+     * Separa un registro en campos. Los campos entre comillas pueden contener el
+     * separador y saltos de línea, y las comillas dobles ("") representan una comilla.
+     */
+    static List<String> dividir(String registro, char separador) {
+        ArrayList<String> campos = new ArrayList<>(COLUMNAS.length + 1);
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < registro.length(); i++) {
+            char c = registro.charAt(i);
+            if (entreComillas) {
+                if (c == '"') {
+                    if (i + 1 < registro.length() && registro.charAt(i + 1) == '"') {
+                        actual.append('"');
+                        i++;
+                    } else {
+                        entreComillas = false;
+                    }
+                } else {
+                    actual.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == separador) {
+                campos.add(actual.toString());
+                actual.setLength(0);
+            } else if (c != '\r') {
+                actual.append(c);
+            }
+        }
+        campos.add(actual.toString());
+        return campos;
+    }
+}
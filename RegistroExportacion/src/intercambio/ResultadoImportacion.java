@@ -0,0 +1,82 @@
+package intercambio;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resumen de una importación: cuántas filas se guardaron y cuáles se
+ * rechazaron, con el motivo de cada una.
+ */
+public class ResultadoImportacion {
+
+    // Máximo de rechazos que se conservan con detalle; el resto solo se cuenta
+    private static final int MAXIMO_DETALLES = 1000;
+
+    /**
+     * Una fila del archivo que no se pudo importar.
+     */
+    public static class FilaRechazada {
+        private final int linea;
+        private final String motivo;
+
+        public FilaRechazada(int linea, String motivo) {
+            this.linea = linea;
+            this.motivo = motivo;
+        }
+
+        /**
+         * @return Número de línea en el archivo (la primera es 1).
+         */
+        public int getLinea() {
+            return linea;
+        }
+
+        public String getMotivo() {
+            return motivo;
+        }
+
+        @Override
+        public String toString() {
+            return "Línea " + linea + ": " + motivo;
+        }
+    }
+
+    private int importadas = 0;
+    private int rechazadas = 0;
+    private final ArrayList<FilaRechazada> detalles = new ArrayList<>();
+
+    void sumarImportadas(int cantidad) {
+        importadas += cantidad;
+    }
+
+    void agregarRechazos(List<FilaRechazada> filas) {
+        rechazadas += filas.size();
+        for (FilaRechazada fila : filas) {
+            if (detalles.size() == MAXIMO_DETALLES) {
+                break;
+            }
+            detalles.add(fila);
+        }
+    }
+
+    public int getImportadas() {
+        return importadas;
+    }
+
+    public int getRechazadas() {
+        return rechazadas;
+    }
+
+    /**
+     * @return Las filas rechazadas, en orden (como máximo las primeras mil).
+     */
+    public List<FilaRechazada> getFilasRechazadas() {
+        return Collections.unmodifiableList(detalles);
+    }
+
+    @Override
+    public String toString() {
+        return "Importadas: " + importadas + ", rechazadas: " + rechazadas;
+    }
+}
@@ -0,0 +1,605 @@
+package persistencia;
+
+import Clases.Exportacion;
+import Clases.ExportacionCargaPesada;
+import Clases.ExportacionCargaSuelta;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Almacén de exportaciones en archivos mapeados en memoria (FileChannel.map).
+ * Cada exportación ocupa una ranura de ancho fijo en el archivo de registros y
+ * sus textos se guardan aparte, en un área de cadenas de largo variable.
+ *
+ * Abrir el almacén solo lee el encabezado, sin importar la cantidad de
+ * registros, y cada exportación se decodifica únicamente cuando alguien pide
+ * esa fila (por ejemplo, la tabla o un reporte).
+ *
+ * Cada exportación lleva además su clave, que el almacén reparte en orden
+ * creciente y guarda en la ranura, así que una clave se ubica con búsqueda
+ * binaria sobre las ranuras. Eliminar marca la ranura como borrada (una
+ * lápida) en lugar de correr las siguientes, y un árbol de Fenwick con las
+ * ranuras ocupadas traduce posiciones a ranuras, como en
+ * {@link TablaExportaciones}. Las lápidas se compactan cuando superan a las
+ * exportaciones y al cerrar, para que al abrir no haya que buscarlas.
+ *
+ * Encabezado de registros (32 bytes):
+ * [mágico (4)] [versión (2)] [relleno (2)] [ranuras usadas (4)]
+ * [exportaciones (4)] [siguiente clave (8)] [relleno (8)]
+ *
+ * Ranura de registro (64 bytes):
+ * [tipo (1)] [relleno (3)] [fecha epoch-day (4)] [kilogramos (8)] [piesCarga (8)]
+ * [costoTotal (8)] [5 referencias a cadenas (4 c/u)] [relleno (4)] [clave (8)]
+ */
+public class AlmacenMapeado {
+
+    private static final int MAGICO_REGISTROS = 0x52455852; // "REXR"
+    private static final int MAGICO_CADENAS = 0x52455843;   // "REXC"
+    private static final short VERSION = 2;
+
+    private static final int TAMANO_ENCABEZADO = 32;
+    private static final int TAMANO_RANURA = 64;
+    private static final int CAPACIDAD_INICIAL = 1 << 20;
+    // Debajo de esta cantidad de ranuras no vale la pena compactar
+    private static final int MINIMO_PARA_COMPACTAR = 64;
+
+    // Posiciones dentro de cada ranura
+    private static final int POS_TIPO = 0;
+    private static final int POS_FECHA = 4;
+    private static final int POS_KILOS = 8;
+    private static final int POS_PIES = 16;
+    private static final int POS_COSTO = 24;
+    private static final int POS_ID_CLIENTE = 32;
+    private static final int POS_NOMBRE = 36;
+    private static final int POS_ZONA = 40;
+    private static final int POS_SERVICIO = 44;
+    private static final int POS_TIPO_CARGA = 48;
+    private static final int POS_CLAVE = 56;
+
+    // Posiciones dentro de los encabezados
+    private static final int POS_VERSION = 4;
+    private static final int POS_CANTIDAD = 8;
+    private static final int POS_VIVAS = 12;
+    private static final int POS_SIGUIENTE_CLAVE = 16;
+    private static final int POS_FIN_CADENAS = 8;
+
+    private static final int SIN_CADENA = -1;
+    // Textos compartidos que se recuerdan como máximo; al llenarse se empieza de nuevo
+    private static final int MAXIMO_CADENAS_COMPARTIDAS = 4096;
+    // Tipo de una ranura borrada (como el de una ranura sin escribir)
+    private static final byte RANURA_BORRADA = 0;
+
+    private final RandomAccessFile archivoRegistros;
+    private final RandomAccessFile archivoCadenas;
+    private MappedByteBuffer registros;
+    private MappedByteBuffer cadenas;
+    // Ranuras usadas (con las borradas) y exportaciones
+    private int cantidad;
+    private int vivas;
+    private long siguienteClave;
+    private int finCadenas;
+    // Árbol de Fenwick sobre las ranuras (desde 1); null mientras no hay ranuras borradas
+    private int[] arbol;
+
+    // Zonas, servicios y tipos de carga ya escritos en esta sesión, para no repetirlos.
+    // Los nombres y las cédulas casi no se repiten y no se recuerdan.
+    private final HashMap<String, Integer> cadenasCompartidas = new HashMap<>();
+
+    /**
+     * Abre (o crea) un almacén mapeado.
+     *
+     * @param registros Archivo con las ranuras de ancho fijo.
+     * @param cadenas Archivo con el área de textos.
+     * @throws IOException Si los archivos no se pueden abrir o no tienen el formato esperado.
+     */
+    public AlmacenMapeado(File registros, File cadenas) throws IOException {
+        boolean nuevo = !registros.exists() || registros.length() == 0;
+        this.archivoRegistros = new RandomAccessFile(registros, "rw");
+        this.archivoCadenas = new RandomAccessFile(cadenas, "rw");
+
+        if (nuevo) {
+            mapearRegistros(Math.max(CAPACIDAD_INICIAL, TAMANO_ENCABEZADO));
+            mapearCadenas(Math.max(CAPACIDAD_INICIAL, TAMANO_ENCABEZADO));
+            this.registros.putInt(0, MAGICO_REGISTROS);
+            this.registros.putShort(POS_VERSION, VERSION);
+            this.cadenas.putInt(0, MAGICO_CADENAS);
+            this.cadenas.putShort(POS_VERSION, VERSION);
+            this.cantidad = 0;
+            this.vivas = 0;
+            this.siguienteClave = 1;
+            this.finCadenas = TAMANO_ENCABEZADO;
+            escribirEncabezados();
+        } else {
+            mapearRegistros(this.archivoRegistros.length());
+            mapearCadenas(this.archivoCadenas.length());
+            if (this.registros.getInt(0) != MAGICO_REGISTROS || this.cadenas.getInt(0) != MAGICO_CADENAS) {
+                cerrar();
+                throw new IOException("Los archivos no tienen el formato del almacén mapeado.");
+            }
+            this.cantidad = this.registros.getInt(POS_CANTIDAD);
+            this.finCadenas = this.cadenas.getInt(POS_FIN_CADENAS);
+            if (this.registros.getShort(POS_VERSION) < 2) {
+                // La versión 1 no tenía claves ni lápidas: se asignan una sola vez
+                for (int ranura = 0; ranura < this.cantidad; ranura++) {
+                    this.registros.putLong(TAMANO_ENCABEZADO + ranura * TAMANO_RANURA + POS_CLAVE, ranura + 1);
+                }
+                this.vivas = this.cantidad;
+                this.siguienteClave = this.cantidad + 1;
+                this.registros.putShort(POS_VERSION, VERSION);
+                this.cadenas.putShort(POS_VERSION, VERSION);
+                escribirEncabezados();
+            } else {
+                this.vivas = this.registros.getInt(POS_VIVAS);
+                this.siguienteClave = this.registros.getLong(POS_SIGUIENTE_CLAVE);
+                if (this.vivas != this.cantidad) {
+                    // Quedaron lápidas (el programa no llegó a cerrar): se cuentan las ranuras ocupadas
+                    construirArbol();
+                    this.vivas = ocupadasAntesDe(this.cantidad);
+                    if (this.vivas == this.cantidad) {
+                        this.arbol = null;
+                    }
+                    escribirEncabezados();
+                }
+            }
+        }
+    }
+
+    // --- Lectura ---
+
+    /**
+     * @return La cantidad de exportaciones guardadas.
+     */
+    public int tamano() {
+        return vivas;
+    }
+
+    /**
+     * @param fila Posición de la exportación.
+     * @return La clave de la exportación de esa fila.
+     */
+    public long getClave(int fila) {
+        return registros.getLong(posicionRanura(fila) + POS_CLAVE);
+    }
+
+    /**
+     * Busca la fila de una clave. Las claves crecen con cada ranura, así que
+     * se buscan con búsqueda binaria sin decodificar ninguna fila.
+     * @param clave La clave de una exportación.
+     * @return Su posición, o -1 si no está en el almacén.
+     */
+    public int filaDeClave(long clave) {
+        int desde = 0;
+        int hasta = cantidad - 1;
+        while (desde <= hasta) {
+            int medio = (desde + hasta) >>> 1;
+            long actual = registros.getLong(TAMANO_ENCABEZADO + medio * TAMANO_RANURA + POS_CLAVE);
+            if (actual < clave) {
+                desde = medio + 1;
+            } else if (actual > clave) {
+                hasta = medio - 1;
+            } else if (estaBorrada(medio)) {
+                return -1;
+            } else {
+                return arbol == null ? medio : ocupadasAntesDe(medio);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Decodifica la exportación de la fila indicada.
+     * @param fila Posición de la exportación.
+     * @return Un objeto nuevo con los datos de esa fila.
+     */
+    public Exportacion obtener(int fila) {
+        int base = posicionRanura(fila);
+        String idCliente = leerCadena(registros.getInt(base + POS_ID_CLIENTE));
+        String nombre = leerCadena(registros.getInt(base + POS_NOMBRE));
+        String zona = leerCadena(registros.getInt(base + POS_ZONA));
+        String servicio = leerCadena(registros.getInt(base + POS_SERVICIO));
+        double kilos = registros.getDouble(base + POS_KILOS);
+
+        Exportacion exp;
+        if (registros.get(base + POS_TIPO) == CodecExportacion.TIPO_CARGA_PESADA) {
+            exp = new ExportacionCargaPesada(idCliente, nombre, zona, servicio, kilos,
+                    leerCadena(registros.getInt(base + POS_TIPO_CARGA)));
+        } else {
+            exp = new ExportacionCargaSuelta(idCliente, nombre, zona, servicio, kilos,
+                    registros.getDouble(base + POS_PIES));
+        }
+        exp.setFechaExportacion(LocalDate.ofEpochDay(registros.getInt(base + POS_FECHA)));
+        exp.setClave(registros.getLong(base + POS_CLAVE));
+        return exp;
+    }
+
+    /**
+     * Lee el costo total de una fila sin decodificar la exportación completa.
+     * @param fila Posición de la exportación.
+     * @return El costo total guardado.
+     */
+    public double getCostoTotal(int fila) {
+        return registros.getDouble(posicionRanura(fila) + POS_COSTO);
+    }
+
+    /**
+     * Lee los kilogramos de una fila sin decodificar la exportación completa.
+     * @param fila Posición de la exportación.
+     * @return Los kilogramos a embalar.
+     */
+    public double getKilogramosEmbalar(int fila) {
+        return registros.getDouble(posicionRanura(fila) + POS_KILOS);
+    }
+
+    /**
+     * Lee la fecha de una fila, como epoch-day, sin decodificar la exportación completa.
+     * @param fila Posición de la exportación.
+     * @return Días transcurridos desde 1970-01-01.
+     */
+    public int getDiaExportacion(int fila) {
+        return registros.getInt(posicionRanura(fila) + POS_FECHA);
+    }
+
+    // --- Escritura ---
+
+    /**
+     * Agrega una exportación al final del almacén y le asigna una clave nueva.
+     * @param exp La exportación a guardar.
+     */
+    public void agregar(Exportacion exp) {
+        asegurarCapacidadRegistros(cantidad + 1);
+        int ranura = cantidad;
+        escribirRanura(ranura, exp);
+        long clave = siguienteClave++;
+        registros.putLong(TAMANO_ENCABEZADO + ranura * TAMANO_RANURA + POS_CLAVE, clave);
+        cantidad++;
+        vivas++;
+        if (arbol != null) {
+            if (cantidad >= arbol.length) {
+                construirArbol();
+            } else {
+                sumar(ranura, 1);
+            }
+        }
+        escribirEncabezados();
+        exp.setClave(clave);
+    }
+
+    /**
+     * Reemplaza la exportación de la fila indicada; la nueva conserva la clave.
+     * Los textos anteriores quedan sin uso en el área de cadenas.
+     * @param fila Posición a reemplazar.
+     * @param exp La exportación con los datos nuevos.
+     */
+    public void reemplazar(int fila, Exportacion exp) {
+        int ranura = ranura(fila);
+        escribirRanura(ranura, exp);
+        escribirEncabezados();
+        exp.setClave(registros.getLong(TAMANO_ENCABEZADO + ranura * TAMANO_RANURA + POS_CLAVE));
+    }
+
+    /**
+     * Elimina la exportación de la fila indicada. Su ranura queda borrada y
+     * las siguientes no se mueven.
+     * @param fila Posición a eliminar.
+     */
+    public void eliminar(int fila) {
+        int ranura = ranura(fila);
+        if (arbol == null) {
+            construirArbol();
+        }
+        // La cantidad se confirma antes que la marca: si se interrumpe, al abrir se cuentan las ranuras
+        vivas--;
+        escribirEncabezados();
+        registros.put(TAMANO_ENCABEZADO + ranura * TAMANO_RANURA + POS_TIPO, RANURA_BORRADA);
+        sumar(ranura, -1);
+        // Las lápidas del final se descartan enseguida
+        while (cantidad > 0 && estaBorrada(cantidad - 1)) {
+            cantidad--;
+        }
+        if (cantidad == vivas) {
+            arbol = null;
+        } else if (cantidad > MINIMO_PARA_COMPACTAR && cantidad - vivas > vivas) {
+            compactar();
+        }
+        escribirEncabezados();
+    }
+
+    /**
+     * Corre las exportaciones hacia el principio, sobre las ranuras borradas.
+     * Cada ranura movida se marca como borrada en su lugar anterior, así que
+     * si se interrumpe ninguna exportación queda dos veces.
+     */
+    private void compactar() {
+        byte[] ranuraMovida = new byte[TAMANO_RANURA];
+        int escritas = 0;
+        for (int ranura = 0; ranura < cantidad; ranura++) {
+            if (estaBorrada(ranura)) {
+                continue;
+            }
+            if (ranura != escritas) {
+                int origen = TAMANO_ENCABEZADO + ranura * TAMANO_RANURA;
+                registros.position(origen);
+                registros.get(ranuraMovida);
+                registros.position(TAMANO_ENCABEZADO + escritas * TAMANO_RANURA);
+                registros.put(ranuraMovida);
+                registros.put(origen + POS_TIPO, RANURA_BORRADA);
+            }
+            escritas++;
+        }
+        cantidad = escritas;
+        arbol = null;
+        escribirEncabezados();
+    }
+
+    /**
+     * Fuerza que los cambios pendientes en memoria se escriban al disco.
+     */
+    public void vaciar() {
+        registros.force();
+        cadenas.force();
+    }
+
+    /**
+     * Escribe los cambios pendientes y cierra los archivos.
+     * @throws IOException Si ocurre un error al cerrar.
+     */
+    public void cerrar() throws IOException {
+        if (registros != null) {
+            if (cantidad != vivas) {
+                compactar();
+            }
+            vaciar();
+        }
+        archivoRegistros.close();
+        archivoCadenas.close();
+    }
+
+    /**
+     * Devuelve una vista de lista sobre el almacén.
+     * La vista no copia datos: cada get decodifica la fila pedida, y add, set y
+     * remove escriben directamente en los archivos mapeados.
+     * @return La lista respaldada por este almacén.
+     */
+    public List<Exportacion> comoLista() {
+        return new ListaMapeada();
+    }
+
+    // --- Internos ---
+
+    private int posicionRanura(int fila) {
+        return TAMANO_ENCABEZADO + ranura(fila) * TAMANO_RANURA;
+    }
+
+    private boolean estaBorrada(int ranura) {
+        return registros.get(TAMANO_ENCABEZADO + ranura * TAMANO_RANURA + POS_TIPO) == RANURA_BORRADA;
+    }
+
+    // --- Árbol de Fenwick ---
+
+    private void construirArbol() {
+        arbol = new int[Math.max(16, cantidad * 2) + 1];
+        for (int i = 1; i < arbol.length; i++) {
+            if (i <= cantidad && !estaBorrada(i - 1)) {
+                arbol[i]++;
+            }
+            int padre = i + (i & -i);
+            if (padre < arbol.length) {
+                arbol[padre] += arbol[i];
+            }
+        }
+    }
+
+    private void sumar(int ranura, int valor) {
+        for (int i = ranura + 1; i < arbol.length; i += i & -i) {
+            arbol[i] += valor;
+        }
+    }
+
+    /**
+     * @return La cantidad de ranuras ocupadas antes de la indicada, es decir, su posición.
+     */
+    private int ocupadasAntesDe(int ranura) {
+        int ocupadas = 0;
+        for (int i = ranura; i > 0; i -= i & -i) {
+            ocupadas += arbol[i];
+        }
+        return ocupadas;
+    }
+
+    /**
+     * @return La ranura de la exportación que está en la fila indicada.
+     */
+    private int ranura(int fila) {
+        if (fila < 0 || fila >= vivas) {
+            throw new IndexOutOfBoundsException("Fila: " + fila + ", Cantidad: " + vivas);
+        }
+        if (arbol == null) {
+            return fila;
+        }
+        // Se baja por el árbol buscando la ranura ocupada número fila + 1
+        int ranura = 0;
+        int faltan = fila + 1;
+        for (int paso = Integer.highestOneBit(arbol.length - 1); paso > 0; paso >>= 1) {
+            int siguiente = ranura + paso;
+            if (siguiente < arbol.length && arbol[siguiente] < faltan) {
+                ranura = siguiente;
+                faltan -= arbol[siguiente];
+            }
+        }
+        return ranura;
+    }
+
+    private void escribirRanura(int ranura, Exportacion exp) {
+        // Primero se escriben los textos y luego la ranura que los referencia
+        int idCliente = escribirCadena(exp.getIdCliente());
+        int nombre = escribirCadena(exp.getNombreCompleto());
+        int zona = escribirCadenaCompartida(exp.getZonaEnvio());
+        int servicio = escribirCadenaCompartida(exp.getTipoServicio());
+        int tipoCarga = SIN_CADENA;
+        double pies = 0;
+        byte tipo;
+        if (exp instanceof ExportacionCargaPesada) {
+            tipo = CodecExportacion.TIPO_CARGA_PESADA;
+            tipoCarga = escribirCadenaCompartida(((ExportacionCargaPesada) exp).getTipoCarga());
+        } else {
+            tipo = CodecExportacion.TIPO_CARGA_SUELTA;
+            pies = ((ExportacionCargaSuelta) exp).getPiesCarga();
+        }
+
+        int base = TAMANO_ENCABEZADO + ranura * TAMANO_RANURA;
+        registros.put(base + POS_TIPO, tipo);
+        registros.putInt(base + POS_FECHA, (int) exp.getFechaExportacion().toEpochDay());
+        registros.putDouble(base + POS_KILOS, exp.getKilogramosEmbalar());
+        registros.putDouble(base + POS_PIES, pies);
+        registros.putDouble(base + POS_COSTO, exp.getCostoTotal());
+        registros.putInt(base + POS_ID_CLIENTE, idCliente);
+        registros.putInt(base + POS_NOMBRE, nombre);
+        registros.putInt(base + POS_ZONA, zona);
+        registros.putInt(base + POS_SERVICIO, servicio);
+        registros.putInt(base + POS_TIPO_CARGA, tipoCarga);
+    }
+
+    /**
+     * Escribe un texto que se repite en muchas exportaciones, o devuelve la
+     * posición donde ya se escribió.
+     */
+    private int escribirCadenaCompartida(String texto) {
+        if (texto == null) {
+            return SIN_CADENA;
+        }
+        Integer existente = cadenasCompartidas.get(texto);
+        if (existente != null) {
+            return existente;
+        }
+        if (cadenasCompartidas.size() == MAXIMO_CADENAS_COMPARTIDAS) {
+            // Con tantos textos distintos no se repiten lo suficiente como para recordarlos todos
+            cadenasCompartidas.clear();
+        }
+        int posicion = escribirCadena(texto);
+        cadenasCompartidas.put(texto, posicion);
+        return posicion;
+    }
+
+    private int escribirCadena(String texto) {
+        if (texto == null) {
+            return SIN_CADENA;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        asegurarCapacidadCadenas(finCadenas + 4 + bytes.length);
+        int posicion = finCadenas;
+        cadenas.putInt(posicion, bytes.length);
+        ByteBuffer escritura = cadenas.duplicate();
+        escritura.position(posicion + 4);
+        escritura.put(bytes);
+        finCadenas = posicion + 4 + bytes.length;
+        return posicion;
+    }
+
+    private String leerCadena(int posicion) {
+        if (posicion == SIN_CADENA) {
+            return null;
+        }
+        byte[] bytes = new byte[cadenas.getInt(posicion)];
+        ByteBuffer lectura = cadenas.duplicate();
+        lectura.position(posicion + 4);
+        lectura.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void escribirEncabezados() {
+        // El área de cadenas se confirma antes que la cantidad de registros
+        cadenas.putInt(POS_FIN_CADENAS, finCadenas);
+        registros.putLong(POS_SIGUIENTE_CLAVE, siguienteClave);
+        registros.putInt(POS_VIVAS, vivas);
+        registros.putInt(POS_CANTIDAD, cantidad);
+    }
+
+    private void asegurarCapacidadRegistros(int filas) {
+        long necesario = TAMANO_ENCABEZADO + (long) filas * TAMANO_RANURA;
+        if (necesario > registros.capacity()) {
+            mapearRegistros(crecer(registros.capacity(), necesario));
+        }
+    }
+
+    private void asegurarCapacidadCadenas(long necesario) {
+        if (necesario > cadenas.capacity()) {
+            mapearCadenas(crecer(cadenas.capacity(), necesario));
+        }
+    }
+
+    private static long crecer(long actual, long necesario) {
+        long nuevo = Math.max(actual * 2, necesario);
+        if (nuevo > Integer.MAX_VALUE) {
+            if (necesario > Integer.MAX_VALUE) {
+                throw new IllegalStateException("El almacén mapeado superó el tamaño máximo de 2 GB.");
+            }
+            nuevo = Integer.MAX_VALUE;
+        }
+        return nuevo;
+    }
+
+    private void mapearRegistros(long capacidad) {
+        try {
+            registros = archivoRegistros.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacidad);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void mapearCadenas(long capacidad) {
+        try {
+            cadenas = archivoCadenas.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacidad);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Vista de lista sobre el almacén; decodifica cada fila al pedirla.
+     */
+    private class ListaMapeada extends AbstractList<Exportacion> implements RandomAccess {
+
+        @Override
+        public Exportacion get(int indice) {
+            return obtener(indice);
+        }
+
+        @Override
+        public int size() {
+            return vivas;
+        }
+
+        @Override
+        public boolean add(Exportacion exp) {
+            agregar(exp);
+            modCount++;
+            return true;
+        }
+
+        @Override
+        public Exportacion set(int indice, Exportacion exp) {
+            Exportacion anterior = obtener(indice);
+            reemplazar(indice, exp);
+            return anterior;
+        }
+
+        @Override
+        public Exportacion remove(int indice) {
+            Exportacion anterior = obtener(indice);
+            eliminar(indice);
+            modCount++;
+            return anterior;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package persistencia;
+
+import estadisticas.CuboExportaciones;
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Guarda el {@link CuboExportaciones} junto a los datos (Exportaciones.cubo),
+ * para no tener que recorrer el registro para armarlo otra vez. Lo usan
+ * {@link RepositorioDiario} y {@link RepositorioMapeado}.
+ *
+ * El archivo lleva una firma de los archivos de datos (tamaño y fecha de
+ * modificación) tomada al guardarlo, con los datos ya cerrados. Si al leerlo
+ * la firma no coincide, los datos cambiaron sin pasar por el cubo (por ejemplo,
+ * con otro tipo de almacén) y el cubo guardado se descarta.
+ *
+ * Formato: [mágico (int)] [versión (short)] [firma (long)] [cubo]
+ */
+final class ArchivoCubo {
+
+    private static final int MAGICO = 0x52455855; // "REXU"
+    private static final short VERSION = 2;
+
+    private ArchivoCubo() {
+    }
+
+    /**
+     * @param datos Los archivos de datos que resume el cubo.
+     * @return Una firma que cambia cuando cambia alguno de los archivos.
+     */
+    static long firma(File... datos) {
+        long firma = 17;
+        for (File archivo : datos) {
+            firma = firma * 31 + archivo.length();
+            firma = firma * 31 + archivo.lastModified();
+        }
+        return firma;
+    }
+
+    /**
+     * Escribe el cubo en un archivo temporal y lo pone en su lugar con un
+     * renombrado atómico, así nunca queda un cubo a medio escribir.
+     * @param archivo Archivo destino.
+     * @param cubo El cubo a guardar.
+     * @param firma Firma de los datos que resume, de {@link #firma(File...)}.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    static void guardar(File archivo, CuboExportaciones cubo, long firma) throws IOException {
+        File temporal = new File(archivo.getPath() + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(temporal);
+             DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(fos, 1 << 16))) {
+            dos.writeInt(MAGICO);
+            dos.writeShort(VERSION);
+            dos.writeLong(firma);
+            cubo.escribir(dos);
+            dos.flush();
+            fos.getFD().sync();
+        }
+        try {
+            Files.move(temporal.toPath(), archivo.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporal.toPath(), archivo.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Lee el cubo guardado si todavía corresponde a los datos.
+     * @param archivo Archivo del cubo.
+     * @param firma Firma actual de los datos.
+     * @return El cubo, o null si no existe, es de otra versión, no corresponde
+     * a los datos o está dañado (en ese caso hay que armarlo de nuevo).
+     */
+    static CuboExportaciones leer(File archivo, long firma) {
+        if (!archivo.exists()) {
+            return null;
+        }
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(archivo), 1 << 16))) {
+            if (dis.readInt() != MAGICO || dis.readShort() != VERSION || dis.readLong() != firma) {
+                return null;
+            }
+            return CuboExportaciones.leer(dis);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Borra el cubo guardado. Se llama antes del primer cambio, para que un
+     * cierre inesperado no deje un cubo que ya no corresponde a los datos.
+     * @param archivo Archivo del cubo.
+     * @throws IOException Si el archivo existe y no se puede borrar.
+     */
+    static void descartar(File archivo) throws IOException {
+        Files.deleteIfExists(archivo.toPath());
+    }
+}
@@ -0,0 +1,243 @@
+package persistencia;
+
+import Clases.Exportacion;
+import Clases.ExportacionCargaPesada;
+import Clases.ExportacionCargaSuelta;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Formato binario compacto y versionado para las exportaciones.
+ * Reemplaza la serialización de Java, que es voluminosa, lenta y frágil ante
+ * cambios en las clases.
+ *
+ * Cada exportación se escribe como:
+ * [tipo (1 byte)] [idCliente] [nombre] [zona] [servicio] [fecha (epoch-day, int)]
+ * [kilogramos (double)] y luego el dato propio del tipo: [tipoCarga] para ECP o
+ * [piesCarga (double)] para ECS. Los textos van como largo (2 bytes) + bytes UTF-8.
+ * El costo total no se guarda porque se recalcula al construir el objeto.
+ *
+ * Los archivos comienzan con [marca (int)] [versión (short)] [generación (long)].
+ * La generación (desde la versión 2) permite saber qué diario corresponde a
+ * cada instantánea después de una compactación.
+ */
+public final class CodecExportacion {
+
+    /** Marca al inicio de los archivos binarios ("REXP"). */
+    public static final int MAGICO = 0x52455850;
+    /** Versión actual del formato. */
+    public static final short VERSION = 2;
+
+    static final byte TIPO_CARGA_PESADA = 1;
+    static final byte TIPO_CARGA_SUELTA = 2;
+
+    private CodecExportacion() {
+    }
+
+    // --- Encabezado ---
+
+    /**
+     * Escribe la marca, la versión del formato y la generación del archivo.
+     * @param salida Destino de los datos.
+     * @param generacion Generación de la instantánea o del diario.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    public static void escribirEncabezado(DataOutput salida, long generacion) throws IOException {
+        salida.writeInt(MAGICO);
+        salida.writeShort(VERSION);
+        salida.writeLong(generacion);
+    }
+
+    /**
+     * Lee y valida el encabezado del archivo.
+     * @param entrada Origen de los datos.
+     * @return La generación del archivo (0 en los archivos de la versión 1).
+     * @throws IOException Si el archivo no tiene el formato esperado.
+     */
+    public static long leerEncabezado(DataInput entrada) throws IOException {
+        if (entrada.readInt() != MAGICO) {
+            throw new IOException("El archivo no tiene el formato binario de exportaciones.");
+        }
+        short version = entrada.readShort();
+        if (version > VERSION) {
+            throw new IOException("Versión de formato no soportada: " + version);
+        }
+        return version >= 2 ? entrada.readLong() : 0;
+    }
+
+    /**
+     * Lee solo la generación de un archivo binario.
+     * @param archivo El archivo a revisar.
+     * @return La generación indicada en su encabezado.
+     * @throws IOException Si el archivo no se puede leer o no tiene el formato esperado.
+     */
+    public static long leerGeneracion(File archivo) throws IOException {
+        try (DataInputStream dis = new DataInputStream(new FileInputStream(archivo))) {
+            return leerEncabezado(dis);
+        }
+    }
+
+    /**
+     * Indica si un archivo comienza con la marca del formato binario.
+     * @param archivo El archivo a revisar.
+     * @return true si es un archivo binario de exportaciones.
+     * @throws IOException Si el archivo no se puede leer.
+     */
+    public static boolean esFormatoBinario(File archivo) throws IOException {
+        try (DataInputStream dis = new DataInputStream(new FileInputStream(archivo))) {
+            return dis.readInt() == MAGICO;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    // --- Registros individuales ---
+
+    /**
+     * Escribe una exportación en formato binario.
+     * @param salida Destino de los datos.
+     * @param exp La exportación a escribir.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    public static void escribir(DataOutput salida, Exportacion exp) throws IOException {
+        if (exp instanceof ExportacionCargaPesada) {
+            salida.writeByte(TIPO_CARGA_PESADA);
+        } else if (exp instanceof ExportacionCargaSuelta) {
+            salida.writeByte(TIPO_CARGA_SUELTA);
+        } else {
+            throw new IOException("Tipo de exportación desconocido: " + exp.getClass().getName());
+        }
+        escribirTexto(salida, exp.getIdCliente());
+        escribirTexto(salida, exp.getNombreCompleto());
+        escribirTexto(salida, exp.getZonaEnvio());
+        escribirTexto(salida, exp.getTipoServicio());
+        salida.writeInt((int) exp.getFechaExportacion().toEpochDay());
+        salida.writeDouble(exp.getKilogramosEmbalar());
+        if (exp instanceof ExportacionCargaPesada) {
+            escribirTexto(salida, ((ExportacionCargaPesada) exp).getTipoCarga());
+        } else {
+            salida.writeDouble(((ExportacionCargaSuelta) exp).getPiesCarga());
+        }
+    }
+
+    /**
+     * Lee una exportación escrita con {@link #escribir(DataOutput, Exportacion)}.
+     * @param entrada Origen de los datos.
+     * @return La exportación reconstruida, con su fecha original.
+     * @throws IOException Si los datos están incompletos o dañados.
+     */
+    public static Exportacion leer(DataInput entrada) throws IOException {
+        byte tipo = entrada.readByte();
+        String idCliente = leerTexto(entrada);
+        String nombre = leerTexto(entrada);
+        String zona = leerTexto(entrada);
+        String servicio = leerTexto(entrada);
+        LocalDate fecha = LocalDate.ofEpochDay(entrada.readInt());
+        double kilos = entrada.readDouble();
+
+        Exportacion exp;
+        switch (tipo) {
+            case TIPO_CARGA_PESADA:
+                exp = new ExportacionCargaPesada(idCliente, nombre, zona, servicio, kilos, leerTexto(entrada));
+                break;
+            case TIPO_CARGA_SUELTA:
+                exp = new ExportacionCargaSuelta(idCliente, nombre, zona, servicio, kilos, entrada.readDouble());
+                break;
+            default:
+                throw new IOException("Tipo de registro desconocido: " + tipo);
+        }
+        exp.setFechaExportacion(fecha);
+        return exp;
+    }
+
+    private static void escribirTexto(DataOutput salida, String texto) throws IOException {
+        if (texto == null) {
+            salida.writeShort(0xFFFF); // Marca de texto nulo
+            return;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= 0xFFFF) {
+            throw new IOException("Texto demasiado largo para el formato binario.");
+        }
+        salida.writeShort(bytes.length);
+        salida.write(bytes);
+    }
+
+    private static String leerTexto(DataInput entrada) throws IOException {
+        int largo = entrada.readUnsignedShort();
+        if (largo == 0xFFFF) {
+            return null;
+        }
+        byte[] bytes = new byte[largo];
+        entrada.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // --- Archivos completos ---
+
+    /**
+     * Guarda una lista completa de exportaciones en formato binario y espera
+     * a que quede escrita en el disco.
+     * @param archivo Archivo destino.
+     * @param lista Las exportaciones a guardar.
+     * @param generacion Generación de la instantánea.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    public static void guardarLista(File archivo, List<? extends Exportacion> lista, long generacion) throws IOException {
+        try (FileOutputStream fos = new FileOutputStream(archivo);
+             DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(fos, 1 << 16))) {
+            escribirEncabezado(dos, generacion);
+            dos.writeInt(lista.size());
+            for (Exportacion exp : lista) {
+                escribir(dos, exp);
+            }
+            dos.flush();
+            fos.getFD().sync();
+        }
+    }
+
+    /**
+     * Carga una lista completa de exportaciones guardada en formato binario.
+     * @param archivo Archivo origen.
+     * @return Las exportaciones leídas.
+     * @throws IOException Si el archivo no se puede leer o está dañado.
+     */
+    public static ArrayList<Exportacion> cargarLista(File archivo) throws IOException {
+        return cargarLista(archivo, Integer.MAX_VALUE, null);
+    }
+
+    /**
+     * Carga una lista completa de exportaciones, avisando cada vez que se lee
+     * un lote de registros.
+     * @param archivo Archivo origen.
+     * @param tamanoLote Cantidad de exportaciones por lote.
+     * @param oyente Recibe cada lote leído; puede ser null.
+     * @return Todas las exportaciones leídas.
+     * @throws IOException Si el archivo no se puede leer o está dañado.
+     */
+    public static ArrayList<Exportacion> cargarLista(File archivo, int tamanoLote, OyenteCarga oyente) throws IOException {
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(archivo), 1 << 16))) {
+            leerEncabezado(dis);
+            int cantidad = dis.readInt();
+            if (oyente != null) {
+                oyente.cargaIniciada(cantidad);
+            }
+            ArrayList<Exportacion> lista = new ArrayList<>(cantidad);
+            ArrayList<Exportacion> lote = new ArrayList<>(Math.min(cantidad, tamanoLote));
+            for (int i = 0; i < cantidad; i++) {
+                lote.add(leer(dis));
+                if (lote.size() == tamanoLote || i == cantidad - 1) {
+                    lista.addAll(lote);
+                    if (oyente != null) {
+                        oyente.loteLeido(lote);
+                    }
+                    lote = new ArrayList<>(Math.min(cantidad - i - 1, tamanoLote));
+                }
+            }
+            return lista;
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package persistencia;
+
+import Clases.Exportacion;
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Persistencia basada en diario (journal) para las exportaciones.
+ * En lugar de reescribir todo el archivo Exportaciones.dat en cada cambio,
+ * cada inserción, modificación o eliminación se agrega al final del diario
+ * como un registro pequeño. Al iniciar, el diario se reproduce sobre la
+ * última instantánea (snapshot) guardada.
+ *
+ * Las operaciones registradas quedan en un búfer hasta llamar a
+ * {@link #confirmar()}, que las escribe juntas y las fuerza al disco; así
+ * varias operaciones seguidas pueden confirmarse en una sola escritura.
+ *
+ * Para que el diario no crezca sin límite se puede compactar: {@link #rotar()}
+ * aparta el diario actual (".anterior") y empieza uno nuevo con la generación
+ * siguiente, y luego {@link #escribirInstantanea(List, long)} guarda la
+ * instantánea de esa generación en un archivo temporal, la pone en su lugar
+ * con un renombrado atómico y borra el diario apartado. Si el programa se
+ * interrumpe en cualquier punto, la generación guardada en cada archivo indica
+ * cuáles diarios hay que reproducir sobre la instantánea.
+ *
+ * Tanto la instantánea como el diario usan el formato de {@link CodecExportacion}.
+ * Formato de cada registro del diario:
+ * [operación (1 byte)] [índice (int)] [largo (int)] [exportación codificada]
+ */
+public class DiarioExportaciones {
+
+    // Códigos de operación del diario
+    static final byte OP_INSERTAR = 1;
+    static final byte OP_MODIFICAR = 2;
+    static final byte OP_ELIMINAR = 3;
+
+    private final File archivoInstantanea;
+    private final File archivoDiario;
+    private final File archivoDiarioAnterior;
+    private FileOutputStream archivoSalida;
+    private DataOutputStream salidaDiario;
+
+    // Generación del diario activo y cantidad de operaciones que contiene desde la última instantánea
+    private long generacion = 0;
+    private int operacionesEnDiario = 0;
+
+    // Búfer reutilizado para codificar cada registro antes de escribirlo
+    private final ByteArrayOutputStream bufferRegistro = new ByteArrayOutputStream(256);
+    private final DataOutputStream salidaRegistro = new DataOutputStream(bufferRegistro);
+
+    /**
+     * Crea un diario asociado a una instantánea y a un archivo de diario.
+     *
+     * @param archivoInstantanea Archivo con la lista completa (Exportaciones.dat).
+     * @param archivoDiario Archivo donde se agregan los cambios.
+     */
+    public DiarioExportaciones(File archivoInstantanea, File archivoDiario) {
+        this.archivoInstantanea = archivoInstantanea;
+        this.archivoDiario = archivoDiario;
+        this.archivoDiarioAnterior = new File(archivoDiario.getPath() + ".anterior");
+    }
+
+    /**
+     * Carga la última instantánea y le aplica, en orden, todos los cambios
+     * registrados en el diario.
+     * Si los archivos están en el formato antiguo (serialización de Java), se
+     * migran una única vez al formato binario; el archivo original se conserva
+     * con la extensión ".bak".
+     *
+     * @return La lista de exportaciones reconstruida.
+     * @throws IOException Si alguno de los archivos no se puede leer.
+     */
+    public ArrayList<Exportacion> cargar() throws IOException {
+        return cargar(Integer.MAX_VALUE, null);
+    }
+
+    /**
+     * Igual que {@link #cargar()}, pero entrega la instantánea por lotes a
+     * medida que se decodifica. Los cambios del diario se aplican al final, por
+     * lo que solo la lista devuelta refleja el estado definitivo.
+     *
+     * @param tamanoLote Cantidad de exportaciones por lote.
+     * @param oyente Recibe cada lote de la instantánea; puede ser null.
+     * @return La lista de exportaciones reconstruida.
+     * @throws IOException Si alguno de los archivos no se puede leer.
+     */
+    public ArrayList<Exportacion> cargar(int tamanoLote, OyenteCarga oyente) throws IOException {
+        boolean formatoAntiguo = false;
+        boolean reescribir = false;
+        long generacionInstantanea = 0;
+        operacionesEnDiario = 0;
+
+        ArrayList<Exportacion> lista = new ArrayList<>();
+        if (archivoInstantanea.exists() && archivoInstantanea.length() > 0) {
+            if (CodecExportacion.esFormatoBinario(archivoInstantanea)) {
+                generacionInstantanea = CodecExportacion.leerGeneracion(archivoInstantanea);
+                lista = CodecExportacion.cargarLista(archivoInstantanea, tamanoLote, oyente);
+            } else {
+                lista = cargarInstantaneaSerializada();
+                formatoAntiguo = true;
+                if (oyente != null) {
+                    oyente.cargaIniciada(lista.size());
+                    oyente.loteLeido(new ArrayList<>(lista));
+                }
+            }
+        }
+        generacion = generacionInstantanea;
+
+        // Un diario apartado solo existe si se interrumpió una compactación
+        if (archivoDiarioAnterior.exists()) {
+            if (esDiarioVigente(archivoDiarioAnterior, generacionInstantanea)) {
+                reproducir(archivoDiarioAnterior, lista, false);
+                reescribir = true;
+            } else {
+                Files.delete(archivoDiarioAnterior.toPath());
+            }
+        }
+        if (archivoDiario.exists() && archivoDiario.length() > 0) {
+            if (!CodecExportacion.esFormatoBinario(archivoDiario)) {
+                reproducir(archivoDiario, lista, true);
+                formatoAntiguo = true;
+            } else if (esDiarioVigente(archivoDiario, generacionInstantanea)) {
+                generacion = CodecExportacion.leerGeneracion(archivoDiario);
+                long largoValido = reproducir(archivoDiario, lista, false);
+                if (largoValido < archivoDiario.length()) {
+                    // Los registros nuevos no pueden quedar detrás de uno incompleto
+                    try (RandomAccessFile archivo = new RandomAccessFile(archivoDiario, "rw")) {
+                        archivo.setLength(largoValido);
+                    }
+                }
+            } else {
+                // Sus cambios ya están en la instantánea
+                Files.delete(archivoDiario.toPath());
+            }
+        }
+        if (formatoAntiguo) {
+            migrarFormatoBinario(lista);
+        } else if (reescribir) {
+            reescribirInstantanea(lista);
+        }
+        return lista;
+    }
+
+    private static boolean esDiarioVigente(File diario, long generacionInstantanea) throws IOException {
+        return diario.length() > 0 && CodecExportacion.esFormatoBinario(diario)
+                && CodecExportacion.leerGeneracion(diario) >= generacionInstantanea;
+    }
+
+    /**
+     * Aplica sobre la lista cada operación de un diario.
+     * Un registro incompleto al final (por ejemplo, tras un corte de luz a mitad
+     * de una escritura) se descarta sin afectar a los anteriores.
+     * @return El largo del diario hasta el último registro completo.
+     */
+    private long reproducir(File diario, ArrayList<Exportacion> lista, boolean formatoSerializado) throws IOException {
+        long largo = diario.length();
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(diario), 1 << 16))) {
+            if (!formatoSerializado) {
+                CodecExportacion.leerEncabezado(dis);
+            }
+            // Con un archivo, available() es lo que falta leer
+            long largoValido = largo - dis.available();
+            while (true) {
+                byte operacion;
+                try {
+                    operacion = dis.readByte();
+                } catch (EOFException fin) {
+                    break; // Fin normal del diario
+                }
+                try {
+                    int indice = dis.readInt();
+                    byte[] datos = new byte[dis.readInt()];
+                    dis.readFully(datos);
+                    switch (operacion) {
+                        case OP_INSERTAR:
+                            lista.add(decodificar(datos, formatoSerializado));
+                            break;
+                        case OP_MODIFICAR:
+                            lista.set(indice, decodificar(datos, formatoSerializado));
+                            break;
+                        case OP_ELIMINAR:
+                            lista.remove(indice);
+                            break;
+                        default:
+                            throw new IOException("Operación desconocida en el diario: " + operacion);
+                    }
+                    operacionesEnDiario++;
+                    largoValido = largo - dis.available();
+                } catch (EOFException registroIncompleto) {
+                    break;
+                }
+            }
+            return largoValido;
+        }
+    }
+
+    /**
+     * Registra la inserción de una exportación al final de la lista.
+     * @param exp La exportación agregada.
+     * @throws IOException Si no se puede escribir en el diario.
+     */
+    public void registrarInsercion(Exportacion exp) throws IOException {
+        escribir(OP_INSERTAR, -1, exp);
+    }
+
+    /**
+     * Registra el reemplazo de la exportación que está en la posición indicada.
+     * @param indice Posición de la exportación en la lista.
+     * @param exp La exportación con los datos nuevos.
+     * @throws IOException Si no se puede escribir en el diario.
+     */
+    public void registrarModificacion(int indice, Exportacion exp) throws IOException {
+        escribir(OP_MODIFICAR, indice, exp);
+    }
+
+    /**
+     * Registra la eliminación de la exportación que está en la posición indicada.
+     * @param indice Posición de la exportación eliminada.
+     * @throws IOException Si no se puede escribir en el diario.
+     */
+    public void registrarEliminacion(int indice) throws IOException {
+        escribir(OP_ELIMINAR, indice, null);
+    }
+
+    private void escribir(byte operacion, int indice, Exportacion exp) throws IOException {
+        if (salidaDiario == null) {
+            boolean nuevo = !archivoDiario.exists() || archivoDiario.length() == 0;
+            archivoSalida = new FileOutputStream(archivoDiario, true);
+            salidaDiario = new DataOutputStream(new BufferedOutputStream(archivoSalida, 1 << 16));
+            if (nuevo) {
+                CodecExportacion.escribirEncabezado(salidaDiario, generacion);
+            }
+        }
+        bufferRegistro.reset();
+        if (exp != null) {
+            CodecExportacion.escribir(salidaRegistro, exp);
+        }
+        salidaDiario.writeByte(operacion);
+        salidaDiario.writeInt(indice);
+        salidaDiario.writeInt(bufferRegistro.size());
+        bufferRegistro.writeTo(salidaDiario);
+        operacionesEnDiario++;
+    }
+
+    /**
+     * Escribe en el archivo todas las operaciones registradas desde la última
+     * confirmación y espera a que el sistema operativo las guarde en el disco.
+     * @throws IOException Si no se puede escribir en el diario.
+     */
+    public void confirmar() throws IOException {
+        if (salidaDiario != null) {
+            salidaDiario.flush();
+            archivoSalida.getChannel().force(false);
+        }
+    }
+
+    /**
+     * Cierra el archivo del diario si estaba abierto.
+     * @throws IOException Si ocurre un error al cerrar.
+     */
+    public void cerrar() throws IOException {
+        if (salidaDiario != null) {
+            confirmar();
+            salidaDiario.close();
+            salidaDiario = null;
+            archivoSalida = null;
+        }
+    }
+
+    /**
+     * @return Cantidad de operaciones escritas desde la última instantánea.
+     */
+    public int getOperacionesEnDiario() {
+        return operacionesEnDiario;
+    }
+
+    /**
+     * @return true si hay un diario (o uno apartado por una compactación
+     * interrumpida) con cambios que quizá no están en la instantánea.
+     */
+    public boolean tieneCambios() {
+        return archivoDiario.length() > 0 || archivoDiarioAnterior.exists();
+    }
+
+    /**
+     * Borra los archivos del diario. Solo se usa cuando sus cambios ya se
+     * guardaron de otra forma, con el diario cerrado.
+     * @throws IOException Si alguno de los archivos no se puede borrar.
+     */
+    public void descartar() throws IOException {
+        cerrar();
+        Files.deleteIfExists(archivoDiarioAnterior.toPath());
+        Files.deleteIfExists(archivoDiario.toPath());
+        operacionesEnDiario = 0;
+    }
+
+    // --- Compactación ---
+
+    /**
+     * Primer paso de la compactación: confirma y aparta el diario actual y hace
+     * que las siguientes operaciones vayan a un diario nuevo. Debe llamarse en
+     * el mismo orden que las operaciones, justo cuando la lista tiene el estado
+     * que se guardará en la instantánea.
+     *
+     * @return La generación de la instantánea que hay que escribir después.
+     * @throws IOException Si el diario no se puede apartar, por ejemplo porque
+     *                     otra compactación todavía no terminó.
+     */
+    public long rotar() throws IOException {
+        if (archivoDiarioAnterior.exists()) {
+            throw new IOException("Hay una compactación anterior sin terminar.");
+        }
+        cerrar();
+        if (archivoDiario.exists()) {
+            Files.move(archivoDiario.toPath(), archivoDiarioAnterior.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        }
+        generacion++;
+        operacionesEnDiario = 0;
+        return generacion;
+    }
+
+    /**
+     * Segundo paso de la compactación: escribe la instantánea en un archivo
+     * temporal, la reemplaza de forma atómica y borra el diario apartado.
+     * Puede ejecutarse en otro hilo mientras se siguen registrando operaciones.
+     *
+     * @param lista Estado de las exportaciones en el momento de {@link #rotar()}.
+     * @param generacionInstantanea El valor devuelto por {@link #rotar()}.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    public void escribirInstantanea(List<Exportacion> lista, long generacionInstantanea) throws IOException {
+        File temporal = new File(archivoInstantanea.getPath() + ".tmp");
+        CodecExportacion.guardarLista(temporal, lista, generacionInstantanea);
+        moverAtomico(temporal, archivoInstantanea);
+        Files.deleteIfExists(archivoDiarioAnterior.toPath());
+    }
+
+    /**
+     * Guarda la lista completa como instantánea de una generación nueva y
+     * descarta los diarios; se usa al terminar la carga, sin otros hilos escribiendo.
+     */
+    private void reescribirInstantanea(ArrayList<Exportacion> lista) throws IOException {
+        cerrar();
+        generacion++;
+        File temporal = new File(archivoInstantanea.getPath() + ".tmp");
+        CodecExportacion.guardarLista(temporal, lista, generacion);
+        moverAtomico(temporal, archivoInstantanea);
+        Files.deleteIfExists(archivoDiarioAnterior.toPath());
+        Files.deleteIfExists(archivoDiario.toPath());
+        operacionesEnDiario = 0;
+    }
+
+    private static void moverAtomico(File origen, File destino) throws IOException {
+        try {
+            Files.move(origen.toPath(), destino.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(origen.toPath(), destino.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static Exportacion decodificar(byte[] datos, boolean formatoSerializado) throws IOException {
+        if (formatoSerializado) {
+            try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(datos))) {
+                return (Exportacion) ois.readObject();
+            } catch (ClassNotFoundException e) {
+                throw new IOException("El diario contiene clases desconocidas.", e);
+            }
+        }
+        return CodecExportacion.leer(new DataInputStream(new ByteArrayInputStream(datos)));
+    }
+
+    // --- Migración desde la serialización de Java ---
+
+    @SuppressWarnings("unchecked")
+    private ArrayList<Exportacion> cargarInstantaneaSerializada() throws IOException {
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(archivoInstantanea)))) {
+            return (ArrayList<Exportacion>) ois.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("La instantánea contiene clases desconocidas.", e);
+        }
+    }
+
+    /**
+     * Reescribe los datos en formato binario, guardando antes una copia del
+     * archivo antiguo.
+     */
+    private void migrarFormatoBinario(ArrayList<Exportacion> lista) throws IOException {
+        if (archivoInstantanea.exists()) {
+            Files.copy(archivoInstantanea.toPath(), new File(archivoInstantanea.getPath() + ".bak").toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+        reescribirInstantanea(lista);
+        System.out.println("Datos migrados al formato binario.");
+    }
+}
@@ -0,0 +1,66 @@
+package persistencia;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Crea el repositorio de exportaciones según la propiedad del sistema
+ * "registro.almacen":
+ * <ul>
+ * <li>diario (predeterminado): instantánea binaria más diario de cambios.</li>
+ * <li>serializado: el archivo original con serialización de Java.</li>
+ * <li>mapeado: archivos mapeados en memoria, para volúmenes grandes.</li>
+ * <li>jdbc: base de datos embebida; la URL se indica con "registro.jdbc.url".</li>
+ * <li>memoria: no guarda nada (útil para pruebas).</li>
+ * </ul>
+ */
+public final class FabricaRepositorios {
+
+    /** Archivo con los datos de las exportaciones. */
+    public static final File ARCHIVO_DATOS = new File("Exportaciones.dat");
+    /** Archivo con los cambios posteriores a la última instantánea. */
+    public static final File ARCHIVO_DIARIO = new File("Exportaciones.diario");
+    /** Archivo con el cubo de resúmenes por día, zona, servicio y tipo. */
+    public static final File ARCHIVO_CUBO = new File("Exportaciones.cubo");
+
+    private FabricaRepositorios() {
+    }
+
+    /**
+     * Crea el repositorio configurado para esta ejecución.
+     * @param alFallar Recibe los errores de las escrituras en segundo plano.
+     * @return El repositorio, todavía sin cargar.
+     */
+    public static RepositorioExportaciones crear(Consumer<IOException> alFallar) {
+        return crear(System.getProperty("registro.almacen", "diario"), alFallar);
+    }
+
+    /**
+     * Crea un repositorio del tipo indicado.
+     * @param tipo Nombre del tipo de repositorio.
+     * @param alFallar Recibe los errores de las escrituras en segundo plano.
+     * @return El repositorio, todavía sin cargar.
+     */
+    public static RepositorioExportaciones crear(String tipo, Consumer<IOException> alFallar) {
+        switch (tipo) {
+            case "diario":
+                return new RepositorioDiario(ARCHIVO_DATOS, ARCHIVO_DIARIO, ARCHIVO_CUBO,
+                        Long.getLong("registro.persistencia.intervaloMs", 200),
+                        Integer.getInteger("registro.persistencia.lote", 256),
+                        alFallar);
+            case "serializado":
+                return new RepositorioSerializado(ARCHIVO_DATOS, ARCHIVO_DIARIO);
+            case "mapeado":
+                return new RepositorioMapeado(new File("Exportaciones.reg"), new File("Exportaciones.cad"),
+                        ARCHIVO_CUBO, new DiarioExportaciones(ARCHIVO_DATOS, ARCHIVO_DIARIO));
+            case "jdbc":
+                return new RepositorioJdbc(System.getProperty("registro.jdbc.url", "jdbc:h2:./Exportaciones"),
+                        new DiarioExportaciones(ARCHIVO_DATOS, ARCHIVO_DIARIO));
+            case "memoria":
+                return new RepositorioMemoria();
+            default:
+                throw new IllegalArgumentException("Tipo de almacén desconocido: " + tipo);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package persistencia;
+
+import Clases.Exportacion;
+import java.util.List;
+
+/**
+ * Recibe avisos mientras se cargan las exportaciones, para poder mostrarlas
+ * por partes sin esperar a que termine toda la lectura.
+ */
+public interface OyenteCarga {
+
+    /**
+     * Se llama una vez, antes del primer lote.
+     * @param total Cantidad de exportaciones que se espera leer.
+     */
+    void cargaIniciada(int total);
+
+    /**
+     * Se llama cada vez que se termina de leer un lote.
+     * La lista recibida no se vuelve a modificar, por lo que puede pasarse a otro hilo.
+     * @param lote Las exportaciones leídas en este lote, en orden.
+     */
+    void loteLeido(List<Exportacion> lote);
+}
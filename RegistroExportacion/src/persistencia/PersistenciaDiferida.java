@@ -0,0 +1,389 @@
+package persistencia;
+
+import Clases.Exportacion;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Escribe los cambios en el diario desde un hilo propio (write-behind), para
+ * que la interfaz no tenga que esperar al disco.
+ *
+ * Las operaciones se encolan al instante y el hilo las agrupa: espera hasta
+ * juntar un lote o hasta que pase el intervalo de vaciado, y entonces escribe
+ * todo el grupo con una sola confirmación en el disco (group commit).
+ *
+ * También coordina la compactación del diario: la rotación se encola junto
+ * con las demás operaciones, para que ocurra justo en el punto que representa
+ * la copia de la lista, y la instantánea se escribe en otro hilo sin detener
+ * la escritura de los cambios nuevos.
+ *
+ * Si un lote no se puede escribir, el diario queda detrás de la lista y los
+ * lotes siguientes ya no corresponderían a sus índices: el hilo se detiene,
+ * el lote fallido y los posteriores quedan pendientes, y el vaciado y el
+ * cierre lanzan el error en lugar de darlos por escritos.
+ */
+public class PersistenciaDiferida {
+
+    // Operación interna que marca el punto de compactación en la cola
+    private static final byte OP_COMPACTAR = 0;
+
+    // Mínimo de operaciones en el diario antes de compactar
+    private static final int MINIMO_PARA_COMPACTAR = 1000;
+
+    /**
+     * Una operación pendiente de escribir en el diario.
+     */
+    private static class Operacion {
+        final byte tipo;
+        final int indice;
+        final Exportacion exportacion;
+        final List<Exportacion> instantanea;
+
+        Operacion(byte tipo, int indice, Exportacion exportacion) {
+            this(tipo, indice, exportacion, null);
+        }
+
+        Operacion(byte tipo, int indice, Exportacion exportacion, List<Exportacion> instantanea) {
+            this.tipo = tipo;
+            this.indice = indice;
+            this.exportacion = exportacion;
+            this.instantanea = instantanea;
+        }
+    }
+
+    private final DiarioExportaciones diario;
+    private final long intervaloVaciadoMs;
+    private final int tamanoLote;
+    private final Consumer<IOException> alFallar;
+
+    private final Object cerrojo = new Object();
+    private ArrayList<Operacion> pendientes = new ArrayList<>();
+    private long encoladas = 0;
+    private long escritas = 0;
+    private boolean vaciarAhora = false;
+    private boolean detenida = false;
+    private Thread hilo;
+    // Primer error de escritura; después de él no se escribe nada más
+    private IOException falla;
+
+    // Operaciones en el diario desde la última instantánea y compactación en curso
+    private int operacionesSinCompactar;
+    private boolean compactacionPendiente = false;
+    private Thread hiloCompactacion;
+
+    /**
+     * Crea el persistidor. Las operaciones se aceptan desde ya, pero no se
+     * escriben hasta llamar a {@link #iniciar()}.
+     *
+     * @param diario Diario donde se escriben los cambios.
+     * @param intervaloVaciadoMs Tiempo máximo que una operación espera antes de escribirse.
+     * @param tamanoLote Cantidad de operaciones que provoca una escritura inmediata.
+     * @param alFallar Recibe los errores de escritura (se llama desde el hilo de persistencia).
+     */
+    public PersistenciaDiferida(DiarioExportaciones diario, long intervaloVaciadoMs, int tamanoLote,
+                                Consumer<IOException> alFallar) {
+        this.diario = diario;
+        this.intervaloVaciadoMs = intervaloVaciadoMs;
+        this.tamanoLote = tamanoLote;
+        this.alFallar = alFallar;
+    }
+
+    /**
+     * Arranca el hilo de persistencia.
+     */
+    public void iniciar() {
+        synchronized (cerrojo) {
+            if (hilo != null) {
+                return;
+            }
+            operacionesSinCompactar += diario.getOperacionesEnDiario();
+            hilo = new Thread(this::ejecutar, "persistencia-diferida");
+            hilo.setDaemon(true);
+            hilo.start();
+        }
+    }
+
+    // --- Operaciones (no bloquean) ---
+
+    /**
+     * Encola la inserción de una exportación al final de la lista.
+     * @param exp La exportación agregada.
+     */
+    public void insertar(Exportacion exp) {
+        encolar(new Operacion(DiarioExportaciones.OP_INSERTAR, -1, exp));
+    }
+
+    /**
+     * Encola el reemplazo de la exportación de la posición indicada.
+     * @param indice Posición de la exportación en la lista.
+     * @param exp La exportación con los datos nuevos.
+     */
+    public void modificar(int indice, Exportacion exp) {
+        encolar(new Operacion(DiarioExportaciones.OP_MODIFICAR, indice, exp));
+    }
+
+    /**
+     * Encola la eliminación de la exportación de la posición indicada.
+     * @param indice Posición de la exportación eliminada.
+     */
+    public void eliminar(int indice) {
+        encolar(new Operacion(DiarioExportaciones.OP_ELIMINAR, indice, null));
+    }
+
+    private void encolar(Operacion op) {
+        synchronized (cerrojo) {
+            if (detenida) {
+                throw new IllegalStateException("La persistencia ya fue cerrada.");
+            }
+            pendientes.add(op);
+            encoladas++;
+            if (op.tipo != OP_COMPACTAR) {
+                operacionesSinCompactar++;
+            }
+            if (pendientes.size() == 1 || pendientes.size() >= tamanoLote) {
+                cerrojo.notifyAll();
+            }
+        }
+    }
+
+    // --- Compactación ---
+
+    /**
+     * Indica si conviene compactar: el diario tiene al menos mil operaciones
+     * y más de una cuarta parte de la cantidad de exportaciones, de modo que
+     * reproducirlo al iniciar nunca cueste mucho más que leer la instantánea.
+     *
+     * @param cantidadExportaciones Tamaño actual de la lista.
+     * @return true si hay que llamar a {@link #compactar(List)}.
+     */
+    public boolean necesitaCompactar(int cantidadExportaciones) {
+        synchronized (cerrojo) {
+            return hilo != null && falla == null && !compactacionPendiente
+                    && operacionesSinCompactar >= Math.max(MINIMO_PARA_COMPACTAR, cantidadExportaciones / 4);
+        }
+    }
+
+    /**
+     * Encola una compactación. La lista debe ser una copia del estado actual,
+     * tomada después de encolar todas las operaciones que refleja.
+     *
+     * @param copia Copia de la lista de exportaciones.
+     */
+    public void compactar(List<Exportacion> copia) {
+        synchronized (cerrojo) {
+            if (compactacionPendiente) {
+                return; // Ya hay una en curso
+            }
+            compactacionPendiente = true;
+            operacionesSinCompactar = 0;
+            encolar(new Operacion(OP_COMPACTAR, -1, null, copia));
+        }
+    }
+
+    /**
+     * Se ejecuta en el hilo de persistencia, en orden con las demás operaciones:
+     * aparta el diario y lanza la escritura de la instantánea en otro hilo.
+     */
+    private void iniciarCompactacion(List<Exportacion> copia) throws IOException {
+        final long generacion;
+        try {
+            generacion = diario.rotar();
+        } catch (IOException e) {
+            synchronized (cerrojo) {
+                compactacionPendiente = false;
+            }
+            throw e;
+        }
+        Thread compactacion = new Thread(() -> {
+            try {
+                diario.escribirInstantanea(copia, generacion);
+                System.out.println("Diario compactado: " + copia.size() + " exportaciones.");
+            } catch (IOException e) {
+                alFallar.accept(e);
+            } finally {
+                synchronized (cerrojo) {
+                    hiloCompactacion = null;
+                    compactacionPendiente = false;
+                    cerrojo.notifyAll();
+                }
+            }
+        }, "compactacion-diario");
+        synchronized (cerrojo) {
+            hiloCompactacion = compactacion;
+        }
+        compactacion.start();
+    }
+
+    // --- Vaciado y cierre ---
+
+    /**
+     * Pide escribir de inmediato todo lo pendiente y espera a que quede en el disco.
+     * @throws IOException Si la escritura falló, ahora o en un lote anterior, o
+     * si hay cambios pendientes y el hilo todavía no se inició (la carga sigue
+     * leyendo el diario y no se puede escribir en él).
+     */
+    public void vaciarYEsperar() throws IOException {
+        synchronized (cerrojo) {
+            if (hilo == null) {
+                if (!pendientes.isEmpty()) {
+                    throw new IOException("La carga del diario no terminó: "
+                            + pendientes.size() + " cambios no se pudieron guardar.");
+                }
+                return;
+            }
+            long objetivo = encoladas;
+            vaciarAhora = true;
+            cerrojo.notifyAll();
+            while (escritas < objetivo && falla == null && hilo.isAlive()) {
+                try {
+                    cerrojo.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Se interrumpió la espera del vaciado.", e);
+                }
+            }
+            if (falla != null) {
+                throw new IOException("No se pudieron escribir los cambios en el diario: "
+                        + falla.getMessage(), falla);
+            }
+            if (escritas < objetivo) {
+                throw new IOException("El hilo de persistencia terminó sin escribir todos los cambios.");
+            }
+        }
+    }
+
+    /**
+     * Escribe todo lo pendiente, detiene el hilo y cierra el diario. El diario
+     * se cierra aunque la escritura falle.
+     * @throws IOException Si la escritura o el cierre fallan.
+     */
+    public void cerrar() throws IOException {
+        IOException error = null;
+        try {
+            vaciarYEsperar();
+        } catch (IOException e) {
+            error = e;
+        }
+        Thread anterior;
+        synchronized (cerrojo) {
+            detenida = true;
+            cerrojo.notifyAll();
+            anterior = hilo;
+        }
+        if (anterior != null) {
+            try {
+                anterior.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (cerrojo) {
+            // Espera a que termine la instantánea que se esté escribiendo
+            while (hiloCompactacion != null && hiloCompactacion.isAlive()) {
+                try {
+                    cerrojo.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            try {
+                diario.cerrar();
+            } catch (IOException e) {
+                if (error == null) {
+                    error = e;
+                } else {
+                    error.addSuppressed(e);
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    // --- Hilo de persistencia ---
+
+    private void ejecutar() {
+        while (true) {
+            List<Operacion> lote;
+            synchronized (cerrojo) {
+                try {
+                    // Espera la primera operación
+                    while (pendientes.isEmpty() && !detenida) {
+                        cerrojo.wait();
+                    }
+                    if (pendientes.isEmpty()) {
+                        return; // Detenida y sin trabajo
+                    }
+                    // Deja que se acumulen más operaciones durante el intervalo
+                    long limite = System.currentTimeMillis() + intervaloVaciadoMs;
+                    long espera;
+                    while (!vaciarAhora && !detenida && pendientes.size() < tamanoLote
+                            && (espera = limite - System.currentTimeMillis()) > 0) {
+                        cerrojo.wait(espera);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                vaciarAhora = false;
+                lote = tomarPendientes();
+            }
+            try {
+                escribirLote(lote);
+            } catch (IOException e) {
+                synchronized (cerrojo) {
+                    // Si el lote falló antes de llegar a la compactación, esta se descarta
+                    if (hiloCompactacion == null) {
+                        compactacionPendiente = false;
+                    }
+                    // El lote vuelve delante de lo encolado después y el hilo se detiene
+                    lote.addAll(pendientes);
+                    pendientes = new ArrayList<>(lote);
+                    falla = e;
+                    cerrojo.notifyAll();
+                }
+                alFallar.accept(e);
+                return;
+            }
+            synchronized (cerrojo) {
+                escritas += lote.size();
+                cerrojo.notifyAll();
+            }
+        }
+    }
+
+    private List<Operacion> tomarPendientes() {
+        List<Operacion> lote = pendientes;
+        pendientes = new ArrayList<>();
+        return lote;
+    }
+
+    /**
+     * Escribe un grupo de operaciones y las confirma en el disco una sola vez.
+     * Solo el hilo de persistencia usa el diario.
+     */
+    private void escribirLote(List<Operacion> lote) throws IOException {
+        if (lote.isEmpty()) {
+            return;
+        }
+        for (Operacion op : lote) {
+            switch (op.tipo) {
+                case OP_COMPACTAR:
+                    iniciarCompactacion(op.instantanea);
+                    break;
+                case DiarioExportaciones.OP_INSERTAR:
+                    diario.registrarInsercion(op.exportacion);
+                    break;
+                case DiarioExportaciones.OP_MODIFICAR:
+                    diario.registrarModificacion(op.indice, op.exportacion);
+                    break;
+                default:
+                    diario.registrarEliminacion(op.indice);
+            }
+        }
+        diario.confirmar();
+    }
+}
@@ -0,0 +1,107 @@
+package persistencia;
+
+import Clases.Exportacion;
+import estadisticas.CuboExportaciones;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Repositorio en formato binario: una instantánea (Exportaciones.dat) más un
+ * diario con los cambios posteriores. Los cambios se escriben en segundo plano
+ * con {@link PersistenciaDiferida} y el diario se compacta cuando crece.
+ * Al cerrar se guarda también el cubo de resúmenes (Exportaciones.cubo), que
+ * la próxima carga usa en lugar de armarlo otra vez si los datos no cambiaron.
+ */
+public class RepositorioDiario extends RepositorioMemoria {
+
+    private final File instantanea;
+    private final File archivoDiario;
+    private final File archivoCubo;
+    private final DiarioExportaciones diario;
+    private final PersistenciaDiferida persistencia;
+
+    /**
+     * @param instantanea Archivo con la última instantánea.
+     * @param archivoDiario Archivo con los cambios posteriores a la instantánea.
+     * @param archivoCubo Archivo donde se guarda el cubo de resúmenes al cerrar.
+     * @param intervaloVaciadoMs Tiempo máximo que un cambio espera antes de escribirse.
+     * @param tamanoLote Cantidad de cambios que provoca una escritura inmediata.
+     * @param alFallar Recibe los errores de escritura (se llama desde otro hilo).
+     */
+    public RepositorioDiario(File instantanea, File archivoDiario, File archivoCubo, long intervaloVaciadoMs,
+                             int tamanoLote, Consumer<IOException> alFallar) {
+        this.instantanea = instantanea;
+        this.archivoDiario = archivoDiario;
+        this.archivoCubo = archivoCubo;
+        this.diario = new DiarioExportaciones(instantanea, archivoDiario);
+        this.persistencia = new PersistenciaDiferida(this.diario, intervaloVaciadoMs, tamanoLote, alFallar);
+    }
+
+    @Override
+    protected CuboExportaciones leerCubo() throws IOException {
+        CuboExportaciones cubo = ArchivoCubo.leer(this.archivoCubo, ArchivoCubo.firma(this.instantanea, this.archivoDiario));
+        // Desde el primer cambio el archivo ya no corresponde a los datos
+        ArchivoCubo.descartar(this.archivoCubo);
+        return cubo;
+    }
+
+    @Override
+    protected List<Exportacion> leerDatos(int tamanoLote, OyenteCarga oyente) throws IOException {
+        return this.diario.cargar(tamanoLote, oyente);
+    }
+
+    @Override
+    protected void cargaTerminada() {
+        // Ya se terminó de leer el diario: se escriben los cambios hechos durante la carga
+        this.persistencia.iniciar();
+        this.compactarSiHaceFalta();
+    }
+
+    // Los cambios se encolan y se escriben en segundo plano; durante la carga quedan en espera
+
+    @Override
+    protected void despuesDeInsertar(Exportacion exp) {
+        this.persistencia.insertar(exp);
+        this.compactarSiHaceFalta();
+    }
+
+    @Override
+    protected void despuesDeInsertarTodas(Collection<? extends Exportacion> exportaciones) {
+        // Se encola todo el grupo y la compactación se revisa una sola vez
+        for (Exportacion exp : exportaciones) {
+            this.persistencia.insertar(exp);
+        }
+        this.compactarSiHaceFalta();
+    }
+
+    @Override
+    protected void despuesDeActualizar(int indice, Exportacion exp) {
+        this.persistencia.modificar(indice, exp);
+        this.compactarSiHaceFalta();
+    }
+
+    @Override
+    protected void despuesDeEliminar(int indice, Exportacion anterior) {
+        this.persistencia.eliminar(indice);
+        this.compactarSiHaceFalta();
+    }
+
+    private void compactarSiHaceFalta() {
+        // Cuando el diario crece demasiado se escribe una instantánea nueva en segundo plano.
+        // La copia se toma aquí, después de encolar el cambio, para que coincida con el diario.
+        if (this.isCargaCompleta() && this.persistencia.necesitaCompactar(this.lista.size())) {
+            this.persistencia.compactar(new ArrayList<>(this.lista));
+        }
+    }
+
+    @Override
+    public void cerrar() throws IOException {
+        this.persistencia.cerrar();
+        // La firma se toma con el diario ya cerrado y la última instantánea escrita
+        this.guardarCubo(this.archivoCubo, ArchivoCubo.firma(this.instantanea, this.archivoDiario));
+    }
+}
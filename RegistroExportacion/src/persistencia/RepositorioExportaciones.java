@@ -0,0 +1,261 @@
+package persistencia;
+
+import Clases.Exportacion;
+import busqueda.CacheConsultas;
+import busqueda.CampoBusqueda;
+import busqueda.Consulta;
+import busqueda.IndiceTrigramas;
+import busqueda.PlanConsulta;
+import busqueda.PlanificadorConsultas;
+import busqueda.RangoFechas;
+import estadisticas.CriterioAgrupacion;
+import estadisticas.CuboExportaciones;
+import estadisticas.MotorAgrupacion;
+import estadisticas.Periodo;
+import estadisticas.ResumenPeriodo;
+import estadisticas.TotalesExportaciones;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Acceso a las exportaciones registradas, sin importar dónde se guardan.
+ * Las exportaciones se identifican por su posición en el registro, igual que
+ * las filas de la tabla sin filtro ni orden, o por su clave
+ * ({@link Exportacion#getClave()}), que no cambia aunque otras se eliminen.
+ *
+ * Las implementaciones permiten usar el registro mientras se carga: las
+ * consultas ven lo leído hasta el momento y las inserciones se agregan después
+ * de los datos que ya estaban guardados.
+ */
+public interface RepositorioExportaciones {
+
+    /**
+     * Lee los datos guardados. Puede llamarse desde un hilo aparte.
+     * @param tamanoLote Cantidad de exportaciones por lote.
+     * @param oyente Recibe los lotes a medida que se leen; puede ser null.
+     * @throws IOException Si los datos no se pueden leer.
+     */
+    void cargar(int tamanoLote, OyenteCarga oyente) throws IOException;
+
+    // --- Modificaciones ---
+
+    /**
+     * Agrega una exportación al final del registro.
+     * @param exp La exportación nueva.
+     * @throws IOException Si el cambio no se puede guardar.
+     */
+    void insertar(Exportacion exp) throws IOException;
+
+    /**
+     * Agrega varias exportaciones al final del registro, guardándolas en un solo grupo.
+     * @param exportaciones Las exportaciones nuevas, en orden.
+     * @throws IOException Si el cambio no se puede guardar.
+     */
+    default void insertarTodas(Collection<? extends Exportacion> exportaciones) throws IOException {
+        for (Exportacion exp : exportaciones) {
+            insertar(exp);
+        }
+    }
+
+    /**
+     * Reemplaza la exportación de la posición indicada.
+     * @param indice Posición de la exportación.
+     * @param exp La exportación con los datos nuevos.
+     * @throws IOException Si el cambio no se puede guardar.
+     */
+    void actualizar(int indice, Exportacion exp) throws IOException;
+
+    /**
+     * Elimina la exportación de la posición indicada.
+     * @param indice Posición de la exportación.
+     * @throws IOException Si el cambio no se puede guardar.
+     */
+    void eliminar(int indice) throws IOException;
+
+    /**
+     * Reemplaza la exportación que tiene la clave indicada. La exportación
+     * nueva recibe la misma clave.
+     * @param clave Clave de la exportación.
+     * @param exp La exportación con los datos nuevos.
+     * @throws IOException Si el cambio no se puede guardar.
+     */
+    default void actualizarPorClave(long clave, Exportacion exp) throws IOException {
+        actualizar(posicionExistente(clave), exp);
+    }
+
+    /**
+     * Elimina la exportación que tiene la clave indicada.
+     * @param clave Clave de la exportación.
+     * @throws IOException Si el cambio no se puede guardar.
+     */
+    default void eliminarPorClave(long clave) throws IOException {
+        eliminar(posicionExistente(clave));
+    }
+
+    // --- Consultas ---
+
+    /**
+     * @return La cantidad de exportaciones registradas.
+     */
+    int tamano();
+
+    /**
+     * Busca una exportación por su posición.
+     * @param indice Posición de la exportación.
+     * @return La exportación de esa posición.
+     */
+    Exportacion obtener(int indice);
+
+    /**
+     * Busca la posición de una exportación por su clave. Esta versión recorre
+     * el registro; las implementaciones con un mapa de claves la responden sin recorrer.
+     * @param clave Clave de la exportación.
+     * @return La posición de la exportación, o -1 si no está en el registro.
+     */
+    default int posicionDe(long clave) {
+        for (int i = 0, n = tamano(); i < n; i++) {
+            if (obtener(i).getClave() == clave) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Busca una exportación por su clave.
+     * @param clave Clave de la exportación.
+     * @return La exportación, o null si no está en el registro.
+     */
+    default Exportacion obtenerPorClave(long clave) {
+        int posicion = posicionDe(clave);
+        return posicion < 0 ? null : obtener(posicion);
+    }
+
+    /**
+     * @return La posición de la exportación con esa clave.
+     * @throws IllegalArgumentException Si ninguna exportación tiene esa clave.
+     */
+    default int posicionExistente(long clave) {
+        int posicion = posicionDe(clave);
+        if (posicion < 0) {
+            throw new IllegalArgumentException("No hay ninguna exportación con la clave " + clave + ".");
+        }
+        return posicion;
+    }
+
+    /**
+     * Busca todas las exportaciones de un cliente.
+     * @param idCliente Cédula del cliente (formato X-XXXX-XXXX).
+     * @return Las exportaciones de ese cliente.
+     */
+    List<Exportacion> buscarPorCliente(String idCliente);
+
+    /**
+     * Busca las exportaciones cuyo campo contiene un texto, sin distinguir
+     * mayúsculas ni tildes.
+     * @param campo El campo donde se busca.
+     * @param texto El texto a buscar.
+     * @return Las exportaciones que coinciden.
+     */
+    default List<Exportacion> buscarPorTexto(CampoBusqueda campo, String texto) {
+        String buscado = IndiceTrigramas.normalizar(texto);
+        return consultar(exp -> IndiceTrigramas.normalizar(campo.valor(exp)).contains(buscado));
+    }
+
+    /**
+     * Busca las exportaciones de un período.
+     * @param rango El período, con ambas fechas incluidas.
+     * @return Las exportaciones del período, ordenadas por fecha.
+     */
+    default List<Exportacion> buscarPorFecha(RangoFechas rango) {
+        List<Exportacion> resultado = consultar(exp -> rango.contiene(exp.getFechaExportacion()));
+        resultado.sort(Comparator.comparing(Exportacion::getFechaExportacion));
+        return resultado;
+    }
+
+    /**
+     * Busca las exportaciones que cumplen todas las condiciones de una consulta,
+     * empezando por el índice más selectivo que tenga el registro.
+     * Los registros que guardan los resultados en caché devuelven la misma
+     * lista mientras ningún cambio la afecte, así que no se debe modificar.
+     * @param consulta La consulta.
+     * @return Las exportaciones que la cumplen.
+     */
+    default List<Exportacion> buscar(Consulta consulta) {
+        PlanConsulta plan = planificar(consulta);
+        return consultar(plan::cumpleFiltros);
+    }
+
+    /**
+     * Indica cómo se resolvería una consulta, sin ejecutarla.
+     * @param consulta La consulta.
+     * @return El plan elegido; {@link PlanConsulta#explicar()} lo describe.
+     */
+    default PlanConsulta planificar(Consulta consulta) {
+        return PlanificadorConsultas.planificar(consulta, null, tamano());
+    }
+
+    /**
+     * @return Los contadores de la caché de consultas, o null si el registro no tiene caché.
+     */
+    default CacheConsultas.Estadisticas getEstadisticasCache() {
+        return null;
+    }
+
+    /**
+     * Devuelve los totales del registro por tipo de exportación, servicio y
+     * tipo de carga. Esta versión los calcula recorriendo el registro; las
+     * implementaciones que los mantienen con cada cambio solo los copian.
+     * @return Una copia de los totales, que no cambia con los cambios siguientes.
+     */
+    default TotalesExportaciones getTotales() {
+        TotalesExportaciones totales = new TotalesExportaciones();
+        recorrer(totales::agregar);
+        return totales;
+    }
+
+    /**
+     * Agrupa todas las exportaciones por un campo y suma cada grupo, en paralelo.
+     * @param criterio El campo por el que se agrupa.
+     * @return Los totales de cada grupo, ordenados.
+     */
+    default Map<String, TotalesExportaciones.Totales> agrupar(CriterioAgrupacion criterio) {
+        // Se copia la lista bajo la sincronización del registro y se agrupa sin bloquearlo
+        return MotorAgrupacion.agrupar(consultar(exp -> true), criterio);
+    }
+
+    /**
+     * Resume las exportaciones de un rango de fechas por período, zona de
+     * envío, tipo de servicio y tipo de exportación. No tiene una versión que
+     * recorra el registro: cada implementación mantiene un
+     * {@link CuboExportaciones} con cada cambio y solo suma las celdas del rango.
+     * @param rango Las fechas, ambas incluidas.
+     * @param periodo El tamaño de cada período (día, mes o año).
+     * @return Los totales de cada combinación, ordenados por período.
+     */
+    List<ResumenPeriodo> resumirPorPeriodo(RangoFechas rango, Periodo periodo);
+
+    /**
+     * Recorre todas las exportaciones en orden.
+     * @param accion Se ejecuta con cada exportación.
+     */
+    void recorrer(Consumer<? super Exportacion> accion);
+
+    /**
+     * Devuelve las exportaciones que cumplen una condición.
+     * @param filtro La condición a evaluar.
+     * @return Las exportaciones que la cumplen, en orden.
+     */
+    List<Exportacion> consultar(Predicate<? super Exportacion> filtro);
+
+    /**
+     * Guarda lo pendiente y libera los archivos o conexiones.
+     * @throws IOException Si algo no se pudo guardar.
+     */
+    void cerrar() throws IOException;
+}
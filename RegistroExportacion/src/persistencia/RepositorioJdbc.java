@@ -0,0 +1,347 @@
+package persistencia;
+
+import Clases.Exportacion;
+import Clases.ExportacionCargaPesada;
+import Clases.ExportacionCargaSuelta;
+import java.io.IOException;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Repositorio en una base de datos embebida por JDBC (por ejemplo H2 o Derby
+ * en modo archivo, sin servidor). El controlador no es parte del proyecto:
+ * basta con agregar su jar al classpath e indicar la URL de conexión.
+ *
+ * Las consultas se resuelven sobre la copia en memoria (los resúmenes por
+ * período, con el cubo que {@link RepositorioMemoria} mantiene en cada cambio,
+ * sin recorrer la tabla); la base de datos solo recibe los cambios, con
+ * sentencias preparadas y las inserciones en lote.
+ * La clave primaria de cada fila es la clave de su exportación en el registro
+ * ({@link Exportacion#getClave()}): se lee con la fila y la lista la conserva,
+ * así que modificar o eliminar no necesita otra tabla de claves.
+ *
+ * Como hereda de {@link RepositorioMemoria}, toda la tabla se lee al cargar y
+ * queda en memoria junto con sus índices: la base de datos da durabilidad y
+ * transacciones, pero no permite registros más grandes que el heap. Para esos
+ * está {@link RepositorioMapeado}.
+ *
+ * La primera vez se copian los datos de Exportaciones.dat. Mientras la copia
+ * no termina existe la tabla EXPORTACIONES_MIGRACION; si la aplicación se
+ * cierra o la copia falla a mitad, la próxima carga vacía la tabla y copia
+ * todo otra vez en lugar de quedarse con un registro incompleto.
+ */
+public class RepositorioJdbc extends RepositorioMemoria {
+
+    private static final String TABLA = "EXPORTACIONES";
+    // Existe mientras la copia de los datos anteriores no terminó
+    private static final String TABLA_MIGRACION = "EXPORTACIONES_MIGRACION";
+    private static final String COLUMNAS = "TIPO, ID_CLIENTE, NOMBRE, ZONA_ENVIO, TIPO_SERVICIO, "
+            + "FECHA_EXPORTACION, KILOGRAMOS, TIPO_CARGA, PIES_CARGA";
+
+    private final String url;
+    private final DiarioExportaciones datosAnteriores;
+    private Connection conexion;
+    private PreparedStatement sentenciaInsertar;
+    private PreparedStatement sentenciaActualizar;
+    private PreparedStatement sentenciaEliminar;
+
+    // Inserciones hechas antes de terminar la carga; se escriben al terminarla
+    private final ArrayList<Exportacion> insercionesEnEspera = new ArrayList<>();
+
+    /**
+     * @param url URL JDBC de la base de datos (por ejemplo "jdbc:h2:./Exportaciones").
+     * @param datosAnteriores Datos que se copian a la tabla la primera vez que se crea; puede ser null.
+     */
+    public RepositorioJdbc(String url, DiarioExportaciones datosAnteriores) {
+        this.url = url;
+        this.datosAnteriores = datosAnteriores;
+    }
+
+    @Override
+    protected List<Exportacion> leerDatos(int tamanoLote, OyenteCarga oyente) throws IOException {
+        try {
+            this.conexion = DriverManager.getConnection(this.url);
+            this.conexion.setAutoCommit(false);
+            boolean migrar = this.prepararTabla();
+            this.sentenciaInsertar = this.conexion.prepareStatement("INSERT INTO " + TABLA
+                    + " (CLAVE, " + COLUMNAS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+            this.sentenciaActualizar = this.conexion.prepareStatement("UPDATE " + TABLA + " SET TIPO = ?, "
+                    + "ID_CLIENTE = ?, NOMBRE = ?, ZONA_ENVIO = ?, TIPO_SERVICIO = ?, FECHA_EXPORTACION = ?, "
+                    + "KILOGRAMOS = ?, TIPO_CARGA = ?, PIES_CARGA = ? WHERE CLAVE = ?");
+            this.sentenciaEliminar = this.conexion.prepareStatement("DELETE FROM " + TABLA + " WHERE CLAVE = ?");
+
+            if (migrar) {
+                return this.copiarDatosAnteriores(tamanoLote, oyente);
+            }
+            return this.leerTabla(tamanoLote, oyente);
+        } catch (SQLException e) {
+            throw new IOException("No se pudieron leer las exportaciones de " + this.url, e);
+        }
+    }
+
+    /**
+     * Crea la tabla si no existe. Si hay datos anteriores que copiar (la tabla
+     * es nueva o una copia anterior quedó a medias), deja la tabla vacía y la
+     * marca de migración creada.
+     * @return true si hay que copiar los datos anteriores.
+     */
+    private boolean prepararTabla() throws SQLException {
+        boolean existe = this.existeTabla(TABLA);
+        boolean migrar = this.datosAnteriores != null && (!existe || this.existeTabla(TABLA_MIGRACION));
+        try (Statement st = this.conexion.createStatement()) {
+            if (!existe) {
+                st.executeUpdate("CREATE TABLE " + TABLA + " ("
+                        + "CLAVE BIGINT NOT NULL PRIMARY KEY, "
+                        + "TIPO SMALLINT NOT NULL, "
+                        + "ID_CLIENTE VARCHAR(255), "
+                        + "NOMBRE VARCHAR(255), "
+                        + "ZONA_ENVIO VARCHAR(255), "
+                        + "TIPO_SERVICIO VARCHAR(255), "
+                        + "FECHA_EXPORTACION DATE NOT NULL, "
+                        + "KILOGRAMOS DOUBLE NOT NULL, "
+                        + "TIPO_CARGA VARCHAR(255), "
+                        + "PIES_CARGA DOUBLE)");
+                st.executeUpdate("CREATE INDEX IDX_EXPORTACIONES_CLIENTE ON " + TABLA + " (ID_CLIENTE)");
+            }
+            if (migrar) {
+                if (existe) {
+                    // La copia anterior no terminó: se descarta lo que alcanzó a escribir
+                    st.executeUpdate("DELETE FROM " + TABLA);
+                } else {
+                    st.executeUpdate("CREATE TABLE " + TABLA_MIGRACION + " (INICIO BIGINT)");
+                }
+            }
+        }
+        this.conexion.commit();
+        return migrar;
+    }
+
+    private boolean existeTabla(String tabla) throws SQLException {
+        DatabaseMetaData metadatos = this.conexion.getMetaData();
+        for (String nombre : new String[] {tabla, tabla.toLowerCase()}) {
+            try (ResultSet tablas = metadatos.getTables(null, null, nombre, null)) {
+                if (tablas.next()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copia a la tabla los datos que ya existían en Exportaciones.dat, en lotes
+     * de sentencias de tamanoLote filas, y entrega cada lote al oyente. Todo
+     * va en una sola transacción que también borra la marca de migración, así
+     * que la tabla queda completa o la copia se repite en la próxima carga.
+     */
+    private List<Exportacion> copiarDatosAnteriores(int tamanoLote, OyenteCarga oyente) throws SQLException, IOException {
+        List<Exportacion> anteriores = this.datosAnteriores.cargar();
+        this.datosAnteriores.cerrar();
+        oyente.cargaIniciada(anteriores.size());
+        try {
+            for (int desde = 0; desde < anteriores.size(); desde += tamanoLote) {
+                List<Exportacion> lote = anteriores.subList(desde, Math.min(desde + tamanoLote, anteriores.size()));
+                // Las claves se asignan aquí para escribirlas; la lista las conserva al cargarlas
+                for (int i = 0; i < lote.size(); i++) {
+                    Exportacion exp = lote.get(i);
+                    exp.setClave(desde + i + 1);
+                    this.sentenciaInsertar.setLong(1, exp.getClave());
+                    asignarColumnas(this.sentenciaInsertar, 2, exp);
+                    this.sentenciaInsertar.addBatch();
+                }
+                this.sentenciaInsertar.executeBatch();
+                oyente.loteLeido(new ArrayList<>(lote));
+            }
+            try (Statement st = this.conexion.createStatement()) {
+                st.executeUpdate("DROP TABLE " + TABLA_MIGRACION);
+            }
+            this.conexion.commit();
+        } catch (SQLException e) {
+            this.deshacer();
+            throw e;
+        }
+        return anteriores;
+    }
+
+    private List<Exportacion> leerTabla(int tamanoLote, OyenteCarga oyente) throws SQLException, IOException {
+        try (Statement st = this.conexion.createStatement()) {
+            int total;
+            try (ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM " + TABLA)) {
+                rs.next();
+                total = rs.getInt(1);
+            }
+            oyente.cargaIniciada(total);
+
+            ArrayList<Exportacion> lista = new ArrayList<>(total);
+            st.setFetchSize(Math.min(tamanoLote, 1000));
+            try (ResultSet rs = st.executeQuery("SELECT CLAVE, " + COLUMNAS + " FROM " + TABLA + " ORDER BY CLAVE")) {
+                ArrayList<Exportacion> lote = new ArrayList<>();
+                while (rs.next()) {
+                    Exportacion exp = leerFila(rs);
+                    exp.setClave(rs.getLong(1));
+                    lista.add(exp);
+                    lote.add(exp);
+                    if (lote.size() == tamanoLote) {
+                        oyente.loteLeido(lote);
+                        lote = new ArrayList<>();
+                    }
+                }
+                if (!lote.isEmpty()) {
+                    oyente.loteLeido(lote);
+                }
+            }
+            this.conexion.commit();
+            return lista;
+        }
+    }
+
+    private static Exportacion leerFila(ResultSet rs) throws SQLException, IOException {
+        byte tipo = rs.getByte(2);
+        String idCliente = rs.getString(3);
+        String nombre = rs.getString(4);
+        String zona = rs.getString(5);
+        String servicio = rs.getString(6);
+        Date fecha = rs.getDate(7);
+        double kilos = rs.getDouble(8);
+
+        Exportacion exp;
+        switch (tipo) {
+            case CodecExportacion.TIPO_CARGA_PESADA:
+                exp = new ExportacionCargaPesada(idCliente, nombre, zona, servicio, kilos, rs.getString(9));
+                break;
+            case CodecExportacion.TIPO_CARGA_SUELTA:
+                exp = new ExportacionCargaSuelta(idCliente, nombre, zona, servicio, kilos, rs.getDouble(10));
+                break;
+            default:
+                throw new IOException("Tipo de registro desconocido: " + tipo);
+        }
+        exp.setFechaExportacion(fecha.toLocalDate());
+        return exp;
+    }
+
+    @Override
+    protected void cargaTerminada() throws IOException {
+        if (!this.insercionesEnEspera.isEmpty()) {
+            // Las filas creadas durante la carga ya tienen su clave definitiva, después de las leídas
+            this.escribirInserciones(this.insercionesEnEspera);
+            this.insercionesEnEspera.clear();
+        }
+    }
+
+    // --- Modificaciones ---
+
+    @Override
+    protected void despuesDeInsertar(Exportacion exp) throws IOException {
+        this.despuesDeInsertarTodas(Collections.singletonList(exp));
+    }
+
+    @Override
+    protected void despuesDeInsertarTodas(Collection<? extends Exportacion> exportaciones) throws IOException {
+        if (!this.isCargaCompleta()) {
+            this.insercionesEnEspera.addAll(exportaciones);
+            return;
+        }
+        this.escribirInserciones(exportaciones);
+    }
+
+    /**
+     * Inserta un grupo de filas en una sola transacción, cada una con la clave de su exportación.
+     */
+    private void escribirInserciones(Collection<? extends Exportacion> exportaciones) throws IOException {
+        try {
+            for (Exportacion exp : exportaciones) {
+                this.sentenciaInsertar.setLong(1, exp.getClave());
+                asignarColumnas(this.sentenciaInsertar, 2, exp);
+                this.sentenciaInsertar.addBatch();
+            }
+            this.sentenciaInsertar.executeBatch();
+            this.conexion.commit();
+        } catch (SQLException e) {
+            this.deshacer();
+            throw new IOException("No se pudieron guardar las exportaciones en " + this.url, e);
+        }
+    }
+
+    @Override
+    protected void despuesDeActualizar(int indice, Exportacion exp) throws IOException {
+        this.verificarCargaCompleta();
+        try {
+            int siguiente = asignarColumnas(this.sentenciaActualizar, 1, exp);
+            this.sentenciaActualizar.setLong(siguiente, exp.getClave());
+            this.sentenciaActualizar.executeUpdate();
+            this.conexion.commit();
+        } catch (SQLException e) {
+            this.deshacer();
+            throw new IOException("No se pudo modificar la exportación en " + this.url, e);
+        }
+    }
+
+    @Override
+    protected void despuesDeEliminar(int indice, Exportacion anterior) throws IOException {
+        this.verificarCargaCompleta();
+        try {
+            this.sentenciaEliminar.setLong(1, anterior.getClave());
+            this.sentenciaEliminar.executeUpdate();
+            this.conexion.commit();
+        } catch (SQLException e) {
+            this.deshacer();
+            throw new IOException("No se pudo eliminar la exportación en " + this.url, e);
+        }
+    }
+
+    private void verificarCargaCompleta() {
+        // Durante la carga solo se permiten inserciones
+        if (!this.isCargaCompleta()) {
+            throw new IllegalStateException("Las exportaciones todavía no terminaron de cargarse.");
+        }
+    }
+
+    /**
+     * Asigna los datos de la exportación a partir del parámetro indicado.
+     * @return El número del siguiente parámetro libre.
+     */
+    private static int asignarColumnas(PreparedStatement ps, int primero, Exportacion exp) throws SQLException {
+        int i = primero;
+        boolean pesada = exp instanceof ExportacionCargaPesada;
+        ps.setByte(i++, pesada ? CodecExportacion.TIPO_CARGA_PESADA : CodecExportacion.TIPO_CARGA_SUELTA);
+        ps.setString(i++, exp.getIdCliente());
+        ps.setString(i++, exp.getNombreCompleto());
+        ps.setString(i++, exp.getZonaEnvio());
+        ps.setString(i++, exp.getTipoServicio());
+        ps.setDate(i++, Date.valueOf(exp.getFechaExportacion()));
+        ps.setDouble(i++, exp.getKilogramosEmbalar());
+        if (pesada) {
+            ps.setString(i++, ((ExportacionCargaPesada) exp).getTipoCarga());
+            ps.setNull(i++, Types.DOUBLE);
+        } else {
+            ps.setNull(i++, Types.VARCHAR);
+            ps.setDouble(i++, ((ExportacionCargaSuelta) exp).getPiesCarga());
+        }
+        return i;
+    }
+
+    private void deshacer() {
+        try {
+            this.sentenciaInsertar.clearBatch();
+            this.conexion.rollback();
+        } catch (SQLException e) {
+            // La conexión ya no responde; el error original es el que se informa
+        }
+    }
+
+    @Override
+    public synchronized void cerrar() throws IOException {
+        if (this.conexion == null) {
+            return;
+        }
+        try {
+            this.conexion.close();
+            this.conexion = null;
+        } catch (SQLException e) {
+            throw new IOException("No se pudo cerrar la conexión con " + this.url, e);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package persistencia;
+
+import Clases.Exportacion;
+import busqueda.RangoFechas;
+import estadisticas.CuboExportaciones;
+import estadisticas.Periodo;
+import estadisticas.ResumenPeriodo;
+import estadisticas.TotalesExportaciones;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Repositorio sobre el {@link AlmacenMapeado}: las exportaciones no se copian
+ * a memoria, cada consulta decodifica las filas directamente de los archivos
+ * mapeados y cada cambio se escribe en ellos al momento.
+ *
+ * Las claves de las exportaciones las reparte y guarda el almacén, en la
+ * ranura de cada fila; eliminar no corre las filas siguientes ni sus claves.
+ *
+ * El cubo de resúmenes se guarda al cerrar (Exportaciones.cubo) y se vuelve a
+ * leer al abrir, así los reportes por período no recorren las filas. El archivo
+ * se borra apenas se lee: si el programa se interrumpe antes de cerrar, el
+ * cubo se arma de nuevo recorriendo el almacén la primera vez que se pide.
+ */
+public class RepositorioMapeado implements RepositorioExportaciones {
+
+    private final File archivoRegistros;
+    private final File archivoCadenas;
+    private final File archivoCubo;
+    private final DiarioExportaciones datosAnteriores;
+    private AlmacenMapeado almacen;
+
+    // Se calculan la primera vez que se piden (abrir el almacén no lee las filas) y luego se mantienen
+    private TotalesExportaciones totales;
+    private CuboExportaciones cubo;
+
+    /**
+     * @param archivoRegistros Archivo con las ranuras de ancho fijo.
+     * @param archivoCadenas Archivo con el área de textos.
+     * @param archivoCubo Archivo con el cubo de resúmenes guardado al cerrar.
+     * @param datosAnteriores Datos que se copian al almacén la primera vez que se crea.
+     */
+    public RepositorioMapeado(File archivoRegistros, File archivoCadenas, File archivoCubo,
+                              DiarioExportaciones datosAnteriores) {
+        this.archivoRegistros = archivoRegistros;
+        this.archivoCadenas = archivoCadenas;
+        this.archivoCubo = archivoCubo;
+        this.datosAnteriores = datosAnteriores;
+    }
+
+    @Override
+    public synchronized void cargar(int tamanoLote, OyenteCarga oyente) throws IOException {
+        // Abrir el almacén solo lee el encabezado: las filas se decodifican al usarlas
+        boolean nuevo = !this.archivoRegistros.exists();
+        if (!nuevo) {
+            // La firma se toma antes de abrir, con los archivos como quedaron al cerrar
+            this.cubo = ArchivoCubo.leer(this.archivoCubo,
+                    ArchivoCubo.firma(this.archivoRegistros, this.archivoCadenas));
+        }
+        ArchivoCubo.descartar(this.archivoCubo);
+        this.almacen = new AlmacenMapeado(this.archivoRegistros, this.archivoCadenas);
+        if (nuevo) {
+            // Primera vez: se copian los datos que ya existían en Exportaciones.dat
+            this.cubo = new CuboExportaciones();
+            for (Exportacion exp : this.datosAnteriores.cargar()) {
+                this.almacen.agregar(exp);
+                this.cubo.agregar(exp);
+            }
+            this.datosAnteriores.cerrar();
+        }
+        if (oyente != null) {
+            oyente.cargaIniciada(this.almacen.tamano());
+        }
+    }
+
+    private AlmacenMapeado almacen() {
+        if (this.almacen == null) {
+            throw new IllegalStateException("El almacén mapeado todavía no se abrió.");
+        }
+        return this.almacen;
+    }
+
+    // --- Modificaciones ---
+
+    @Override
+    public synchronized void insertar(Exportacion exp) throws IOException {
+        try {
+            this.almacen().agregar(exp);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (this.totales != null) {
+            this.totales.agregar(exp);
+        }
+        if (this.cubo != null) {
+            this.cubo.agregar(exp);
+        }
+    }
+
+    @Override
+    public synchronized void actualizar(int indice, Exportacion exp) throws IOException {
+        Exportacion anterior = this.hayResumenes() ? this.almacen().obtener(indice) : null;
+        try {
+            this.almacen().reemplazar(indice, exp);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (this.totales != null) {
+            this.totales.reemplazar(anterior, exp);
+        }
+        if (this.cubo != null) {
+            this.cubo.reemplazar(anterior, exp);
+        }
+    }
+
+    @Override
+    public synchronized void eliminar(int indice) {
+        Exportacion anterior = this.hayResumenes() ? this.almacen().obtener(indice) : null;
+        this.almacen().eliminar(indice);
+        if (this.totales != null) {
+            this.totales.quitar(anterior);
+        }
+        if (this.cubo != null) {
+            this.cubo.quitar(anterior);
+        }
+    }
+
+    /**
+     * @return true si los totales o el cubo ya existen y hay que mantenerlos.
+     */
+    private boolean hayResumenes() {
+        return this.totales != null || this.cubo != null;
+    }
+
+    @Override
+    public synchronized void actualizarPorClave(long clave, Exportacion exp) throws IOException {
+        this.actualizar(this.posicionExistente(clave), exp);
+    }
+
+    @Override
+    public synchronized void eliminarPorClave(long clave) {
+        this.eliminar(this.posicionExistente(clave));
+    }
+
+    // --- Consultas ---
+
+    @Override
+    public synchronized int tamano() {
+        return this.almacen == null ? 0 : this.almacen.tamano();
+    }
+
+    @Override
+    public synchronized Exportacion obtener(int indice) {
+        this.almacen();
+        return this.decodificar(indice);
+    }
+
+    @Override
+    public synchronized int posicionDe(long clave) {
+        return this.almacen == null ? -1 : this.almacen.filaDeClave(clave);
+    }
+
+    /**
+     * Decodifica la fila indicada, con su clave.
+     */
+    private Exportacion decodificar(int fila) {
+        return this.almacen.obtener(fila);
+    }
+
+    @Override
+    public List<Exportacion> buscarPorCliente(String idCliente) {
+        return consultar(exp -> idCliente.equals(exp.getIdCliente()));
+    }
+
+    @Override
+    public synchronized List<Exportacion> buscarPorFecha(RangoFechas rango) {
+        // La fecha está en la ranura fija: solo se decodifican las filas del período
+        int desde = (int) rango.getDesde().toEpochDay();
+        int hasta = (int) rango.getHasta().toEpochDay();
+        ArrayList<Exportacion> resultado = new ArrayList<>();
+        for (int i = 0, n = this.tamano(); i < n; i++) {
+            int dia = this.almacen.getDiaExportacion(i);
+            if (dia >= desde && dia <= hasta) {
+                resultado.add(this.decodificar(i));
+            }
+        }
+        resultado.sort(Comparator.comparing(Exportacion::getFechaExportacion));
+        return resultado;
+    }
+
+    @Override
+    public synchronized TotalesExportaciones getTotales() {
+        if (this.totales == null) {
+            this.totales = new TotalesExportaciones();
+            this.recorrer(this.totales::agregar);
+        }
+        return this.totales.copia();
+    }
+
+    @Override
+    public synchronized List<ResumenPeriodo> resumirPorPeriodo(RangoFechas rango, Periodo periodo) {
+        if (this.cubo == null) {
+            this.cubo = new CuboExportaciones();
+            this.recorrer(this.cubo::agregar);
+        }
+        return this.cubo.resumir(rango, periodo);
+    }
+
+    @Override
+    public synchronized void recorrer(Consumer<? super Exportacion> accion) {
+        for (int i = 0, n = this.tamano(); i < n; i++) {
+            accion.accept(this.decodificar(i));
+        }
+    }
+
+    @Override
+    public synchronized List<Exportacion> consultar(Predicate<? super Exportacion> filtro) {
+        ArrayList<Exportacion> resultado = new ArrayList<>();
+        for (int i = 0, n = this.tamano(); i < n; i++) {
+            Exportacion exp = this.decodificar(i);
+            if (filtro.test(exp)) {
+                resultado.add(exp);
+            }
+        }
+        return resultado;
+    }
+
+    @Override
+    public synchronized void cerrar() throws IOException {
+        if (this.almacen != null) {
+            this.almacen.cerrar();
+            if (this.cubo != null) {
+                ArchivoCubo.guardar(this.archivoCubo, this.cubo,
+                        ArchivoCubo.firma(this.archivoRegistros, this.archivoCadenas));
+            }
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package persistencia;
+
+import Clases.Exportacion;
+import busqueda.CacheConsultas;
+import busqueda.CampoBusqueda;
+import busqueda.Consulta;
+import busqueda.IndicesExportaciones;
+import busqueda.PlanConsulta;
+import busqueda.PlanificadorConsultas;
+import busqueda.RangoFechas;
+import estadisticas.CuboExportaciones;
+import estadisticas.Periodo;
+import estadisticas.ResumenPeriodo;
+import estadisticas.TotalesExportaciones;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Repositorio que mantiene todas las exportaciones en una lista en memoria.
+ * Por sí solo no guarda nada; las subclases leen los datos en
+ * {@link #leerDatos(int, OyenteCarga)} y guardan cada cambio en los métodos
+ * "despuesDe...". Si uno de ellos falla, el cambio en memoria se deshace.
+ *
+ * Todos los métodos públicos están sincronizados, porque la carga se hace
+ * desde otro hilo mientras la ventana ya puede consultar e insertar.
+ *
+ * Mantiene además índices en memoria que se actualizan con cada cambio, para
+ * responder las búsquedas sin recorrer toda la lista.
+ */
+public class RepositorioMemoria implements RepositorioExportaciones {
+
+    // Lista con lápidas y mapa de claves: eliminar o buscar por clave no corre las filas siguientes
+    protected final TablaExportaciones lista = new TablaExportaciones();
+
+    // Filas que vienen de los datos guardados; las insertadas durante la carga van después
+    private int filasCargadas = 0;
+    private boolean cargaCompleta = false;
+
+    // Índices sobre la lista, resultados de consultas recientes, totales y cubo; se actualizan en los métodos "indexar..."
+    private final IndicesExportaciones indices = new IndicesExportaciones();
+    private final CacheConsultas cache = new CacheConsultas(64, 1000000);
+    private final TotalesExportaciones totales = new TotalesExportaciones();
+    private CuboExportaciones cubo = new CuboExportaciones();
+    // true mientras se carga con un cubo guardado, que ya incluye todas las filas cargadas
+    private boolean cuboLeido = false;
+
+    @Override
+    public void cargar(int tamanoLote, final OyenteCarga oyente) throws IOException {
+        CuboExportaciones guardado = leerCubo();
+        if (guardado != null) {
+            usarCuboLeido(guardado);
+        }
+        List<Exportacion> completa = leerDatos(tamanoLote, new OyenteCarga() {
+            @Override
+            public void cargaIniciada(int total) {
+                if (oyente != null) {
+                    oyente.cargaIniciada(total);
+                }
+            }
+
+            @Override
+            public void loteLeido(List<Exportacion> lote) {
+                agregarLoteCargado(lote);
+                if (oyente != null) {
+                    oyente.loteLeido(lote);
+                }
+            }
+        });
+        synchronized (this) {
+            // Lo leído por lotes se reemplaza por la lista definitiva (con el diario aplicado).
+            // Se reindexa después, cuando cada exportación ya tiene su clave en la lista.
+            List<Exportacion> leidas = lista.subList(0, filasCargadas);
+            List<Exportacion> anteriores = new ArrayList<>(leidas);
+            leidas.clear();
+            lista.addAll(0, completa);
+            reindexarDiferencias(anteriores, completa);
+            filasCargadas = completa.size();
+            if (cuboLeido) {
+                // El cubo guardado resume la lista definitiva; faltan solo las filas insertadas durante la carga
+                cuboLeido = false;
+                for (int i = filasCargadas; i < lista.size(); i++) {
+                    cubo.agregar(lista.get(i));
+                }
+            }
+            cargaCompleta = true;
+            cargaTerminada();
+        }
+    }
+
+    private synchronized void usarCuboLeido(CuboExportaciones guardado) {
+        // Las filas insertadas antes de la carga se suman al terminar, con las de durante la carga
+        cubo = guardado;
+        cuboLeido = true;
+    }
+
+    private synchronized void agregarLoteCargado(List<Exportacion> lote) {
+        lista.addAll(filasCargadas, lote);
+        filasCargadas += lote.size();
+        for (Exportacion exp : lote) {
+            indexarInsercion(exp);
+        }
+    }
+
+    /**
+     * Lee los datos guardados, avisando al oyente por cada lote.
+     * @param tamanoLote Cantidad de exportaciones por lote.
+     * @param oyente Recibe los lotes leídos.
+     * @return La lista completa y definitiva.
+     * @throws IOException Si los datos no se pueden leer.
+     */
+    protected List<Exportacion> leerDatos(int tamanoLote, OyenteCarga oyente) throws IOException {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Lee el cubo de resúmenes guardado junto a los datos, antes de leer las
+     * filas. Si lo devuelve, la carga no arma el cubo otra vez.
+     * @return El cubo guardado, o null si no hay uno que corresponda a los datos.
+     * @throws IOException Si el archivo del cubo no se puede descartar.
+     */
+    protected CuboExportaciones leerCubo() throws IOException {
+        return null;
+    }
+
+    /**
+     * Se llama cuando la lista ya tiene todos los datos guardados.
+     * @throws IOException Si falla alguna tarea posterior a la carga.
+     */
+    protected void cargaTerminada() throws IOException {
+    }
+
+    /**
+     * @return true si la carga terminó bien y la lista refleja todo lo guardado.
+     */
+    protected synchronized boolean isCargaCompleta() {
+        return cargaCompleta;
+    }
+
+    // --- Modificaciones ---
+
+    @Override
+    public synchronized void insertar(Exportacion exp) throws IOException {
+        lista.add(exp);
+        try {
+            despuesDeInsertar(exp);
+        } catch (IOException | RuntimeException e) {
+            lista.remove(lista.size() - 1);
+            throw e;
+        }
+        indexarInsercion(exp);
+    }
+
+    @Override
+    public synchronized void insertarTodas(Collection<? extends Exportacion> exportaciones) throws IOException {
+        int tamanoAnterior = lista.size();
+        lista.addAll(exportaciones);
+        try {
+            despuesDeInsertarTodas(exportaciones);
+        } catch (IOException | RuntimeException e) {
+            lista.subList(tamanoAnterior, lista.size()).clear();
+            throw e;
+        }
+        for (Exportacion exp : exportaciones) {
+            indexarInsercion(exp);
+        }
+    }
+
+    @Override
+    public synchronized void actualizar(int indice, Exportacion exp) throws IOException {
+        Exportacion anterior = lista.set(indice, exp);
+        try {
+            despuesDeActualizar(indice, exp);
+        } catch (IOException | RuntimeException e) {
+            lista.set(indice, anterior);
+            throw e;
+        }
+        indexarReemplazo(anterior, exp);
+    }
+
+    @Override
+    public synchronized void actualizarPorClave(long clave, Exportacion exp) throws IOException {
+        actualizar(posicionExistente(clave), exp);
+    }
+
+    @Override
+    public synchronized void eliminarPorClave(long clave) throws IOException {
+        eliminar(posicionExistente(clave));
+    }
+
+    @Override
+    public synchronized void eliminar(int indice) throws IOException {
+        Exportacion anterior = lista.remove(indice);
+        try {
+            despuesDeEliminar(indice, anterior);
+        } catch (IOException | RuntimeException e) {
+            lista.add(indice, anterior);
+            throw e;
+        }
+        indexarEliminacion(anterior);
+    }
+
+    protected void despuesDeInsertar(Exportacion exp) throws IOException {
+    }
+
+    protected void despuesDeInsertarTodas(Collection<? extends Exportacion> exportaciones) throws IOException {
+        for (Exportacion exp : exportaciones) {
+            despuesDeInsertar(exp);
+        }
+    }
+
+    protected void despuesDeActualizar(int indice, Exportacion exp) throws IOException {
+    }
+
+    /**
+     * @param indice Posición que tenía la exportación eliminada.
+     * @param anterior La exportación eliminada, que todavía tiene su clave.
+     * @throws IOException Si el cambio no se puede guardar.
+     */
+    protected void despuesDeEliminar(int indice, Exportacion anterior) throws IOException {
+    }
+
+    // --- Índices ---
+
+    private void indexarInsercion(Exportacion exp) {
+        indices.agregar(exp);
+        cache.agregada(exp);
+        totales.agregar(exp);
+        if (!cuboLeido) {
+            cubo.agregar(exp);
+        }
+    }
+
+    private void indexarReemplazo(Exportacion anterior, Exportacion nueva) {
+        indices.reemplazar(anterior, nueva);
+        cache.reemplazada(anterior, nueva);
+        totales.reemplazar(anterior, nueva);
+        if (!cuboLeido) {
+            cubo.reemplazar(anterior, nueva);
+        }
+    }
+
+    private void indexarEliminacion(Exportacion exp) {
+        indices.quitar(exp);
+        cache.eliminada(exp);
+        totales.quitar(exp);
+        if (!cuboLeido) {
+            cubo.quitar(exp);
+        }
+    }
+
+    /**
+     * Actualiza los índices cuando la lista definitiva reemplaza a la leída por
+     * lotes. Casi todos los objetos son los mismos (el diario solo cambia
+     * algunos), así que se comparan por identidad en lugar de reindexar todo.
+     */
+    private void reindexarDiferencias(List<Exportacion> leidas, List<Exportacion> completa) {
+        Set<Exportacion> anteriores = Collections.newSetFromMap(new IdentityHashMap<>(leidas.size() * 2));
+        anteriores.addAll(leidas);
+        for (Exportacion exp : completa) {
+            if (!anteriores.remove(exp)) {
+                indexarInsercion(exp);
+            }
+        }
+        for (Exportacion exp : anteriores) {
+            indexarEliminacion(exp);
+        }
+    }
+
+    // --- Consultas ---
+
+    @Override
+    public synchronized int tamano() {
+        return lista.size();
+    }
+
+    @Override
+    public synchronized Exportacion obtener(int indice) {
+        return lista.get(indice);
+    }
+
+    @Override
+    public synchronized int posicionDe(long clave) {
+        return lista.posicionDe(clave);
+    }
+
+    @Override
+    public synchronized Exportacion obtenerPorClave(long clave) {
+        return lista.obtenerPorClave(clave);
+    }
+
+    @Override
+    public synchronized List<Exportacion> buscarPorCliente(String idCliente) {
+        return indices.getClientes().buscar(idCliente);
+    }
+
+    @Override
+    public synchronized List<Exportacion> buscarPorTexto(CampoBusqueda campo, String texto) {
+        return indices.getTexto(campo).buscar(texto);
+    }
+
+    @Override
+    public synchronized List<Exportacion> buscarPorFecha(RangoFechas rango) {
+        return indices.getFechas().buscar(rango.getDesde(), rango.getHasta());
+    }
+
+    @Override
+    public synchronized List<Exportacion> buscar(Consulta consulta) {
+        List<Exportacion> guardado = cache.obtener(consulta);
+        if (guardado != null) {
+            return guardado;
+        }
+        return cache.guardar(consulta, planificar(consulta).ejecutar(indices, lista));
+    }
+
+    @Override
+    public synchronized CacheConsultas.Estadisticas getEstadisticasCache() {
+        return cache.getEstadisticas();
+    }
+
+    @Override
+    public synchronized PlanConsulta planificar(Consulta consulta) {
+        return PlanificadorConsultas.planificar(consulta, indices, lista.size());
+    }
+
+    @Override
+    public synchronized TotalesExportaciones getTotales() {
+        return totales.copia();
+    }
+
+    @Override
+    public synchronized List<ResumenPeriodo> resumirPorPeriodo(RangoFechas rango, Periodo periodo) {
+        return cubo.resumir(rango, periodo);
+    }
+
+    /**
+     * Guarda el cubo junto a los datos, para no armarlo en la próxima carga.
+     * Solo tiene sentido con la carga completa, así que si no terminó no se
+     * guarda nada.
+     * @param archivo Archivo del cubo.
+     * @param firma Firma de los archivos de datos ya cerrados.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    protected synchronized void guardarCubo(File archivo, long firma) throws IOException {
+        if (cargaCompleta) {
+            ArchivoCubo.guardar(archivo, cubo, firma);
+        }
+    }
+
+    @Override
+    public synchronized void recorrer(Consumer<? super Exportacion> accion) {
+        for (Exportacion exp : lista) {
+            accion.accept(exp);
+        }
+    }
+
+    @Override
+    public synchronized List<Exportacion> consultar(Predicate<? super Exportacion> filtro) {
+        ArrayList<Exportacion> resultado = new ArrayList<>();
+        for (Exportacion exp : lista) {
+            if (filtro.test(exp)) {
+                resultado.add(exp);
+            }
+        }
+        return resultado;
+    }
+
+    @Override
+    public void cerrar() throws IOException {
+    }
+}
@@ -0,0 +1,108 @@
+package persistencia;
+
+import Clases.Exportacion;
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Repositorio con el formato original: toda la lista se guarda con la
+ * serialización de Java y se reescribe completa después de cada cambio.
+ * Sirve para conservar archivos compatibles con versiones anteriores del
+ * programa; para muchos datos conviene {@link RepositorioDiario}.
+ *
+ * Si quedó un diario de {@link RepositorioDiario} (por ejemplo, al cambiar de
+ * tipo de almacén), al cargar se aplica sobre los datos, el resultado se
+ * guarda en este formato y el diario se borra, para que sus cambios no se
+ * pierdan ni se vuelvan a aplicar más tarde.
+ */
+public class RepositorioSerializado extends RepositorioMemoria {
+
+    private final File archivo;
+    private final DiarioExportaciones diario;
+
+    /**
+     * @param archivo Archivo donde se guarda la lista serializada.
+     * @param archivoDiario Diario que pudo dejar {@link RepositorioDiario} sobre el mismo archivo.
+     */
+    public RepositorioSerializado(File archivo, File archivoDiario) {
+        this.archivo = archivo;
+        this.diario = new DiarioExportaciones(archivo, archivoDiario);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected List<Exportacion> leerDatos(int tamanoLote, OyenteCarga oyente) throws IOException {
+        if (this.diario.tieneCambios()) {
+            // Se guarda primero la lista completa y recién después se borra el diario
+            ArrayList<Exportacion> leida = this.diario.cargar(tamanoLote, oyente);
+            this.escribir(leida);
+            this.diario.descartar();
+            return leida;
+        }
+        if (!this.archivo.exists() || this.archivo.length() == 0) {
+            oyente.cargaIniciada(0);
+            return new ArrayList<>();
+        }
+        if (CodecExportacion.esFormatoBinario(this.archivo)) {
+            // El archivo ya fue migrado al formato binario: se lee igual y se vuelve a serializar al guardar
+            return CodecExportacion.cargarLista(this.archivo, tamanoLote, oyente);
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(this.archivo)))) {
+            ArrayList<Exportacion> leida = (ArrayList<Exportacion>) ois.readObject();
+            oyente.cargaIniciada(leida.size());
+            oyente.loteLeido(leida);
+            return leida;
+        } catch (ClassNotFoundException e) {
+            throw new IOException("El archivo contiene clases desconocidas.", e);
+        }
+    }
+
+    @Override
+    protected void despuesDeInsertar(Exportacion exp) throws IOException {
+        this.guardar();
+    }
+
+    @Override
+    protected void despuesDeInsertarTodas(java.util.Collection<? extends Exportacion> exportaciones) throws IOException {
+        this.guardar();
+    }
+
+    @Override
+    protected void despuesDeActualizar(int indice, Exportacion exp) throws IOException {
+        this.guardar();
+    }
+
+    @Override
+    protected void despuesDeEliminar(int indice, Exportacion anterior) throws IOException {
+        this.guardar();
+    }
+
+    private void guardar() throws IOException {
+        // Se escribe como ArrayList, la clase que esperan los archivos existentes
+        this.escribir(new ArrayList<>(this.lista));
+    }
+
+    /**
+     * Escribe la lista en un archivo temporal y lo pone en lugar del archivo
+     * de datos con un renombrado atómico, así un error a mitad de la escritura
+     * no deja sin la única copia.
+     */
+    private void escribir(ArrayList<Exportacion> lista) throws IOException {
+        File temporal = new File(this.archivo.getPath() + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(temporal);
+             ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(fos))) {
+            oos.writeObject(lista);
+            oos.flush();
+            fos.getFD().sync();
+        }
+        try {
+            Files.move(temporal.toPath(), this.archivo.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporal.toPath(), this.archivo.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package persistencia;
+
+import Clases.Exportacion;
+import busqueda.TablaHashLarga;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * Lista de exportaciones de {@link RepositorioMemoria}, que además se puede
+ * recorrer por la clave de cada exportación.
+ *
+ * Las exportaciones ocupan ranuras en orden. Eliminar deja una lápida (una
+ * ranura vacía) en lugar de correr todas las siguientes, y un árbol de Fenwick
+ * con las ranuras ocupadas traduce posiciones de la lista a ranuras y al revés
+ * en O(log n); mientras no hay lápidas, posición y ranura coinciden. Cuando las
+ * lápidas superan a las exportaciones, se compacta todo de una vez.
+ *
+ * Las claves las reparte la lista, en orden creciente a partir de 1, y la
+ * ranura de cada una se busca en una {@link TablaHashLarga}, que solo tiene
+ * las claves en uso. Una exportación que llega con una clave que nadie usa la
+ * conserva (por ejemplo, las que se leen de una base de datos con su clave).
+ * Al reemplazar una exportación, la nueva recibe la clave de la anterior. No
+ * es segura para varios hilos; el repositorio sincroniza el acceso.
+ */
+class TablaExportaciones extends AbstractList<Exportacion> implements RandomAccess {
+
+    // Debajo de esta cantidad de ranuras no vale la pena compactar
+    private static final int MINIMO_PARA_COMPACTAR = 64;
+
+    private Exportacion[] ranuras = new Exportacion[16];
+    // Ranuras usadas (con las lápidas) y exportaciones vivas
+    private int usadas;
+    private int vivas;
+    // Árbol de Fenwick sobre las ranuras (desde 1): cuenta las ranuras ocupadas
+    private int[] arbol = new int[ranuras.length + 1];
+
+    // Clave -> ranura de las exportaciones que están en la lista
+    private final TablaHashLarga<Integer> ranuraDeClave = new TablaHashLarga<>();
+    private long siguienteClave = 1;
+
+    // --- Consultas por clave ---
+
+    /**
+     * @param clave La clave de una exportación.
+     * @return La exportación con esa clave, o null si no está en la lista.
+     */
+    public Exportacion obtenerPorClave(long clave) {
+        Integer ranura = ranuraDe(clave);
+        return ranura == null ? null : ranuras[ranura];
+    }
+
+    /**
+     * @param clave La clave de una exportación.
+     * @return La posición de la exportación en la lista, o -1 si no está.
+     */
+    public int posicionDe(long clave) {
+        Integer ranura = ranuraDe(clave);
+        if (ranura == null) {
+            return -1;
+        }
+        return usadas == vivas ? ranura : ocupadasAntesDe(ranura);
+    }
+
+    private Integer ranuraDe(long clave) {
+        return clave <= 0 ? null : ranuraDeClave.obtener(clave);
+    }
+
+    // --- Lectura ---
+
+    @Override
+    public Exportacion get(int indice) {
+        return ranuras[ranura(indice)];
+    }
+
+    @Override
+    public int size() {
+        return vivas;
+    }
+
+    @Override
+    public Iterator<Exportacion> iterator() {
+        // Recorre las ranuras saltando las lápidas, sin buscar cada posición en el árbol
+        return new Iterator<Exportacion>() {
+            private int siguiente = saltarLapidas(0);
+            private final int modificacionesEsperadas = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return siguiente < usadas;
+            }
+
+            @Override
+            public Exportacion next() {
+                if (modCount != modificacionesEsperadas) {
+                    throw new ConcurrentModificationException();
+                }
+                if (siguiente >= usadas) {
+                    throw new NoSuchElementException();
+                }
+                Exportacion exp = ranuras[siguiente];
+                siguiente = saltarLapidas(siguiente + 1);
+                return exp;
+            }
+        };
+    }
+
+    private int saltarLapidas(int ranura) {
+        while (ranura < usadas && ranuras[ranura] == null) {
+            ranura++;
+        }
+        return ranura;
+    }
+
+    // --- Modificaciones ---
+
+    @Override
+    public Exportacion set(int indice, Exportacion exp) {
+        int ranura = ranura(indice);
+        Exportacion anterior = ranuras[ranura];
+        // La exportación nueva ocupa el lugar de la anterior y conserva su clave
+        exp.setClave(anterior.getClave());
+        ranuras[ranura] = exp;
+        return anterior;
+    }
+
+    @Override
+    public void add(int indice, Exportacion exp) {
+        if (indice == vivas) {
+            agregarAlFinal(exp);
+        } else {
+            addAll(indice, Collections.singletonList(exp));
+        }
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Exportacion> exportaciones) {
+        for (Exportacion exp : exportaciones) {
+            agregarAlFinal(exp);
+        }
+        return !exportaciones.isEmpty();
+    }
+
+    @Override
+    public boolean addAll(int indice, Collection<? extends Exportacion> exportaciones) {
+        if (indice < 0 || indice > vivas) {
+            throw new IndexOutOfBoundsException("Índice: " + indice + ", Tamaño: " + vivas);
+        }
+        if (indice == vivas) {
+            return addAll(exportaciones);
+        }
+        // Insertar en el medio corre todo lo que sigue: se rearman las ranuras de una vez
+        Exportacion[] nuevas = new Exportacion[Math.max(16, vivas + exportaciones.size())];
+        int escritas = 0;
+        for (int ranura = 0; ranura < usadas; ranura++) {
+            if (escritas == indice) {
+                for (Exportacion exp : exportaciones) {
+                    nuevas[escritas++] = exp;
+                }
+                indice = -1;
+            }
+            if (ranuras[ranura] != null) {
+                nuevas[escritas++] = ranuras[ranura];
+            }
+        }
+        reconstruir(nuevas, escritas);
+        return !exportaciones.isEmpty();
+    }
+
+    @Override
+    public Exportacion remove(int indice) {
+        int ranura = ranura(indice);
+        Exportacion anterior = ranuras[ranura];
+        ranuras[ranura] = null;
+        ranuraDeClave.quitar(anterior.getClave());
+        sumar(ranura, -1);
+        vivas--;
+        modCount++;
+        // Las lápidas del final se descartan enseguida
+        while (usadas > 0 && ranuras[usadas - 1] == null) {
+            usadas--;
+        }
+        if (usadas > MINIMO_PARA_COMPACTAR && usadas - vivas > vivas) {
+            compactar();
+        }
+        return anterior;
+    }
+
+    @Override
+    protected void removeRange(int desde, int hasta) {
+        Exportacion[] quedan = new Exportacion[Math.max(16, vivas - (hasta - desde))];
+        int escritas = 0;
+        int posicion = 0;
+        for (int ranura = 0; ranura < usadas; ranura++) {
+            Exportacion exp = ranuras[ranura];
+            if (exp == null) {
+                continue;
+            }
+            if (posicion < desde || posicion >= hasta) {
+                quedan[escritas++] = exp;
+            }
+            posicion++;
+        }
+        reconstruir(quedan, escritas);
+    }
+
+    @Override
+    public void clear() {
+        reconstruir(new Exportacion[16], 0);
+    }
+
+    private void agregarAlFinal(Exportacion exp) {
+        if (usadas == ranuras.length) {
+            if (usadas - vivas > vivas / 2) {
+                compactar();
+            }
+            if (usadas == ranuras.length) {
+                ranuras = Arrays.copyOf(ranuras, ranuras.length * 2);
+                construirArbol();
+            }
+        }
+        int ranura = usadas++;
+        ranuras[ranura] = exp;
+        asignarClave(exp, ranura);
+        sumar(ranura, 1);
+        vivas++;
+        modCount++;
+    }
+
+    /**
+     * Le da a la exportación una clave nueva, salvo que ya tenga una clave que
+     * no esté en uso (por ejemplo, si vuelve después de deshacer su eliminación
+     * o si se leyó con su clave). Así las claves no se repiten dentro de la lista.
+     */
+    private void asignarClave(Exportacion exp, int ranura) {
+        long clave = exp.getClave();
+        if (clave <= 0 || ranuraDeClave.obtener(clave) != null) {
+            clave = siguienteClave++;
+            exp.setClave(clave);
+        } else if (clave >= siguienteClave) {
+            siguienteClave = clave + 1;
+        }
+        ranuraDeClave.poner(clave, ranura);
+    }
+
+    // --- Compactación ---
+
+    private void compactar() {
+        Exportacion[] vivasEnOrden = new Exportacion[Math.max(16, vivas * 2)];
+        int escritas = 0;
+        for (int ranura = 0; ranura < usadas; ranura++) {
+            if (ranuras[ranura] != null) {
+                vivasEnOrden[escritas++] = ranuras[ranura];
+            }
+        }
+        reconstruir(vivasEnOrden, escritas);
+    }
+
+    /**
+     * Reemplaza las ranuras por las indicadas, sin lápidas, y rearma las claves y el árbol.
+     */
+    private void reconstruir(Exportacion[] nuevas, int cantidad) {
+        // Se liberan las claves de la lista anterior; las exportaciones que siguen recuperan la suya
+        ranuraDeClave.vaciar();
+        ranuras = nuevas;
+        usadas = cantidad;
+        vivas = cantidad;
+        for (int ranura = 0; ranura < cantidad; ranura++) {
+            asignarClave(nuevas[ranura], ranura);
+        }
+        construirArbol();
+        modCount++;
+    }
+
+    // --- Árbol de Fenwick ---
+
+    private void construirArbol() {
+        arbol = new int[ranuras.length + 1];
+        for (int i = 1; i <= ranuras.length; i++) {
+            if (i <= usadas && ranuras[i - 1] != null) {
+                arbol[i]++;
+            }
+            int padre = i + (i & -i);
+            if (padre <= ranuras.length) {
+                arbol[padre] += arbol[i];
+            }
+        }
+    }
+
+    private void sumar(int ranura, int valor) {
+        for (int i = ranura + 1; i < arbol.length; i += i & -i) {
+            arbol[i] += valor;
+        }
+    }
+
+    /**
+     * @return La cantidad de ranuras ocupadas antes de la indicada, es decir, su posición.
+     */
+    private int ocupadasAntesDe(int ranura) {
+        int cantidad = 0;
+        for (int i = ranura; i > 0; i -= i & -i) {
+            cantidad += arbol[i];
+        }
+        return cantidad;
+    }
+
+    /**
+     * @return La ranura de la exportación que está en la posición indicada.
+     */
+    private int ranura(int indice) {
+        if (indice < 0 || indice >= vivas) {
+            throw new IndexOutOfBoundsException("Índice: " + indice + ", Tamaño: " + vivas);
+        }
+        if (usadas == vivas) {
+            return indice;
+        }
+        // Se baja por el árbol buscando la ranura ocupada número indice + 1
+        int ranura = 0;
+        int faltan = indice + 1;
+        for (int paso = Integer.highestOneBit(arbol.length - 1); paso > 0; paso >>= 1) {
+            int siguiente = ranura + paso;
+            if (siguiente < arbol.length && arbol[siguiente] < faltan) {
+                ranura = siguiente;
+                faltan -= arbol[siguiente];
+            }
+        }
+        return ranura;
+    }
+}
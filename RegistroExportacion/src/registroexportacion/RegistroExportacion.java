@@ -6,9 +6,25 @@
 package registroexportacion;
 
 import Clases.Exportacion;
-import java.util.ArrayList;
+import Clases.ExportacionCargaPesada;
+import Clases.ExportacionCargaSuelta;
+import busqueda.Consulta;
+import busqueda.RangoFechas;
+import estadisticas.CriterioAgrupacion;
+import estadisticas.Periodo;
+import estadisticas.ResumenPeriodo;
+import estadisticas.TotalesExportaciones;
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.InputMismatchException;
+import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import persistencia.FabricaRepositorios;
+import persistencia.RepositorioExportaciones;
+import reportes.EscritorReporte;
+import reportes.ReporteExportaciones;
 /**
  *
  * @author cesc
@@ -16,10 +32,18 @@ import java.util.Scanner;
 public class RegistroExportacion {
 
     private static final Scanner scanner = new Scanner(System.in);
-    private static final ArrayList<Exportacion> exportaciones = new ArrayList<>();
+    // Las mismas exportaciones que usa la ventana principal (-Dregistro.almacen elige dónde se guardan)
+    private static final RepositorioExportaciones exportaciones = FabricaRepositorios.crear(
+            e -> System.out.println("\n>> Error al guardar los datos: " + e.getMessage() + " <<"));
 
     public static void main(String[] args) {
         System.out.println("--- BIENVENIDO AL SISTEMA 'REGISTRO DE EXPORTACIÓN' ---");
+        try {
+            exportaciones.cargar(Integer.MAX_VALUE, null);
+        } catch (IOException e) {
+            System.out.println("\n>> Error al cargar los datos: " + e.getMessage() + " <<");
+            return;
+        }
         boolean salir = false;
 
         while (!salir) {
@@ -39,11 +63,23 @@ public class RegistroExportacion {
                         mostrarReporteAgrupado();
                         break;
                     case 4:
+                        mostrarReportePorPeriodo();
+                        break;
+                    case 5:
+                        mostrarConsultaCombinada();
+                        break;
+                    case 6:
+                        mostrarReportePorGrupos();
+                        break;
+                    case 7:
+                        mostrarResumenPorPeriodo();
+                        break;
+                    case 8:
                         salir = true;
                         System.out.println("\nGracias por utilizar el sistema. ¡Hasta pronto!");
                         break;
                     default:
-                        System.out.println("\n>> Error: Opción no válida. Por favor, ingrese un número del 1 al 4. <<");
+                        System.out.println("\n>> Error: Opción no válida. Por favor, ingrese un número del 1 al 8. <<");
                 }
             } catch (InputMismatchException e) {
                 System.out.println("\n>> Error: Debe ingresar un número válido. <<");
@@ -55,6 +91,11 @@ public class RegistroExportacion {
             }
         }
         scanner.close();
+        try {
+            exportaciones.cerrar();
+        } catch (IOException e) {
+            System.out.println("\n>> Error al guardar los datos: " + e.getMessage() + " <<");
+        }
     }
 
     public static void mostrarMenu() {
@@ -62,7 +103,11 @@ public class RegistroExportacion {
         System.out.println("1. Ingresar exportación");
         System.out.println("2. Reporte general");
         System.out.println("3. Reporte agrupado");
-        System.out.println("4. Salir");
+        System.out.println("4. Reporte por período");
+        System.out.println("5. Consulta combinada");
+        System.out.println("6. Reporte por grupos");
+        System.out.println("7. Resumen por período");
+        System.out.println("8. Salir");
         System.out.print("Seleccione una opción: ");
     }
 
@@ -140,12 +185,44 @@ public class RegistroExportacion {
                 }
             }
 
-            // Una vez que todos los datos son válidos, se crea el objeto
-            //Exportacion nuevaExportacion = new Exportacion(id, nombre, tipoExp, zona, servicio, kilos);
-            // exportaciones.add(nuevaExportacion);
+            // Una vez que todos los datos son válidos, se crea el objeto según su tipo
+            Exportacion nuevaExportacion;
+            if (tipoExp.equals("ECP")) {
+                String tipoCarga;
+                // Bucle para validar el tipo de carga
+                while (true) {
+                    System.out.print("Tipo de Carga (Contenedor Refrigerado, Contenedor no refrigerado o Carga embalada): ");
+                    tipoCarga = scanner.nextLine();
+                    if (ExportacionCargaPesada.TIPOS_CARGA.contains(tipoCarga)) {
+                        break; // Dato correcto
+                    }
+                    System.out.println(">> Error: Tipo de carga no válido. Intente de nuevo. <<");
+                }
+                nuevaExportacion = new ExportacionCargaPesada(id, nombre, zona, servicio, kilos, tipoCarga);
+            } else {
+                double pies;
+                // Bucle para validar los pies de carga
+                while (true) {
+                    try {
+                        System.out.print("Pies de carga: ");
+                        pies = scanner.nextDouble();
+                        scanner.nextLine(); // Consumir el salto de línea
+                        if (pies > 0) {
+                            break; // Dato correcto
+                        } else {
+                            System.out.println(">> Error: Los pies de carga deben ser un valor positivo. <<");
+                        }
+                    } catch (InputMismatchException e) {
+                        System.out.println(">> Error: Debe ingresar un número válido. Intente de nuevo. <<");
+                        scanner.nextLine(); // Limpiar el buffer de entrada incorrecta
+                    }
+                }
+                nuevaExportacion = new ExportacionCargaSuelta(id, nombre, zona, servicio, kilos, pies);
+            }
+            exportaciones.insertar(nuevaExportacion);
 
-            // System.out.println("\n>> ¡Exportación registrada con éxito! <<");
-            // System.out.printf("Costo de la exportación: $%.2f%n", nuevaExportacion.getCostoTotal());
+            System.out.println("\n>> ¡Exportación registrada con éxito! <<");
+            System.out.printf("Costo de la exportación: $%.2f%n", nuevaExportacion.getCostoTotal());
 
         } catch (Exception e) {
             // Este catch es una red de seguridad para cualquier error inesperado
@@ -153,50 +230,306 @@ public class RegistroExportacion {
         }
     }
 
+    /**
+     * Muestra todas las exportaciones en pantalla, por páginas o de corrido,
+     * o las guarda en un archivo de texto. Las filas pasan por un
+     * {@link EscritorReporte}, que las escribe en bloques grandes.
+     */
     public static void mostrarReporteGeneral() {
         System.out.println("\n--- 2. Reporte General de Exportaciones ---");
-        if (exportaciones.isEmpty()) {
+        if (exportaciones.tamano() == 0) {
             System.out.println("No hay exportaciones registradas para mostrar.");
             return;
         }
+        System.out.print("Salida (Enter para la pantalla o nombre de archivo): ");
+        String salida = scanner.nextLine().trim();
+        int filasPorPagina = 0;
+        if (salida.isEmpty()) {
+            // Bucle para validar el tamaño de página (solo en pantalla); 0 o Enter muestran todo
+            do {
+                System.out.print("Filas por página (Enter o 0 para mostrar todo sin pausas): ");
+                String texto = scanner.nextLine().trim();
+                try {
+                    filasPorPagina = texto.isEmpty() ? 0 : Integer.parseInt(texto);
+                } catch (NumberFormatException e) {
+                    filasPorPagina = -1;
+                }
+                if (filasPorPagina < 0) {
+                    System.out.println(">> Error: Debe ingresar un número entero mayor o igual a 0. Intente de nuevo. <<");
+                }
+            } while (filasPorPagina < 0);
+        }
 
-        System.out.println("------------------------------------------------------------------------------------------");
-        System.out.printf("%-15s | %-25s | %-15s | %-20s | %-15s%n", "ID Cliente", "Nombre Completo", "Fecha Export.", "Zona de Envío", "Costo Total");
-        System.out.println("------------------------------------------------------------------------------------------");
-        
-        for (Exportacion exp : exportaciones) {
-            System.out.printf("%-15s | %-25s | %-15s | %-20s | $%-14.2f%n",
-                exp.getIdCliente(),
-                exp.getNombreCompleto(),
-                exp.getFechaExportacionFormateada(),
-                exp.getZonaEnvio(),
-                exp.getCostoTotal());
+        long inicio = System.nanoTime();
+        int escritas;
+        try (EscritorReporte escritor = salida.isEmpty() ? EscritorReporte.consola() : EscritorReporte.archivo(new File(salida))) {
+            if (filasPorPagina > 0) {
+                escritor.paginar(filasPorPagina, pagina -> {
+                    System.out.print("-- Página " + pagina + ": Enter para seguir, 'q' para terminar -- ");
+                    return !scanner.nextLine().trim().equalsIgnoreCase("q");
+                });
+            }
+            escritas = ReporteExportaciones.escribir(exportaciones, escritor);
+        } catch (IOException e) {
+            System.out.println("\n>> Error al escribir el reporte: " + e.getMessage() + " <<");
+            return;
+        }
+        long milisegundos = (System.nanoTime() - inicio) / 1000000;
+        if (!salida.isEmpty()) {
+            System.out.printf("Reporte guardado en '%s': %d exportaciones (%d ms)%n", salida, escritas, milisegundos);
         }
-        System.out.println("------------------------------------------------------------------------------------------");
     }
 
     public static void mostrarReporteAgrupado() {
         System.out.println("\n--- 3. Reporte Agrupado ---");
-        if (exportaciones.isEmpty()) {
+        if (exportaciones.tamano() == 0) {
             System.out.println("No hay exportaciones registradas para mostrar.");
             return;
         }
 
-        double costoTotalECP = 0;
-        double costoTotalECS = 0;
-        double totalKilos = 0;
-
+        // El registro mantiene los totales con cada cambio: no hace falta recorrerlo
+        TotalesExportaciones totales = exportaciones.getTotales();
+        TotalesExportaciones.Totales general = totales.getGeneral();
 
         System.out.println("\n** Resumen de Costos por Tipo de Exportación **");
-        System.out.printf("Costo total ECP (Carga Pesada): $%.2f%n", costoTotalECP);
-        System.out.printf("Costo total ECS (Carga Suelta): $%.2f%n", costoTotalECS);
+        System.out.printf("Costo total ECP (Carga Pesada): $%.2f (%d exportaciones)%n",
+                totales.getCargaPesada().getCostoTotal(), totales.getCargaPesada().getCantidad());
+        System.out.printf("Costo total ECS (Carga Suelta): $%.2f (%d exportaciones)%n",
+                totales.getCargaSuelta().getCostoTotal(), totales.getCargaSuelta().getCantidad());
+
+        System.out.println("\n** Resumen por Tipo de Servicio **");
+        imprimirGrupos(totales.getPorServicio());
+
+        System.out.println("\n** Percentiles por Tipo de Servicio (aprox. ±1 %) **");
+        System.out.printf("%-20s %14s %14s %14s %12s %12s %12s%n", "Servicio",
+                "Costo p50", "Costo p95", "Costo p99", "Kg p50", "Kg p95", "Kg p99");
+        for (Map.Entry<String, TotalesExportaciones.Totales> grupo : totales.getPorServicio().entrySet()) {
+            TotalesExportaciones.Totales t = grupo.getValue();
+            System.out.printf("%-20s %14.2f %14.2f %14.2f %12.2f %12.2f %12.2f%n", grupo.getKey(),
+                    t.getCuantilCosto(0.50), t.getCuantilCosto(0.95), t.getCuantilCosto(0.99),
+                    t.getCuantilKilogramos(0.50), t.getCuantilKilogramos(0.95), t.getCuantilKilogramos(0.99));
+        }
+
+        System.out.println("\n** Clientes Distintos por Zona de Envío (aprox.) **");
+        for (Map.Entry<String, Long> zona : totales.getClientesPorZona().entrySet()) {
+            System.out.printf("%-20s %8d clientes%n", zona.getKey(), zona.getValue());
+        }
+        System.out.printf("Total de clientes distintos: %d%n", totales.getClientesDistintos());
+
+        System.out.println("\n** Resumen de Carga Pesada por Tipo de Carga **");
+        imprimirGrupos(totales.getPorTipoCarga());
 
         System.out.println("\n** Resumen de Peso Total Embalado **");
-        System.out.printf("Total de Kilogramos: %.2f Kg%n", totalKilos);
+        System.out.printf("Total de Kilogramos: %.2f Kg%n", general.getKilogramos());
         System.out.println("Equivalencias:");
-        System.out.printf("- Gramos: %.2f g%n", totalKilos * 1000);
-        System.out.printf("- Libras: %.2f lb%n", totalKilos * 2.20462);
-        System.out.printf("- Toneladas: %.4f t%n", totalKilos / 1000);
+        System.out.printf("- Gramos: %.2f g%n", general.getGramos());
+        System.out.printf("- Libras: %.2f lb%n", general.getLibras());
+        System.out.printf("- Toneladas: %.4f t%n", general.getToneladas());
+    }
+
+    private static void imprimirGrupos(Map<String, TotalesExportaciones.Totales> grupos) {
+        if (grupos.isEmpty()) {
+            System.out.println("(sin exportaciones)");
+            return;
+        }
+        for (Map.Entry<String, TotalesExportaciones.Totales> grupo : grupos.entrySet()) {
+            TotalesExportaciones.Totales t = grupo.getValue();
+            System.out.printf("%-20s %8d exportaciones  $%,16.2f  %,14.2f Kg%n",
+                    grupo.getKey(), t.getCantidad(), t.getCostoTotal(), t.getKilogramos());
+        }
+    }
+
+    /**
+     * Muestra las exportaciones de un período (entre dos fechas, los últimos
+     * días o un mes) con sus totales. Usa el índice de fechas del registro.
+     */
+    public static void mostrarReportePorPeriodo() {
+        System.out.println("\n--- 4. Reporte por Período ---");
+        RangoFechas rango;
+        // Bucle para validar el período
+        while (true) {
+            System.out.print("Período (dd/MM/aaaa, dd/MM/aaaa - dd/MM/aaaa, MM/aaaa o 'ultimos N'): ");
+            rango = RangoFechas.interpretar(scanner.nextLine(), LocalDate.now());
+            if (rango != null) {
+                break; // Dato correcto
+            }
+            System.out.println(">> Error: Período no válido. Intente de nuevo. <<");
+        }
+
+        List<Exportacion> delPeriodo = exportaciones.buscarPorFecha(rango);
+        System.out.println("Período: " + rango);
+        if (delPeriodo.isEmpty()) {
+            System.out.println("No hay exportaciones registradas en ese período.");
+            return;
+        }
+
+        double costoTotal = 0;
+        double totalKilos = 0;
+        for (Exportacion exp : delPeriodo) {
+            costoTotal += exp.getCostoTotal();
+            totalKilos += exp.getKilogramosEmbalar();
+        }
+        if (!imprimirTabla(delPeriodo)) {
+            return;
+        }
+        System.out.printf("Exportaciones: %d | Costo total: $%.2f | Kilogramos: %.2f Kg%n",
+                delPeriodo.size(), costoTotal, totalKilos);
+    }
+
+    /**
+     * Busca con varias condiciones a la vez y muestra el plan que eligió el
+     * registro (qué índice usó y qué filtró después) junto con el resultado.
+     */
+    public static void mostrarConsultaCombinada() {
+        System.out.println("\n--- 5. Consulta Combinada ---");
+        System.out.println("Condiciones 'campo=valor' separadas por ';'. Campos: cliente, zona, servicio, carga,");
+        System.out.println("fecha (como en el reporte por período), kg y costo (número o rango min..max).");
+        Consulta consulta;
+        // Bucle para validar la consulta
+        while (true) {
+            System.out.print("Consulta: ");
+            try {
+                consulta = Consulta.interpretar(scanner.nextLine(), LocalDate.now());
+                break; // Dato correcto
+            } catch (IllegalArgumentException e) {
+                System.out.println(">> Error: " + e.getMessage() + " Intente de nuevo. <<");
+            }
+        }
+
+        System.out.println(exportaciones.planificar(consulta).explicar());
+        List<Exportacion> resultado = exportaciones.buscar(consulta);
+        if (exportaciones.getEstadisticasCache() != null) {
+            System.out.println(exportaciones.getEstadisticasCache());
+        }
+        if (resultado.isEmpty()) {
+            System.out.println("No hay exportaciones que cumplan la consulta.");
+            return;
+        }
+        if (imprimirTabla(resultado)) {
+            System.out.printf("Exportaciones: %d%n", resultado.size());
+        }
+    }
+
+    /**
+     * Muestra una lista de exportaciones en pantalla con el formato del reporte general.
+     * @return false si no se pudo escribir.
+     */
+    private static boolean imprimirTabla(List<Exportacion> lista) {
+        try (EscritorReporte escritor = EscritorReporte.consola()) {
+            ReporteExportaciones.escribir(lista, escritor);
+            return true;
+        } catch (IOException e) {
+            System.out.println("\n>> Error al escribir el reporte: " + e.getMessage() + " <<");
+            return false;
+        }
+    }
+
+    /**
+     * Agrupa todas las exportaciones por zona de envío, mes o cliente y
+     * muestra la cantidad, el costo y los kilogramos de cada grupo.
+     */
+    public static void mostrarReportePorGrupos() {
+        System.out.println("\n--- 6. Reporte por Grupos ---");
+        if (exportaciones.tamano() == 0) {
+            System.out.println("No hay exportaciones registradas para mostrar.");
+            return;
+        }
+        CriterioAgrupacion[] criterios = CriterioAgrupacion.values();
+        CriterioAgrupacion criterio;
+        // Bucle para validar el criterio
+        while (true) {
+            for (int i = 0; i < criterios.length; i++) {
+                System.out.printf("%d. Por %s%n", i + 1, criterios[i].getNombre().toLowerCase());
+            }
+            System.out.print("Agrupar: ");
+            try {
+                int opcion = scanner.nextInt();
+                scanner.nextLine(); // Consumir el salto de línea
+                if (opcion >= 1 && opcion <= criterios.length) {
+                    criterio = criterios[opcion - 1];
+                    break; // Dato correcto
+                }
+            } catch (InputMismatchException e) {
+                scanner.nextLine(); // Limpiar el buffer del scanner
+            }
+            System.out.println(">> Error: Opción no válida. Intente de nuevo. <<");
+        }
+
+        long inicio = System.nanoTime();
+        Map<String, TotalesExportaciones.Totales> grupos = exportaciones.agrupar(criterio);
+        long milisegundos = (System.nanoTime() - inicio) / 1000000;
+
+        System.out.println("\n** Totales por " + criterio.getNombre().toLowerCase() + " **");
+        imprimirGrupos(grupos);
+        System.out.printf("Grupos: %d (calculados en %d ms)%n", grupos.size(), milisegundos);
+    }
+
+    /**
+     * Muestra los totales de un rango de fechas por día, mes o año, zona,
+     * servicio y tipo de exportación. Lee solo el cubo de resúmenes del
+     * registro, sin recorrer las exportaciones.
+     */
+    public static void mostrarResumenPorPeriodo() {
+        System.out.println("\n--- 7. Resumen por Período ---");
+        RangoFechas rango;
+        // Bucle para validar el rango
+        while (true) {
+            System.out.print("Fechas (dd/MM/aaaa, dd/MM/aaaa - dd/MM/aaaa, MM/aaaa o 'ultimos N'): ");
+            rango = RangoFechas.interpretar(scanner.nextLine(), LocalDate.now());
+            if (rango != null) {
+                break; // Dato correcto
+            }
+            System.out.println(">> Error: Período no válido. Intente de nuevo. <<");
+        }
+        Periodo[] periodos = Periodo.values();
+        Periodo periodo;
+        // Bucle para validar el tamaño del período
+        while (true) {
+            for (int i = 0; i < periodos.length; i++) {
+                System.out.printf("%d. Por %s%n", i + 1, periodos[i].getNombre().toLowerCase());
+            }
+            System.out.print("Resumir: ");
+            try {
+                int opcion = scanner.nextInt();
+                scanner.nextLine(); // Consumir el salto de línea
+                if (opcion >= 1 && opcion <= periodos.length) {
+                    periodo = periodos[opcion - 1];
+                    break; // Dato correcto
+                }
+            } catch (InputMismatchException e) {
+                scanner.nextLine(); // Limpiar el buffer del scanner
+            }
+            System.out.println(">> Error: Opción no válida. Intente de nuevo. <<");
+        }
+
+        long inicio = System.nanoTime();
+        List<ResumenPeriodo> resumen = exportaciones.resumirPorPeriodo(rango, periodo);
+        long milisegundos = (System.nanoTime() - inicio) / 1000000;
+
+        System.out.println("Período: " + rango);
+        if (resumen.isEmpty()) {
+            System.out.println("No hay exportaciones registradas en ese período.");
+            return;
+        }
+        System.out.println("------------------------------------------------------------------------------------------");
+        System.out.printf("%-10s | %-20s | %-12s | %-4s | %8s | %16s | %14s%n",
+                periodo.getNombre(), "Zona de Envío", "Servicio", "Tipo", "Cantidad", "Costo Total", "Kilogramos");
+        System.out.println("------------------------------------------------------------------------------------------");
+        int cantidad = 0;
+        double costoTotal = 0;
+        double totalKilos = 0;
+        for (ResumenPeriodo fila : resumen) {
+            TotalesExportaciones.Totales t = fila.getTotales();
+            System.out.printf("%-10s | %-20s | %-12s | %-4s | %8d | $%,15.2f | %,14.2f%n",
+                    fila.getEtiquetaPeriodo(), fila.getZonaEnvio(), fila.getTipoServicio(),
+                    fila.getTipoExportacion(), t.getCantidad(), t.getCostoTotal(), t.getKilogramos());
+            cantidad += t.getCantidad();
+            costoTotal += t.getCostoTotal();
+            totalKilos += t.getKilogramos();
+        }
+        System.out.println("------------------------------------------------------------------------------------------");
+        System.out.printf("Exportaciones: %d | Costo total: $%.2f | Kilogramos: %.2f Kg (%d filas en %d ms)%n",
+                cantidad, costoTotal, totalKilos, resumen.size(), milisegundos);
     }
     
 }
@@ -0,0 +1,386 @@
+package reportes;
+
+import Clases.FormatoCaracteres;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.text.DecimalFormatSymbols;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Escribe reportes en columnas de ancho fijo, a la consola o a un archivo.
+ *
+ * Cada fila se arma en un búfer de caracteres que se reutiliza de fila en fila:
+ * los números y las fechas se escriben dígito por dígito con
+ * {@link FormatoCaracteres} (el mismo formato que la tabla de la ventana), sin
+ * String.format ni Strings intermedios, y la fila completa pasa a un BufferedWriter grande, que
+ * escribe en bloques de 64 KB. Así imprimir un millón de filas no hace un
+ * printf sincronizado (y un vaciado de la consola) por cada una.
+ *
+ * Los textos más largos que su columna se cortan para que las columnas queden
+ * alineadas. Con {@link #paginar(int, FinDePagina)} el encabezado se repite en
+ * cada página y entre páginas se avisa a quien imprime, que puede esperar al
+ * usuario o cortar el reporte.
+ */
+public class EscritorReporte implements Closeable {
+
+    private static final int TAMANO_BUFER = 1 << 16;
+    private static final String SEPARADOR = " | ";
+
+    /**
+     * Una columna del reporte.
+     */
+    public static final class Columna {
+        private final String titulo;
+        private final int ancho;
+        private final boolean alineadaDerecha;
+
+        private Columna(String titulo, int ancho, boolean alineadaDerecha) {
+            if (ancho < 1) {
+                throw new IllegalArgumentException("El ancho de la columna debe ser positivo.");
+            }
+            this.titulo = titulo;
+            this.ancho = ancho;
+            this.alineadaDerecha = alineadaDerecha;
+        }
+
+        /**
+         * @param titulo Título de la columna.
+         * @param ancho Cantidad de caracteres.
+         * @return Una columna con el contenido alineado a la izquierda.
+         */
+        public static Columna izquierda(String titulo, int ancho) {
+            return new Columna(titulo, ancho, false);
+        }
+
+        /**
+         * @param titulo Título de la columna.
+         * @param ancho Cantidad de caracteres.
+         * @return Una columna con el contenido alineado a la derecha (números).
+         */
+        public static Columna derecha(String titulo, int ancho) {
+            return new Columna(titulo, ancho, true);
+        }
+    }
+
+    /**
+     * Recibe el aviso de cada página completa, con todo lo anterior ya escrito.
+     */
+    public interface FinDePagina {
+        /**
+         * @param pagina Número de la página que terminó (desde 1).
+         * @return true para seguir con la página siguiente, false para cortar el reporte.
+         * @throws IOException Si falla la interacción con el usuario.
+         */
+        boolean continuar(int pagina) throws IOException;
+    }
+
+    private final Writer destino;
+    private final boolean cerrarDestino;
+    private final char separadorDecimal = DecimalFormatSymbols.getInstance().getDecimalSeparator();
+
+    // Fila en armado y posición de la celda actual dentro de ella
+    private char[] linea = new char[256];
+    private int largo;
+    private int columnaActual;
+    private int inicioCelda;
+    private Columna[] columnas = new Columna[0];
+    // Lugar que se deja libre después del contenido de una celda: su relleno y el salto de línea
+    private int reserva = 1;
+    private char[] reglaTabla = {'\n'};
+
+    // Paginado
+    private int filasPorPagina;
+    private FinDePagina finDePagina;
+    private int filasEnPagina;
+    private int pagina = 1;
+    private boolean repetirEncabezado;
+    private boolean cortado;
+
+    /**
+     * @param destino Dónde se escribe; se le agrega un búfer de 64 KB.
+     * @param cerrarDestino true para cerrarlo al cerrar el reporte (archivos),
+     * false para solo vaciarlo (consola).
+     */
+    public EscritorReporte(Writer destino, boolean cerrarDestino) {
+        this.destino = new BufferedWriter(destino, TAMANO_BUFER);
+        this.cerrarDestino = cerrarDestino;
+    }
+
+    /**
+     * Crea un reporte que se escribe en System.out, con la codificación de la
+     * consola. Lo escrito antes con System.out sale primero.
+     * @return El escritor; al cerrarlo se vacía, pero System.out queda abierto.
+     */
+    public static EscritorReporte consola() {
+        System.out.flush();
+        return new EscritorReporte(new OutputStreamWriter(System.out, Charset.defaultCharset()), false);
+    }
+
+    /**
+     * Crea un reporte que se escribe en un archivo de texto UTF-8.
+     * @param archivo Archivo destino; se reemplaza si existe.
+     * @return El escritor; hay que cerrarlo al terminar.
+     * @throws IOException Si el archivo no se puede crear.
+     */
+    public static EscritorReporte archivo(File archivo) throws IOException {
+        return new EscritorReporte(new OutputStreamWriter(new FileOutputStream(archivo), StandardCharsets.UTF_8), true);
+    }
+
+    // --- Estructura ---
+
+    /**
+     * Define las columnas de las filas siguientes.
+     * @param columnas Las columnas, en orden.
+     */
+    public void definirColumnas(Columna... columnas) {
+        this.columnas = columnas.clone();
+        int ancho = -SEPARADOR.length();
+        int maximo = 0;
+        for (Columna columna : columnas) {
+            ancho += columna.ancho + SEPARADOR.length();
+            maximo = Math.max(maximo, columna.ancho);
+        }
+        this.reserva = maximo + 1;
+        this.reglaTabla = new char[Math.max(0, ancho) + 1];
+        Arrays.fill(this.reglaTabla, '-');
+        this.reglaTabla[this.reglaTabla.length - 1] = '\n';
+    }
+
+    /**
+     * Divide el reporte en páginas: después de cada página se llama a
+     * finDePagina y la siguiente empieza repitiendo el encabezado.
+     * @param filasPorPagina Cantidad de filas por página; 0 para no paginar.
+     * @param finDePagina Recibe el aviso de cada página completa.
+     */
+    public void paginar(int filasPorPagina, FinDePagina finDePagina) {
+        this.filasPorPagina = Math.max(0, filasPorPagina);
+        this.finDePagina = finDePagina;
+        this.filasEnPagina = 0;
+    }
+
+    /**
+     * @return true si quien imprime cortó el reporte al terminar una página.
+     */
+    public boolean isCortado() {
+        return cortado;
+    }
+
+    /**
+     * Escribe una línea horizontal del ancho de la tabla.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    public void regla() throws IOException {
+        destino.write(reglaTabla);
+    }
+
+    /**
+     * Escribe los títulos de las columnas entre dos reglas.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    public void encabezado() throws IOException {
+        regla();
+        for (Columna columna : columnas) {
+            abrirCelda();
+            copiar(columna.titulo);
+            cerrarCelda();
+        }
+        terminarLinea();
+        regla();
+    }
+
+    /**
+     * Escribe un texto libre en su propia línea (por ejemplo, los totales).
+     * @param texto El texto, sin el salto de línea final.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    public void linea(String texto) throws IOException {
+        destino.write(texto);
+        destino.write('\n');
+    }
+
+    // --- Celdas ---
+
+    /**
+     * Escribe un texto en la celda siguiente.
+     * @param texto El texto; null deja la celda vacía.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    public void texto(String texto) throws IOException {
+        abrirCelda();
+        if (texto != null) {
+            copiar(texto);
+        }
+        cerrarCelda();
+    }
+
+    /**
+     * Escribe un entero en la celda siguiente.
+     * @param valor El número.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    public void entero(long valor) throws IOException {
+        abrirCelda();
+        if (valor < 0) {
+            if (valor == Long.MIN_VALUE) {
+                copiar(Long.toString(valor));
+                cerrarCelda();
+                return;
+            }
+            linea[largo++] = '-';
+            valor = -valor;
+        }
+        largo = FormatoCaracteres.entero(linea, largo, valor, 1);
+        cerrarCelda();
+    }
+
+    /**
+     * Escribe una fecha como "dd/MM/yyyy" en la celda siguiente.
+     * @param fecha La fecha; null deja la celda vacía.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    public void fecha(LocalDate fecha) throws IOException {
+        abrirCelda();
+        if (fecha != null) {
+            int fin = FormatoCaracteres.fecha(linea, largo, fecha);
+            if (fin < 0) {
+                copiar(FormatoCaracteres.fechaComoTexto(fecha));
+            } else {
+                largo = fin;
+            }
+        }
+        cerrarCelda();
+    }
+
+    /**
+     * Escribe un monto como "$1234.50" (igual que String.format("$%.2f"), con
+     * el separador decimal del idioma del sistema) en la celda siguiente.
+     * @param monto El monto.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    public void monto(double monto) throws IOException {
+        abrirCelda();
+        int fin = FormatoCaracteres.monto(linea, largo, monto, separadorDecimal);
+        if (fin < 0) {
+            copiar(FormatoCaracteres.montoComoTexto(monto));
+        } else {
+            largo = fin;
+        }
+        cerrarCelda();
+    }
+
+    /**
+     * Termina la fila actual y la pasa al búfer de salida.
+     * @return false si el reporte se cortó al terminar esta página; en ese
+     * caso no hay que escribir más filas.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    public boolean terminarFila() throws IOException {
+        terminarLinea();
+        if (filasPorPagina > 0 && ++filasEnPagina == filasPorPagina) {
+            filasEnPagina = 0;
+            destino.flush();
+            if (!finDePagina.continuar(pagina++)) {
+                cortado = true;
+                return false;
+            }
+            repetirEncabezado = true;
+        }
+        return true;
+    }
+
+    private void abrirCelda() throws IOException {
+        if (columnaActual == 0 && repetirEncabezado) {
+            repetirEncabezado = false;
+            encabezado();
+        }
+        if (columnaActual >= columnas.length) {
+            throw new IllegalStateException("La fila tiene más celdas que columnas.");
+        }
+        asegurar(largo + SEPARADOR.length() + FormatoCaracteres.LARGO_MAXIMO + reserva);
+        if (columnaActual > 0) {
+            SEPARADOR.getChars(0, SEPARADOR.length(), linea, largo);
+            largo += SEPARADOR.length();
+        }
+        inicioCelda = largo;
+    }
+
+    /**
+     * Ajusta la celda al ancho de su columna: corta lo que sobra y completa
+     * con espacios (a la izquierda si va alineada a la derecha). La última
+     * columna alineada a la izquierda no se completa, para no dejar espacios al final.
+     */
+    private void cerrarCelda() {
+        Columna columna = columnas[columnaActual++];
+        int contenido = largo - inicioCelda;
+        if (contenido >= columna.ancho) {
+            largo = inicioCelda + columna.ancho;
+            return;
+        }
+        int relleno = columna.ancho - contenido;
+        if (columna.alineadaDerecha) {
+            System.arraycopy(linea, inicioCelda, linea, inicioCelda + relleno, contenido);
+            for (int i = inicioCelda; i < inicioCelda + relleno; i++) {
+                linea[i] = ' ';
+            }
+            largo += relleno;
+        } else if (columnaActual < columnas.length) {
+            for (int i = 0; i < relleno; i++) {
+                linea[largo++] = ' ';
+            }
+        }
+    }
+
+    private void terminarLinea() throws IOException {
+        linea[largo++] = '\n';
+        destino.write(linea, 0, largo);
+        largo = 0;
+        columnaActual = 0;
+    }
+
+    // --- Búfer de la fila ---
+
+    private void asegurar(int capacidad) {
+        if (capacidad > linea.length) {
+            char[] mayor = new char[Math.max(capacidad, linea.length * 2)];
+            System.arraycopy(linea, 0, mayor, 0, largo);
+            linea = mayor;
+        }
+    }
+
+    private void copiar(String texto) {
+        asegurar(largo + texto.length() + reserva);
+        texto.getChars(0, texto.length(), linea, largo);
+        largo += texto.length();
+    }
+
+    // --- Cierre ---
+
+    /**
+     * Pasa lo que quede en el búfer al destino.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    public void vaciar() throws IOException {
+        destino.flush();
+    }
+
+    /**
+     * Vacía el búfer y cierra el destino si es un archivo (la consola queda abierta).
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    @Override
+    public void close() throws IOException {
+        if (cerrarDestino) {
+            destino.close();
+        } else {
+            destino.flush();
+        }
+    }
+}
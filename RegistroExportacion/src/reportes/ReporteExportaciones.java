@@ -0,0 +1,76 @@
+package reportes;
+
+import Clases.Exportacion;
+import java.io.IOException;
+import java.util.List;
+import persistencia.RepositorioExportaciones;
+
+/**
+ * Tabla de exportaciones de los reportes de la consola (cédula, nombre, fecha,
+ * zona de envío y costo), escrita con un {@link EscritorReporte}.
+ */
+public final class ReporteExportaciones {
+
+    private static final EscritorReporte.Columna[] COLUMNAS = {
+        EscritorReporte.Columna.izquierda("ID Cliente", 15),
+        EscritorReporte.Columna.izquierda("Nombre Completo", 25),
+        EscritorReporte.Columna.izquierda("Fecha Export.", 15),
+        EscritorReporte.Columna.izquierda("Zona de Envío", 20),
+        EscritorReporte.Columna.izquierda("Costo Total", 15)
+    };
+
+    private ReporteExportaciones() {
+    }
+
+    /**
+     * Escribe todas las exportaciones del registro, en orden. Se leen por
+     * posición, así el registro no queda bloqueado mientras el usuario mira
+     * una página.
+     * @param repositorio El registro.
+     * @param escritor Dónde se escribe la tabla.
+     * @return La cantidad de exportaciones escritas (menos que el total si se cortó el reporte).
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    public static int escribir(RepositorioExportaciones repositorio, EscritorReporte escritor) throws IOException {
+        escritor.definirColumnas(COLUMNAS);
+        escritor.encabezado();
+        int escritas = 0;
+        while (escritas < repositorio.tamano()) {
+            if (!escribirFila(escritor, repositorio.obtener(escritas++))) {
+                break;
+            }
+        }
+        escritor.regla();
+        return escritas;
+    }
+
+    /**
+     * Escribe una lista de exportaciones (por ejemplo, el resultado de una búsqueda).
+     * @param exportaciones Las exportaciones, en el orden en que se muestran.
+     * @param escritor Dónde se escribe la tabla.
+     * @return La cantidad de exportaciones escritas (menos que el total si se cortó el reporte).
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    public static int escribir(List<Exportacion> exportaciones, EscritorReporte escritor) throws IOException {
+        escritor.definirColumnas(COLUMNAS);
+        escritor.encabezado();
+        int escritas = 0;
+        for (Exportacion exp : exportaciones) {
+            escritas++;
+            if (!escribirFila(escritor, exp)) {
+                break;
+            }
+        }
+        escritor.regla();
+        return escritas;
+    }
+
+    private static boolean escribirFila(EscritorReporte escritor, Exportacion exp) throws IOException {
+        escritor.texto(exp.getIdCliente());
+        escritor.texto(exp.getNombreCompleto());
+        escritor.fecha(exp.getFechaExportacion());
+        escritor.texto(exp.getZonaEnvio());
+        escritor.monto(exp.getCostoTotal());
+        return escritor.terminarFila();
+    }
+}
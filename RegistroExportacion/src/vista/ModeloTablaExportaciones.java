@@ -0,0 +1,243 @@
+package vista;
+
+import Clases.Exportacion;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import javax.swing.table.AbstractTableModel;
+import persistencia.RepositorioExportaciones;
+
+/**
+ * Modelo de la tabla de exportaciones que no copia los datos: sin filtro lee
+ * cada fila directamente del repositorio y con filtro lee de la lista que
+ * devolvió la búsqueda. Las celdas se arman recién cuando la tabla las pide,
+ * es decir, solo para las filas visibles. La fecha se entrega con su tipo y,
+ * en la columna del costo, la exportación misma: así no se crea un Double por
+ * celda y {@link RenderizadorCosto} lee el double directamente de la fila.
+ * Los dos renderizadores dibujan sin armar textos.
+ *
+ * La cantidad de filas se actualiza únicamente desde el hilo de eventos, junto
+ * con el aviso correspondiente, aunque el repositorio crezca desde otro hilo.
+ * Los cambios de una sola exportación se avisan fila por fila (insertada,
+ * modificada, eliminada), así la tabla conserva la selección y el desplazamiento.
+ */
+public class ModeloTablaExportaciones extends AbstractTableModel {
+
+    private static final String[] COLUMNAS = {"ID Cliente", "Nombre", "Fecha", "Zona Envío", "Servicio", "Costo Total"};
+
+    private final RepositorioExportaciones repositorio;
+    // Resultado del filtro aplicado y su condición, o null si se muestra todo el repositorio
+    private List<Exportacion> filtradas;
+    private Predicate<? super Exportacion> filtro;
+    // true cuando filtradas ya es una copia propia que se puede modificar
+    private boolean copiaPropia;
+    private int filas;
+
+    /**
+     * @param repositorio El registro que se muestra.
+     */
+    public ModeloTablaExportaciones(RepositorioExportaciones repositorio) {
+        this.repositorio = repositorio;
+        this.filas = repositorio.tamano();
+    }
+
+    /**
+     * Muestra todas las exportaciones del repositorio.
+     */
+    public void mostrarTodo() {
+        this.filtradas = null;
+        this.filtro = null;
+        this.filas = repositorio.tamano();
+        fireTableDataChanged();
+    }
+
+    /**
+     * Muestra solo las exportaciones indicadas. La lista no se copia (hasta
+     * el primer cambio que la afecte), así que no debe cambiar mientras se muestra.
+     * @param exportaciones El resultado de una búsqueda.
+     * @param filtro La condición que cumplen, para decidir si una exportación
+     * nueva o modificada se muestra.
+     */
+    public void mostrar(List<Exportacion> exportaciones, Predicate<? super Exportacion> filtro) {
+        this.filtradas = exportaciones;
+        this.filtro = filtro;
+        this.copiaPropia = false;
+        this.filas = exportaciones.size();
+        fireTableDataChanged();
+    }
+
+    /**
+     * @return true si se muestra todo el repositorio, sin filtro.
+     */
+    public boolean isMostrandoTodo() {
+        return filtradas == null;
+    }
+
+    /**
+     * @return Una copia de las exportaciones que se muestran con el filtro, o
+     * null si se muestra todo el repositorio.
+     */
+    public List<Exportacion> copiarFiltradas() {
+        return filtradas == null ? null : new ArrayList<>(filtradas);
+    }
+
+    /**
+     * Avisa que el repositorio recibió filas nuevas en la posición indicada
+     * (por ejemplo, un lote de la carga). Solo tiene efecto sin filtro.
+     * @param desde Posición de la primera fila nueva.
+     * @param cantidad Cantidad de filas nuevas.
+     */
+    public void filasInsertadas(int desde, int cantidad) {
+        if (filtradas != null || cantidad <= 0) {
+            return;
+        }
+        filas += cantidad;
+        fireTableRowsInserted(desde, desde + cantidad - 1);
+    }
+
+    /**
+     * Avisa que el repositorio creció al final (por ejemplo, después de una
+     * importación). Solo tiene efecto sin filtro.
+     */
+    public void filasAgregadasAlFinal() {
+        if (filtradas == null) {
+            filasInsertadas(filas, repositorio.tamano() - filas);
+        }
+    }
+
+    // --- Cambios de una exportación ---
+
+    /**
+     * Muestra una exportación recién agregada al final del repositorio, si
+     * corresponde según el filtro.
+     * @param exp La exportación nueva.
+     */
+    public void exportacionInsertada(Exportacion exp) {
+        if (filtradas == null) {
+            filas++;
+        } else if (filtro.test(exp)) {
+            listaPropia().add(exp);
+            filas++;
+        } else {
+            return;
+        }
+        fireTableRowsInserted(filas - 1, filas - 1);
+    }
+
+    /**
+     * Refleja la modificación de la exportación de una fila. Con filtro, la
+     * fila desaparece si la exportación modificada ya no lo cumple.
+     * @param fila Fila de la tabla.
+     * @param nueva La exportación con los datos nuevos.
+     */
+    public void exportacionActualizada(int fila, Exportacion nueva) {
+        if (filtradas != null) {
+            if (!filtro.test(nueva)) {
+                exportacionEliminada(fila);
+                return;
+            }
+            listaPropia().set(fila, nueva);
+        }
+        fireTableRowsUpdated(fila, fila);
+    }
+
+    /**
+     * Quita la fila de una exportación eliminada.
+     * @param fila Fila de la tabla.
+     */
+    public void exportacionEliminada(int fila) {
+        if (filtradas != null) {
+            listaPropia().remove(fila);
+        }
+        filas--;
+        fireTableRowsDeleted(fila, fila);
+    }
+
+    /**
+     * @return El resultado del filtro como lista modificable; se copia la primera vez.
+     */
+    private List<Exportacion> listaPropia() {
+        if (!copiaPropia) {
+            filtradas = new ArrayList<>(filtradas);
+            copiaPropia = true;
+        }
+        return filtradas;
+    }
+
+    // --- Lectura ---
+
+    /**
+     * @param fila Fila de la tabla.
+     * @return La exportación que se muestra en esa fila, o null si ya no existe.
+     */
+    public Exportacion getExportacion(int fila) {
+        if (filtradas != null) {
+            return filtradas.get(fila);
+        }
+        // El repositorio puede haber cambiado desde otro hilo antes del aviso
+        return fila < repositorio.tamano() ? repositorio.obtener(fila) : null;
+    }
+
+    @Override
+    public int getRowCount() {
+        return filas;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNAS.length;
+    }
+
+    @Override
+    public String getColumnName(int columna) {
+        return COLUMNAS[columna];
+    }
+
+    @Override
+    public Object getValueAt(int fila, int columna) {
+        Exportacion exp = getExportacion(fila);
+        return exp == null ? null : getValueAt(exp, columna);
+    }
+
+    /**
+     * @param exp Una exportación.
+     * @param columna Columna de la tabla.
+     * @return El valor de la exportación en esa columna; en la del costo, la exportación.
+     */
+    public Object getValueAt(Exportacion exp, int columna) {
+        switch (columna) {
+            case 0:
+                return exp.getIdCliente();
+            case 1:
+                return exp.getNombreCompleto();
+            case 2:
+                return exp.getFechaExportacion();
+            case 3:
+                return exp.getZonaEnvio();
+            case 4:
+                return exp.getTipoServicio();
+            default:
+                // Sin Double: RenderizadorCosto lee getCostoTotal() de la exportación
+                return exp;
+        }
+    }
+
+    @Override
+    public Class<?> getColumnClass(int columna) {
+        // Fecha y costo los dibujan RenderizadorFecha y RenderizadorCosto
+        switch (columna) {
+            case 2:
+                return LocalDate.class;
+            case 5:
+                return Exportacion.class;
+            default:
+                return String.class;
+        }
+    }
+
+    @Override
+    public boolean isCellEditable(int fila, int columna) {
+        return false;
+    }
+}
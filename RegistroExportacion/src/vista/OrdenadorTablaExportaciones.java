@@ -0,0 +1,430 @@
+package vista;
+
+import Clases.Exportacion;
+import busqueda.IndiceClientes;
+import busqueda.IndiceTrigramas;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+
+/**
+ * Ordena la tabla de exportaciones con permutaciones int[] (fila de la vista
+ * a fila del modelo y al revés), sin comparar valores convertidos a objetos
+ * ni textos formateados.
+ *
+ * Para ordenar todo, cada fila recibe una clave long (epoch-day para la fecha,
+ * los dígitos de la cédula, los bits ordenables del costo o la posición del
+ * texto entre los valores distintos) y se ordenan las claves con radix sort.
+ * Las filas insertadas, modificadas o eliminadas después se ubican con
+ * búsqueda binaria y se intercalan en la permutación, sin volver a ordenar.
+ *
+ * A igual valor se conserva el orden del modelo, tanto al ordenar todo como
+ * al intercalar, así que ambos caminos dan siempre el mismo resultado.
+ */
+public class OrdenadorTablaExportaciones extends RowSorter<ModeloTablaExportaciones> {
+
+    // Columnas del modelo (ver ModeloTablaExportaciones)
+    private static final int COLUMNA_ID = 0;
+    private static final int COLUMNA_FECHA = 2;
+    private static final int COLUMNA_COSTO = 5;
+
+    // Cambios más grandes que esta fracción de la tabla se resuelven ordenando todo
+    private static final int FRACCION_PARA_REORDENAR = 8;
+
+    private final ModeloTablaExportaciones modelo;
+    private List<SortKey> claves = Collections.emptyList();
+    // Permutaciones; null si la tabla no está ordenada
+    private int[] vistaAModelo;
+    private int[] modeloAVista;
+
+    /**
+     * @param modelo El modelo de la tabla.
+     */
+    public OrdenadorTablaExportaciones(ModeloTablaExportaciones modelo) {
+        this.modelo = modelo;
+    }
+
+    @Override
+    public ModeloTablaExportaciones getModel() {
+        return modelo;
+    }
+
+    // --- Orden elegido ---
+
+    @Override
+    public void toggleSortOrder(int columna) {
+        SortOrder orden = SortOrder.ASCENDING;
+        if (!claves.isEmpty() && claves.get(0).getColumn() == columna
+                && claves.get(0).getSortOrder() == SortOrder.ASCENDING) {
+            orden = SortOrder.DESCENDING;
+        }
+        setSortKeys(Collections.singletonList(new SortKey(columna, orden)));
+    }
+
+    @Override
+    public void setSortKeys(List<? extends SortKey> nuevas) {
+        // Solo se ordena por una columna
+        List<SortKey> elegidas = nuevas == null || nuevas.isEmpty() || nuevas.get(0).getSortOrder() == SortOrder.UNSORTED
+                ? Collections.<SortKey>emptyList()
+                : Collections.singletonList(nuevas.get(0));
+        if (elegidas.equals(claves)) {
+            return;
+        }
+        claves = elegidas;
+        fireSortOrderChanged();
+        ordenarTodo();
+    }
+
+    @Override
+    public List<? extends SortKey> getSortKeys() {
+        return claves;
+    }
+
+    // --- Conversión de filas ---
+
+    @Override
+    public int convertRowIndexToModel(int fila) {
+        return vistaAModelo == null ? fila : vistaAModelo[fila];
+    }
+
+    @Override
+    public int convertRowIndexToView(int fila) {
+        return modeloAVista == null ? fila : modeloAVista[fila];
+    }
+
+    @Override
+    public int getViewRowCount() {
+        return modelo.getRowCount();
+    }
+
+    @Override
+    public int getModelRowCount() {
+        return modelo.getRowCount();
+    }
+
+    // --- Cambios en el modelo ---
+
+    @Override
+    public void modelStructureChanged() {
+        ordenarTodo();
+    }
+
+    @Override
+    public void allRowsChanged() {
+        ordenarTodo();
+    }
+
+    @Override
+    public void rowsInserted(int primera, int ultima) {
+        if (vistaAModelo == null) {
+            return;
+        }
+        int cantidad = ultima - primera + 1;
+        int[] anterior = vistaAModelo;
+        if (cantidad > anterior.length / FRACCION_PARA_REORDENAR + 1) {
+            ordenarTodo();
+            return;
+        }
+        // Las filas del modelo desde "primera" se corrieron hacia abajo
+        int[] corridas = new int[anterior.length];
+        for (int i = 0; i < anterior.length; i++) {
+            corridas[i] = anterior[i] >= primera ? anterior[i] + cantidad : anterior[i];
+        }
+        // Las filas nuevas se ordenan entre sí y se intercalan con una búsqueda binaria cada una
+        int[] nuevas = new int[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            nuevas[i] = primera + i;
+        }
+        ordenarPocas(nuevas);
+        int[] resultado = new int[corridas.length + cantidad];
+        int copiadas = 0;
+        int escritas = 0;
+        for (int nueva : nuevas) {
+            int posicion = posicionDeInsercion(corridas, copiadas, corridas.length, nueva);
+            System.arraycopy(corridas, copiadas, resultado, escritas, posicion - copiadas);
+            escritas += posicion - copiadas;
+            copiadas = posicion;
+            resultado[escritas++] = nueva;
+        }
+        System.arraycopy(corridas, copiadas, resultado, escritas, corridas.length - copiadas);
+        cambiarPermutacion(resultado, anterior);
+    }
+
+    @Override
+    public void rowsDeleted(int primera, int ultima) {
+        if (vistaAModelo == null) {
+            return;
+        }
+        int cantidad = ultima - primera + 1;
+        int[] anterior = vistaAModelo;
+        int[] resultado = new int[anterior.length - cantidad];
+        int escritas = 0;
+        for (int filaModelo : anterior) {
+            if (filaModelo < primera) {
+                resultado[escritas++] = filaModelo;
+            } else if (filaModelo > ultima) {
+                resultado[escritas++] = filaModelo - cantidad;
+            }
+        }
+        cambiarPermutacion(resultado, anterior);
+    }
+
+    @Override
+    public void rowsUpdated(int primera, int ultima) {
+        if (vistaAModelo == null) {
+            return;
+        }
+        int[] anterior = vistaAModelo;
+        if (ultima - primera + 1 > anterior.length / FRACCION_PARA_REORDENAR + 1) {
+            ordenarTodo();
+            return;
+        }
+        int[] resultado = anterior.clone();
+        int tamano = resultado.length;
+        for (int filaModelo = primera; filaModelo <= ultima; filaModelo++) {
+            // Se saca la fila de su lugar y se vuelve a ubicar con su valor nuevo
+            int desde = indiceDe(resultado, filaModelo);
+            System.arraycopy(resultado, desde + 1, resultado, desde, tamano - desde - 1);
+            int posicion = posicionDeInsercion(resultado, 0, tamano - 1, filaModelo);
+            System.arraycopy(resultado, posicion, resultado, posicion + 1, tamano - 1 - posicion);
+            resultado[posicion] = filaModelo;
+        }
+        cambiarPermutacion(resultado, anterior);
+    }
+
+    @Override
+    public void rowsUpdated(int primera, int ultima, int columna) {
+        if (!claves.isEmpty() && claves.get(0).getColumn() == columna) {
+            rowsUpdated(primera, ultima);
+        }
+    }
+
+    private void cambiarPermutacion(int[] nueva, int[] anterior) {
+        vistaAModelo = nueva;
+        modeloAVista = invertir(nueva);
+        fireRowSorterChanged(anterior);
+    }
+
+    /**
+     * @return La posición de una fila del modelo en la permutación (la de la vista
+     * anterior al cambio, para las filas que se están reubicando).
+     */
+    private int indiceDe(int[] permutacion, int filaModelo) {
+        if (modeloAVista != null && filaModelo < modeloAVista.length && permutacion[modeloAVista[filaModelo]] == filaModelo) {
+            return modeloAVista[filaModelo];
+        }
+        for (int i = 0; i < permutacion.length; i++) {
+            if (permutacion[i] == filaModelo) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("La fila " + filaModelo + " no está en la permutación.");
+    }
+
+    // --- Orden completo ---
+
+    private void ordenarTodo() {
+        int[] anterior = vistaAModelo != null ? vistaAModelo : identidad(modelo.getRowCount());
+        if (claves.isEmpty()) {
+            vistaAModelo = null;
+            modeloAVista = null;
+            fireRowSorterChanged(anterior);
+            return;
+        }
+        int columna = claves.get(0).getColumn();
+        boolean descendente = claves.get(0).getSortOrder() == SortOrder.DESCENDING;
+        int filas = modelo.getRowCount();
+        long[] clavesFilas = new long[filas];
+        HashMap<String, Long> posicionDeTexto = esColumnaNumerica(columna) ? null : posicionesDeTextos(columna, filas);
+        for (int i = 0; i < filas; i++) {
+            Exportacion exp = modelo.getExportacion(i);
+            long clave = exp == null ? Long.MAX_VALUE
+                    : posicionDeTexto != null ? posicionDeTexto.get(texto(exp, columna))
+                    : claveNumerica(exp, columna);
+            // Se pasa a orden sin signo para el radix sort; en descendente se invierte
+            clave ^= Long.MIN_VALUE;
+            clavesFilas[i] = descendente ? ~clave : clave;
+        }
+        vistaAModelo = ordenarPorClave(clavesFilas);
+        modeloAVista = invertir(vistaAModelo);
+        fireRowSorterChanged(anterior);
+    }
+
+    /**
+     * Radix sort estable (de a 16 bits, del menos al más significativo) de las
+     * claves sin signo.
+     * @return Las posiciones de las claves, de la menor a la mayor.
+     */
+    private static int[] ordenarPorClave(long[] clavesFilas) {
+        int n = clavesFilas.length;
+        int[] indices = identidad(n);
+        int[] indicesAux = new int[n];
+        long[] valores = clavesFilas;
+        long[] valoresAux = new long[n];
+        int[] cuenta = new int[(1 << 16) + 1];
+        for (int desplazamiento = 0; desplazamiento < 64; desplazamiento += 16) {
+            Arrays.fill(cuenta, 0);
+            for (int i = 0; i < n; i++) {
+                cuenta[(int) ((valores[i] >>> desplazamiento) & 0xFFFF) + 1]++;
+            }
+            // Si todas las claves tienen el mismo dígito, esta pasada no cambia nada
+            if (n == 0 || cuenta[(int) ((valores[0] >>> desplazamiento) & 0xFFFF) + 1] == n) {
+                continue;
+            }
+            for (int i = 1; i < cuenta.length; i++) {
+                cuenta[i] += cuenta[i - 1];
+            }
+            for (int i = 0; i < n; i++) {
+                int destino = cuenta[(int) ((valores[i] >>> desplazamiento) & 0xFFFF)]++;
+                valoresAux[destino] = valores[i];
+                indicesAux[destino] = indices[i];
+            }
+            long[] v = valores;
+            valores = valoresAux;
+            valoresAux = v;
+            int[] x = indices;
+            indices = indicesAux;
+            indicesAux = x;
+        }
+        return indices;
+    }
+
+    /**
+     * Numera los valores distintos de una columna de texto en orden, para
+     * ordenar las filas por ese número.
+     */
+    private HashMap<String, Long> posicionesDeTextos(int columna, int filas) {
+        HashMap<String, Long> posiciones = new HashMap<>();
+        for (int i = 0; i < filas; i++) {
+            Exportacion exp = modelo.getExportacion(i);
+            if (exp != null) {
+                posiciones.put(texto(exp, columna), 0L);
+            }
+        }
+        // Se normaliza una sola vez por valor distinto
+        String[][] pares = new String[posiciones.size()][];
+        int i = 0;
+        for (String valor : posiciones.keySet()) {
+            pares[i++] = new String[] {IndiceTrigramas.normalizar(valor), valor};
+        }
+        Arrays.sort(pares, (a, b) -> compararTextos(a[0], a[1], b[0], b[1]));
+        for (i = 0; i < pares.length; i++) {
+            posiciones.put(pares[i][1], (long) i);
+        }
+        return posiciones;
+    }
+
+    // --- Comparación de filas sueltas (para intercalar) ---
+
+    /**
+     * Ordena pocas filas del modelo con la misma comparación que el orden completo.
+     */
+    private void ordenarPocas(int[] filasModelo) {
+        Integer[] filas = new Integer[filasModelo.length];
+        for (int i = 0; i < filas.length; i++) {
+            filas[i] = filasModelo[i];
+        }
+        Arrays.sort(filas, (a, b) -> comparar(a, b));
+        for (int i = 0; i < filas.length; i++) {
+            filasModelo[i] = filas[i];
+        }
+    }
+
+    /**
+     * @return La primera posición de [desde, hasta) cuya fila va después de filaModelo.
+     */
+    private int posicionDeInsercion(int[] permutacion, int desde, int hasta, int filaModelo) {
+        int bajo = desde;
+        int alto = hasta;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (comparar(permutacion[medio], filaModelo) < 0) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+
+    /**
+     * Compara dos filas del modelo según el orden elegido; a igual valor, por su posición.
+     */
+    private int comparar(int filaA, int filaB) {
+        int columna = claves.get(0).getColumn();
+        Exportacion a = modelo.getExportacion(filaA);
+        Exportacion b = modelo.getExportacion(filaB);
+        int resultado;
+        if (a == null || b == null) {
+            resultado = a == b ? 0 : a == null ? 1 : -1;
+        } else if (esColumnaNumerica(columna)) {
+            resultado = Long.compare(claveNumerica(a, columna), claveNumerica(b, columna));
+        } else {
+            String textoA = texto(a, columna);
+            String textoB = texto(b, columna);
+            resultado = compararTextos(IndiceTrigramas.normalizar(textoA), textoA, IndiceTrigramas.normalizar(textoB), textoB);
+        }
+        if (claves.get(0).getSortOrder() == SortOrder.DESCENDING && a != null && b != null) {
+            resultado = -resultado;
+        }
+        return resultado != 0 ? resultado : Integer.compare(filaA, filaB);
+    }
+
+    /**
+     * Sin distinguir mayúsculas ni tildes; si solo difieren en eso, por el texto original.
+     */
+    private static int compararTextos(String normalizadoA, String textoA, String normalizadoB, String textoB) {
+        int resultado = normalizadoA.compareTo(normalizadoB);
+        return resultado != 0 ? resultado : textoA.compareTo(textoB);
+    }
+
+    // --- Claves por columna ---
+
+    private static boolean esColumnaNumerica(int columna) {
+        return columna == COLUMNA_ID || columna == COLUMNA_FECHA || columna == COLUMNA_COSTO;
+    }
+
+    /**
+     * @return Un long con el mismo orden que el valor de la columna.
+     */
+    private static long claveNumerica(Exportacion exp, int columna) {
+        switch (columna) {
+            case COLUMNA_ID:
+                // X-XXXX-XXXX: los nueve dígitos como número ordenan igual que el texto
+                long clave = IndiceClientes.clave(exp.getIdCliente());
+                return clave >= 0 ? clave : Long.MAX_VALUE;
+            case COLUMNA_FECHA:
+                return exp.getFechaExportacion().toEpochDay();
+            default:
+                // Bits del double reordenados para que comparar como long dé el orden numérico
+                long bits = Double.doubleToLongBits(exp.getCostoTotal());
+                return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+        }
+    }
+
+    private String texto(Exportacion exp, int columna) {
+        Object valor = modelo.getValueAt(exp, columna);
+        return valor == null ? "" : valor.toString();
+    }
+
+    // --- Utilidades ---
+
+    private static int[] identidad(int n) {
+        int[] permutacion = new int[n];
+        for (int i = 0; i < n; i++) {
+            permutacion[i] = i;
+        }
+        return permutacion;
+    }
+
+    private static int[] invertir(int[] permutacion) {
+        int[] inversa = new int[permutacion.length];
+        for (int i = 0; i < permutacion.length; i++) {
+            inversa[permutacion[i]] = i;
+        }
+        return inversa;
+    }
+}
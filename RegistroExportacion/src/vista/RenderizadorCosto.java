@@ -0,0 +1,41 @@
+package vista;
+
+import Clases.Exportacion;
+import Clases.FormatoCaracteres;
+import java.text.DecimalFormatSymbols;
+
+/**
+ * Dibuja las celdas numéricas como un monto ("$1234.50", con el separador
+ * decimal del idioma del sistema, igual que String.format("$%.2f")) sin crear
+ * Strings. El formato es el de {@link FormatoCaracteres}, el mismo de los reportes.
+ *
+ * El valor puede ser un número o una exportación, de la que se dibuja el costo
+ * total: {@link ModeloTablaExportaciones} entrega la exportación para no crear
+ * un Double por celda.
+ */
+public class RenderizadorCosto extends RenderizadorPrimitivo {
+
+    private final char separadorDecimal = DecimalFormatSymbols.getInstance().getDecimalSeparator();
+
+    public RenderizadorCosto() {
+        super(true);
+    }
+
+    @Override
+    protected void escribir(Object valor) {
+        double monto;
+        if (valor instanceof Exportacion) {
+            monto = ((Exportacion) valor).getCostoTotal();
+        } else if (valor instanceof Number) {
+            monto = ((Number) valor).doubleValue();
+        } else {
+            return;
+        }
+        int fin = FormatoCaracteres.monto(texto, largo, monto, separadorDecimal);
+        if (fin < 0) {
+            escribirTexto(FormatoCaracteres.montoComoTexto(monto));
+        } else {
+            largo = fin;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package vista;
+
+import Clases.FormatoCaracteres;
+import java.time.LocalDate;
+
+/**
+ * Dibuja las celdas de tipo LocalDate como "dd/MM/yyyy" sin crear Strings,
+ * con {@link FormatoCaracteres}, igual que los reportes.
+ */
+public class RenderizadorFecha extends RenderizadorPrimitivo {
+
+    public RenderizadorFecha() {
+        super(false);
+    }
+
+    @Override
+    protected void escribir(Object valor) {
+        if (!(valor instanceof LocalDate)) {
+            return;
+        }
+        LocalDate fecha = (LocalDate) valor;
+        int fin = FormatoCaracteres.fecha(texto, largo, fecha);
+        if (fin < 0) {
+            escribirTexto(FormatoCaracteres.fechaComoTexto(fecha));
+        } else {
+            largo = fin;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package vista;
+
+import Clases.FormatoCaracteres;
+import java.awt.Color;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Insets;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Toolkit;
+import java.util.Map;
+import javax.swing.JComponent;
+import javax.swing.JTable;
+import javax.swing.UIManager;
+import javax.swing.border.Border;
+import javax.swing.border.EmptyBorder;
+import javax.swing.table.TableCellRenderer;
+
+/**
+ * Base de los renderizadores que dibujan una celda a partir de su valor con
+ * tipo (fecha, número) sin armar un String: cada subclase escribe los
+ * caracteres en un búfer que se reutiliza de celda en celda y este componente
+ * los dibuja directamente.
+ *
+ * Como en DefaultTableCellRenderer, se anulan los avisos de validación y
+ * repintado, que no tienen sentido en un renderizador.
+ */
+public abstract class RenderizadorPrimitivo extends JComponent implements TableCellRenderer {
+
+    private static final Border SIN_FOCO = new EmptyBorder(1, 1, 1, 1);
+    // Suavizado de texto del escritorio, el mismo que usan las etiquetas de Swing
+    private static final Map<?, ?> SUAVIZADO =
+            (Map<?, ?>) Toolkit.getDefaultToolkit().getDesktopProperty("awt.font.desktophints");
+
+    /** Caracteres de la celda actual; las subclases escriben aquí. */
+    protected final char[] texto = new char[64];
+    /** Cantidad de caracteres válidos en {@link #texto}. */
+    protected int largo;
+
+    private final boolean alineadoDerecha;
+    private final Insets margen = new Insets(0, 0, 0, 0);
+
+    /**
+     * @param alineadoDerecha true para alinear el texto a la derecha (números).
+     */
+    protected RenderizadorPrimitivo(boolean alineadoDerecha) {
+        this.alineadoDerecha = alineadoDerecha;
+        setOpaque(true);
+    }
+
+    /**
+     * Escribe el texto de un valor en {@link #texto} y deja su largo en {@link #largo}.
+     * @param valor El valor de la celda (puede ser null).
+     */
+    protected abstract void escribir(Object valor);
+
+    /**
+     * Escribe un entero con al menos la cantidad de dígitos indicada (con ceros a la izquierda).
+     * @param valor Entero no negativo.
+     * @param digitos Cantidad mínima de dígitos.
+     */
+    protected final void escribirEntero(long valor, int digitos) {
+        largo = FormatoCaracteres.entero(texto, largo, valor, digitos);
+    }
+
+    /**
+     * Copia un texto al búfer (para los valores que no se pueden escribir directamente).
+     * @param cadena El texto.
+     */
+    protected final void escribirTexto(String cadena) {
+        int cantidad = Math.min(cadena.length(), texto.length - largo);
+        cadena.getChars(0, cantidad, texto, largo);
+        largo += cantidad;
+    }
+
+    @Override
+    public java.awt.Component getTableCellRendererComponent(JTable tabla, Object valor, boolean seleccionada,
+                                                            boolean conFoco, int fila, int columna) {
+        Color fondo;
+        if (seleccionada) {
+            setForeground(tabla.getSelectionForeground());
+            fondo = tabla.getSelectionBackground();
+        } else {
+            setForeground(tabla.getForeground());
+            Color alterno = UIManager.getColor("Table.alternateRowColor");
+            fondo = alterno != null && fila % 2 != 0 ? alterno : tabla.getBackground();
+        }
+        setBackground(fondo);
+        setFont(tabla.getFont());
+        if (conFoco) {
+            Border borde = seleccionada ? UIManager.getBorder("Table.focusSelectedCellHighlightBorder") : null;
+            setBorder(borde != null ? borde : UIManager.getBorder("Table.focusCellHighlightBorder"));
+        } else {
+            setBorder(SIN_FOCO);
+        }
+        largo = 0;
+        escribir(valor);
+        return this;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        int ancho = getWidth();
+        int alto = getHeight();
+        g.setColor(getBackground());
+        g.fillRect(0, 0, ancho, alto);
+        if (largo == 0) {
+            return;
+        }
+        if (SUAVIZADO != null && g instanceof Graphics2D) {
+            ((Graphics2D) g).addRenderingHints(SUAVIZADO);
+        } else if (g instanceof Graphics2D) {
+            ((Graphics2D) g).setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        }
+        g.setColor(getForeground());
+        g.setFont(getFont());
+        FontMetrics metricas = g.getFontMetrics();
+        getInsets(margen);
+        int x = alineadoDerecha
+                ? ancho - margen.right - metricas.charsWidth(texto, 0, largo)
+                : margen.left;
+        int y = margen.top + (alto - margen.top - margen.bottom - metricas.getHeight()) / 2 + metricas.getAscent();
+        g.drawChars(texto, 0, largo, x, y);
+    }
+
+    // --- Sin avisos de validación ni repintado (ver DefaultTableCellRenderer) ---
+
+    @Override
+    public void invalidate() {
+    }
+
+    @Override
+    public void validate() {
+    }
+
+    @Override
+    public void revalidate() {
+    }
+
+    @Override
+    public void repaint(long tm, int x, int y, int width, int height) {
+    }
+
+    @Override
+    public void repaint(Rectangle r) {
+    }
+
+    @Override
+    public void repaint() {
+    }
+}
@@ -8,8 +8,25 @@ import Clases.Exportacion;
 import Clases.ExportacionCargaPesada;
 import Clases.ExportacionCargaSuelta;
 import java.io.*;
-import java.util.ArrayList;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
 import javax.swing.JOptionPane;
+import busqueda.CampoBusqueda;
+import busqueda.Condicion;
+import busqueda.Consulta;
+import busqueda.IndiceClientes;
+import busqueda.RangoFechas;
+import estadisticas.CriterioAgrupacion;
+import estadisticas.MotorAgrupacion;
+import estadisticas.TotalesExportaciones;
+import intercambio.ExportadorRegistro;
+import intercambio.ImportacionInterrumpidaException;
+import intercambio.ImportadorCsv;
+import intercambio.ResultadoImportacion;
+import persistencia.FabricaRepositorios;
+import persistencia.OyenteCarga;
+import persistencia.RepositorioExportaciones;
 
 /**
  *
@@ -17,40 +34,353 @@ import javax.swing.JOptionPane;
  */
 public class VentanaPrincipal extends javax.swing.JFrame {
 
-    private java.util.ArrayList<Exportacion> listaExportaciones = new java.util.ArrayList<>();
+    // Dónde se guardan las exportaciones; se elige con -Dregistro.almacen (ver FabricaRepositorios)
+    private final RepositorioExportaciones repositorio = FabricaRepositorios.crear(
+            e -> java.awt.EventQueue.invokeLater(this::mostrarErrorGuardado));
+
+    // Estado de la carga en segundo plano
+    private static final int TAMANO_LOTE_CARGA = 5000;
+    private boolean cargando = false;
+    // Filas leídas que llegaron a la ventana, cuántas están en la tabla y cuántas creó el usuario mientras tanto
+    private int filasRecibidas = 0;
+    private int filasCargadas = 0;
+    private int insertadasDuranteCarga = 0;
+
+    // Modelo de la tabla: lee las filas del repositorio o del resultado del filtro, sin copiarlas
+    private final ModeloTablaExportaciones modeloTabla = new ModeloTablaExportaciones(repositorio);
+    // Filtro aplicado a la tabla (null si se muestra todo); lo usa también la exportación
+    private java.util.function.Predicate<Exportacion> filtroActual;
+
+    // Filtro mientras se escribe: espera entre teclas, búsqueda en curso y número de la más reciente
+    private static final int ESPERA_FILTRO_MS = 30;
+    private static final String FILTRO_FECHA = "Por Fecha de Exportación";
+    private static final String FILTRO_COMBINADO = "Consulta combinada";
+    private javax.swing.Timer temporizadorFiltro;
+    private BusquedaFiltro busquedaEnCurso;
+    private int numeroBusqueda = 0;
     /**
      * Creates new form VentanaPrincipal
      */
     public VentanaPrincipal() {
         initComponents();
+        this.tblExportaciones.setModel(this.modeloTabla);
+        this.tblExportaciones.setDefaultRenderer(java.time.LocalDate.class, new RenderizadorFecha());
+        this.tblExportaciones.setDefaultRenderer(Exportacion.class, new RenderizadorCosto());
+        this.tblExportaciones.setRowSorter(new OrdenadorTablaExportaciones(this.modeloTabla));
+        configurarFiltroEnVivo();
+        configurarMenuAgrupar();
+        mostrarTodo();
         cargarDatos();
-        actualizarTabla(this.listaExportaciones);
+
+        // Antes de salir se escriben los cambios que todavía estén pendientes
+        this.addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosing(java.awt.event.WindowEvent e) {
+                cerrarDatos();
+            }
+        });
     }
-    
-    private void guardarDatos() {
-        // Guarda la lista completa de exportaciones en el archivo Exportaciones.dat
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream("Exportaciones.dat"))) {
-            oos.writeObject(this.listaExportaciones);
+
+    private void cerrarDatos() {
+        try {
+            this.repositorio.cerrar();
             System.out.println("Datos guardados correctamente.");
         } catch (IOException e) {
-            JOptionPane.showMessageDialog(this, "Error al guardar los datos en el archivo.", "Error de Archivo", JOptionPane.ERROR_MESSAGE);
+            this.mostrarErrorGuardado();
         }
     }
-
+    
     private void cargarDatos() {
-        // Carga la lista de exportaciones desde el archivo Exportaciones.dat
-        File archivo = new File("Exportaciones.dat");
-        if (archivo.exists()) {
-            try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(archivo))) {
-                // Lee el objeto del archivo y lo convierte de nuevo a una ArrayList
-                this.listaExportaciones = (ArrayList<Exportacion>) ois.readObject();
+        // Carga los datos guardados en segundo plano para no congelar la ventana
+        this.cargando = true;
+        this.btnModificar.setEnabled(false);
+        this.btnEliminar.setEnabled(false);
+        this.barCarga.setString("Cargando exportaciones...");
+        new CargaDatos().execute();
+    }
+
+    /**
+     * Lee las exportaciones en un hilo aparte y las va agregando a la tabla por lotes.
+     * El repositorio inserta las filas leídas antes de las que el usuario cree mientras
+     * tanto, para conservar el mismo orden que tendrán al volver a abrir el programa.
+     */
+    private class CargaDatos extends javax.swing.SwingWorker<Void, java.util.List<Exportacion>> {
+
+        @Override
+        protected Void doInBackground() throws Exception {
+            repositorio.cargar(TAMANO_LOTE_CARGA, new OyenteCarga() {
+                private int total;
+                private int leidas;
+
+                @Override
+                public void cargaIniciada(int total) {
+                    this.total = total;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public void loteLeido(java.util.List<Exportacion> lote) {
+                    leidas += lote.size();
+                    publish(lote);
+                    setProgress(total == 0 ? 100 : (int) (leidas * 100L / total));
+                }
+            });
+            return null;
+        }
+
+        @Override
+        protected void process(java.util.List<java.util.List<Exportacion>> lotes) {
+            for (java.util.List<Exportacion> lote : lotes) {
+                filasRecibidas += lote.size();
+                // Si la tabla se rehízo desde el repositorio, puede que ya tenga estas filas
+                if (modeloTabla.isMostrandoTodo() && filasRecibidas > filasCargadas) {
+                    modeloTabla.filasInsertadas(filasCargadas, filasRecibidas - filasCargadas);
+                    filasCargadas = filasRecibidas;
+                }
+            }
+            barCarga.setValue(getProgress());
+        }
+
+        @Override
+        protected void done() {
+            try {
+                get();
                 System.out.println("Datos cargados correctamente.");
-            } catch (IOException | ClassNotFoundException e) {
-                JOptionPane.showMessageDialog(this, "Error al cargar los datos desde el archivo.", "Error de Archivo", JOptionPane.ERROR_MESSAGE);
+            } catch (InterruptedException | java.util.concurrent.ExecutionException e) {
+                JOptionPane.showMessageDialog(VentanaPrincipal.this, "Error al cargar los datos desde el archivo.", "Error de Archivo", JOptionPane.ERROR_MESSAGE);
+            }
+            cargando = false;
+            btnModificar.setEnabled(true);
+            btnEliminar.setEnabled(true);
+            barCarga.setVisible(false);
+            if (modeloTabla.isMostrandoTodo()) {
+                // El repositorio ya aplicó el diario: la tabla se rehace con la lista definitiva
+                mostrarTodo();
+            }
+        }
+    }
+
+    // --- Filtro mientras se escribe ---
+
+    /**
+     * Filtra la tabla con cada tecla. El temporizador se reinicia con cada
+     * cambio, así que al escribir rápido solo se busca cuando el usuario se detiene.
+     */
+    private void configurarFiltroEnVivo() {
+        this.temporizadorFiltro = new javax.swing.Timer(ESPERA_FILTRO_MS, e -> filtrar());
+        this.temporizadorFiltro.setRepeats(false);
+        this.txtFiltro.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+            @Override
+            public void insertUpdate(javax.swing.event.DocumentEvent e) {
+                temporizadorFiltro.restart();
+            }
+
+            @Override
+            public void removeUpdate(javax.swing.event.DocumentEvent e) {
+                temporizadorFiltro.restart();
+            }
+
+            @Override
+            public void changedUpdate(javax.swing.event.DocumentEvent e) {
+                temporizadorFiltro.restart();
+            }
+        });
+        this.cmbTipoFiltro.addActionListener(e -> {
+            Object tipoFiltro = this.cmbTipoFiltro.getSelectedItem();
+            this.txtFiltro.setToolTipText(FILTRO_FECHA.equals(tipoFiltro)
+                    ? "dd/MM/aaaa, dd/MM/aaaa - dd/MM/aaaa, MM/aaaa o \"ultimos N\" (días)"
+                    : FILTRO_COMBINADO.equals(tipoFiltro)
+                    ? "campo=valor; ... (cliente, zona, servicio, carga, fecha, kg, costo), p. ej. zona=chile; kg=100..500"
+                    : null);
+            filtrar();
+        });
+    }
+
+    /**
+     * Lanza la búsqueda del texto del filtro en segundo plano, cancelando la
+     * anterior si todavía no terminó.
+     */
+    private void filtrar() {
+        this.temporizadorFiltro.stop();
+        if (this.busquedaEnCurso != null) {
+            this.busquedaEnCurso.cancel(true);
+            this.busquedaEnCurso = null;
+        }
+        String textoBusqueda = this.txtFiltro.getText().trim();
+        if (textoBusqueda.isEmpty()) {
+            this.numeroBusqueda++;
+            this.mostrarTodo();
+            return;
+        }
+        Consulta consulta = crearConsulta(textoBusqueda);
+        if (consulta == null) {
+            // Fecha o consulta a medio escribir: la tabla queda como estaba
+            this.numeroBusqueda++;
+            return;
+        }
+        this.busquedaEnCurso = new BusquedaFiltro(++this.numeroBusqueda, consulta);
+        this.busquedaEnCurso.execute();
+    }
+
+    /**
+     * Arma la consulta que corresponde al tipo de filtro elegido.
+     * @return La consulta, o null si el texto todavía no es válido.
+     */
+    private Consulta crearConsulta(String textoBusqueda) {
+        Object tipoFiltro = this.cmbTipoFiltro.getSelectedItem();
+        if (FILTRO_FECHA.equals(tipoFiltro)) {
+            RangoFechas rango = RangoFechas.interpretar(textoBusqueda, LocalDate.now());
+            return rango == null ? null : new Consulta().y(Condicion.fecha(rango));
+        }
+        if (FILTRO_COMBINADO.equals(tipoFiltro)) {
+            try {
+                return Consulta.interpretar(textoBusqueda, LocalDate.now());
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        if ("Por ID Cliente".equals(tipoFiltro)) {
+            // Cédula completa: índice de clientes; parte de ella: trigramas
+            return new Consulta().y(IndiceClientes.clave(textoBusqueda) >= 0
+                    ? Condicion.cliente(textoBusqueda) : Condicion.contiene(CampoBusqueda.ID_CLIENTE, textoBusqueda));
+        }
+        return new Consulta().y(Condicion.contiene(CampoBusqueda.ZONA_ENVIO, textoBusqueda));
+    }
+
+    /**
+     * Consulta el repositorio fuera del hilo de eventos. Solo la búsqueda más
+     * reciente llega a mostrarse.
+     */
+    private class BusquedaFiltro extends javax.swing.SwingWorker<java.util.List<Exportacion>, Void> {
+
+        private final int numero;
+        private final Consulta consulta;
+
+        BusquedaFiltro(int numero, Consulta consulta) {
+            this.numero = numero;
+            this.consulta = consulta;
+        }
+
+        @Override
+        protected java.util.List<Exportacion> doInBackground() {
+            // El repositorio elige el índice más selectivo y filtra el resto sobre esos candidatos
+            return repositorio.buscar(consulta);
+        }
+
+        @Override
+        protected void done() {
+            // Una búsqueda reemplazada por otra más nueva no toca la tabla
+            if (isCancelled() || numero != numeroBusqueda) {
+                return;
             }
+            try {
+                modeloTabla.mostrar(get(), consulta::cumple);
+                filtroActual = consulta::cumple;
+            } catch (InterruptedException | java.util.concurrent.ExecutionException e) {
+                JOptionPane.showMessageDialog(VentanaPrincipal.this, "Error al filtrar las exportaciones.", "Error", JOptionPane.ERROR_MESSAGE);
+            }
+            busquedaEnCurso = null;
         }
     }
 
+    /**
+     * Agrega a la tabla un menú contextual para agrupar lo que se muestra
+     * por zona de envío, mes o cliente.
+     */
+    private void configurarMenuAgrupar() {
+        javax.swing.JPopupMenu menu = new javax.swing.JPopupMenu();
+        for (CriterioAgrupacion criterio : CriterioAgrupacion.values()) {
+            javax.swing.JMenuItem opcion = new javax.swing.JMenuItem("Agrupar por " + criterio.getNombre().toLowerCase());
+            opcion.addActionListener(e -> agrupar(criterio));
+            menu.add(opcion);
+        }
+        this.tblExportaciones.setComponentPopupMenu(menu);
+    }
+
+    private void agrupar(CriterioAgrupacion criterio) {
+        // Se agrupa lo que muestra la tabla: todo el registro o el resultado del filtro
+        List<Exportacion> mostradas = this.modeloTabla.isMostrandoTodo() ? null : this.modeloTabla.copiarFiltradas();
+        new AgrupacionTabla(criterio, mostradas).execute();
+    }
+
+    /**
+     * Agrupa fuera del hilo de eventos (el motor reparte las filas entre los
+     * núcleos) y muestra los totales en un diálogo.
+     */
+    private class AgrupacionTabla extends javax.swing.SwingWorker<Map<String, TotalesExportaciones.Totales>, Void> {
+
+        private final CriterioAgrupacion criterio;
+        private final List<Exportacion> mostradas;
+        private long milisegundos;
+
+        AgrupacionTabla(CriterioAgrupacion criterio, List<Exportacion> mostradas) {
+            this.criterio = criterio;
+            this.mostradas = mostradas;
+        }
+
+        @Override
+        protected Map<String, TotalesExportaciones.Totales> doInBackground() {
+            long inicio = System.nanoTime();
+            Map<String, TotalesExportaciones.Totales> grupos = mostradas == null
+                    ? repositorio.agrupar(criterio)
+                    : MotorAgrupacion.agrupar(mostradas, criterio);
+            milisegundos = (System.nanoTime() - inicio) / 1000000;
+            return grupos;
+        }
+
+        @Override
+        protected void done() {
+            try {
+                mostrarGrupos(criterio, get(), milisegundos);
+            } catch (InterruptedException | java.util.concurrent.ExecutionException e) {
+                JOptionPane.showMessageDialog(VentanaPrincipal.this, "Error al agrupar las exportaciones.", "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    private void mostrarGrupos(CriterioAgrupacion criterio, Map<String, TotalesExportaciones.Totales> grupos, long milisegundos) {
+        Object[][] filas = new Object[grupos.size()][];
+        int i = 0;
+        for (Map.Entry<String, TotalesExportaciones.Totales> grupo : grupos.entrySet()) {
+            TotalesExportaciones.Totales t = grupo.getValue();
+            filas[i++] = new Object[] {grupo.getKey(), t.getCantidad(), t.getCostoTotal(), t.getKilogramos()};
+        }
+        javax.swing.JTable tabla = new javax.swing.JTable(new javax.swing.table.DefaultTableModel(filas,
+                new String[] {criterio.getNombre(), "Exportaciones", "Costo Total", "Kilogramos"}) {
+            private final Class<?>[] tipos = {String.class, Integer.class, Double.class, Double.class};
+
+            @Override
+            public Class<?> getColumnClass(int columna) {
+                return tipos[columna];
+            }
+
+            @Override
+            public boolean isCellEditable(int fila, int columna) {
+                return false;
+            }
+        });
+        tabla.getColumnModel().getColumn(2).setCellRenderer(new RenderizadorCosto());
+        tabla.setAutoCreateRowSorter(true);
+        javax.swing.JScrollPane desplazamiento = new javax.swing.JScrollPane(tabla);
+        desplazamiento.setPreferredSize(new java.awt.Dimension(560, 320));
+        String resumen = String.format("%d grupos (calculados en %d ms)", grupos.size(), milisegundos);
+        Object[] contenido = {resumen, desplazamiento};
+        JOptionPane.showMessageDialog(this, contenido, "Totales por " + criterio.getNombre().toLowerCase(), JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    private void mostrarErrorGuardado() {
+        JOptionPane.showMessageDialog(this, "Error al guardar los datos en el archivo.", "Error de Archivo", JOptionPane.ERROR_MESSAGE);
+    }
+
+    /**
+     * Avisa que la fila elegida ya no está en el registro (se eliminó o se
+     * recargó desde otro hilo) y vuelve a mostrar los datos actuales.
+     */
+    private void mostrarFilaInexistente() {
+        JOptionPane.showMessageDialog(this, "La exportación seleccionada ya no existe en el registro.", "Error", JOptionPane.ERROR_MESSAGE);
+        this.filtrar();
+    }
+
     /**
      * This method is called from within the constructor to initialize the form.
      * WARNING: Do NOT modify this code. The content of this method is always
@@ -63,6 +393,8 @@ public class VentanaPrincipal extends javax.swing.JFrame {
         btnNueva = new javax.swing.JButton();
         btnModificar = new javax.swing.JButton();
         btnEliminar = new javax.swing.JButton();
+        btnImportar = new javax.swing.JButton();
+        btnExportar = new javax.swing.JButton();
         jScrollPane1 = new javax.swing.JScrollPane();
         tblExportaciones = new javax.swing.JTable();
         jPanel1 = new javax.swing.JPanel();
@@ -70,6 +402,7 @@ public class VentanaPrincipal extends javax.swing.JFrame {
         cmbTipoFiltro = new javax.swing.JComboBox<>();
         btnFiltrar = new javax.swing.JButton();
         btnMostrarTodo = new javax.swing.JButton();
+        barCarga = new javax.swing.JProgressBar();
 
         setDefaultCloseOperation(javax.swing.WindowConstants.EXIT_ON_CLOSE);
 
@@ -94,6 +427,20 @@ public class VentanaPrincipal extends javax.swing.JFrame {
             }
         });
 
+        btnImportar.setText("Importar CSV");
+        btnImportar.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                btnImportarActionPerformed(evt);
+            }
+        });
+
+        btnExportar.setText("Exportar");
+        btnExportar.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                btnExportarActionPerformed(evt);
+            }
+        });
+
         tblExportaciones.setModel(new javax.swing.table.DefaultTableModel(
             new Object [][] {
                 {null, null, null, null},
@@ -113,7 +460,7 @@ public class VentanaPrincipal extends javax.swing.JFrame {
             }
         });
 
-        cmbTipoFiltro.setModel(new javax.swing.DefaultComboBoxModel<>(new String[] { "Por ID Cliente", "Por Zona de Envío" }));
+        cmbTipoFiltro.setModel(new javax.swing.DefaultComboBoxModel<>(new String[] { "Por ID Cliente", "Por Zona de Envío", "Por Fecha de Exportación", "Consulta combinada" }));
 
         btnFiltrar.setText("Filtrar");
         btnFiltrar.addActionListener(new java.awt.event.ActionListener() {
@@ -158,6 +505,8 @@ public class VentanaPrincipal extends javax.swing.JFrame {
                 .addContainerGap(javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
         );
 
+        barCarga.setStringPainted(true);
+
         javax.swing.GroupLayout layout = new javax.swing.GroupLayout(getContentPane());
         getContentPane().setLayout(layout);
         layout.setHorizontalGroup(
@@ -167,6 +516,9 @@ public class VentanaPrincipal extends javax.swing.JFrame {
                     .addGroup(javax.swing.GroupLayout.Alignment.TRAILING, layout.createSequentialGroup()
                         .addContainerGap()
                         .addComponent(jScrollPane1))
+                    .addGroup(javax.swing.GroupLayout.Alignment.TRAILING, layout.createSequentialGroup()
+                        .addContainerGap()
+                        .addComponent(barCarga, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
                     .addGroup(layout.createSequentialGroup()
                         .addGap(265, 265, 265)
                         .addComponent(btnNueva)
@@ -174,6 +526,10 @@ public class VentanaPrincipal extends javax.swing.JFrame {
                         .addComponent(btnModificar)
                         .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                         .addComponent(btnEliminar, javax.swing.GroupLayout.PREFERRED_SIZE, 166, javax.swing.GroupLayout.PREFERRED_SIZE)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                        .addComponent(btnImportar)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                        .addComponent(btnExportar)
                         .addGap(0, 0, Short.MAX_VALUE)))
                 .addContainerGap())
             .addGroup(layout.createSequentialGroup()
@@ -188,12 +544,16 @@ public class VentanaPrincipal extends javax.swing.JFrame {
                 .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
                     .addComponent(btnNueva)
                     .addComponent(btnModificar)
-                    .addComponent(btnEliminar))
+                    .addComponent(btnEliminar)
+                    .addComponent(btnImportar)
+                    .addComponent(btnExportar))
                 .addGap(29, 29, 29)
                 .addComponent(jPanel1, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
                 .addGap(32, 32, 32)
                 .addComponent(jScrollPane1, javax.swing.GroupLayout.PREFERRED_SIZE, 176, javax.swing.GroupLayout.PREFERRED_SIZE)
-                .addContainerGap(92, Short.MAX_VALUE))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(barCarga, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                .addContainerGap(65, Short.MAX_VALUE))
         );
 
         pack();
@@ -208,17 +568,26 @@ public class VentanaPrincipal extends javax.swing.JFrame {
         Exportacion exportacionCreada = dialogo.getNuevaExportacion();
 
         if (exportacionCreada != null) {
-            this.listaExportaciones.add(exportacionCreada);
-            this.actualizarTabla(this.listaExportaciones);
-
-            // Llama al método para guardar la lista actualizada en el archivo
-            this.guardarDatos();
+            try {
+                this.repositorio.insertar(exportacionCreada);
+            } catch (IOException e) {
+                this.mostrarErrorGuardado();
+                return;
+            }
+            if (this.cargando) {
+                // Mientras llegan lotes la tabla se rehace, para dejar la fila nueva después de lo leído
+                this.insertadasDuranteCarga++;
+                this.filtrar();
+            } else {
+                // Solo se agrega su fila (si cumple el filtro): la selección y el desplazamiento no cambian
+                this.modeloTabla.exportacionInsertada(exportacionCreada);
+            }
         }
     }//GEN-LAST:event_btnNuevaActionPerformed
 
     private void btnEliminarActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnEliminarActionPerformed
         // 1. Obtiene el índice de la fila seleccionada en la tabla
-        int indiceSeleccionado = this.tblExportaciones.getSelectedRow();
+        int indiceSeleccionado = this.filaSeleccionadaEnModelo();
 
         // 2. Valida si realmente hay una fila seleccionada
         if (indiceSeleccionado == -1) {
@@ -227,28 +596,146 @@ public class VentanaPrincipal extends javax.swing.JFrame {
             return;
         }
 
+        // La fila pudo desaparecer si el registro cambió desde otro hilo
+        Exportacion seleccionada = this.modeloTabla.getExportacion(indiceSeleccionado);
+        if (seleccionada == null) {
+            this.mostrarFilaInexistente();
+            return;
+        }
+
         // 3. Pide confirmación al usuario antes de borrar
         int confirmacion = javax.swing.JOptionPane.showConfirmDialog(this, "¿Está seguro de que desea eliminar el registro seleccionado?", "Confirmar Eliminación", javax.swing.JOptionPane.YES_NO_OPTION);
 
         // 4. Si el usuario confirma (presiona "Sí")
         if (confirmacion == javax.swing.JOptionPane.YES_OPTION) {
-            // Elimina el objeto de la lista en memoria usando su índice
-            this.listaExportaciones.remove(indiceSeleccionado);
-
-            // Refresca la tabla para que se vea el cambio
-            this.actualizarTabla(this.listaExportaciones);
+            // Elimina el objeto del repositorio usando su clave, que no depende del filtro ni del orden
+            try {
+                this.repositorio.eliminarPorClave(seleccionada.getClave());
+            } catch (IOException e) {
+                this.mostrarErrorGuardado();
+                return;
+            } catch (IllegalArgumentException e) {
+                // Se eliminó mientras se pedía la confirmación
+                this.mostrarFilaInexistente();
+                return;
+            }
 
-            // Guarda la lista actualizada (sin el objeto) en el archivo
-            this.guardarDatos();
+            // Quita solo esa fila de la tabla
+            this.modeloTabla.exportacionEliminada(indiceSeleccionado);
 
             // Muestra un mensaje de éxito
             javax.swing.JOptionPane.showMessageDialog(this, "Registro eliminado con éxito.", "Eliminación Completa", javax.swing.JOptionPane.INFORMATION_MESSAGE);
         }
     }//GEN-LAST:event_btnEliminarActionPerformed
 
+    private void btnImportarActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnImportarActionPerformed
+        // 1. Pide el archivo CSV a importar
+        javax.swing.JFileChooser selector = new javax.swing.JFileChooser(".");
+        selector.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("Archivos CSV", "csv"));
+        if (selector.showOpenDialog(this) != javax.swing.JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File archivo = selector.getSelectedFile();
+
+        // 2. Importa en segundo plano; las filas se insertan por bloques en el repositorio
+        this.btnImportar.setEnabled(false);
+        this.barCarga.setIndeterminate(true);
+        this.barCarga.setString("Importando " + archivo.getName() + "...");
+        this.barCarga.setVisible(true);
+        new javax.swing.SwingWorker<ResultadoImportacion, Void>() {
+            @Override
+            protected ResultadoImportacion doInBackground() throws Exception {
+                return new ImportadorCsv(repositorio).importar(archivo);
+            }
+
+            @Override
+            protected void done() {
+                btnImportar.setEnabled(true);
+                barCarga.setIndeterminate(false);
+                barCarga.setString("Cargando exportaciones...");
+                barCarga.setVisible(cargando);
+                if (modeloTabla.isMostrandoTodo() && !cargando) {
+                    modeloTabla.filasAgregadasAlFinal();
+                } else {
+                    filtrar();
+                }
+                try {
+                    mostrarResultadoImportacion(get());
+                } catch (InterruptedException | java.util.concurrent.ExecutionException e) {
+                    Throwable causa = e.getCause() != null ? e.getCause() : e;
+                    String mensaje = "Error al importar el archivo: " + causa.getMessage();
+                    if (causa instanceof ImportacionInterrumpidaException) {
+                        // Lo anterior a la línea del error ya quedó guardado
+                        ImportacionInterrumpidaException interrumpida = (ImportacionInterrumpidaException) causa;
+                        mensaje = "Error al importar el archivo en la línea " + interrumpida.getLinea() + ": "
+                                + (causa.getCause() != null ? causa.getCause().getMessage() : causa.getMessage())
+                                + "\nLas filas anteriores quedaron guardadas (importadas: "
+                                + interrumpida.getResultadoParcial().getImportadas() + ", rechazadas: "
+                                + interrumpida.getResultadoParcial().getRechazadas() + ").";
+                    }
+                    JOptionPane.showMessageDialog(VentanaPrincipal.this, mensaje, "Error de Importación", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }//GEN-LAST:event_btnImportarActionPerformed
+
+    private void btnExportarActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnExportarActionPerformed
+        // 1. Pide el archivo destino; la extensión elige el formato (.csv o .jsonl, con .gz para comprimir)
+        javax.swing.JFileChooser selector = new javax.swing.JFileChooser(".");
+        selector.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("CSV o JSON Lines (.csv, .jsonl, .gz)", "csv", "jsonl", "gz"));
+        selector.setSelectedFile(new File("Exportaciones.csv"));
+        if (selector.showSaveDialog(this) != javax.swing.JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File archivo = selector.getSelectedFile();
+
+        // 2. Exporta lo que muestra la tabla (con el filtro aplicado, si hay uno) en segundo plano
+        final java.util.function.Predicate<Exportacion> filtro = this.filtroActual;
+        this.btnExportar.setEnabled(false);
+        new javax.swing.SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() throws Exception {
+                return new ExportadorRegistro(repositorio).exportar(archivo, filtro);
+            }
+
+            @Override
+            protected void done() {
+                btnExportar.setEnabled(true);
+                try {
+                    JOptionPane.showMessageDialog(VentanaPrincipal.this, "Exportaciones escritas: " + get() + "\nArchivo: " + archivo.getName(), "Exportación Completa", JOptionPane.INFORMATION_MESSAGE);
+                } catch (InterruptedException | java.util.concurrent.ExecutionException e) {
+                    Throwable causa = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(VentanaPrincipal.this, "Error al exportar el archivo: " + causa.getMessage(), "Error de Archivo", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }//GEN-LAST:event_btnExportarActionPerformed
+
+    private void mostrarResultadoImportacion(ResultadoImportacion resultado) {
+        StringBuilder mensaje = new StringBuilder();
+        mensaje.append("Exportaciones importadas: ").append(resultado.getImportadas())
+                .append("\nFilas rechazadas: ").append(resultado.getRechazadas());
+        if (resultado.getRechazadas() == 0) {
+            JOptionPane.showMessageDialog(this, mensaje.toString(), "Importación Completa", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        // Lista los motivos de rechazo en un área de texto con desplazamiento
+        StringBuilder detalle = new StringBuilder();
+        for (ResultadoImportacion.FilaRechazada fila : resultado.getFilasRechazadas()) {
+            detalle.append(fila).append('\n');
+        }
+        if (resultado.getRechazadas() > resultado.getFilasRechazadas().size()) {
+            detalle.append("... y ").append(resultado.getRechazadas() - resultado.getFilasRechazadas().size()).append(" más.\n");
+        }
+        javax.swing.JTextArea areaDetalle = new javax.swing.JTextArea(detalle.toString(), 12, 60);
+        areaDetalle.setEditable(false);
+        Object[] contenido = {mensaje.toString(), new javax.swing.JScrollPane(areaDetalle)};
+        JOptionPane.showMessageDialog(this, contenido, "Importación Completa", JOptionPane.WARNING_MESSAGE);
+    }
+
     private void btnModificarActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnModificarActionPerformed
         // 1. Obtiene el índice de la fila seleccionada
-        int indiceSeleccionado = this.tblExportaciones.getSelectedRow();
+        int indiceSeleccionado = this.filaSeleccionadaEnModelo();
 
         // 2. Valida que se haya seleccionado una fila
         if (indiceSeleccionado == -1) {
@@ -256,8 +743,12 @@ public class VentanaPrincipal extends javax.swing.JFrame {
             return;
         }
 
-        // 3. Obtiene el objeto original de la lista
-        Exportacion expOriginal = this.listaExportaciones.get(indiceSeleccionado);
+        // 3. Obtiene el objeto original que muestra esa fila
+        Exportacion expOriginal = this.modeloTabla.getExportacion(indiceSeleccionado);
+        if (expOriginal == null) {
+            this.mostrarFilaInexistente();
+            return;
+        }
 
         // 4. Abre el diálogo, pasándole el objeto a editar
         DialogoNuevaExportacion dialogo = new DialogoNuevaExportacion(this, true, expOriginal);
@@ -268,86 +759,59 @@ public class VentanaPrincipal extends javax.swing.JFrame {
 
         // 6. Si el usuario guardó cambios, actualiza la lista
         if (expModificada != null) {
-            // Reemplaza el objeto viejo con el nuevo en la misma posición
-            this.listaExportaciones.set(indiceSeleccionado, expModificada);
+            // Reemplaza el objeto viejo con el nuevo, que conserva su clave
+            try {
+                this.repositorio.actualizarPorClave(expOriginal.getClave(), expModificada);
+            } catch (IOException e) {
+                this.mostrarErrorGuardado();
+                return;
+            } catch (IllegalArgumentException e) {
+                // Se eliminó mientras el diálogo estaba abierto
+                this.mostrarFilaInexistente();
+                return;
+            }
 
-            // Refresca la tabla y guarda los datos
-            this.actualizarTabla(this.listaExportaciones);
-            this.guardarDatos();
+            // Actualiza solo esa fila (o la quita, si ya no cumple el filtro)
+            this.modeloTabla.exportacionActualizada(indiceSeleccionado, expModificada);
 
             JOptionPane.showMessageDialog(this, "Registro modificado con éxito.", "Modificación Completa", JOptionPane.INFORMATION_MESSAGE);
         }
     }//GEN-LAST:event_btnModificarActionPerformed
 
     private void txtFiltroActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_txtFiltroActionPerformed
-        // TODO add your handling code here:
+        // Enter: filtra de inmediato, sin esperar a que el usuario deje de escribir
+        this.filtrar();
     }//GEN-LAST:event_txtFiltroActionPerformed
 
     private void btnFiltrarActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnFiltrarActionPerformed
-        String textoBusqueda = txtFiltro.getText().toLowerCase();
-        String tipoFiltro = (String) cmbTipoFiltro.getSelectedItem();
-
-        // Creamos una nueva lista vacía para guardar los resultados del filtro
-        ArrayList<Exportacion> listaFiltrada = new ArrayList<>();
-
-        // Recorremos la lista principal de exportaciones
-        for (Exportacion exp : this.listaExportaciones) {
-            if (tipoFiltro.equals("Por ID Cliente")) {
-                // Si el ID del cliente (en minúsculas) contiene el texto de búsqueda
-                if (exp.getIdCliente().toLowerCase().contains(textoBusqueda)) {
-                    listaFiltrada.add(exp); // Lo agregamos a la lista de resultados
-                }
-            } else if (tipoFiltro.equals("Por Zona de Envío")) {
-                // Si la zona de envío (en minúsculas) contiene el texto de búsqueda
-                if (exp.getZonaEnvio().toLowerCase().contains(textoBusqueda)) {
-                    listaFiltrada.add(exp); // Lo agregamos a la lista de resultados
-                }
-            }
-        }
-
-        // Llamamos a actualizarTabla, pasándole la lista con los resultados del filtro
-        this.actualizarTabla(listaFiltrada);
+        // Filtra de inmediato, sin esperar a que el usuario deje de escribir
+        this.filtrar();
     }//GEN-LAST:event_btnFiltrarActionPerformed
 
     private void btnMostrarTodoActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnMostrarTodoActionPerformed
-        // Llama a actualizarTabla con la lista principal completa
-        this.actualizarTabla(this.listaExportaciones);
-        // Opcional: Limpia el campo de texto del filtro
+        // Limpia el campo de texto del filtro y muestra todas las exportaciones del repositorio
         txtFiltro.setText("");
+        this.filtrar();
     }//GEN-LAST:event_btnMostrarTodoActionPerformed
 
-    private void actualizarTabla(ArrayList<Exportacion> listaAMostrar) {
-        // Define los nombres de las columnas para la tabla
-        String[] columnas = {"ID Cliente", "Nombre", "Fecha", "Zona Envío", "Servicio", "Costo Total"};
-
-        // Crea un modelo de tabla no editable
-        javax.swing.table.DefaultTableModel modeloTabla = new javax.swing.table.DefaultTableModel(columnas, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; 
-            }
-        };
-
-        // Recorre la lista de exportaciones
-        for (Exportacion exp : listaAMostrar) {
-            // Crea una fila con los datos de cada objeto
-            Object[] fila = {
-                exp.getIdCliente(),
-                exp.getNombreCompleto(),
-                exp.getFechaExportacionFormateada(),
-                exp.getZonaEnvio(),
-                exp.getTipoServicio(),
-                String.format("$%.2f", exp.getCostoTotal()) // Formatea el costo
-            };
-            // Agrega la fila al modelo
-            modeloTabla.addRow(fila);
-        }
+    /**
+     * Fila del modelo que corresponde a la fila seleccionada, que puede estar
+     * en otro lugar si la tabla está ordenada por una columna.
+     * @return La fila del modelo, o -1 si no hay selección.
+     */
+    private int filaSeleccionadaEnModelo() {
+        int filaVista = this.tblExportaciones.getSelectedRow();
+        return filaVista == -1 ? -1 : this.tblExportaciones.convertRowIndexToModel(filaVista);
+    }
 
-        // Asigna el modelo recién creado a nuestra JTable
-        this.tblExportaciones.setModel(modeloTabla);
+    private void mostrarTodo() {
+        // El modelo lee directo del repositorio: no hay filas que copiar
+        this.modeloTabla.mostrarTodo();
+        this.filtroActual = null;
+        // Durante la carga solo se permiten inserciones: el resto de las filas son las ya leídas
+        this.filasCargadas = this.modeloTabla.getRowCount() - (this.cargando ? this.insertadasDuranteCarga : 0);
     }
-    
-    
+
     /**
      * @param args the command line arguments
      */
@@ -384,8 +848,11 @@ public class VentanaPrincipal extends javax.swing.JFrame {
     }
 
     // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JProgressBar barCarga;
     private javax.swing.JButton btnEliminar;
+    private javax.swing.JButton btnExportar;
     private javax.swing.JButton btnFiltrar;
+    private javax.swing.JButton btnImportar;
     private javax.swing.JButton btnModificar;
     private javax.swing.JButton btnMostrarTodo;
     private javax.swing.JButton btnNueva;
@@ -0,0 +1,172 @@
+package estadisticas;
+
+import Clases.Exportacion;
+import Clases.ExportacionCargaPesada;
+import Clases.ExportacionCargaSuelta;
+import busqueda.RangoFechas;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del cubo contra una suma que recorre todas las exportaciones.
+ */
+public class CuboExportacionesTest {
+
+    private static final String[] ZONAS = {"Chile", "Perú", "Japón", "Estados Unidos"};
+    private static final String[] SERVICIOS = {"Barco", "Avion"};
+    private static final LocalDate PRIMER_DIA = LocalDate.of(2023, 11, 1);
+
+    private static Exportacion exportacionAlAzar(Random azar) {
+        String idCliente = String.format("2-%04d-%04d", azar.nextInt(10000), azar.nextInt(10000));
+        String zona = ZONAS[azar.nextInt(ZONAS.length)];
+        String servicio = SERVICIOS[azar.nextInt(SERVICIOS.length)];
+        double kilos = 1 + azar.nextInt(100000) / 100.0;
+        Exportacion exp;
+        if (azar.nextBoolean()) {
+            exp = new ExportacionCargaPesada(idCliente, "Cliente al azar", zona, servicio, kilos,
+                    ExportacionCargaPesada.TIPOS_CARGA.get(azar.nextInt(ExportacionCargaPesada.TIPOS_CARGA.size())));
+        } else {
+            exp = new ExportacionCargaSuelta(idCliente, "Cliente al azar", zona, servicio, kilos,
+                    1 + azar.nextInt(5000) / 10.0);
+        }
+        exp.setFechaExportacion(PRIMER_DIA.plusDays(azar.nextInt(500)));
+        return exp;
+    }
+
+    /**
+     * Suma las exportaciones del rango una por una, con la misma clave que las filas del resumen.
+     */
+    private static Map<String, double[]> recorrerTodas(List<Exportacion> exportaciones, RangoFechas rango,
+            Periodo periodo) {
+        Map<String, double[]> sumas = new TreeMap<>();
+        for (Exportacion exp : exportaciones) {
+            if (!rango.contiene(exp.getFechaExportacion())) {
+                continue;
+            }
+            String tipo = exp instanceof ExportacionCargaPesada ? "ECP" : "ECS";
+            String clave = periodo.inicio(exp.getFechaExportacion()) + " " + exp.getZonaEnvio() + " "
+                    + exp.getTipoServicio() + " " + tipo;
+            double[] suma = sumas.get(clave);
+            if (suma == null) {
+                suma = new double[3];
+                sumas.put(clave, suma);
+            }
+            suma[0]++;
+            suma[1] += exp.getCostoTotal();
+            suma[2] += exp.getKilogramosEmbalar();
+        }
+        return sumas;
+    }
+
+    private static void assertMismoResumen(List<Exportacion> exportaciones, CuboExportaciones cubo,
+            RangoFechas rango, Periodo periodo) {
+        Map<String, double[]> esperado = recorrerTodas(exportaciones, rango, periodo);
+        List<ResumenPeriodo> resumen = cubo.resumir(rango, periodo);
+        assertEquals(esperado.size(), resumen.size());
+        LocalDate inicioAnterior = null;
+        for (ResumenPeriodo fila : resumen) {
+            String clave = fila.getInicio() + " " + fila.getZonaEnvio() + " " + fila.getTipoServicio() + " "
+                    + fila.getTipoExportacion();
+            double[] suma = esperado.get(clave);
+            assertNotNull("Fila de más: " + clave, suma);
+            assertEquals(clave, (int) suma[0], fila.getTotales().getCantidad());
+            assertEquals(clave, suma[1], fila.getTotales().getCostoTotal(), 0.01);
+            assertEquals(clave, suma[2], fila.getTotales().getKilogramos(), 0.01);
+            // Los períodos vienen en orden
+            assertTrue(inicioAnterior == null || !fila.getInicio().isBefore(inicioAnterior));
+            inicioAnterior = fila.getInicio();
+        }
+    }
+
+    @Test
+    public void coincideConElRecorridoCompletoDespuesDeCambiosAlAzar() {
+        Random azar = new Random(23);
+        CuboExportaciones cubo = new CuboExportaciones();
+        List<Exportacion> exportaciones = new ArrayList<>();
+        for (int paso = 0; paso < 20000; paso++) {
+            int operacion = azar.nextInt(10);
+            if (operacion < 5 || exportaciones.isEmpty()) {
+                Exportacion exp = exportacionAlAzar(azar);
+                exportaciones.add(exp);
+                cubo.agregar(exp);
+            } else if (operacion < 7) {
+                int indice = azar.nextInt(exportaciones.size());
+                Exportacion nueva = exportacionAlAzar(azar);
+                cubo.reemplazar(exportaciones.set(indice, nueva), nueva);
+            } else {
+                int indice = azar.nextInt(exportaciones.size());
+                cubo.quitar(exportaciones.remove(indice));
+            }
+        }
+
+        RangoFechas todo = RangoFechas.entre(PRIMER_DIA, PRIMER_DIA.plusDays(500));
+        for (Periodo periodo : Periodo.values()) {
+            assertMismoResumen(exportaciones, cubo, todo, periodo);
+        }
+        // Un rango que corta un mes por la mitad suma solo los días del rango
+        RangoFechas parte = RangoFechas.entre(LocalDate.of(2024, 2, 10), LocalDate.of(2024, 8, 20));
+        assertMismoResumen(exportaciones, cubo, parte, Periodo.MES);
+        assertMismoResumen(exportaciones, cubo, parte, Periodo.DIA);
+    }
+
+    @Test
+    public void quitarTodoDejaElCuboVacio() {
+        Random azar = new Random(7);
+        CuboExportaciones cubo = new CuboExportaciones();
+        List<Exportacion> exportaciones = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Exportacion exp = exportacionAlAzar(azar);
+            exportaciones.add(exp);
+            cubo.agregar(exp);
+        }
+        for (Exportacion exp : exportaciones) {
+            cubo.quitar(exp);
+        }
+        assertEquals(0, cubo.tamano());
+        assertTrue(cubo.resumir(RangoFechas.entre(PRIMER_DIA, PRIMER_DIA.plusDays(500)), Periodo.ANIO).isEmpty());
+    }
+
+    @Test
+    public void agrupaZonasSinDistinguirMayusculasNiTildes() {
+        CuboExportaciones cubo = new CuboExportaciones();
+        Exportacion primera = new ExportacionCargaSuelta("3-0000-0001", "Cliente de prueba", "Perú", "Avion", 10, 1);
+        Exportacion segunda = new ExportacionCargaSuelta("3-0000-0002", "Cliente de prueba", "PERU", "Avion", 20, 1);
+        primera.setFechaExportacion(LocalDate.of(2024, 5, 1));
+        segunda.setFechaExportacion(LocalDate.of(2024, 5, 2));
+        cubo.agregar(primera);
+        cubo.agregar(segunda);
+        List<ResumenPeriodo> resumen = cubo.resumir(RangoFechas.entre(LocalDate.of(2024, 5, 1),
+                LocalDate.of(2024, 5, 31)), Periodo.MES);
+        assertEquals(1, resumen.size());
+        assertEquals(2, resumen.get(0).getTotales().getCantidad());
+        assertEquals(30, resumen.get(0).getTotales().getKilogramos(), 0.001);
+    }
+
+    @Test
+    public void seLeeIgualQueSeGuardo() throws IOException {
+        Random azar = new Random(5);
+        CuboExportaciones cubo = new CuboExportaciones();
+        List<Exportacion> exportaciones = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            Exportacion exp = exportacionAlAzar(azar);
+            exportaciones.add(exp);
+            cubo.agregar(exp);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        cubo.escribir(new DataOutputStream(bytes));
+        CuboExportaciones leido = CuboExportaciones.leer(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(cubo.tamano(), leido.tamano());
+        assertMismoResumen(exportaciones, leido, RangoFechas.entre(PRIMER_DIA, PRIMER_DIA.plusDays(500)), Periodo.MES);
+    }
+}
@@ -0,0 +1,120 @@
+package persistencia;
+
+import Clases.Exportacion;
+import Clases.ExportacionCargaPesada;
+import Clases.ExportacionCargaSuelta;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static persistencia.DatosPrueba.*;
+
+/**
+ * Pruebas del formato binario: cada exportación y las listas completas se
+ * leen igual que se escribieron.
+ */
+public class CodecExportacionTest {
+
+    private static Exportacion idaYVuelta(Exportacion exp) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodecExportacion.escribir(new DataOutputStream(bytes), exp);
+        DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        Exportacion leida = CodecExportacion.leer(entrada);
+        assertEquals("Sobran bytes después de la exportación", 0, entrada.available());
+        return leida;
+    }
+
+    @Test
+    public void leeCadaTipoIgualQueSeEscribio() throws IOException {
+        for (int i = 0; i < 200; i++) {
+            Exportacion exp = exportacion(i);
+            Exportacion leida = idaYVuelta(exp);
+            assertSame(exp.getClass(), leida.getClass());
+            assertEquals(describir(exp), describir(leida));
+            assertEquals(exp.getFechaExportacion(), leida.getFechaExportacion());
+            assertEquals(exp.getCostoTotal(), leida.getCostoTotal(), 0);
+        }
+    }
+
+    @Test
+    public void conservaTextosConAcentosYFechasLejanas() throws IOException {
+        ExportacionCargaSuelta exp = new ExportacionCargaSuelta("9-9999-9999", "Ñandú Pérez Müller", "Japón 日本",
+                "Avion", 0.001, 1234.5678);
+        exp.setFechaExportacion(LocalDate.of(1901, 12, 31));
+        Exportacion leida = idaYVuelta(exp);
+        assertEquals("Ñandú Pérez Müller", leida.getNombreCompleto());
+        assertEquals("Japón 日本", leida.getZonaEnvio());
+        assertEquals(LocalDate.of(1901, 12, 31), leida.getFechaExportacion());
+        assertEquals(1234.5678, ((ExportacionCargaSuelta) leida).getPiesCarga(), 0);
+    }
+
+    @Test(expected = EOFException.class)
+    public void fallaConUnaExportacionIncompleta() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodecExportacion.escribir(new DataOutputStream(bytes), exportacion(2));
+        byte[] datos = bytes.toByteArray();
+        CodecExportacion.leer(new DataInputStream(new ByteArrayInputStream(datos, 0, datos.length - 3)));
+    }
+
+    @Test
+    public void guardaYCargaUnaListaConSuGeneracion() throws IOException {
+        File archivo = File.createTempFile("codec", ".dat");
+        try {
+            List<Exportacion> lista = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                lista.add(exportacion(i));
+            }
+            CodecExportacion.guardarLista(archivo, lista, 42);
+            assertTrue(CodecExportacion.esFormatoBinario(archivo));
+            assertEquals(42, CodecExportacion.leerGeneracion(archivo));
+
+            List<Integer> lotes = new ArrayList<>();
+            List<Exportacion> leidas = CodecExportacion.cargarLista(archivo, 300, new OyenteCarga() {
+                @Override
+                public void cargaIniciada(int total) {
+                    assertEquals(1000, total);
+                }
+
+                @Override
+                public void loteLeido(List<Exportacion> lote) {
+                    lotes.add(lote.size());
+                }
+            });
+            assertMismasExportaciones(lista, leidas);
+            assertEquals(Arrays.asList(300, 300, 300, 100), lotes);
+        } finally {
+            Files.delete(archivo.toPath());
+        }
+    }
+
+    @Test
+    public void noConfundeOtrosArchivosConElFormatoBinario() throws IOException {
+        File archivo = File.createTempFile("codec", ".txt");
+        try {
+            Files.write(archivo.toPath(), "tipo,idCliente\n".getBytes("UTF-8"));
+            assertFalse(CodecExportacion.esFormatoBinario(archivo));
+        } finally {
+            Files.delete(archivo.toPath());
+        }
+    }
+
+    @Test
+    public void cargaPesadaConservaElTipoDeCarga() throws IOException {
+        for (String tipoCarga : ExportacionCargaPesada.TIPOS_CARGA) {
+            ExportacionCargaPesada exp = new ExportacionCargaPesada("1-0000-0001", "Cliente de prueba", "Chile",
+                    "Barco", 500, tipoCarga);
+            exp.setFechaExportacion(LocalDate.of(2024, 2, 29));
+            assertEquals(tipoCarga, ((ExportacionCargaPesada) idaYVuelta(exp)).getTipoCarga());
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package persistencia;
+
+import Clases.Exportacion;
+import Clases.ExportacionCargaPesada;
+import Clases.ExportacionCargaSuelta;
+import java.time.LocalDate;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Exportaciones de prueba y comparaciones compartidas por las pruebas de persistencia.
+ */
+final class DatosPrueba {
+
+    private DatosPrueba() {
+    }
+
+    /**
+     * @param numero Cualquier entero no negativo; el mismo número da siempre los mismos datos.
+     * @return Una exportación válida, de carga pesada si el número es par.
+     */
+    static Exportacion exportacion(int numero) {
+        String idCliente = String.format("1-%04d-%04d", numero / 10000 % 10000, numero % 10000);
+        Exportacion exp;
+        if (numero % 2 == 0) {
+            exp = new ExportacionCargaPesada(idCliente, "Cliente número " + numero, "Chile", "Barco",
+                    10 + numero, ExportacionCargaPesada.TIPOS_CARGA.get(numero % 3));
+        } else {
+            exp = new ExportacionCargaSuelta(idCliente, "Cliente número " + numero, "Perú", "Avion",
+                    10 + numero, 1 + numero % 40);
+        }
+        exp.setFechaExportacion(LocalDate.of(2024, 1, 1).plusDays(numero % 365));
+        return exp;
+    }
+
+    /**
+     * @return Todos los datos guardados de la exportación, incluidos los de su tipo.
+     */
+    static String describir(Exportacion exp) {
+        if (exp instanceof ExportacionCargaPesada) {
+            return "ECP " + exp + " " + ((ExportacionCargaPesada) exp).getTipoCarga();
+        }
+        return "ECS " + exp + " " + ((ExportacionCargaSuelta) exp).getPiesCarga();
+    }
+
+    static void assertMismasExportaciones(List<Exportacion> esperadas, List<Exportacion> leidas) {
+        assertEquals(esperadas.size(), leidas.size());
+        for (int i = 0; i < esperadas.size(); i++) {
+            assertEquals("Fila " + i, describir(esperadas.get(i)), describir(leidas.get(i)));
+        }
+    }
+}
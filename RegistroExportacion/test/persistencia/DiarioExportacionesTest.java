@@ -0,0 +1,185 @@
+package persistencia;
+
+import Clases.Exportacion;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static persistencia.DatosPrueba.*;
+
+/**
+ * Pruebas del diario: reproducción con un registro cortado al final,
+ * migración de los .dat antiguos y recuperación de una compactación
+ * interrumpida.
+ */
+public class DiarioExportacionesTest {
+
+    private File carpeta;
+    private File instantanea;
+    private File diario;
+    private File diarioAnterior;
+
+    @Before
+    public void crearCarpeta() throws IOException {
+        carpeta = Files.createTempDirectory("diario").toFile();
+        instantanea = new File(carpeta, "Exportaciones.dat");
+        diario = new File(carpeta, "Exportaciones.diario");
+        diarioAnterior = new File(carpeta, "Exportaciones.diario.anterior");
+    }
+
+    @After
+    public void borrarCarpeta() {
+        for (File archivo : carpeta.listFiles()) {
+            archivo.delete();
+        }
+        carpeta.delete();
+    }
+
+    @Test
+    public void reproduceInsercionesModificacionesYEliminaciones() throws IOException {
+        DiarioExportaciones registro = new DiarioExportaciones(instantanea, diario);
+        assertTrue(registro.cargar().isEmpty());
+        List<Exportacion> esperadas = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            esperadas.add(exportacion(i));
+            registro.registrarInsercion(exportacion(i));
+        }
+        esperadas.set(3, exportacion(100));
+        registro.registrarModificacion(3, exportacion(100));
+        esperadas.remove(7);
+        registro.registrarEliminacion(7);
+        registro.cerrar();
+
+        DiarioExportaciones otro = new DiarioExportaciones(instantanea, diario);
+        assertMismasExportaciones(esperadas, otro.cargar());
+        assertEquals(22, otro.getOperacionesEnDiario());
+    }
+
+    @Test
+    public void descartaElRegistroCortadoAlFinal() throws IOException {
+        DiarioExportaciones registro = new DiarioExportaciones(instantanea, diario);
+        registro.cargar();
+        List<Exportacion> esperadas = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            esperadas.add(exportacion(i));
+            registro.registrarInsercion(exportacion(i));
+        }
+        registro.registrarInsercion(exportacion(5));
+        registro.cerrar();
+
+        // Un corte de luz a mitad de la última escritura deja el registro incompleto
+        try (RandomAccessFile archivo = new RandomAccessFile(diario, "rw")) {
+            archivo.setLength(archivo.length() - 7);
+        }
+        registro = new DiarioExportaciones(instantanea, diario);
+        assertMismasExportaciones(esperadas, registro.cargar());
+
+        // Lo que se registra después no queda detrás del registro cortado
+        esperadas.add(exportacion(6));
+        registro.registrarInsercion(exportacion(6));
+        registro.cerrar();
+        assertMismasExportaciones(esperadas, new DiarioExportaciones(instantanea, diario).cargar());
+    }
+
+    @Test
+    public void descartaUnDiarioConSoloElEncabezadoCortado() throws IOException {
+        DiarioExportaciones registro = new DiarioExportaciones(instantanea, diario);
+        registro.cargar();
+        registro.registrarInsercion(exportacion(1));
+        registro.cerrar();
+        try (RandomAccessFile archivo = new RandomAccessFile(diario, "rw")) {
+            archivo.setLength(3);
+        }
+        assertTrue(new DiarioExportaciones(instantanea, diario).cargar().isEmpty());
+    }
+
+    @Test
+    public void migraLaInstantaneaSerializada() throws IOException {
+        ArrayList<Exportacion> antiguas = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            antiguas.add(exportacion(i));
+        }
+        try (ObjectOutputStream salida = new ObjectOutputStream(new FileOutputStream(instantanea))) {
+            salida.writeObject(antiguas);
+        }
+        assertFalse(CodecExportacion.esFormatoBinario(instantanea));
+
+        DiarioExportaciones registro = new DiarioExportaciones(instantanea, diario);
+        assertMismasExportaciones(antiguas, registro.cargar());
+        registro.cerrar();
+
+        assertTrue(CodecExportacion.esFormatoBinario(instantanea));
+        assertTrue(new File(carpeta, "Exportaciones.dat.bak").exists());
+        assertMismasExportaciones(antiguas, CodecExportacion.cargarLista(instantanea));
+        assertMismasExportaciones(antiguas, new DiarioExportaciones(instantanea, diario).cargar());
+    }
+
+    @Test
+    public void recuperaUnaCompactacionSinInstantanea() throws IOException {
+        DiarioExportaciones registro = new DiarioExportaciones(instantanea, diario);
+        registro.cargar();
+        List<Exportacion> esperadas = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            esperadas.add(exportacion(i));
+            registro.registrarInsercion(exportacion(i));
+        }
+        // Se aparta el diario, pero el programa se cierra antes de escribir la instantánea
+        registro.rotar();
+        assertTrue(diarioAnterior.exists());
+        for (int i = 10; i < 15; i++) {
+            esperadas.add(exportacion(i));
+            registro.registrarInsercion(exportacion(i));
+        }
+        esperadas.remove(2);
+        registro.registrarEliminacion(2);
+        registro.cerrar();
+
+        DiarioExportaciones otro = new DiarioExportaciones(instantanea, diario);
+        assertMismasExportaciones(esperadas, otro.cargar());
+        assertFalse(diarioAnterior.exists());
+        otro.cerrar();
+        assertMismasExportaciones(esperadas, new DiarioExportaciones(instantanea, diario).cargar());
+    }
+
+    @Test
+    public void ignoraElDiarioApartadoQueYaEstaEnLaInstantanea() throws IOException {
+        DiarioExportaciones registro = new DiarioExportaciones(instantanea, diario);
+        registro.cargar();
+        List<Exportacion> esperadas = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            esperadas.add(exportacion(i));
+            registro.registrarInsercion(exportacion(i));
+        }
+        long generacion = registro.rotar();
+        File copia = new File(carpeta, "copia");
+        Files.copy(diarioAnterior.toPath(), copia.toPath());
+        registro.escribirInstantanea(new ArrayList<>(esperadas), generacion);
+        esperadas.add(exportacion(10));
+        registro.registrarInsercion(exportacion(10));
+        registro.cerrar();
+
+        // El programa se cerró después de poner la instantánea en su lugar y antes de borrar el diario apartado
+        Files.move(copia.toPath(), diarioAnterior.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        assertMismasExportaciones(esperadas, new DiarioExportaciones(instantanea, diario).cargar());
+        assertFalse(diarioAnterior.exists());
+    }
+
+    @Test(expected = IOException.class)
+    public void noRotaConUnaCompactacionPendiente() throws IOException {
+        DiarioExportaciones registro = new DiarioExportaciones(instantanea, diario);
+        registro.cargar();
+        registro.registrarInsercion(exportacion(1));
+        registro.rotar();
+        registro.registrarInsercion(exportacion(2));
+        registro.rotar();
+    }
+}
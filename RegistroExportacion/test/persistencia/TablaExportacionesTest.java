@@ -0,0 +1,183 @@
+package persistencia;
+
+import Clases.Exportacion;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static persistencia.DatosPrueba.exportacion;
+
+/**
+ * Pruebas de la lista con lápidas: posiciones, claves y compactación,
+ * comparadas con un ArrayList que hace los mismos cambios.
+ */
+public class TablaExportacionesTest {
+
+    /**
+     * Verifica que la tabla tenga las mismas exportaciones que la referencia,
+     * en el mismo orden, y que cada clave lleve a su posición.
+     */
+    private static void assertIgual(List<Exportacion> referencia, TablaExportaciones tabla) {
+        assertEquals(referencia.size(), tabla.size());
+        Set<Long> claves = new HashSet<>();
+        for (int i = 0; i < referencia.size(); i++) {
+            Exportacion exp = tabla.get(i);
+            assertSame("Posición " + i, referencia.get(i), exp);
+            assertTrue("Clave repetida: " + exp.getClave(), claves.add(exp.getClave()));
+            assertEquals(i, tabla.posicionDe(exp.getClave()));
+            assertSame(exp, tabla.obtenerPorClave(exp.getClave()));
+        }
+        // El iterador salta las lápidas
+        assertEquals(referencia, new ArrayList<>(tabla));
+    }
+
+    @Test
+    public void asignaClavesCrecientesDesdeUno() {
+        TablaExportaciones tabla = new TablaExportaciones();
+        for (int i = 0; i < 5; i++) {
+            tabla.add(exportacion(i));
+        }
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i + 1, tabla.get(i).getClave());
+        }
+    }
+
+    @Test
+    public void eliminarDejaLasClavesDeLasDemas() {
+        TablaExportaciones tabla = new TablaExportaciones();
+        List<Exportacion> referencia = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Exportacion exp = exportacion(i);
+            tabla.add(exp);
+            referencia.add(exp);
+        }
+        Exportacion quitada = tabla.remove(3);
+        referencia.remove(3);
+        assertEquals(-1, tabla.posicionDe(quitada.getClave()));
+        assertNull(tabla.obtenerPorClave(quitada.getClave()));
+        assertEquals(5, tabla.get(3).getClave());
+        assertIgual(referencia, tabla);
+    }
+
+    @Test
+    public void reemplazarConservaLaClave() {
+        TablaExportaciones tabla = new TablaExportaciones();
+        tabla.addAll(Arrays.asList(exportacion(1), exportacion(2), exportacion(3)));
+        long clave = tabla.get(1).getClave();
+        Exportacion nueva = exportacion(20);
+        tabla.set(1, nueva);
+        assertEquals(clave, nueva.getClave());
+        assertSame(nueva, tabla.obtenerPorClave(clave));
+    }
+
+    @Test
+    public void conservaLaClaveLeidaSiEstaLibre() {
+        TablaExportaciones tabla = new TablaExportaciones();
+        Exportacion leida = exportacion(1);
+        leida.setClave(100);
+        tabla.add(leida);
+        Exportacion repetida = exportacion(2);
+        repetida.setClave(100);
+        tabla.add(repetida);
+        Exportacion nueva = exportacion(3);
+        tabla.add(nueva);
+
+        assertEquals(100, leida.getClave());
+        assertNotEquals(100, repetida.getClave());
+        assertTrue(nueva.getClave() > 100);
+        assertEquals(0, tabla.posicionDe(100));
+    }
+
+    @Test
+    public void deshacerUnaEliminacionDevuelveLaMismaClave() {
+        TablaExportaciones tabla = new TablaExportaciones();
+        for (int i = 0; i < 10; i++) {
+            tabla.add(exportacion(i));
+        }
+        Exportacion quitada = tabla.remove(4);
+        long clave = quitada.getClave();
+        tabla.add(4, quitada);
+        assertEquals(clave, quitada.getClave());
+        assertEquals(4, tabla.posicionDe(clave));
+    }
+
+    @Test
+    public void coincideConUnaListaEnCambiosAlAzar() {
+        Random azar = new Random(20);
+        TablaExportaciones tabla = new TablaExportaciones();
+        List<Exportacion> referencia = new ArrayList<>();
+        int numero = 0;
+        for (int paso = 0; paso < 20000; paso++) {
+            int operacion = azar.nextInt(10);
+            if (operacion < 4 || referencia.isEmpty()) {
+                Exportacion exp = exportacion(numero++);
+                tabla.add(exp);
+                referencia.add(exp);
+            } else if (operacion < 5) {
+                List<Exportacion> grupo = new ArrayList<>();
+                for (int i = azar.nextInt(20); i > 0; i--) {
+                    grupo.add(exportacion(numero++));
+                }
+                int indice = azar.nextInt(referencia.size() + 1);
+                tabla.addAll(indice, grupo);
+                referencia.addAll(indice, grupo);
+            } else if (operacion < 6) {
+                int indice = azar.nextInt(referencia.size());
+                Exportacion exp = exportacion(numero++);
+                tabla.set(indice, exp);
+                referencia.set(indice, exp);
+            } else {
+                // Más eliminaciones que inserciones: hay lápidas y compactaciones
+                int indice = azar.nextInt(referencia.size());
+                assertSame(referencia.remove(indice), tabla.remove(indice));
+            }
+            if (paso % 1000 == 0) {
+                assertIgual(referencia, tabla);
+            }
+        }
+        assertIgual(referencia, tabla);
+    }
+
+    @Test
+    public void eliminarDelPrincipioNoCorreLasClaves() {
+        TablaExportaciones tabla = new TablaExportaciones();
+        List<Exportacion> referencia = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            Exportacion exp = exportacion(i);
+            tabla.add(exp);
+            referencia.add(exp);
+        }
+        // Con cada eliminación el árbol de Fenwick traduce de nuevo las posiciones
+        for (int i = 0; i < 4000; i++) {
+            tabla.remove(i % 7 == 0 ? 0 : tabla.size() / 2);
+            referencia.remove(i % 7 == 0 ? 0 : referencia.size() / 2);
+            if (i % 500 == 0) {
+                assertIgual(referencia, tabla);
+            }
+        }
+        assertIgual(referencia, tabla);
+    }
+
+    @Test
+    public void vaciarYVolverALlenar() {
+        TablaExportaciones tabla = new TablaExportaciones();
+        for (int i = 0; i < 100; i++) {
+            tabla.add(exportacion(i));
+        }
+        tabla.subList(10, 90).clear();
+        assertEquals(20, tabla.size());
+        tabla.clear();
+        assertTrue(tabla.isEmpty());
+        List<Exportacion> referencia = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            Exportacion exp = exportacion(i);
+            tabla.add(exp);
+            referencia.add(exp);
+        }
+        assertIgual(referencia, tabla);
+    }
+}